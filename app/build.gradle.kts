@@ -47,6 +47,24 @@ android {
     buildFeatures {
         buildConfig = true
     }
+
+    testOptions {
+        unitTests {
+            isIncludeAndroidResources = true
+            // Bật MigrationBenchmarkTest: -Pmigration.benchmark=true
+            // Chỉnh MigrationBenchmarkTest: -Pmigration.entries=500000 -Pmigration.budgetMs=4000
+            // Chỉnh UsdaParserBenchmarkTest: -Pusda.iterations=500
+            // Chỉnh ProjectionBenchmarkTest: -Pprojection.iterations=2000
+            all {
+                listOf(
+                    "migration.benchmark", "migration.entries", "migration.budgetMs",
+                    "usda.iterations", "projection.iterations"
+                ).forEach { key ->
+                    project.findProperty(key)?.let { value -> it.systemProperty(key, value) }
+                }
+            }
+        }
+    }
 }
 
 dependencies {
@@ -79,6 +97,8 @@ dependencies {
 
     // Testing
     testImplementation(libs.junit)
+    testImplementation(libs.test.core)
+    testImplementation(libs.robolectric)
     androidTestImplementation(libs.ext.junit)
     androidTestImplementation(libs.espresso.core)
 }
\ No newline at end of file
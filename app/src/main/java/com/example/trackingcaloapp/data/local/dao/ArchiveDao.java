@@ -0,0 +1,51 @@
+package com.example.trackingcaloapp.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+/**
+ * DAO phía database chính cho việc chuyển lịch sử cũ sang file archive theo năm.
+ * Không lọc theo userId: archive chứa dữ liệu của mọi tài khoản.
+ */
+@Dao
+public interface ArchiveDao {
+
+    // ==================== QUERY ====================
+
+    /**
+     * Timestamp cũ nhất còn trong database chính (null nếu không có dữ liệu lịch sử)
+     */
+    @Query("SELECT MIN(t) FROM (" +
+           "SELECT MIN(date) AS t FROM food_entries " +
+           "UNION ALL SELECT MIN(date) FROM workout_entries " +
+           "UNION ALL SELECT MIN(timestamp) FROM weight_logs " +
+           "UNION ALL SELECT MIN(day) * 86400000 FROM food_entry_aggregates)")
+    Long getOldestTimestamp();
+
+    // ==================== DELETE ====================
+
+    @Query("DELETE FROM food_entries WHERE date BETWEEN :start AND :end")
+    void deleteFoodEntries(long start, long end);
+
+    @Query("DELETE FROM workout_entries WHERE date BETWEEN :start AND :end")
+    void deleteWorkoutEntries(long start, long end);
+
+    @Query("DELETE FROM weight_logs WHERE timestamp BETWEEN :start AND :end")
+    void deleteWeightLogs(long start, long end);
+
+    @Query("DELETE FROM food_entry_aggregates WHERE day BETWEEN :startDay AND :endDay")
+    void deleteAggregates(long startDay, long endDay);
+
+    /**
+     * Xóa dữ liệu của một năm đã được chép sang archive.
+     * daily_totals được giữ nguyên để charts dài hạn không cần mở archive.
+     */
+    @Transaction
+    default void deleteArchivedRange(long start, long end, long startDay, long endDay) {
+        deleteFoodEntries(start, end);
+        deleteWorkoutEntries(start, end);
+        deleteWeightLogs(start, end);
+        deleteAggregates(startDay, endDay);
+    }
+}
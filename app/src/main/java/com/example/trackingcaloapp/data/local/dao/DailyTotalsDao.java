@@ -0,0 +1,121 @@
+package com.example.trackingcaloapp.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+
+import com.example.trackingcaloapp.data.local.entity.DailyTotals;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Data Access Object cho bảng daily_totals.
+ * Đọc tổng hợp theo ngày và duy trì rollup khi entries thay đổi.
+ */
+@Dao
+public interface DailyTotalsDao {
+
+    /**
+     * Biểu thức SQL tính epoch day theo giờ địa phương từ cột date (ms).
+     * Chỉ dùng khi backfill cột localDay trong migration.
+     */
+    String LOCAL_DAY_OF_DATE = "CAST(julianday(date / 1000, 'unixepoch', 'localtime') - 2440587.5 AS INTEGER)";
+
+    /**
+     * Biểu thức SQL tính phút trong ngày theo giờ địa phương từ cột date (ms)
+     */
+    String LOCAL_MINUTE_OF_DATE = "(CAST(strftime('%H', date / 1000, 'unixepoch', 'localtime') AS INTEGER) * 60 + " +
+            "CAST(strftime('%M', date / 1000, 'unixepoch', 'localtime') AS INTEGER))";
+
+    /**
+     * Rebuild toàn bộ daily_totals từ food_entries, food_entry_aggregates và workout_entries.
+     * Một lần quét mỗi bảng, dùng cho rebuildAll().
+     */
+    String REBUILD_SQL = "INSERT OR REPLACE INTO daily_totals (userId, day, caloriesConsumed, protein, carbs, fat, " +
+            "breakfastCalories, lunchCalories, dinnerCalories, snackCalories, foodEntryCount, " +
+            "caloriesBurned, workoutDuration, workoutEntryCount) " +
+            "SELECT u, d, SUM(kcal), SUM(p), SUM(c), SUM(f), SUM(b), SUM(l), SUM(dn), SUM(s), SUM(fn), " +
+            "SUM(burned), SUM(dur), SUM(wn) FROM (" +
+            "SELECT userId AS u, localDay AS d, totalCalories AS kcal, totalProtein AS p, " +
+            "totalCarbs AS c, totalFat AS f, " +
+            "CASE WHEN mealType = 0 THEN totalCalories ELSE 0 END AS b, " +
+            "CASE WHEN mealType = 1 THEN totalCalories ELSE 0 END AS l, " +
+            "CASE WHEN mealType = 2 THEN totalCalories ELSE 0 END AS dn, " +
+            "CASE WHEN mealType = 3 THEN totalCalories ELSE 0 END AS s, " +
+            "1 AS fn, 0 AS burned, 0 AS dur, 0 AS wn FROM food_entries WHERE deletedAt IS NULL " +
+            "UNION ALL " +
+            "SELECT userId, day, totalCalories, totalProtein, totalCarbs, totalFat, " +
+            "CASE WHEN mealType = 0 THEN totalCalories ELSE 0 END, " +
+            "CASE WHEN mealType = 1 THEN totalCalories ELSE 0 END, " +
+            "CASE WHEN mealType = 2 THEN totalCalories ELSE 0 END, " +
+            "CASE WHEN mealType = 3 THEN totalCalories ELSE 0 END, " +
+            "entryCount, 0, 0, 0 FROM food_entry_aggregates " +
+            "UNION ALL " +
+            "SELECT userId, localDay, 0, 0, 0, 0, 0, 0, 0, 0, 0, caloriesBurned, duration, 1 " +
+            "FROM workout_entries WHERE deletedAt IS NULL" +
+            ") GROUP BY u, d";
+
+    // ==================== QUERY ====================
+
+    /**
+     * Lấy tổng hợp của một ngày (single-row lookup)
+     * @param day Epoch day theo giờ địa phương
+     */
+    @Query("SELECT * FROM daily_totals WHERE userId = :userId AND day = :day")
+    DailyTotals getByDaySync(int userId, long day);
+
+    /**
+     * Lấy tổng hợp các ngày trong khoảng (cho charts 7/30 ngày)
+     */
+    @Query("SELECT * FROM daily_totals WHERE userId = :userId AND day BETWEEN :startDay AND :endDay ORDER BY day ASC")
+    List<DailyTotals> getRange(int userId, long startDay, long endDay);
+
+    // ==================== MAINTENANCE ====================
+
+    /**
+     * Tính lại dòng tổng hợp của một ngày từ entries còn hiệu lực (và aggregates đã compact) của ngày đó.
+     * Phải được gọi trong cùng transaction với thao tác ghi entry.
+     * Chỉ quét entries có (userId, localDay) qua composite index.
+     */
+    @Query("INSERT OR REPLACE INTO daily_totals (userId, day, caloriesConsumed, protein, carbs, fat, " +
+           "breakfastCalories, lunchCalories, dinnerCalories, snackCalories, foodEntryCount, " +
+           "caloriesBurned, workoutDuration, workoutEntryCount) " +
+           "SELECT :userId, :day, COALESCE(SUM(totalCalories), 0), COALESCE(SUM(totalProtein), 0), " +
+           "COALESCE(SUM(totalCarbs), 0), COALESCE(SUM(totalFat), 0), " +
+           "COALESCE(SUM(CASE WHEN mealType = 0 THEN totalCalories END), 0), " +
+           "COALESCE(SUM(CASE WHEN mealType = 1 THEN totalCalories END), 0), " +
+           "COALESCE(SUM(CASE WHEN mealType = 2 THEN totalCalories END), 0), " +
+           "COALESCE(SUM(CASE WHEN mealType = 3 THEN totalCalories END), 0), " +
+           "COALESCE(SUM(n), 0), " +
+           "(SELECT COALESCE(SUM(caloriesBurned), 0) FROM workout_entries WHERE userId = :userId AND deletedAt IS NULL AND localDay = :day), " +
+           "(SELECT COALESCE(SUM(duration), 0) FROM workout_entries WHERE userId = :userId AND deletedAt IS NULL AND localDay = :day), " +
+           "(SELECT COUNT(*) FROM workout_entries WHERE userId = :userId AND deletedAt IS NULL AND localDay = :day) " +
+           "FROM (SELECT mealType, totalCalories, totalProtein, totalCarbs, totalFat, 1 AS n " +
+           "FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND localDay = :day " +
+           "UNION ALL " +
+           "SELECT mealType, totalCalories, totalProtein, totalCarbs, totalFat, entryCount " +
+           "FROM food_entry_aggregates WHERE userId = :userId AND day = :day)")
+    void refreshDay(int userId, long day);
+
+    /**
+     * Tính lại nhiều ngày của một tài khoản (mỗi ngày một lần)
+     */
+    default void refreshDays(int userId, Collection<Long> days) {
+        for (long day : new HashSet<>(days)) {
+            refreshDay(userId, day);
+        }
+    }
+
+    @Query("DELETE FROM daily_totals")
+    void deleteAll();
+
+    /**
+     * Xóa các ngày từ fromDay trở đi (giữ tổng hợp của các năm đã archive)
+     */
+    @Query("DELETE FROM daily_totals WHERE day >= :fromDay")
+    void deleteFromDay(long fromDay);
+
+    @Query(REBUILD_SQL)
+    void rebuildFromEntries();
+}
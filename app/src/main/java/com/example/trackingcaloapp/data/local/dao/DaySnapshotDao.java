@@ -0,0 +1,44 @@
+package com.example.trackingcaloapp.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.trackingcaloapp.data.local.entity.DailyTotals;
+import com.example.trackingcaloapp.model.DaySnapshot;
+import com.example.trackingcaloapp.model.FoodEntryRow;
+import com.example.trackingcaloapp.model.WorkoutEntryRow;
+import com.example.trackingcaloapp.utils.DateUtils;
+
+import java.util.List;
+
+/**
+ * Data Access Object đọc DaySnapshot cho Home và Diary.
+ * Toàn bộ dữ liệu của một ngày được đọc trong một read transaction.
+ */
+@Dao
+public interface DaySnapshotDao {
+
+    // ==================== QUERY ====================
+
+    @Query("SELECT * FROM daily_totals WHERE userId = :userId AND day = :day")
+    DailyTotals getTotals(int userId, long day);
+
+    @Query("SELECT " + FoodEntryDao.ROW_COLUMNS + "FROM food_entries " +
+           "WHERE userId = :userId AND deletedAt IS NULL AND localDay = :day ORDER BY mealType ASC, date ASC")
+    List<FoodEntryRow> getFoodEntries(int userId, long day);
+
+    @Query("SELECT " + WorkoutEntryDao.ROW_COLUMNS + "FROM workout_entries " +
+           "WHERE userId = :userId AND deletedAt IS NULL AND localDay = :day ORDER BY date ASC")
+    List<WorkoutEntryRow> getWorkoutEntries(int userId, long day);
+
+    /**
+     * Load toàn bộ dữ liệu của ngày chứa timestamp (của một tài khoản) trong một transaction
+     */
+    @Transaction
+    default DaySnapshot loadSnapshot(int userId, long timestamp) {
+        long day = DateUtils.toEpochDay(timestamp);
+        return new DaySnapshot(day, getTotals(userId, day), getFoodEntries(userId, day),
+                getWorkoutEntries(userId, day));
+    }
+}
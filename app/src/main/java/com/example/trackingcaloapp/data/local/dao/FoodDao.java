@@ -2,15 +2,19 @@ package com.example.trackingcaloapp.data.local.dao;
 
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
-import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
+import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.example.trackingcaloapp.data.local.entity.Food;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Data Access Object cho Food entity.
@@ -18,6 +22,34 @@ import java.util.List;
  */
 @Dao
 public interface FoodDao {
+
+    /**
+     * Food user được thấy: dùng chung (userId = 0) và food tự tạo của chính user
+     */
+    String VISIBLE_TO_USER = "foods.userId IN (0, :userId) ";
+
+    /**
+     * Tìm qua food_fts rồi lấy dòng foods tương ứng (rowid = id)
+     */
+    String SEARCH_SELECT = "SELECT foods.* FROM foods " +
+            "JOIN food_fts ON food_fts.rowid = foods.id " +
+            "WHERE food_fts MATCH :match AND " + VISIBLE_TO_USER;
+
+    /**
+     * Xếp hạng (FTS4 không có bm25): khớp đầu tên trước, tên ngắn hơn trước
+     */
+    String SEARCH_RANK = "CASE WHEN foods.searchName LIKE :prefix || '%' THEN 0 ELSE 1 END, " +
+            "length(foods.name) ASC, foods.name ASC";
+
+    String LIMIT_SEARCH = " LIMIT 100";
+
+    /**
+     * Keyset (name, id): lấy các dòng đứng sau (afterName, afterId).
+     * Trang đầu dùng afterName = "" và afterId = 0.
+     */
+    String AFTER_NAME_ID = "name >= :afterName AND (name > :afterName OR id > :afterId) ";
+
+    String PAGE_ORDER = "ORDER BY name ASC, id ASC LIMIT :limit";
     
     // ==================== INSERT ====================
     
@@ -26,36 +58,113 @@ public interface FoodDao {
     
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertAll(List<Food> foods);
+
+    /**
+     * Insert foods mới (không REPLACE: REPLACE xóa dòng cũ làm mất liên kết entries/food_usage)
+     * @return id của từng food theo thứ tự
+     */
+    @Insert
+    long[] insertNew(List<Food> foods);
     
     // ==================== UPDATE ====================
     
     @Update
     void update(Food food);
+
+    /**
+     * Cập nhật food user được thấy (dùng chung hoặc của chính user).
+     * Food của tài khoản khác không bị đụng tới; userId giữ như trong database.
+     * @return Số dòng đã cập nhật (0 nếu user không thấy food đó)
+     */
+    @Transaction
+    default int updateForUser(int userId, Food food) {
+        Food existing = getVisibleFoodById(userId, food.getId());
+        if (existing == null) {
+            return 0;
+        }
+        food.setUserId(existing.getUserId());
+        update(food);
+        return 1;
+    }
+
+    @Update
+    void updateAll(List<Food> foods);
+
+    // ==================== UPSERT ====================
+
+    /**
+     * Ghi foods từ API (provider bất kỳ) theo khóa unique (apiSource, apiId) trong một transaction:
+     * mỗi provider một query lấy id đã có, rồi update theo lô foods đã có và insert theo lô foods mới.
+     * Tương đương INSERT ... ON CONFLICT DO UPDATE (chỉ có từ SQLite 3.24, minSdk 27 mới có 3.19).
+     * Food trùng khóa trong danh sách chỉ được ghi một lần.
+     * @return id local theo thứ tự foods; id cũng được set vào từng Food
+     */
+    @Transaction
+    default List<Integer> upsertApiFoods(List<Food> foods) {
+        Map<String, Map<Long, Food>> bySource = new LinkedHashMap<>();
+        for (Food food : foods) {
+            if (food.getApiSource() == null || food.getApiId() == null) {
+                throw new IllegalArgumentException("Not an API food: " + food.getName());
+            }
+            bySource.computeIfAbsent(food.getApiSource(), source -> new LinkedHashMap<>())
+                    .putIfAbsent(food.getApiId(), food);
+        }
+
+        for (Map.Entry<String, Map<Long, Food>> source : bySource.entrySet()) {
+            Map<Long, Integer> existingIds = new HashMap<>();
+            for (Food row : getFoodsByApiIds(source.getKey(), new ArrayList<>(source.getValue().keySet()))) {
+                existingIds.put(row.getApiId(), row.getId());
+            }
+            List<Food> updates = new ArrayList<>();
+            List<Food> inserts = new ArrayList<>();
+            for (Food food : source.getValue().values()) {
+                Integer id = existingIds.get(food.getApiId());
+                if (id != null) {
+                    food.setId(id);
+                    updates.add(food);
+                } else {
+                    inserts.add(food);
+                }
+            }
+            if (!updates.isEmpty()) {
+                updateAll(updates);
+            }
+            if (!inserts.isEmpty()) {
+                long[] rowIds = insertNew(inserts);
+                for (int i = 0; i < rowIds.length; i++) {
+                    inserts.get(i).setId((int) rowIds[i]);
+                }
+            }
+        }
+
+        List<Integer> ids = new ArrayList<>(foods.size());
+        for (Food food : foods) {
+            int id = bySource.get(food.getApiSource()).get(food.getApiId()).getId();
+            food.setId(id);
+            ids.add(id);
+        }
+        return ids;
+    }
     
     // ==================== DELETE ====================
     
-    @Delete
-    void delete(Food food);
-    
-    @Query("DELETE FROM foods WHERE id = :foodId")
-    void deleteById(int foodId);
+    /**
+     * Xóa food user được thấy; food của tài khoản khác không bị xóa
+     * @return Số dòng đã xóa
+     */
+    @Query("DELETE FROM foods WHERE id = :foodId AND " + VISIBLE_TO_USER)
+    int deleteById(int userId, int foodId);
     
-    @Query("DELETE FROM foods WHERE isCustom = 1")
-    void deleteAllCustomFoods();
+    @Query("DELETE FROM foods WHERE isCustom = 1 AND userId = :userId")
+    void deleteAllCustomFoods(int userId);
     
     // ==================== QUERY ====================
     
-    /**
-     * Lấy tất cả thực phẩm, sắp xếp theo tên
-     */
-    @Query("SELECT * FROM foods ORDER BY name ASC")
-    LiveData<List<Food>> getAllFoods();
-    
     /**
      * Lấy tất cả thực phẩm (không LiveData - dùng cho background thread)
      */
-    @Query("SELECT * FROM foods ORDER BY name ASC")
-    List<Food> getAllFoodsSync();
+    @Query("SELECT * FROM foods WHERE " + VISIBLE_TO_USER + "ORDER BY name ASC")
+    List<Food> getAllFoodsSync(int userId);
     
     /**
      * Lấy thực phẩm theo ID
@@ -63,6 +172,12 @@ public interface FoodDao {
     @Query("SELECT * FROM foods WHERE id = :foodId")
     Food getFoodById(int foodId);
     
+    /**
+     * Lấy thực phẩm theo ID nếu user được thấy
+     */
+    @Query("SELECT * FROM foods WHERE id = :foodId AND " + VISIBLE_TO_USER)
+    Food getVisibleFoodById(int userId, int foodId);
+    
     /**
      * Lấy thực phẩm theo ID (LiveData)
      */
@@ -70,34 +185,37 @@ public interface FoodDao {
     LiveData<Food> getFoodByIdLive(int foodId);
     
     /**
-     * Tìm kiếm thực phẩm theo tên
+     * Tìm kiếm thực phẩm theo tên qua FTS (không phân biệt dấu)
+     * @param match Biểu thức MATCH, tạo bởi SearchUtils.toFtsMatch()
+     * @param prefix Query đã chuẩn hóa, tên bắt đầu bằng prefix được xếp trước
      */
-    @Query("SELECT * FROM foods WHERE name LIKE '%' || :searchQuery || '%' ORDER BY name ASC")
-    LiveData<List<Food>> searchFoods(String searchQuery);
+    @Query(SEARCH_SELECT + "ORDER BY " + SEARCH_RANK + LIMIT_SEARCH)
+    LiveData<List<Food>> searchFoods(int userId, String match, String prefix);
     
     /**
-     * Tìm kiếm thực phẩm theo tên (không LiveData)
+     * Tìm kiếm thực phẩm theo tên qua FTS (không LiveData)
      */
-    @Query("SELECT * FROM foods WHERE name LIKE '%' || :searchQuery || '%' ORDER BY name ASC")
-    List<Food> searchFoodsSync(String searchQuery);
+    @Query(SEARCH_SELECT + "ORDER BY " + SEARCH_RANK + LIMIT_SEARCH)
+    List<Food> searchFoodsSync(int userId, String match, String prefix);
     
     /**
      * Lấy thực phẩm theo category
      */
-    @Query("SELECT * FROM foods WHERE category = :category ORDER BY name ASC")
-    LiveData<List<Food>> getFoodsByCategory(String category);
+    @Query("SELECT * FROM foods WHERE category = :category AND " + VISIBLE_TO_USER + "ORDER BY name ASC")
+    LiveData<List<Food>> getFoodsByCategory(int userId, String category);
 
     /**
-     * Lấy thực phẩm theo nhiều categories (dùng cho filter theo bữa ăn)
+     * Lấy một trang thực phẩm theo nhiều categories (dùng cho filter theo bữa ăn)
      */
-    @Query("SELECT * FROM foods WHERE category IN (:categories) ORDER BY name ASC")
-    LiveData<List<Food>> getFoodsByCategories(List<String> categories);
+    @Query("SELECT * FROM foods WHERE category IN (:categories) AND " + VISIBLE_TO_USER +
+           "AND " + AFTER_NAME_ID + PAGE_ORDER)
+    List<Food> getFoodsByCategoriesPage(int userId, List<String> categories, String afterName, int afterId, int limit);
 
     /**
      * Lấy tất cả thực phẩm do user tự tạo
      */
-    @Query("SELECT * FROM foods WHERE isCustom = 1 ORDER BY name ASC")
-    LiveData<List<Food>> getCustomFoods();
+    @Query("SELECT * FROM foods WHERE isCustom = 1 AND userId = :userId ORDER BY name ASC")
+    LiveData<List<Food>> getCustomFoods(int userId);
     
     /**
      * Lấy tất cả thực phẩm có sẵn trong app
@@ -120,34 +238,36 @@ public interface FoodDao {
     // ==================== API INTEGRATION ====================
 
     /**
-     * Tìm food theo API ID (để check cache)
+     * Tìm food theo provider và API ID (để check cache)
      */
-    @Query("SELECT * FROM foods WHERE apiId = :apiId AND apiSource = 'fatsecret' LIMIT 1")
-    Food getFoodByApiId(long apiId);
+    @Query("SELECT * FROM foods WHERE apiSource = :apiSource AND apiId = :apiId")
+    Food getFoodByApiId(String apiSource, long apiId);
 
     /**
-     * Lấy tất cả foods từ API (cached)
+     * Lấy các foods đã cache theo danh sách API ID (thứ tự không xác định)
      */
-    @Query("SELECT * FROM foods WHERE apiSource = 'fatsecret' ORDER BY name ASC")
-    LiveData<List<Food>> getApiFoods();
+    @Query("SELECT * FROM foods WHERE apiSource = :apiSource AND apiId IN (:apiIds)")
+    List<Food> getFoodsByApiIds(String apiSource, List<Long> apiIds);
 
     /**
-     * Xóa cached foods cũ hơn X timestamp
+     * Xóa cached foods cũ hơn X timestamp.
+     * Giữ foods user đã từng ghi (có trong food_usage) để danh sách gợi ý không mất chúng.
      */
-    @Query("DELETE FROM foods WHERE apiSource = 'fatsecret' AND cachedAt < :timestamp")
+    @Query("DELETE FROM foods WHERE apiSource IS NOT NULL AND cachedAt < :timestamp " +
+           "AND id NOT IN (SELECT foodId FROM food_usage)")
     void deleteOldCachedFoods(long timestamp);
 
     /**
-     * Search tất cả foods (local + API), local foods hiện trước
+     * Search tất cả foods (local + API) qua FTS, local foods hiện trước
      */
-    @Query("SELECT * FROM foods WHERE name LIKE '%' || :query || '%' " +
-           "ORDER BY CASE WHEN apiSource IS NULL THEN 0 ELSE 1 END, name ASC")
-    LiveData<List<Food>> searchAllFoods(String query);
+    @Query(SEARCH_SELECT + "ORDER BY CASE WHEN foods.apiSource IS NULL THEN 0 ELSE 1 END, " +
+           SEARCH_RANK + LIMIT_SEARCH)
+    LiveData<List<Food>> searchAllFoods(int userId, String match, String prefix);
 
     /**
      * Đếm số lượng cached foods từ API
      */
-    @Query("SELECT COUNT(*) FROM foods WHERE apiSource = 'fatsecret'")
+    @Query("SELECT COUNT(*) FROM foods WHERE apiSource IS NOT NULL")
     int getApiCachedFoodCount();
 }
 
@@ -0,0 +1,54 @@
+package com.example.trackingcaloapp.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+/**
+ * DAO nén lịch sử food entries cũ vào food_entry_aggregates.
+ */
+@Dao
+public interface FoodEntryAggregateDao {
+
+    // ==================== COMPACTION ====================
+
+    /**
+     * Gộp entries trước cutoffDay vào aggregates theo (ngày, bữa, food).
+     * Nếu nhóm đã có aggregate (entry được thêm lại vào ngày đã compact) thì cộng dồn.
+     * Entries của food đã bị xóa (foodId NULL) được gộp vào foodId 0.
+     * Entries đã đánh dấu xóa không được gộp; deleteEntriesBefore xóa hẳn chúng cùng bản gốc.
+     */
+    @Query("INSERT OR REPLACE INTO food_entry_aggregates (userId, day, mealType, foodId, quantity, " +
+           "totalCalories, totalProtein, totalCarbs, totalFat, entryCount) " +
+           "SELECT :userId, day, mealType, foodId, SUM(q), SUM(kcal), SUM(p), SUM(c), SUM(f), SUM(n) FROM (" +
+           "SELECT localDay AS day, mealType, COALESCE(foodId, 0) AS foodId, quantity AS q, totalCalories AS kcal, " +
+           "totalProtein AS p, totalCarbs AS c, totalFat AS f, 1 AS n " +
+           "FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND localDay < :cutoffDay " +
+           "UNION ALL " +
+           "SELECT a.day, a.mealType, a.foodId, a.quantity, a.totalCalories, a.totalProtein, " +
+           "a.totalCarbs, a.totalFat, a.entryCount FROM food_entry_aggregates a " +
+           "WHERE a.userId = :userId AND a.day < :cutoffDay AND EXISTS (" +
+           "SELECT 1 FROM food_entries e WHERE e.userId = :userId AND e.deletedAt IS NULL AND e.localDay = a.day " +
+           "AND e.mealType = a.mealType AND COALESCE(e.foodId, 0) = a.foodId)" +
+           ") GROUP BY day, mealType, foodId")
+    void foldEntriesBefore(int userId, long cutoffDay);
+
+    @Query("DELETE FROM food_entries WHERE userId = :userId AND localDay < :cutoffDay")
+    int deleteEntriesBefore(int userId, long cutoffDay);
+
+    /**
+     * Compact lịch sử của một tài khoản: gộp rồi xóa entries gốc trong cùng transaction.
+     * daily_totals không cần tính lại vì tổng theo ngày/bữa không đổi.
+     * @return Số entries gốc đã xóa
+     */
+    @Transaction
+    default int compactBefore(int userId, long cutoffDay) {
+        foldEntriesBefore(userId, cutoffDay);
+        return deleteEntriesBefore(userId, cutoffDay);
+    }
+
+    // ==================== QUERY ====================
+
+    @Query("SELECT COUNT(*) FROM food_entry_aggregates WHERE userId = :userId")
+    int getAggregateCount(int userId);
+}
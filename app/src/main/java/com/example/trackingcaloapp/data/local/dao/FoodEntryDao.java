@@ -2,21 +2,15 @@ package com.example.trackingcaloapp.data.local.dao;
 
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
-import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
-import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.example.trackingcaloapp.data.local.entity.Food;
 import com.example.trackingcaloapp.data.local.entity.FoodEntry;
-import com.example.trackingcaloapp.model.DailyCalorieSum;
-import com.example.trackingcaloapp.model.FoodEntryWithFood;
-import com.example.trackingcaloapp.model.FoodWithEntry;
+import com.example.trackingcaloapp.model.FoodEntryRow;
 import com.example.trackingcaloapp.model.HourlyCalorieSum;
-import com.example.trackingcaloapp.model.MacroSum;
-import com.example.trackingcaloapp.model.MealTypeCalories;
 
 import java.util.List;
 
@@ -26,6 +20,22 @@ import java.util.List;
  */
 @Dao
 public interface FoodEntryDao {
+
+    /**
+     * Các cột của FoodEntryRow (chỉ những gì danh sách nhật ký hiển thị)
+     */
+    String ROW_COLUMNS = "id, foodName, quantity, mealType, date, totalCalories, localMinuteOfDay ";
+
+    /**
+     * Phần chung của các câu chép entries sang ngày khác: giữ bữa, khối lượng, dinh dưỡng và snapshot food,
+     * date được tính lại = :targetStart (00:00 ngày đích) + phút trong ngày của entry gốc
+     */
+    String COPY_INSERT = "INSERT INTO food_entries (foodId, quantity, mealType, date, totalCalories, totalProtein, " +
+            "totalCarbs, totalFat, localDay, localMinuteOfDay, userId, foodName, foodCategory, " +
+            "caloriesPer100g, proteinPer100g, carbsPer100g, fatPer100g) " +
+            "SELECT foodId, quantity, mealType, :targetStart + localMinuteOfDay * 60000, totalCalories, totalProtein, " +
+            "totalCarbs, totalFat, :targetDay, localMinuteOfDay, userId, foodName, foodCategory, " +
+            "caloriesPer100g, proteinPer100g, carbsPer100g, fatPer100g FROM food_entries ";
     
     // ==================== INSERT ====================
     
@@ -35,147 +45,165 @@ public interface FoodEntryDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     void insertAll(List<FoodEntry> foodEntries);
     
+    // ==================== COPY ====================
+
+    /**
+     * Chép mọi entries của một ngày sang ngày đích trong một câu INSERT … SELECT
+     * @param sourceDay Epoch day nguồn (localDay)
+     * @param targetDay Epoch day đích
+     * @param targetStart Timestamp 00:00 của ngày đích
+     */
+    @Query(COPY_INSERT + "WHERE userId = :userId AND deletedAt IS NULL AND localDay = :sourceDay " +
+           "ORDER BY mealType ASC, date ASC")
+    void copyDay(int userId, long sourceDay, long targetDay, long targetStart);
+
+    /**
+     * Chép các entries của một bữa trong ngày nguồn sang cùng bữa của ngày đích
+     */
+    @Query(COPY_INSERT + "WHERE userId = :userId AND deletedAt IS NULL AND localDay = :sourceDay " +
+           "AND mealType = :mealType ORDER BY date ASC")
+    void copyMeal(int userId, long sourceDay, int mealType, long targetDay, long targetStart);
+
+    /**
+     * Chép các entries được chọn (theo id) sang ngày đích
+     */
+    @Query(COPY_INSERT + "WHERE userId = :userId AND deletedAt IS NULL AND id IN (:entryIds) " +
+           "ORDER BY mealType ASC, date ASC")
+    void copyEntries(int userId, List<Integer> entryIds, long targetDay, long targetStart);
+
     // ==================== UPDATE ====================
     
     @Update
     void update(FoodEntry foodEntry);
     
     // ==================== DELETE ====================
-    
-    @Delete
-    void delete(FoodEntry foodEntry);
-    
-    @Query("DELETE FROM food_entries WHERE id = :entryId")
-    void deleteById(int entryId);
-    
-    @Query("DELETE FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    void deleteEntriesByDate(long startOfDay, long endOfDay);
-    
-    // ==================== QUERY ====================
-    
+
+    /**
+     * Đánh dấu entry đã xóa (tombstone). Lists và tổng hợp bỏ qua entry ngay từ lúc này,
+     * dòng thật được giữ tới khi purge nên undo chỉ cần xóa dấu.
+     * @return 1 nếu entry vừa được đánh dấu
+     */
+    @Query("UPDATE food_entries SET deletedAt = :deletedAt " +
+           "WHERE id = :entryId AND userId = :userId AND deletedAt IS NULL")
+    int markDeleted(int userId, int entryId, long deletedAt);
+
+    /**
+     * Đánh dấu xóa mọi entries trong một ngày (một câu UPDATE, undo bằng restoreDeletedAt)
+     * @param day Epoch day theo giờ địa phương (localDay)
+     */
+    @Query("UPDATE food_entries SET deletedAt = :deletedAt " +
+           "WHERE userId = :userId AND deletedAt IS NULL AND localDay = :day")
+    int markDeletedByDay(int userId, long day, long deletedAt);
+
+    /**
+     * Undo: bỏ dấu xóa của entry nếu tombstone chưa bị purge
+     * @return 1 nếu entry được khôi phục
+     */
+    @Query("UPDATE food_entries SET deletedAt = NULL " +
+           "WHERE id = :entryId AND userId = :userId AND deletedAt IS NOT NULL")
+    int restore(int userId, int entryId);
+
+    /**
+     * Undo cho lần xóa nhiều entries: khôi phục mọi entries cùng thời điểm xóa
+     */
+    @Query("UPDATE food_entries SET deletedAt = NULL WHERE userId = :userId AND deletedAt = :deletedAt")
+    int restoreDeletedAt(int userId, long deletedAt);
+
     /**
-     * Lấy tất cả food entries
+     * Xóa hẳn các tombstone có deletedAt <= cutoff (range scan trên index deletedAt).
+     * Chạy trong transaction của job purge.
      */
-    @Query("SELECT * FROM food_entries ORDER BY date DESC")
-    LiveData<List<FoodEntry>> getAllEntries();
+    @Query("DELETE FROM food_entries WHERE deletedAt <= :cutoff")
+    int purgeDeleted(long cutoff);
+
+    // ==================== QUERY ====================
     
     /**
-     * Lấy food entry theo ID
+     * Lấy food entry của tài khoản theo ID (kể cả entry đã bị đánh dấu xóa)
      */
-    @Query("SELECT * FROM food_entries WHERE id = :entryId")
-    FoodEntry getEntryById(int entryId);
+    @Query("SELECT * FROM food_entries WHERE id = :entryId AND userId = :userId")
+    FoodEntry getEntryById(int userId, int entryId);
     
     /**
      * Lấy các entries trong một ngày cụ thể
      * @param startOfDay Timestamp đầu ngày (00:00:00)
      * @param endOfDay Timestamp cuối ngày (23:59:59)
      */
-    @Query("SELECT * FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay ORDER BY mealType ASC, date ASC")
-    LiveData<List<FoodEntry>> getEntriesByDate(long startOfDay, long endOfDay);
+    @Query("SELECT * FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay ORDER BY mealType ASC, date ASC")
+    LiveData<List<FoodEntry>> getEntriesByDate(int userId, long startOfDay, long endOfDay);
     
     /**
      * Lấy các entries trong một ngày (không LiveData)
      */
-    @Query("SELECT * FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay ORDER BY mealType ASC, date ASC")
-    List<FoodEntry> getEntriesByDateSync(long startOfDay, long endOfDay);
-    
+    @Query("SELECT * FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay ORDER BY mealType ASC, date ASC")
+    List<FoodEntry> getEntriesByDateSync(int userId, long startOfDay, long endOfDay);
+
     /**
-     * Lấy các entries theo loại bữa ăn trong một ngày
+     * Lấy dòng hiển thị của các entries trong một ngày (cho danh sách nhật ký)
+     * @param day Epoch day theo giờ địa phương (localDay)
      */
-    @Query("SELECT * FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay AND mealType = :mealType ORDER BY date ASC")
-    LiveData<List<FoodEntry>> getEntriesByDateAndMealType(long startOfDay, long endOfDay, String mealType);
-
+    @Query("SELECT " + ROW_COLUMNS + "FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND localDay = :day ORDER BY mealType ASC, date ASC")
+    List<FoodEntryRow> getEntryRowsByDay(int userId, long day);
+    
     /**
-     * Lấy các entries với thông tin Food trong một ngày cụ thể (JOIN)
-     * @param startOfDay Timestamp đầu ngày (00:00:00)
-     * @param endOfDay Timestamp cuối ngày (23:59:59)
+     * Lấy các entries theo loại bữa ăn trong một ngày
      */
-    @Transaction
-    @Query("SELECT * FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay ORDER BY mealType ASC, date ASC")
-    LiveData<List<FoodEntryWithFood>> getEntriesWithFoodByDate(long startOfDay, long endOfDay);
+    @Query("SELECT * FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay AND mealType = :mealType ORDER BY date ASC")
+    LiveData<List<FoodEntry>> getEntriesByDateAndMealType(int userId, long startOfDay, long endOfDay, String mealType);
 
     // ==================== AGGREGATION ====================
     
     /**
      * Tính tổng calo trong một ngày
      */
-    @Query("SELECT COALESCE(SUM(totalCalories), 0) FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    LiveData<Float> getTotalCaloriesByDate(long startOfDay, long endOfDay);
+    @Query("SELECT COALESCE(SUM(totalCalories), 0) FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay")
+    LiveData<Float> getTotalCaloriesByDate(int userId, long startOfDay, long endOfDay);
     
     /**
      * Tính tổng calo trong một ngày (không LiveData)
      */
-    @Query("SELECT COALESCE(SUM(totalCalories), 0) FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    float getTotalCaloriesByDateSync(long startOfDay, long endOfDay);
+    @Query("SELECT COALESCE(SUM(totalCalories), 0) FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay")
+    float getTotalCaloriesByDateSync(int userId, long startOfDay, long endOfDay);
     
     /**
      * Tính tổng protein trong một ngày
      */
-    @Query("SELECT COALESCE(SUM(totalProtein), 0) FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    LiveData<Float> getTotalProteinByDate(long startOfDay, long endOfDay);
+    @Query("SELECT COALESCE(SUM(totalProtein), 0) FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay")
+    LiveData<Float> getTotalProteinByDate(int userId, long startOfDay, long endOfDay);
     
     /**
      * Tính tổng carbs trong một ngày
      */
-    @Query("SELECT COALESCE(SUM(totalCarbs), 0) FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    LiveData<Float> getTotalCarbsByDate(long startOfDay, long endOfDay);
+    @Query("SELECT COALESCE(SUM(totalCarbs), 0) FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay")
+    LiveData<Float> getTotalCarbsByDate(int userId, long startOfDay, long endOfDay);
     
     /**
      * Tính tổng fat trong một ngày
      */
-    @Query("SELECT COALESCE(SUM(totalFat), 0) FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    LiveData<Float> getTotalFatByDate(long startOfDay, long endOfDay);
+    @Query("SELECT COALESCE(SUM(totalFat), 0) FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay")
+    LiveData<Float> getTotalFatByDate(int userId, long startOfDay, long endOfDay);
     
     /**
      * Tính tổng calo theo loại bữa ăn trong một ngày
      */
-    @Query("SELECT COALESCE(SUM(totalCalories), 0) FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay AND mealType = :mealType")
-    LiveData<Float> getTotalCaloriesByMealType(long startOfDay, long endOfDay, String mealType);
+    @Query("SELECT COALESCE(SUM(totalCalories), 0) FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay AND mealType = :mealType")
+    LiveData<Float> getTotalCaloriesByMealType(int userId, long startOfDay, long endOfDay, String mealType);
     
     /**
      * Đếm số entries trong một ngày
      */
-    @Query("SELECT COUNT(*) FROM food_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    int getEntryCountByDate(long startOfDay, long endOfDay);
+    @Query("SELECT COUNT(*) FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay")
+    int getEntryCountByDate(int userId, long startOfDay, long endOfDay);
 
     // ==================== CHART AGGREGATION ====================
 
     /**
-     * Lấy tổng calo theo từng ngày trong khoảng thời gian (cho LineChart)
-     * Group by ngày (chia timestamp cho 86400000 ms = 1 ngày)
-     */
-    @Query("SELECT (date / 86400000) * 86400000 as dayTimestamp, " +
-           "COALESCE(SUM(totalCalories), 0) as totalCalories " +
-           "FROM food_entries WHERE date BETWEEN :startDate AND :endDate " +
-           "GROUP BY date / 86400000 ORDER BY dayTimestamp ASC")
-    LiveData<List<DailyCalorieSum>> getDailyCaloriesSummary(long startDate, long endDate);
-
-    /**
-     * Lấy tổng calo theo loại bữa ăn trong khoảng thời gian (cho BarChart)
+     * Lấy tổng calo theo giờ địa phương trong khoảng ngày (cho LineChart trong DiaryFragment).
+     * Giờ lấy từ localMinuteOfDay nên đúng múi giờ lúc ghi.
      */
-    @Query("SELECT mealType, COALESCE(SUM(totalCalories), 0) as totalCalories " +
-           "FROM food_entries WHERE date BETWEEN :startDate AND :endDate " +
-           "GROUP BY mealType ORDER BY mealType ASC")
-    LiveData<List<MealTypeCalories>> getCaloriesByMealType(long startDate, long endDate);
-
-    /**
-     * Lấy tổng macro nutrients trong khoảng thời gian (cho PieChart)
-     */
-    @Query("SELECT COALESCE(SUM(totalProtein), 0) as protein, " +
-           "COALESCE(SUM(totalCarbs), 0) as carbs, " +
-           "COALESCE(SUM(totalFat), 0) as fat " +
-           "FROM food_entries WHERE date BETWEEN :startDate AND :endDate")
-    LiveData<MacroSum> getMacroSummary(long startDate, long endDate);
-
-    /**
-     * Lấy tổng calo theo giờ trong ngày (cho LineChart trong DiaryFragment)
-     * Extract hour từ timestamp: (date % 86400000) / 3600000
-     * 86400000 ms = 1 ngày, 3600000 ms = 1 giờ
-     */
-    @Query("SELECT ((date % 86400000) / 3600000) as hour, " +
+    @Query("SELECT (localMinuteOfDay / 60) as hour, " +
            "COALESCE(SUM(totalCalories), 0) as totalCalories " +
-           "FROM food_entries WHERE date BETWEEN :startDate AND :endDate " +
-           "GROUP BY (date % 86400000) / 3600000 ORDER BY hour ASC")
-    LiveData<List<HourlyCalorieSum>> getHourlyCaloriesSummary(long startDate, long endDate);
+           "FROM food_entries WHERE userId = :userId AND deletedAt IS NULL AND localDay BETWEEN :startDay AND :endDay " +
+           "GROUP BY localMinuteOfDay / 60 ORDER BY hour ASC")
+    List<HourlyCalorieSum> getHourlyCaloriesSummary(int userId, long startDay, long endDay);
 }
-
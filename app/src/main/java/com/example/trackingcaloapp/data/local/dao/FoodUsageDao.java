@@ -0,0 +1,57 @@
+package com.example.trackingcaloapp.data.local.dao;
+
+import androidx.lifecycle.LiveData;
+import androidx.room.Dao;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import com.example.trackingcaloapp.data.local.entity.Food;
+import com.example.trackingcaloapp.data.local.entity.FoodUsage;
+
+import java.util.List;
+
+/**
+ * DAO cho bảng food_usage: foods hay dùng / dùng gần đây của từng tài khoản.
+ */
+@Dao
+public interface FoodUsageDao {
+
+    // ==================== UPDATE ====================
+
+    @Query("INSERT OR IGNORE INTO food_usage (userId, foodId, mealType, useCount, lastUsedAt) " +
+           "VALUES (:userId, :foodId, :mealType, 0, 0)")
+    void ensureRow(int userId, int foodId, int mealType);
+
+    @Query("UPDATE food_usage SET useCount = useCount + 1, lastUsedAt = MAX(lastUsedAt, :usedAt) " +
+           "WHERE userId = :userId AND foodId = :foodId AND mealType IN (:mealType, " + FoodUsage.ALL_MEALS + ")")
+    void incrementUse(int userId, int foodId, int mealType, long usedAt);
+
+    /**
+     * Ghi nhận một lần dùng food cho bữa mealType (và dòng mọi bữa).
+     * Phải được gọi trong cùng transaction với insert entry.
+     */
+    @Transaction
+    default void recordUse(int userId, int foodId, int mealType, long usedAt) {
+        ensureRow(userId, foodId, mealType);
+        ensureRow(userId, foodId, FoodUsage.ALL_MEALS);
+        incrementUse(userId, foodId, mealType, usedAt);
+    }
+
+    // ==================== QUERY ====================
+
+    /**
+     * Top-N foods hay ghi nhất cho một bữa (nhiều lần nhất trước, cùng số lần thì gần đây hơn trước)
+     */
+    @Query("SELECT foods.* FROM food_usage JOIN foods ON foods.id = food_usage.foodId " +
+           "WHERE food_usage.userId = :userId AND food_usage.mealType = :mealType " +
+           "ORDER BY food_usage.useCount DESC, food_usage.lastUsedAt DESC LIMIT :limit")
+    LiveData<List<Food>> getFrequentFoods(int userId, int mealType, int limit);
+
+    /**
+     * Top-N foods ghi gần đây nhất (mọi bữa)
+     */
+    @Query("SELECT foods.* FROM food_usage JOIN foods ON foods.id = food_usage.foodId " +
+           "WHERE food_usage.userId = :userId AND food_usage.mealType = " + FoodUsage.ALL_MEALS + " " +
+           "ORDER BY food_usage.lastUsedAt DESC LIMIT :limit")
+    LiveData<List<Food>> getRecentFoods(int userId, int limit);
+}
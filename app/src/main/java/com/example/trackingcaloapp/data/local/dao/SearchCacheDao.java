@@ -0,0 +1,27 @@
+package com.example.trackingcaloapp.data.local.dao;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import com.example.trackingcaloapp.data.local.entity.SearchCache;
+
+/**
+ * DAO cho bảng search_cache: kết quả search USDA API theo query.
+ */
+@Dao
+public interface SearchCacheDao {
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void put(SearchCache entry);
+
+    @Query("SELECT * FROM search_cache WHERE queryKey = :queryKey")
+    SearchCache get(String queryKey);
+
+    /**
+     * Xóa kết quả quá cũ để dùng cả khi offline
+     */
+    @Query("DELETE FROM search_cache WHERE fetchedAt < :cutoff")
+    int deleteOlderThan(long cutoff);
+}
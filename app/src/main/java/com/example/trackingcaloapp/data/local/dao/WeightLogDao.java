@@ -20,21 +20,27 @@ public interface WeightLogDao {
     @Insert
     long insert(WeightLog log);
 
-    @Query("SELECT * FROM weight_logs ORDER BY timestamp DESC")
-    LiveData<List<WeightLog>> getAllLogs();
+    @Query("SELECT * FROM weight_logs WHERE userId = :userId ORDER BY timestamp DESC")
+    LiveData<List<WeightLog>> getAllLogs(int userId);
 
-    @Query("SELECT * FROM weight_logs WHERE timestamp >= :startTime ORDER BY timestamp ASC")
-    LiveData<List<WeightLog>> getLogsSince(long startTime);
+    @Query("SELECT * FROM weight_logs WHERE userId = :userId ORDER BY timestamp DESC")
+    List<WeightLog> getAllLogsSync(int userId);
 
-    @Query("SELECT * FROM weight_logs ORDER BY timestamp DESC LIMIT 1")
-    LiveData<WeightLog> getLatestLog();
+    @Query("SELECT * FROM weight_logs WHERE userId = :userId AND timestamp >= :startTime ORDER BY timestamp ASC")
+    LiveData<List<WeightLog>> getLogsSince(int userId, long startTime);
 
-    @Query("SELECT * FROM weight_logs ORDER BY timestamp DESC LIMIT 1")
-    WeightLog getLatestLogSync();
+    @Query("SELECT * FROM weight_logs WHERE userId = :userId AND timestamp >= :startTime ORDER BY timestamp ASC")
+    List<WeightLog> getLogsSinceSync(int userId, long startTime);
+
+    @Query("SELECT * FROM weight_logs WHERE userId = :userId ORDER BY timestamp DESC LIMIT 1")
+    LiveData<WeightLog> getLatestLog(int userId);
+
+    @Query("SELECT * FROM weight_logs WHERE userId = :userId ORDER BY timestamp DESC LIMIT 1")
+    WeightLog getLatestLogSync(int userId);
 
     @Delete
     void delete(WeightLog log);
 
-    @Query("SELECT COUNT(*) FROM weight_logs")
-    int getLogCount();
+    @Query("SELECT COUNT(*) FROM weight_logs WHERE userId = :userId")
+    int getLogCount(int userId);
 }
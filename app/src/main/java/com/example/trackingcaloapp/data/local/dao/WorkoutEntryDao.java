@@ -2,15 +2,13 @@ package com.example.trackingcaloapp.data.local.dao;
 
 import androidx.lifecycle.LiveData;
 import androidx.room.Dao;
-import androidx.room.Delete;
 import androidx.room.Insert;
 import androidx.room.OnConflictStrategy;
 import androidx.room.Query;
-import androidx.room.Transaction;
 import androidx.room.Update;
 
 import com.example.trackingcaloapp.data.local.entity.WorkoutEntry;
-import com.example.trackingcaloapp.model.WorkoutEntryWithWorkout;
+import com.example.trackingcaloapp.model.WorkoutEntryRow;
 
 import java.util.List;
 
@@ -20,6 +18,11 @@ import java.util.List;
  */
 @Dao
 public interface WorkoutEntryDao {
+
+    /**
+     * Các cột của WorkoutEntryRow (chỉ những gì danh sách nhật ký hiển thị)
+     */
+    String ROW_COLUMNS = "id, workoutName, workoutUnit, workoutCategory, quantity, date, caloriesBurned ";
     
     // ==================== INSERT ====================
     
@@ -35,86 +38,106 @@ public interface WorkoutEntryDao {
     void update(WorkoutEntry workoutEntry);
     
     // ==================== DELETE ====================
-    
-    @Delete
-    void delete(WorkoutEntry workoutEntry);
-    
-    @Query("DELETE FROM workout_entries WHERE id = :entryId")
-    void deleteById(int entryId);
-    
-    @Query("DELETE FROM workout_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    void deleteEntriesByDate(long startOfDay, long endOfDay);
-    
-    // ==================== QUERY ====================
-    
+
+    /**
+     * Đánh dấu entry đã xóa (tombstone). Lists và tổng hợp bỏ qua entry ngay từ lúc này,
+     * dòng thật được giữ tới khi purge nên undo chỉ cần xóa dấu.
+     * @return 1 nếu entry vừa được đánh dấu
+     */
+    @Query("UPDATE workout_entries SET deletedAt = :deletedAt " +
+           "WHERE id = :entryId AND userId = :userId AND deletedAt IS NULL")
+    int markDeleted(int userId, int entryId, long deletedAt);
+
     /**
-     * Lấy tất cả workout entries
+     * Đánh dấu xóa mọi entries trong một ngày (một câu UPDATE, undo bằng restoreDeletedAt)
+     * @param day Epoch day theo giờ địa phương (localDay)
      */
-    @Query("SELECT * FROM workout_entries ORDER BY date DESC")
-    LiveData<List<WorkoutEntry>> getAllEntries();
+    @Query("UPDATE workout_entries SET deletedAt = :deletedAt " +
+           "WHERE userId = :userId AND deletedAt IS NULL AND localDay = :day")
+    int markDeletedByDay(int userId, long day, long deletedAt);
+
+    /**
+     * Undo: bỏ dấu xóa của entry nếu tombstone chưa bị purge
+     * @return 1 nếu entry được khôi phục
+     */
+    @Query("UPDATE workout_entries SET deletedAt = NULL " +
+           "WHERE id = :entryId AND userId = :userId AND deletedAt IS NOT NULL")
+    int restore(int userId, int entryId);
+
+    /**
+     * Undo cho lần xóa nhiều entries: khôi phục mọi entries cùng thời điểm xóa
+     */
+    @Query("UPDATE workout_entries SET deletedAt = NULL WHERE userId = :userId AND deletedAt = :deletedAt")
+    int restoreDeletedAt(int userId, long deletedAt);
+
+    /**
+     * Xóa hẳn các tombstone có deletedAt <= cutoff (range scan trên index deletedAt).
+     * Chạy trong transaction của job purge.
+     */
+    @Query("DELETE FROM workout_entries WHERE deletedAt <= :cutoff")
+    int purgeDeleted(long cutoff);
+
+    // ==================== QUERY ====================
     
     /**
-     * Lấy workout entry theo ID
+     * Lấy workout entry của tài khoản theo ID (kể cả entry đã bị đánh dấu xóa)
      */
-    @Query("SELECT * FROM workout_entries WHERE id = :entryId")
-    WorkoutEntry getEntryById(int entryId);
+    @Query("SELECT * FROM workout_entries WHERE id = :entryId AND userId = :userId")
+    WorkoutEntry getEntryById(int userId, int entryId);
     
     /**
      * Lấy các entries trong một ngày cụ thể
      * @param startOfDay Timestamp đầu ngày (00:00:00)
      * @param endOfDay Timestamp cuối ngày (23:59:59)
      */
-    @Query("SELECT * FROM workout_entries WHERE date BETWEEN :startOfDay AND :endOfDay ORDER BY date ASC")
-    LiveData<List<WorkoutEntry>> getEntriesByDate(long startOfDay, long endOfDay);
+    @Query("SELECT * FROM workout_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay ORDER BY date ASC")
+    LiveData<List<WorkoutEntry>> getEntriesByDate(int userId, long startOfDay, long endOfDay);
     
     /**
      * Lấy các entries trong một ngày (không LiveData)
      */
-    @Query("SELECT * FROM workout_entries WHERE date BETWEEN :startOfDay AND :endOfDay ORDER BY date ASC")
-    List<WorkoutEntry> getEntriesByDateSync(long startOfDay, long endOfDay);
+    @Query("SELECT * FROM workout_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay ORDER BY date ASC")
+    List<WorkoutEntry> getEntriesByDateSync(int userId, long startOfDay, long endOfDay);
 
     /**
-     * Lấy các entries với thông tin Workout trong một ngày cụ thể (JOIN)
-     * @param startOfDay Timestamp đầu ngày (00:00:00)
-     * @param endOfDay Timestamp cuối ngày (23:59:59)
+     * Lấy dòng hiển thị của các entries trong một ngày (cho danh sách nhật ký)
+     * @param day Epoch day theo giờ địa phương (localDay)
      */
-    @Transaction
-    @Query("SELECT * FROM workout_entries WHERE date BETWEEN :startOfDay AND :endOfDay ORDER BY date ASC")
-    LiveData<List<WorkoutEntryWithWorkout>> getEntriesWithWorkoutByDate(long startOfDay, long endOfDay);
+    @Query("SELECT " + ROW_COLUMNS + "FROM workout_entries WHERE userId = :userId AND deletedAt IS NULL AND localDay = :day ORDER BY date ASC")
+    List<WorkoutEntryRow> getEntryRowsByDay(int userId, long day);
 
     // ==================== AGGREGATION ====================
     
     /**
      * Tính tổng calo đốt cháy trong một ngày
      */
-    @Query("SELECT COALESCE(SUM(caloriesBurned), 0) FROM workout_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    LiveData<Float> getTotalCaloriesBurnedByDate(long startOfDay, long endOfDay);
+    @Query("SELECT COALESCE(SUM(caloriesBurned), 0) FROM workout_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay")
+    LiveData<Float> getTotalCaloriesBurnedByDate(int userId, long startOfDay, long endOfDay);
     
     /**
      * Tính tổng calo đốt cháy trong một ngày (không LiveData)
      */
-    @Query("SELECT COALESCE(SUM(caloriesBurned), 0) FROM workout_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    float getTotalCaloriesBurnedByDateSync(long startOfDay, long endOfDay);
+    @Query("SELECT COALESCE(SUM(caloriesBurned), 0) FROM workout_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay")
+    float getTotalCaloriesBurnedByDateSync(int userId, long startOfDay, long endOfDay);
     
     /**
      * Tính tổng thời gian tập trong một ngày (phút)
      */
-    @Query("SELECT COALESCE(SUM(duration), 0) FROM workout_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    LiveData<Integer> getTotalDurationByDate(long startOfDay, long endOfDay);
+    @Query("SELECT COALESCE(SUM(duration), 0) FROM workout_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay")
+    LiveData<Integer> getTotalDurationByDate(int userId, long startOfDay, long endOfDay);
     
     /**
      * Đếm số entries trong một ngày
      */
-    @Query("SELECT COUNT(*) FROM workout_entries WHERE date BETWEEN :startOfDay AND :endOfDay")
-    int getEntryCountByDate(long startOfDay, long endOfDay);
+    @Query("SELECT COUNT(*) FROM workout_entries WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay")
+    int getEntryCountByDate(int userId, long startOfDay, long endOfDay);
     
     /**
      * Lấy entries theo category của workout trong một ngày
      */
-    @Query("SELECT we.* FROM workout_entries we " +
-           "INNER JOIN workouts w ON we.workoutId = w.id " +
-           "WHERE we.date BETWEEN :startOfDay AND :endOfDay AND w.category = :category " +
-           "ORDER BY we.date ASC")
-    LiveData<List<WorkoutEntry>> getEntriesByDateAndCategory(long startOfDay, long endOfDay, String category);
+    @Query("SELECT * FROM workout_entries " +
+           "WHERE userId = :userId AND deletedAt IS NULL AND date BETWEEN :startOfDay AND :endOfDay AND workoutCategory = :category " +
+           "ORDER BY date ASC")
+    LiveData<List<WorkoutEntry>> getEntriesByDateAndCategory(int userId, long startOfDay, long endOfDay, String category);
 }
 
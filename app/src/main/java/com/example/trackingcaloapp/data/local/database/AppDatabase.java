@@ -1,37 +1,55 @@
 package com.example.trackingcaloapp.data.local.database;
 
 import android.content.Context;
+import android.database.Cursor;
 
 import androidx.annotation.NonNull;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
 import androidx.room.Database;
+import androidx.room.DatabaseConfiguration;
 import androidx.room.Room;
 import androidx.room.RoomDatabase;
 import androidx.room.migration.Migration;
 import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
 
+import com.example.trackingcaloapp.data.local.dao.ArchiveDao;
+import com.example.trackingcaloapp.data.local.dao.DailyTotalsDao;
+import com.example.trackingcaloapp.data.local.dao.DaySnapshotDao;
 import com.example.trackingcaloapp.data.local.dao.FoodDao;
+import com.example.trackingcaloapp.data.local.dao.FoodEntryAggregateDao;
 import com.example.trackingcaloapp.data.local.dao.FoodEntryDao;
+import com.example.trackingcaloapp.data.local.dao.FoodUsageDao;
+import com.example.trackingcaloapp.data.local.dao.SearchCacheDao;
 import com.example.trackingcaloapp.data.local.dao.UserDao;
 import com.example.trackingcaloapp.data.local.dao.WeightLogDao;
 import com.example.trackingcaloapp.data.local.dao.WorkoutDao;
 import com.example.trackingcaloapp.data.local.dao.WorkoutEntryDao;
+import com.example.trackingcaloapp.data.local.database.metrics.InstrumentedOpenHelperFactory;
+import com.example.trackingcaloapp.data.local.entity.DailyTotals;
 import com.example.trackingcaloapp.data.local.entity.Food;
 import com.example.trackingcaloapp.data.local.entity.FoodEntry;
+import com.example.trackingcaloapp.data.local.entity.FoodEntryAggregate;
+import com.example.trackingcaloapp.data.local.entity.FoodFts;
+import com.example.trackingcaloapp.data.local.entity.FoodUsage;
+import com.example.trackingcaloapp.data.local.entity.SearchCache;
 import com.example.trackingcaloapp.data.local.entity.User;
 import com.example.trackingcaloapp.data.local.entity.WeightLog;
 import com.example.trackingcaloapp.data.local.entity.Workout;
 import com.example.trackingcaloapp.data.local.entity.WorkoutEntry;
+import com.example.trackingcaloapp.utils.SearchUtils;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Room Database chính của ứng dụng.
  * Singleton pattern để đảm bảo chỉ có một instance duy nhất.
  */
 @Database(
-    entities = {Food.class, FoodEntry.class, Workout.class, WorkoutEntry.class, WeightLog.class, User.class},
-    version = 4,
+    entities = {Food.class, FoodEntry.class, Workout.class, WorkoutEntry.class, WeightLog.class, User.class,
+            DailyTotals.class, FoodFts.class, FoodEntryAggregate.class, FoodUsage.class, SearchCache.class},
+    version = 15,
     exportSchema = false
 )
 public abstract class AppDatabase extends RoomDatabase {
@@ -43,14 +61,33 @@ public abstract class AppDatabase extends RoomDatabase {
     public abstract WorkoutEntryDao workoutEntryDao();
     public abstract WeightLogDao weightLogDao();
     public abstract UserDao userDao();
+    public abstract DailyTotalsDao dailyTotalsDao();
+    public abstract DaySnapshotDao daySnapshotDao();
+    public abstract FoodEntryAggregateDao foodEntryAggregateDao();
+    public abstract ArchiveDao archiveDao();
+    public abstract FoodUsageDao foodUsageDao();
+    public abstract SearchCacheDao searchCacheDao();
 
     // Singleton instance
     private static volatile AppDatabase INSTANCE;
 
-    // Executor cho background operations
-    private static final int NUMBER_OF_THREADS = 4;
-    public static final ExecutorService databaseWriteExecutor =
-            Executors.newFixedThreadPool(NUMBER_OF_THREADS);
+    private volatile Context appContext;
+    private volatile HistoryArchive historyArchive;
+    private final Object historyArchiveLock = new Object();
+
+    private static final MutableLiveData<Boolean> catalogReady = new MutableLiveData<>(false);
+    private static final AtomicBoolean catalogReadyPosted = new AtomicBoolean();
+
+    // Một thread ghi duy nhất: SQLite chỉ có một write lock, nhiều thread ghi chỉ tranh lock.
+    // Trong WAL, đọc không bị chặn bởi ghi nên reads chạy trên pool riêng.
+    // Transaction executor của Room cũng là read pool (Room tự tuần tự hóa các task trên đó):
+    // Room chỉ dùng nó cho reads @Transaction (LiveData inTransaction), mọi ghi đã đi qua writer thread,
+    // nên dùng writer thread sẽ bắt các reads đó xếp hàng sau writes.
+    private static final int NUMBER_OF_READ_THREADS = 3;
+    public static final MeteredExecutor databaseWriteExecutor =
+            new MeteredExecutor("db-writer", 1);
+    public static final MeteredExecutor databaseReadExecutor =
+            new MeteredExecutor("db-reader", NUMBER_OF_READ_THREADS);
 
     /**
      * Migration from version 1 to 2
@@ -98,6 +135,508 @@ public abstract class AppDatabase extends RoomDatabase {
         }
     };
 
+    /**
+     * Migration from version 4 to 5
+     * Thêm bảng daily_totals (rollup theo ngày) và build từ dữ liệu hiện có
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS daily_totals (" +
+                    "day INTEGER NOT NULL, " +
+                    "caloriesConsumed REAL NOT NULL, " +
+                    "protein REAL NOT NULL, " +
+                    "carbs REAL NOT NULL, " +
+                    "fat REAL NOT NULL, " +
+                    "breakfastCalories REAL NOT NULL, " +
+                    "lunchCalories REAL NOT NULL, " +
+                    "dinnerCalories REAL NOT NULL, " +
+                    "snackCalories REAL NOT NULL, " +
+                    "foodEntryCount INTEGER NOT NULL, " +
+                    "caloriesBurned REAL NOT NULL, " +
+                    "workoutDuration INTEGER NOT NULL, " +
+                    "workoutEntryCount INTEGER NOT NULL, " +
+                    "PRIMARY KEY(day))");
+            rebuildDailyTotalsV5(database);
+        }
+    };
+
+    /**
+     * Migration from version 5 to 6
+     * Thêm localDay/localMinuteOfDay cho entries, backfill theo giờ địa phương,
+     * rồi build lại daily_totals theo localDay
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            for (String table : new String[]{"food_entries", "workout_entries"}) {
+                database.execSQL("ALTER TABLE " + table + " ADD COLUMN localDay INTEGER NOT NULL DEFAULT 0");
+                database.execSQL("ALTER TABLE " + table + " ADD COLUMN localMinuteOfDay INTEGER NOT NULL DEFAULT 0");
+                database.execSQL("UPDATE " + table + " SET " +
+                        "localDay = " + DailyTotalsDao.LOCAL_DAY_OF_DATE + ", " +
+                        "localMinuteOfDay = " + DailyTotalsDao.LOCAL_MINUTE_OF_DATE);
+            }
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_food_entries_localDay_mealType_date " +
+                    "ON food_entries (localDay, mealType, date)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_workout_entries_localDay_date " +
+                    "ON workout_entries (localDay, date)");
+
+            database.execSQL("DELETE FROM daily_totals");
+            rebuildDailyTotalsV6(database);
+        }
+    };
+
+    /**
+     * Migration from version 6 to 7
+     * Thêm cột searchName (tên bỏ dấu) và bảng FTS4 food_fts cho tìm kiếm.
+     * Triggers đồng bộ giống hệt triggers Room tự sinh cho @Fts4(contentEntity).
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("ALTER TABLE foods ADD COLUMN searchName TEXT");
+
+            // Bỏ dấu phải làm bằng Java (unicode61 không fold "đ")
+            SupportSQLiteStatement update = database.compileStatement(
+                    "UPDATE foods SET searchName = ? WHERE id = ?");
+            try (Cursor cursor = database.query("SELECT id, name FROM foods")) {
+                while (cursor.moveToNext()) {
+                    update.bindString(1, SearchUtils.normalize(cursor.getString(1)));
+                    update.bindLong(2, cursor.getLong(0));
+                    update.executeUpdateDelete();
+                }
+            }
+
+            database.execSQL("CREATE VIRTUAL TABLE IF NOT EXISTS `food_fts` USING FTS4(" +
+                    "`searchName` TEXT, tokenize=unicode61 `remove_diacritics=1`, content=`foods`)");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_food_fts_BEFORE_UPDATE " +
+                    "BEFORE UPDATE ON `foods` BEGIN DELETE FROM `food_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_food_fts_BEFORE_DELETE " +
+                    "BEFORE DELETE ON `foods` BEGIN DELETE FROM `food_fts` WHERE `docid`=OLD.`rowid`; END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_food_fts_AFTER_UPDATE " +
+                    "AFTER UPDATE ON `foods` BEGIN INSERT INTO `food_fts`(`docid`, `searchName`) " +
+                    "VALUES (NEW.`rowid`, NEW.`searchName`); END");
+            database.execSQL("CREATE TRIGGER IF NOT EXISTS room_fts_content_sync_food_fts_AFTER_INSERT " +
+                    "AFTER INSERT ON `foods` BEGIN INSERT INTO `food_fts`(`docid`, `searchName`) " +
+                    "VALUES (NEW.`rowid`, NEW.`searchName`); END");
+            database.execSQL("INSERT INTO food_fts(food_fts) VALUES('rebuild')");
+        }
+    };
+
+    /**
+     * Migration from version 7 to 8
+     * Index cho phân trang keyset theo (name, id) của catalog foods
+     */
+    static final Migration MIGRATION_7_8 = new Migration(7, 8) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_foods_name` ON `foods` (`name`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_foods_category_name` ON `foods` (`category`, `name`)");
+        }
+    };
+
+    /**
+     * Migration from version 8 to 9
+     * Thêm userId cho entries, weight_logs và custom foods; index composite theo user;
+     * daily_totals đổi khóa thành (userId, day).
+     * Dữ liệu cũ không biết chủ nên được gán cho tài khoản tạo đầu tiên (0 nếu chưa có).
+     */
+    static final Migration MIGRATION_8_9 = new Migration(8, 9) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            String owner = "(SELECT COALESCE(MIN(id), 0) FROM users)";
+            for (String table : new String[]{"food_entries", "workout_entries", "weight_logs", "foods"}) {
+                database.execSQL("ALTER TABLE " + table + " ADD COLUMN userId INTEGER NOT NULL DEFAULT 0");
+            }
+            database.execSQL("UPDATE food_entries SET userId = " + owner);
+            database.execSQL("UPDATE workout_entries SET userId = " + owner);
+            database.execSQL("UPDATE weight_logs SET userId = " + owner);
+            database.execSQL("UPDATE foods SET userId = " + owner + " WHERE isCustom = 1");
+
+            database.execSQL("DROP INDEX IF EXISTS index_food_entries_date");
+            database.execSQL("DROP INDEX IF EXISTS index_food_entries_localDay_mealType_date");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_food_entries_userId_date " +
+                    "ON food_entries (userId, date)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_food_entries_userId_localDay_mealType_date " +
+                    "ON food_entries (userId, localDay, mealType, date)");
+
+            database.execSQL("DROP INDEX IF EXISTS index_workout_entries_date");
+            database.execSQL("DROP INDEX IF EXISTS index_workout_entries_localDay_date");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_workout_entries_userId_date " +
+                    "ON workout_entries (userId, date)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS index_workout_entries_userId_localDay_date " +
+                    "ON workout_entries (userId, localDay, date)");
+
+            database.execSQL("DROP INDEX IF EXISTS idx_weight_logs_timestamp");
+            database.execSQL("CREATE INDEX IF NOT EXISTS idx_weight_logs_user_timestamp " +
+                    "ON weight_logs (userId, timestamp)");
+
+            database.execSQL("DROP TABLE IF EXISTS daily_totals");
+            database.execSQL("CREATE TABLE IF NOT EXISTS daily_totals (" +
+                    "userId INTEGER NOT NULL, " +
+                    "day INTEGER NOT NULL, " +
+                    "caloriesConsumed REAL NOT NULL, " +
+                    "protein REAL NOT NULL, " +
+                    "carbs REAL NOT NULL, " +
+                    "fat REAL NOT NULL, " +
+                    "breakfastCalories REAL NOT NULL, " +
+                    "lunchCalories REAL NOT NULL, " +
+                    "dinnerCalories REAL NOT NULL, " +
+                    "snackCalories REAL NOT NULL, " +
+                    "foodEntryCount INTEGER NOT NULL, " +
+                    "caloriesBurned REAL NOT NULL, " +
+                    "workoutDuration INTEGER NOT NULL, " +
+                    "workoutEntryCount INTEGER NOT NULL, " +
+                    "PRIMARY KEY(userId, day))");
+            rebuildDailyTotalsV9(database);
+        }
+    };
+
+    /**
+     * Migration from version 9 to 10
+     * Bảng food_entry_aggregates chứa lịch sử food entries đã compact
+     */
+    static final Migration MIGRATION_9_10 = new Migration(9, 10) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `food_entry_aggregates` (" +
+                    "`userId` INTEGER NOT NULL, " +
+                    "`day` INTEGER NOT NULL, " +
+                    "`mealType` INTEGER NOT NULL, " +
+                    "`foodId` INTEGER NOT NULL, " +
+                    "`quantity` REAL NOT NULL, " +
+                    "`totalCalories` REAL NOT NULL, " +
+                    "`totalProtein` REAL NOT NULL, " +
+                    "`totalCarbs` REAL NOT NULL, " +
+                    "`totalFat` REAL NOT NULL, " +
+                    "`entryCount` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`userId`, `day`, `mealType`, `foodId`), " +
+                    "FOREIGN KEY(`foodId`) REFERENCES `foods`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_food_entry_aggregates_foodId` " +
+                    "ON `food_entry_aggregates` (`foodId`)");
+        }
+    };
+
+    /**
+     * Migration from version 10 to 11
+     * Entries chụp lại tên/category/dinh dưỡng của food và tên/đơn vị/category của workout;
+     * foreign key đổi từ CASCADE sang SET NULL, food_entry_aggregates bỏ foreign key.
+     */
+    static final Migration MIGRATION_10_11 = new Migration(10, 11) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            snapshotEntriesV11(database);
+        }
+    };
+
+    /**
+     * Migration from version 11 to 12
+     * Cột deletedAt (tombstone) cho entries, index để purge theo thời điểm xóa
+     */
+    static final Migration MIGRATION_11_12 = new Migration(11, 12) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            addTombstonesV12(database);
+        }
+    };
+
+    /**
+     * Migration from version 12 to 13
+     * Bảng food_usage (foods hay dùng theo bữa), backfill từ entries hiện có
+     */
+    static final Migration MIGRATION_12_13 = new Migration(12, 13) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `food_usage` (" +
+                    "`userId` INTEGER NOT NULL, " +
+                    "`foodId` INTEGER NOT NULL, " +
+                    "`mealType` INTEGER NOT NULL, " +
+                    "`useCount` INTEGER NOT NULL, " +
+                    "`lastUsedAt` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`userId`, `foodId`, `mealType`), " +
+                    "FOREIGN KEY(`foodId`) REFERENCES `foods`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_food_usage_foodId` ON `food_usage` (`foodId`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_food_usage_userId_mealType_useCount_lastUsedAt` " +
+                    "ON `food_usage` (`userId`, `mealType`, `useCount`, `lastUsedAt`)");
+            database.execSQL("CREATE INDEX IF NOT EXISTS `index_food_usage_userId_mealType_lastUsedAt` " +
+                    "ON `food_usage` (`userId`, `mealType`, `lastUsedAt`)");
+
+            database.execSQL("INSERT INTO food_usage (userId, foodId, mealType, useCount, lastUsedAt) " +
+                    "SELECT userId, foodId, mealType, COUNT(*), MAX(date) FROM food_entries " +
+                    "WHERE foodId IS NOT NULL AND deletedAt IS NULL GROUP BY userId, foodId, mealType");
+            database.execSQL("INSERT INTO food_usage (userId, foodId, mealType, useCount, lastUsedAt) " +
+                    "SELECT userId, foodId, -1, COUNT(*), MAX(date) FROM food_entries " +
+                    "WHERE foodId IS NOT NULL AND deletedAt IS NULL GROUP BY userId, foodId");
+        }
+    };
+
+    /**
+     * Migration from version 13 to 14
+     * Bảng search_cache (kết quả search API theo query), index tra foods theo API ID
+     */
+    static final Migration MIGRATION_13_14 = new Migration(13, 14) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            database.execSQL("CREATE TABLE IF NOT EXISTS `search_cache` (" +
+                    "`queryKey` TEXT NOT NULL, " +
+                    "`apiIds` TEXT NOT NULL, " +
+                    "`fetchedAt` INTEGER NOT NULL, " +
+                    "`ttlMs` INTEGER NOT NULL, " +
+                    "PRIMARY KEY(`queryKey`))");
+            indexFoodsApiIdV14(database);
+        }
+    };
+
+    /**
+     * Migration from version 14 to 15
+     * Gộp foods API bị trùng, index (apiSource, apiId) thành unique
+     */
+    static final Migration MIGRATION_14_15 = new Migration(14, 15) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            uniqueApiFoodsV15(database, true);
+        }
+    };
+
+    /**
+     * Toàn bộ chuỗi migration, theo thứ tự version
+     */
+    static final Migration[] ALL_MIGRATIONS = {
+            MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6,
+            MIGRATION_6_7, MIGRATION_7_8, MIGRATION_8_9, MIGRATION_9_10, MIGRATION_10_11,
+            MIGRATION_11_12, MIGRATION_12_13, MIGRATION_13_14, MIGRATION_14_15
+    };
+
+    /**
+     * Build daily_totals theo schema version 5 (khóa day, entries chưa có localDay):
+     * đúng câu REBUILD_SQL đã ship cùng MIGRATION_4_5.
+     * Không sửa nội dung các hàm rebuildDailyTotalsV* khi schema đổi về sau.
+     */
+    static void rebuildDailyTotalsV5(SupportSQLiteDatabase database) {
+        String localDay = "CAST(julianday(date / 1000, 'unixepoch', 'localtime') - 2440587.5 AS INTEGER)";
+        database.execSQL("INSERT OR REPLACE INTO daily_totals (day, caloriesConsumed, protein, carbs, fat, " +
+                "breakfastCalories, lunchCalories, dinnerCalories, snackCalories, foodEntryCount, " +
+                "caloriesBurned, workoutDuration, workoutEntryCount) " +
+                "SELECT d, SUM(kcal), SUM(p), SUM(c), SUM(f), SUM(b), SUM(l), SUM(dn), SUM(s), SUM(fn), " +
+                "SUM(burned), SUM(dur), SUM(wn) FROM (" +
+                "SELECT " + localDay + " AS d, totalCalories AS kcal, totalProtein AS p, " +
+                "totalCarbs AS c, totalFat AS f, " +
+                "CASE WHEN mealType = 0 THEN totalCalories ELSE 0 END AS b, " +
+                "CASE WHEN mealType = 1 THEN totalCalories ELSE 0 END AS l, " +
+                "CASE WHEN mealType = 2 THEN totalCalories ELSE 0 END AS dn, " +
+                "CASE WHEN mealType = 3 THEN totalCalories ELSE 0 END AS s, " +
+                "1 AS fn, 0 AS burned, 0 AS dur, 0 AS wn FROM food_entries " +
+                "UNION ALL " +
+                "SELECT " + localDay + ", 0, 0, 0, 0, 0, 0, 0, 0, 0, caloriesBurned, duration, 1 " +
+                "FROM workout_entries" +
+                ") GROUP BY d");
+    }
+
+    /**
+     * Build daily_totals theo schema version 6 (entries có localDay, chưa có userId):
+     * đúng câu REBUILD_SQL đã ship cùng MIGRATION_5_6
+     */
+    static void rebuildDailyTotalsV6(SupportSQLiteDatabase database) {
+        database.execSQL("INSERT OR REPLACE INTO daily_totals (day, caloriesConsumed, protein, carbs, fat, " +
+                "breakfastCalories, lunchCalories, dinnerCalories, snackCalories, foodEntryCount, " +
+                "caloriesBurned, workoutDuration, workoutEntryCount) " +
+                "SELECT d, SUM(kcal), SUM(p), SUM(c), SUM(f), SUM(b), SUM(l), SUM(dn), SUM(s), SUM(fn), " +
+                "SUM(burned), SUM(dur), SUM(wn) FROM (" +
+                "SELECT localDay AS d, totalCalories AS kcal, totalProtein AS p, " +
+                "totalCarbs AS c, totalFat AS f, " +
+                "CASE WHEN mealType = 0 THEN totalCalories ELSE 0 END AS b, " +
+                "CASE WHEN mealType = 1 THEN totalCalories ELSE 0 END AS l, " +
+                "CASE WHEN mealType = 2 THEN totalCalories ELSE 0 END AS dn, " +
+                "CASE WHEN mealType = 3 THEN totalCalories ELSE 0 END AS s, " +
+                "1 AS fn, 0 AS burned, 0 AS dur, 0 AS wn FROM food_entries " +
+                "UNION ALL " +
+                "SELECT localDay, 0, 0, 0, 0, 0, 0, 0, 0, 0, caloriesBurned, duration, 1 " +
+                "FROM workout_entries" +
+                ") GROUP BY d");
+    }
+
+    /**
+     * Build daily_totals theo schema version 9 (khóa (userId, day), chưa có food_entry_aggregates):
+     * đúng câu REBUILD_SQL đã ship cùng MIGRATION_8_9
+     */
+    static void rebuildDailyTotalsV9(SupportSQLiteDatabase database) {
+        database.execSQL("INSERT OR REPLACE INTO daily_totals (userId, day, caloriesConsumed, protein, carbs, fat, " +
+                "breakfastCalories, lunchCalories, dinnerCalories, snackCalories, foodEntryCount, " +
+                "caloriesBurned, workoutDuration, workoutEntryCount) " +
+                "SELECT u, d, SUM(kcal), SUM(p), SUM(c), SUM(f), SUM(b), SUM(l), SUM(dn), SUM(s), SUM(fn), " +
+                "SUM(burned), SUM(dur), SUM(wn) FROM (" +
+                "SELECT userId AS u, localDay AS d, totalCalories AS kcal, totalProtein AS p, " +
+                "totalCarbs AS c, totalFat AS f, " +
+                "CASE WHEN mealType = 0 THEN totalCalories ELSE 0 END AS b, " +
+                "CASE WHEN mealType = 1 THEN totalCalories ELSE 0 END AS l, " +
+                "CASE WHEN mealType = 2 THEN totalCalories ELSE 0 END AS dn, " +
+                "CASE WHEN mealType = 3 THEN totalCalories ELSE 0 END AS s, " +
+                "1 AS fn, 0 AS burned, 0 AS dur, 0 AS wn FROM food_entries " +
+                "UNION ALL " +
+                "SELECT userId, localDay, 0, 0, 0, 0, 0, 0, 0, 0, 0, caloriesBurned, duration, 1 " +
+                "FROM workout_entries" +
+                ") GROUP BY u, d");
+    }
+
+    /**
+     * Rebuild food_entries, workout_entries, food_entry_aggregates theo schema version 11,
+     * backfill snapshot từ catalog hiện tại. Dùng chung cho ArchiveDatabase.MIGRATION_1_2
+     * (archive v1 có cùng schema các bảng này với database chính v10).
+     * Không sửa nội dung hàm này khi schema đổi về sau.
+     */
+    static void snapshotEntriesV11(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE TABLE IF NOT EXISTS `food_entries_new` (" +
+                "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`foodId` INTEGER, " +
+                "`quantity` REAL NOT NULL, " +
+                "`mealType` INTEGER NOT NULL, " +
+                "`date` INTEGER NOT NULL, " +
+                "`totalCalories` REAL NOT NULL, " +
+                "`totalProtein` REAL NOT NULL, " +
+                "`totalCarbs` REAL NOT NULL, " +
+                "`totalFat` REAL NOT NULL, " +
+                "`localDay` INTEGER NOT NULL DEFAULT 0, " +
+                "`localMinuteOfDay` INTEGER NOT NULL DEFAULT 0, " +
+                "`userId` INTEGER NOT NULL DEFAULT 0, " +
+                "`foodName` TEXT, " +
+                "`foodCategory` TEXT, " +
+                "`caloriesPer100g` REAL NOT NULL, " +
+                "`proteinPer100g` REAL NOT NULL, " +
+                "`carbsPer100g` REAL NOT NULL, " +
+                "`fatPer100g` REAL NOT NULL, " +
+                "FOREIGN KEY(`foodId`) REFERENCES `foods`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL)");
+        database.execSQL("INSERT INTO food_entries_new (id, foodId, quantity, mealType, date, totalCalories, " +
+                "totalProtein, totalCarbs, totalFat, localDay, localMinuteOfDay, userId, foodName, foodCategory, " +
+                "caloriesPer100g, proteinPer100g, carbsPer100g, fatPer100g) " +
+                "SELECT e.id, e.foodId, e.quantity, e.mealType, e.date, e.totalCalories, e.totalProtein, " +
+                "e.totalCarbs, e.totalFat, e.localDay, e.localMinuteOfDay, e.userId, f.name, f.category, " +
+                "COALESCE(f.calories, 0), COALESCE(f.protein, 0), COALESCE(f.carbs, 0), COALESCE(f.fat, 0) " +
+                "FROM food_entries e LEFT JOIN foods f ON f.id = e.foodId");
+        database.execSQL("DROP TABLE food_entries");
+        database.execSQL("ALTER TABLE food_entries_new RENAME TO food_entries");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_food_entries_foodId` ON `food_entries` (`foodId`)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_food_entries_userId_date` " +
+                "ON `food_entries` (`userId`, `date`)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_food_entries_userId_localDay_mealType_date` " +
+                "ON `food_entries` (`userId`, `localDay`, `mealType`, `date`)");
+
+        database.execSQL("CREATE TABLE IF NOT EXISTS `workout_entries_new` (" +
+                "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                "`workoutId` INTEGER, " +
+                "`quantity` REAL NOT NULL, " +
+                "`duration` INTEGER NOT NULL, " +
+                "`date` INTEGER NOT NULL, " +
+                "`caloriesBurned` REAL NOT NULL, " +
+                "`note` TEXT, " +
+                "`localDay` INTEGER NOT NULL DEFAULT 0, " +
+                "`localMinuteOfDay` INTEGER NOT NULL DEFAULT 0, " +
+                "`userId` INTEGER NOT NULL DEFAULT 0, " +
+                "`workoutName` TEXT, " +
+                "`workoutUnit` TEXT, " +
+                "`workoutCategory` TEXT, " +
+                "FOREIGN KEY(`workoutId`) REFERENCES `workouts`(`id`) ON UPDATE NO ACTION ON DELETE SET NULL)");
+        database.execSQL("INSERT INTO workout_entries_new (id, workoutId, quantity, duration, date, caloriesBurned, " +
+                "note, localDay, localMinuteOfDay, userId, workoutName, workoutUnit, workoutCategory) " +
+                "SELECT e.id, e.workoutId, e.quantity, e.duration, e.date, e.caloriesBurned, e.note, " +
+                "e.localDay, e.localMinuteOfDay, e.userId, w.name, w.unit, w.category " +
+                "FROM workout_entries e LEFT JOIN workouts w ON w.id = e.workoutId");
+        database.execSQL("DROP TABLE workout_entries");
+        database.execSQL("ALTER TABLE workout_entries_new RENAME TO workout_entries");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_workout_entries_workoutId` " +
+                "ON `workout_entries` (`workoutId`)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_workout_entries_userId_date` " +
+                "ON `workout_entries` (`userId`, `date`)");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_workout_entries_userId_localDay_date` " +
+                "ON `workout_entries` (`userId`, `localDay`, `date`)");
+
+        database.execSQL("CREATE TABLE IF NOT EXISTS `food_entry_aggregates_new` (" +
+                "`userId` INTEGER NOT NULL, " +
+                "`day` INTEGER NOT NULL, " +
+                "`mealType` INTEGER NOT NULL, " +
+                "`foodId` INTEGER NOT NULL, " +
+                "`quantity` REAL NOT NULL, " +
+                "`totalCalories` REAL NOT NULL, " +
+                "`totalProtein` REAL NOT NULL, " +
+                "`totalCarbs` REAL NOT NULL, " +
+                "`totalFat` REAL NOT NULL, " +
+                "`entryCount` INTEGER NOT NULL, " +
+                "PRIMARY KEY(`userId`, `day`, `mealType`, `foodId`))");
+        database.execSQL("INSERT INTO food_entry_aggregates_new SELECT userId, day, mealType, foodId, quantity, " +
+                "totalCalories, totalProtein, totalCarbs, totalFat, entryCount FROM food_entry_aggregates");
+        database.execSQL("DROP TABLE food_entry_aggregates");
+        database.execSQL("ALTER TABLE food_entry_aggregates_new RENAME TO food_entry_aggregates");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_food_entry_aggregates_foodId` " +
+                "ON `food_entry_aggregates` (`foodId`)");
+    }
+
+    /**
+     * Thêm cột deletedAt và index cho food_entries, workout_entries (schema version 12).
+     * Dùng chung cho ArchiveDatabase.MIGRATION_2_3. Không sửa khi schema đổi về sau.
+     */
+    static void addTombstonesV12(SupportSQLiteDatabase database) {
+        database.execSQL("ALTER TABLE food_entries ADD COLUMN deletedAt INTEGER");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_food_entries_deletedAt` " +
+                "ON `food_entries` (`deletedAt`)");
+        database.execSQL("ALTER TABLE workout_entries ADD COLUMN deletedAt INTEGER");
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_workout_entries_deletedAt` " +
+                "ON `workout_entries` (`deletedAt`)");
+    }
+
+    /**
+     * Thêm index (apiSource, apiId) cho foods (schema version 14).
+     * Dùng chung cho ArchiveDatabase.MIGRATION_3_4. Không sửa khi schema đổi về sau.
+     */
+    static void indexFoodsApiIdV14(SupportSQLiteDatabase database) {
+        database.execSQL("CREATE INDEX IF NOT EXISTS `index_foods_apiSource_apiId` " +
+                "ON `foods` (`apiSource`, `apiId`)");
+    }
+
+    /**
+     * Gộp các foods trùng (apiSource, apiId) về dòng có id nhỏ nhất, rồi tạo lại
+     * index_foods_apiSource_apiId dạng unique (schema version 15).
+     * Entries, aggregates (và food_usage nếu có) được chuyển sang dòng giữ lại trước khi xóa bản trùng.
+     * Dùng chung cho ArchiveDatabase.MIGRATION_4_5. Không sửa khi schema đổi về sau.
+     * @param hasFoodUsage Database có bảng food_usage (archive không có)
+     */
+    static void uniqueApiFoodsV15(SupportSQLiteDatabase database, boolean hasFoodUsage) {
+        database.execSQL("CREATE TEMP TABLE food_dupes AS " +
+                "SELECT foods.id AS dupId, keep.keepId AS keepId FROM foods " +
+                "JOIN (SELECT apiSource, apiId, MIN(id) AS keepId FROM foods " +
+                "WHERE apiSource IS NOT NULL AND apiId IS NOT NULL " +
+                "GROUP BY apiSource, apiId HAVING COUNT(*) > 1) keep " +
+                "ON foods.apiSource = keep.apiSource AND foods.apiId = keep.apiId AND foods.id <> keep.keepId");
+
+        database.execSQL("UPDATE food_entries SET foodId = " +
+                "(SELECT keepId FROM food_dupes WHERE dupId = food_entries.foodId) " +
+                "WHERE foodId IN (SELECT dupId FROM food_dupes)");
+
+        // Cộng dồn các dòng có khóa chính chứa foodId vào dòng của food giữ lại
+        database.execSQL("INSERT OR REPLACE INTO food_entry_aggregates (userId, day, mealType, foodId, " +
+                "quantity, totalCalories, totalProtein, totalCarbs, totalFat, entryCount) " +
+                "SELECT a.userId, a.day, a.mealType, COALESCE(d.keepId, a.foodId), SUM(a.quantity), " +
+                "SUM(a.totalCalories), SUM(a.totalProtein), SUM(a.totalCarbs), SUM(a.totalFat), SUM(a.entryCount) " +
+                "FROM food_entry_aggregates a LEFT JOIN food_dupes d ON d.dupId = a.foodId " +
+                "WHERE a.foodId IN (SELECT dupId FROM food_dupes UNION SELECT keepId FROM food_dupes) " +
+                "GROUP BY a.userId, a.day, a.mealType, COALESCE(d.keepId, a.foodId)");
+        database.execSQL("DELETE FROM food_entry_aggregates WHERE foodId IN (SELECT dupId FROM food_dupes)");
+
+        if (hasFoodUsage) {
+            database.execSQL("INSERT OR REPLACE INTO food_usage (userId, foodId, mealType, useCount, lastUsedAt) " +
+                    "SELECT u.userId, COALESCE(d.keepId, u.foodId), u.mealType, SUM(u.useCount), MAX(u.lastUsedAt) " +
+                    "FROM food_usage u LEFT JOIN food_dupes d ON d.dupId = u.foodId " +
+                    "WHERE u.foodId IN (SELECT dupId FROM food_dupes UNION SELECT keepId FROM food_dupes) " +
+                    "GROUP BY u.userId, COALESCE(d.keepId, u.foodId), u.mealType");
+            database.execSQL("DELETE FROM food_usage WHERE foodId IN (SELECT dupId FROM food_dupes)");
+        }
+
+        database.execSQL("DELETE FROM foods WHERE id IN (SELECT dupId FROM food_dupes)");
+        database.execSQL("DROP TABLE food_dupes");
+
+        database.execSQL("DROP INDEX IF EXISTS `index_foods_apiSource_apiId`");
+        database.execSQL("CREATE UNIQUE INDEX IF NOT EXISTS `index_foods_apiSource_apiId` " +
+                "ON `foods` (`apiSource`, `apiId`)");
+    }
+
     /**
      * Lấy instance của database (Singleton)
      */
@@ -110,8 +649,12 @@ public abstract class AppDatabase extends RoomDatabase {
                             AppDatabase.class,
                             "calorie_tracker_db"
                     )
-                    .addMigrations(MIGRATION_1_2, MIGRATION_2_3, MIGRATION_3_4)
-                    .addCallback(sRoomDatabaseCallback)
+                    .addMigrations(ALL_MIGRATIONS)
+                    .addCallback(buildCallback(context.getApplicationContext()))
+                    .openHelperFactory(InstrumentedOpenHelperFactory.forBuild())
+                    .setJournalMode(JournalMode.WRITE_AHEAD_LOGGING)
+                    .setQueryExecutor(databaseReadExecutor)
+                    .setTransactionExecutor(databaseReadExecutor)
                     .build();
                 }
             }
@@ -119,6 +662,27 @@ public abstract class AppDatabase extends RoomDatabase {
         return INSTANCE;
     }
 
+    @Override
+    public void init(@NonNull DatabaseConfiguration configuration) {
+        super.init(configuration);
+        appContext = configuration.context.getApplicationContext();
+    }
+
+    /**
+     * Các file archive theo năm của lịch sử cũ.
+     * Tạo khi cần lần đầu, nên mọi instance (kể cả database inject/in-memory) đều có.
+     */
+    public HistoryArchive getHistoryArchive() {
+        if (historyArchive == null) {
+            synchronized (historyArchiveLock) {
+                if (historyArchive == null) {
+                    historyArchive = new HistoryArchive(appContext, this);
+                }
+            }
+        }
+        return historyArchive;
+    }
+
     /**
      * Alias for getDatabase() for compatibility
      */
@@ -127,137 +691,52 @@ public abstract class AppDatabase extends RoomDatabase {
     }
     
     /**
-     * Callback để populate database khi tạo lần đầu
+     * Callback để populate database khi tạo lần đầu.
+     * Catalog được nạp đồng bộ trong onOpen (trên thread đang mở database),
+     * nên query đầu tiên luôn thấy catalog đầy đủ. Nạp lỗi thì catalogReady không được báo
+     * và lần chạy app sau nạp lại.
      */
-    private static final RoomDatabase.Callback sRoomDatabaseCallback = new RoomDatabase.Callback() {
-        @Override
-        public void onCreate(@NonNull SupportSQLiteDatabase db) {
-            super.onCreate(db);
-            
-            // Populate database với dữ liệu mẫu
-            databaseWriteExecutor.execute(() -> {
-                FoodDao foodDao = INSTANCE.foodDao();
-                WorkoutDao workoutDao = INSTANCE.workoutDao();
-                
-                // Thêm thực phẩm mẫu
-                populateFoods(foodDao);
-                
-                // Thêm bài tập mẫu
-                populateWorkouts(workoutDao);
-            });
-        }
-    };
-    
+    private static RoomDatabase.Callback buildCallback(final Context appContext) {
+        return new RoomDatabase.Callback() {
+            @Override
+            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                super.onCreate(db);
+                SeedCatalogLoader.markPending(appContext);
+            }
+
+            @Override
+            public void onOpen(@NonNull SupportSQLiteDatabase db) {
+                super.onOpen(db);
+                // Chỉ báo một lần trong process
+                if (SeedCatalogLoader.loadIfPending(appContext, db)
+                        && catalogReadyPosted.compareAndSet(false, true)) {
+                    catalogReady.postValue(true);
+                }
+            }
+        };
+    }
+
     /**
-     * Populate thực phẩm Việt Nam phổ biến
+     * Tín hiệu catalog có sẵn đã nạp xong và database đã mở (không báo nếu nạp lỗi).
+     * AddFoodFragment hiện loading thay vì "không có món" cho tới khi có tín hiệu này.
      */
-    private static void populateFoods(FoodDao foodDao) {
-        // ==================== CƠM & BÚN & PHỞ ====================
-        foodDao.insert(new Food("Cơm trắng", 130, 2.7f, 28, 0.3f, "com"));
-        foodDao.insert(new Food("Cơm rang", 180, 4, 25, 7, "com"));
-        foodDao.insert(new Food("Phở bò", 450, 20, 60, 12, "pho"));
-        foodDao.insert(new Food("Phở gà", 380, 18, 55, 8, "pho"));
-        foodDao.insert(new Food("Bún bò Huế", 480, 22, 58, 15, "bun"));
-        foodDao.insert(new Food("Bún chả", 550, 25, 50, 25, "bun"));
-        foodDao.insert(new Food("Bún riêu", 420, 18, 52, 14, "bun"));
-        foodDao.insert(new Food("Bánh mì thịt", 350, 15, 40, 14, "banh"));
-        foodDao.insert(new Food("Bánh cuốn", 180, 6, 28, 5, "banh"));
-        foodDao.insert(new Food("Xôi xéo", 280, 6, 45, 8, "xoi"));
-        
-        // ==================== THỊT ====================
-        foodDao.insert(new Food("Thịt heo luộc", 250, 27, 0, 15, "thit"));
-        foodDao.insert(new Food("Thịt heo kho", 300, 25, 5, 20, "thit"));
-        foodDao.insert(new Food("Thịt bò xào", 280, 26, 3, 18, "thit"));
-        foodDao.insert(new Food("Thịt gà luộc", 165, 31, 0, 3.6f, "thit"));
-        foodDao.insert(new Food("Thịt gà rán", 260, 27, 8, 14, "thit"));
-        foodDao.insert(new Food("Sườn nướng", 320, 22, 5, 24, "thit"));
-        foodDao.insert(new Food("Thịt kho tàu", 350, 20, 8, 26, "thit"));
-        
-        // ==================== HẢI SẢN ====================
-        foodDao.insert(new Food("Cá kho", 180, 22, 3, 9, "hai_san"));
-        foodDao.insert(new Food("Cá chiên", 220, 20, 5, 13, "hai_san"));
-        foodDao.insert(new Food("Tôm luộc", 99, 21, 0.2f, 1, "hai_san"));
-        foodDao.insert(new Food("Tôm chiên", 150, 18, 8, 6, "hai_san"));
-        foodDao.insert(new Food("Mực xào", 140, 18, 4, 5, "hai_san"));
-        
-        // ==================== RAU CỦ ====================
-        foodDao.insert(new Food("Rau muống xào", 80, 3, 4, 6, "rau"));
-        foodDao.insert(new Food("Rau cải luộc", 25, 2, 3, 0.3f, "rau"));
-        foodDao.insert(new Food("Canh rau", 35, 2, 4, 1, "rau"));
-        foodDao.insert(new Food("Salad rau trộn", 50, 2, 6, 2, "rau"));
-        foodDao.insert(new Food("Đậu phụ chiên", 180, 12, 5, 13, "rau"));
-        foodDao.insert(new Food("Đậu phụ sốt cà", 120, 10, 8, 6, "rau"));
-        
-        // ==================== TRỨNG ====================
-        foodDao.insert(new Food("Trứng luộc", 155, 13, 1.1f, 11, "trung"));
-        foodDao.insert(new Food("Trứng chiên", 196, 14, 1, 15, "trung"));
-        foodDao.insert(new Food("Trứng ốp la", 180, 12, 1, 14, "trung"));
-        
-        // ==================== ĐỒ UỐNG ====================
-        foodDao.insert(new Food("Trà sữa trân châu", 300, 2, 50, 10, "do_uong"));
-        foodDao.insert(new Food("Cà phê sữa đá", 120, 2, 18, 4, "do_uong"));
-        foodDao.insert(new Food("Cà phê đen", 5, 0.3f, 0, 0, "do_uong"));
-        foodDao.insert(new Food("Nước cam", 45, 0.7f, 10, 0.2f, "do_uong"));
-        foodDao.insert(new Food("Sinh tố bơ", 250, 3, 20, 18, "do_uong"));
-        foodDao.insert(new Food("Nước dừa", 45, 0.5f, 9, 0.5f, "do_uong"));
-        
-        // ==================== ĂN VẶT ====================
-        foodDao.insert(new Food("Bánh tráng trộn", 200, 4, 35, 5, "an_vat"));
-        foodDao.insert(new Food("Gỏi cuốn (2 cuốn)", 150, 8, 20, 4, "an_vat"));
-        foodDao.insert(new Food("Chả giò (2 cuốn)", 180, 6, 15, 11, "an_vat"));
-        foodDao.insert(new Food("Khoai tây chiên", 312, 3.4f, 41, 15, "an_vat"));
-        
-        // ==================== TRÁI CÂY ====================
-        foodDao.insert(new Food("Chuối", 89, 1.1f, 23, 0.3f, "trai_cay"));
-        foodDao.insert(new Food("Táo", 52, 0.3f, 14, 0.2f, "trai_cay"));
-        foodDao.insert(new Food("Cam", 47, 0.9f, 12, 0.1f, "trai_cay"));
-        foodDao.insert(new Food("Xoài", 60, 0.8f, 15, 0.4f, "trai_cay"));
-        foodDao.insert(new Food("Dưa hấu", 30, 0.6f, 8, 0.2f, "trai_cay"));
-        foodDao.insert(new Food("Nho", 69, 0.7f, 18, 0.2f, "trai_cay"));
+    public static LiveData<Boolean> getCatalogReady() {
+        return catalogReady;
     }
-    
+
     /**
-     * Populate bài tập phổ biến
+     * Queue depth / thời gian chờ của writer và reader pool (để log khi debug)
      */
-    private static void populateWorkouts(WorkoutDao workoutDao) {
-        // ==================== CARDIO (theo phút) ====================
-        workoutDao.insert(new Workout("Chạy bộ", 10, "phút", "cardio"));
-        workoutDao.insert(new Workout("Đi bộ nhanh", 5, "phút", "cardio"));
-        workoutDao.insert(new Workout("Đạp xe", 8, "phút", "cardio"));
-        workoutDao.insert(new Workout("Bơi lội", 11, "phút", "cardio"));
-        workoutDao.insert(new Workout("Nhảy dây", 12, "phút", "cardio"));
-        workoutDao.insert(new Workout("Aerobic", 7, "phút", "cardio"));
-        workoutDao.insert(new Workout("Zumba", 8, "phút", "cardio"));
-        workoutDao.insert(new Workout("Leo cầu thang", 9, "phút", "cardio"));
-        
-        // ==================== CARDIO (theo km) ====================
-        workoutDao.insert(new Workout("Chạy bộ (km)", 60, "km", "cardio"));
-        workoutDao.insert(new Workout("Đi bộ (km)", 40, "km", "cardio"));
-        workoutDao.insert(new Workout("Đạp xe (km)", 30, "km", "cardio"));
-        
-        // ==================== STRENGTH (theo phút) ====================
-        workoutDao.insert(new Workout("Tập gym", 6, "phút", "strength"));
-        workoutDao.insert(new Workout("Plank", 5, "phút", "strength"));
-        workoutDao.insert(new Workout("Tập tạ", 5, "phút", "strength"));
-        workoutDao.insert(new Workout("Crossfit", 10, "phút", "strength"));
-        
-        // ==================== STRENGTH (theo lần) ====================
-        workoutDao.insert(new Workout("Hít đất", 0.5f, "lần", "strength"));
-        workoutDao.insert(new Workout("Squat", 0.3f, "lần", "strength"));
-        workoutDao.insert(new Workout("Gập bụng", 0.3f, "lần", "strength"));
-        workoutDao.insert(new Workout("Burpee", 1, "lần", "strength"));
-        
-        // ==================== FLEXIBILITY ====================
-        workoutDao.insert(new Workout("Yoga", 4, "phút", "flexibility"));
-        workoutDao.insert(new Workout("Stretching", 3, "phút", "flexibility"));
-        workoutDao.insert(new Workout("Pilates", 5, "phút", "flexibility"));
-        
-        // ==================== SPORTS ====================
-        workoutDao.insert(new Workout("Bóng đá", 9, "phút", "cardio"));
-        workoutDao.insert(new Workout("Bóng rổ", 8, "phút", "cardio"));
-        workoutDao.insert(new Workout("Cầu lông", 7, "phút", "cardio"));
-        workoutDao.insert(new Workout("Tennis", 8, "phút", "cardio"));
-        workoutDao.insert(new Workout("Bóng chuyền", 5, "phút", "cardio"));
+    public static String describeExecutorMetrics() {
+        return databaseWriteExecutor.describeMetrics() + "; " + databaseReadExecutor.describeMetrics();
     }
-}
 
+    /**
+     * Mở database sớm ở background (vd: lúc app khởi động)
+     * để lần chạy đầu không phải chờ seed khi vào màn hình chính
+     */
+    public static void warmUp(final Context context) {
+        final Context appContext = context.getApplicationContext();
+        databaseWriteExecutor.execute(() -> getDatabase(appContext).getOpenHelper().getWritableDatabase());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.trackingcaloapp.data.local.database;
+
+import androidx.annotation.NonNull;
+import androidx.room.Database;
+import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.trackingcaloapp.data.local.dao.FoodEntryDao;
+import com.example.trackingcaloapp.data.local.dao.WeightLogDao;
+import com.example.trackingcaloapp.data.local.dao.WorkoutEntryDao;
+import com.example.trackingcaloapp.data.local.entity.Food;
+import com.example.trackingcaloapp.data.local.entity.FoodEntry;
+import com.example.trackingcaloapp.data.local.entity.FoodEntryAggregate;
+import com.example.trackingcaloapp.data.local.entity.WeightLog;
+import com.example.trackingcaloapp.data.local.entity.Workout;
+import com.example.trackingcaloapp.data.local.entity.WorkoutEntry;
+
+/**
+ * Database lưu lịch sử của một năm đã đóng (mỗi năm một file).
+ * Chứa bản sao foods/workouts được entries tham chiếu nên tự đủ dữ liệu
+ * và đọc được bằng chính các DAO của AppDatabase.
+ * Chỉ được mở bởi HistoryArchive khi query chạm tới năm đó.
+ */
+@Database(
+    entities = {Food.class, FoodEntry.class, Workout.class, WorkoutEntry.class, WeightLog.class,
+            FoodEntryAggregate.class},
+    version = 5,
+    exportSchema = false
+)
+public abstract class ArchiveDatabase extends RoomDatabase {
+
+    public abstract FoodEntryDao foodEntryDao();
+    public abstract WorkoutEntryDao workoutEntryDao();
+    public abstract WeightLogDao weightLogDao();
+
+    /**
+     * Migration from version 1 to 2
+     * Snapshot food/workout trên entries, giống AppDatabase.MIGRATION_10_11
+     */
+    static final Migration MIGRATION_1_2 = new Migration(1, 2) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            AppDatabase.snapshotEntriesV11(database);
+        }
+    };
+
+    /**
+     * Migration from version 2 to 3
+     * Cột deletedAt cho entries, giống AppDatabase.MIGRATION_11_12
+     */
+    static final Migration MIGRATION_2_3 = new Migration(2, 3) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            AppDatabase.addTombstonesV12(database);
+        }
+    };
+
+    /**
+     * Migration from version 3 to 4
+     * Index foods theo API ID, giống AppDatabase.MIGRATION_13_14
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            AppDatabase.indexFoodsApiIdV14(database);
+        }
+    };
+
+    /**
+     * Migration from version 4 to 5
+     * Gộp foods API bị trùng, giống AppDatabase.MIGRATION_14_15
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase database) {
+            AppDatabase.uniqueApiFoodsV15(database, false);
+        }
+    };
+}
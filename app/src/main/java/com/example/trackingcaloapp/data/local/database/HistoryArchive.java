@@ -0,0 +1,304 @@
+package com.example.trackingcaloapp.data.local.database;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.text.TextUtils;
+import android.util.Log;
+
+import androidx.annotation.WorkerThread;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.example.trackingcaloapp.data.local.database.metrics.InstrumentedOpenHelperFactory;
+import com.example.trackingcaloapp.utils.DateUtils;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Lịch sử của các năm đã đóng được chuyển sang file riêng
+ * (calorie_tracker_archive_<năm>.db) để database chính nhỏ, mở nhanh, backup nhanh.
+ *
+ * File archive chỉ được mở khi khoảng ngày cần đọc chạm tới năm đó.
+ * daily_totals luôn ở database chính nên charts dài hạn không cần mở archive.
+ *
+ * Không ATTACH vào connection của AppDatabase: Android tắt WAL trên SQLiteDatabase
+ * ngay khi thấy lệnh ATTACH. ATTACH chỉ dùng trên connection của file archive khi chép dữ liệu.
+ */
+public class HistoryArchive {
+
+    private static final String TAG = "HistoryArchive";
+
+    private static final String FILE_PREFIX = "calorie_tracker_archive_";
+    private static final String FILE_SUFFIX = ".db";
+    private static final String TMP_SUFFIX = ".tmp";
+
+    /**
+     * Năm chỉ được archive sau khi đã đóng được số ngày này,
+     * để đầu tháng 1 vẫn sửa/xóa được entries của cuối năm trước
+     */
+    private static final int CLOSE_GRACE_DAYS = 31;
+
+    private final Context appContext;
+    private final AppDatabase db;
+    private final ConcurrentHashMap<Integer, ArchiveDatabase> openArchives = new ConcurrentHashMap<>();
+    private volatile SortedSet<Integer> archivedYears;
+
+    HistoryArchive(Context context, AppDatabase db) {
+        this.appContext = context.getApplicationContext();
+        this.db = db;
+        this.archivedYears = scanArchivedYears();
+    }
+
+    // ==================== ROUTING ====================
+
+    /**
+     * Ngày đầu tiên (epoch day) còn nằm trong database chính
+     */
+    public long getHotStartDay() {
+        SortedSet<Integer> years = archivedYears;
+        if (years.isEmpty()) {
+            return Long.MIN_VALUE;
+        }
+        return DateUtils.toEpochDay(startOfYear(years.last() + 1));
+    }
+
+    public boolean isArchivedDay(long day) {
+        return archivedYears.contains(yearOfDay(day));
+    }
+
+    /**
+     * Các năm đã archive giao với khoảng ngày [startDay, endDay], năm mới nhất trước.
+     * Rỗng nếu khoảng ngày nằm hết trong database chính.
+     */
+    public List<Integer> getYearsForDays(long startDay, long endDay) {
+        SortedSet<Integer> years = archivedYears;
+        if (years.isEmpty() || startDay >= getHotStartDay()) {
+            return Collections.emptyList();
+        }
+        List<Integer> inRange = new ArrayList<>(years.subSet(yearOfDay(startDay), yearOfDay(endDay) + 1));
+        Collections.reverse(inRange);
+        return inRange;
+    }
+
+    /**
+     * Tất cả năm đã archive, mới nhất trước (cho lịch sử cuộn về quá khứ)
+     */
+    public List<Integer> getYearsNewestFirst() {
+        List<Integer> years = new ArrayList<>(archivedYears);
+        Collections.reverse(years);
+        return years;
+    }
+
+    /**
+     * Mở (lần đầu) và trả về archive của một năm.
+     * Chỉ gọi với năm lấy từ getYearsForDays()/getYearsNewestFirst().
+     */
+    @WorkerThread
+    public ArchiveDatabase open(int year) {
+        return openArchives.computeIfAbsent(year, y -> build(fileName(y)));
+    }
+
+    private ArchiveDatabase build(String name) {
+        return Room.databaseBuilder(appContext, ArchiveDatabase.class, name)
+                .addMigrations(ArchiveDatabase.MIGRATION_1_2, ArchiveDatabase.MIGRATION_2_3,
+                        ArchiveDatabase.MIGRATION_3_4, ArchiveDatabase.MIGRATION_4_5)
+                .openHelperFactory(InstrumentedOpenHelperFactory.forBuild())
+                .setJournalMode(RoomDatabase.JournalMode.TRUNCATE)
+                .setQueryExecutor(AppDatabase.databaseReadExecutor)
+                .setTransactionExecutor(AppDatabase.databaseReadExecutor)
+                .build();
+    }
+
+    // ==================== ARCHIVING ====================
+
+    /**
+     * Chuyển mọi năm đã đóng (quá CLOSE_GRACE_DAYS) còn trong database chính sang archive.
+     * Phải chạy trên writer thread.
+     * @return Số năm đã chuyển
+     */
+    @WorkerThread
+    public int archiveClosedYears() {
+        Long oldest = db.archiveDao().getOldestTimestamp();
+        if (oldest == null) {
+            return 0;
+        }
+        int openYear = yearOf(DateUtils.getDaysAgo(CLOSE_GRACE_DAYS));
+        int archived = 0;
+        for (int year = yearOf(oldest); year < openYear; year++) {
+            if (archiveYear(year)) {
+                archived++;
+            }
+        }
+        return archived;
+    }
+
+    /**
+     * Chép dữ liệu của năm sang file archive rồi xóa khỏi database chính.
+     * File được ghi dưới tên tạm và chỉ đổi tên khi chép xong, nên lỗi giữa chừng
+     * không để lại archive dở dang; lần chạy sau sẽ chép lại.
+     * Năm đã có archive thì các dòng còn trong database chính được chép bổ sung vào file đó trước khi xóa.
+     */
+    private boolean archiveYear(int year) {
+        long start = startOfYear(year);
+        long end = startOfYear(year + 1) - 1;
+        long startDay = DateUtils.toEpochDay(start);
+        long endDay = DateUtils.toEpochDay(end);
+
+        if (!archivedYears.contains(year)) {
+            int copied = copyYear(year, start, end, startDay, endDay);
+            if (copied == 0) {
+                return false;
+            }
+            Log.i(TAG, "Archived " + copied + " rows of " + year);
+        } else {
+            // Lần trước lỗi sau khi đổi tên file, hoặc có dòng được ghi vào năm đó sau khi archive.
+            // Dòng đã có trong archive bị bỏ qua (INSERT OR IGNORE theo id)
+            int merged = copyRange(open(year).getOpenHelper().getWritableDatabase(), start, end, startDay, endDay);
+            if (merged > 0) {
+                Log.i(TAG, "Merged " + merged + " late rows into archive of " + year);
+            }
+        }
+        db.archiveDao().deleteArchivedRange(start, end, startDay, endDay);
+        return true;
+    }
+
+    private int copyYear(int year, long start, long end, long startDay, long endDay) {
+        String tmpName = fileName(year) + TMP_SUFFIX;
+        appContext.deleteDatabase(tmpName);
+
+        int copied;
+        ArchiveDatabase archive = build(tmpName);
+        try {
+            copied = copyRange(archive.getOpenHelper().getWritableDatabase(), start, end, startDay, endDay);
+        } finally {
+            archive.close();
+        }
+
+        if (copied == 0) {
+            appContext.deleteDatabase(tmpName);
+            return 0;
+        }
+        File tmp = appContext.getDatabasePath(tmpName);
+        appContext.deleteDatabase(fileName(year));
+        if (!tmp.renameTo(appContext.getDatabasePath(fileName(year)))) {
+            throw new IllegalStateException("Cannot rename " + tmp);
+        }
+        appContext.deleteDatabase(tmpName);   // journal còn sót của file tạm
+
+        SortedSet<Integer> years = new TreeSet<>(archivedYears);
+        years.add(year);
+        archivedYears = Collections.unmodifiableSortedSet(years);
+        return copied;
+    }
+
+    /**
+     * Chép dữ liệu hot trong khoảng thời gian vào adb (một transaction, database chính được ATTACH)
+     * @return Số dòng lịch sử đã chép
+     */
+    private int copyRange(SupportSQLiteDatabase adb, long start, long end, long startDay, long endDay) {
+        String hotPath = appContext.getDatabasePath(db.getOpenHelper().getDatabaseName()).getAbsolutePath();
+        int copied = 0;
+        adb.execSQL("ATTACH DATABASE ? AS hot", new Object[]{hotPath});
+        try {
+            adb.beginTransaction();
+            try {
+                // Bảng cha trước để thỏa foreign keys trong archive
+                copyRows(adb, "foods", "id IN (SELECT foodId FROM hot.food_entries " +
+                        "WHERE date BETWEEN ? AND ? AND deletedAt IS NULL " +
+                        "UNION SELECT foodId FROM hot.food_entry_aggregates WHERE day BETWEEN ? AND ?)",
+                        start, end, startDay, endDay);
+                copyRows(adb, "workouts", "id IN (SELECT workoutId FROM hot.workout_entries " +
+                        "WHERE date BETWEEN ? AND ? AND deletedAt IS NULL)", start, end);
+                // Tombstones không được chép; deleteArchivedRange xóa hẳn chúng cùng bản gốc
+                copied += copyRows(adb, "food_entries", "date BETWEEN ? AND ? AND deletedAt IS NULL", start, end);
+                copied += copyRows(adb, "workout_entries", "date BETWEEN ? AND ? AND deletedAt IS NULL",
+                        start, end);
+                copied += copyRows(adb, "weight_logs", "timestamp BETWEEN ? AND ?", start, end);
+                copied += copyRows(adb, "food_entry_aggregates", "day BETWEEN ? AND ?", startDay, endDay);
+                adb.setTransactionSuccessful();
+            } finally {
+                adb.endTransaction();
+            }
+        } finally {
+            adb.execSQL("DETACH DATABASE hot");
+        }
+        return copied;
+    }
+
+    /**
+     * INSERT ... SELECT từ hot sang archive theo tên cột của bảng archive
+     * (thứ tự cột của hai file có thể khác nhau do ALTER TABLE trong migrations)
+     * @return Số dòng đã chép
+     */
+    private static int copyRows(SupportSQLiteDatabase adb, String table, String where, Object... args) {
+        List<String> columns = new ArrayList<>();
+        try (Cursor cursor = adb.query("PRAGMA main.table_info(" + table + ")")) {
+            while (cursor.moveToNext()) {
+                columns.add(cursor.getString(1));
+            }
+        }
+        String columnList = TextUtils.join(", ", columns);
+        long before = count(adb, table);
+        adb.execSQL("INSERT OR IGNORE INTO main." + table + " (" + columnList + ") " +
+                "SELECT " + columnList + " FROM hot." + table + " WHERE " + where, args);
+        return (int) (count(adb, table) - before);
+    }
+
+    private static long count(SupportSQLiteDatabase adb, String table) {
+        try (Cursor cursor = adb.query("SELECT COUNT(*) FROM main." + table)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    // ==================== FILES ====================
+
+    private SortedSet<Integer> scanArchivedYears() {
+        SortedSet<Integer> years = new TreeSet<>();
+        File dir = appContext.getDatabasePath(fileName(0)).getParentFile();
+        String[] names = dir != null ? dir.list() : null;
+        if (names != null) {
+            for (String name : names) {
+                if (name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX)) {
+                    try {
+                        years.add(Integer.parseInt(name.substring(FILE_PREFIX.length(),
+                                name.length() - FILE_SUFFIX.length())));
+                    } catch (NumberFormatException ignored) {
+                        // Không phải file archive
+                    }
+                }
+            }
+        }
+        return Collections.unmodifiableSortedSet(years);
+    }
+
+    private static String fileName(int year) {
+        return FILE_PREFIX + year + FILE_SUFFIX;
+    }
+
+    // ==================== DATES ====================
+
+    private static long startOfYear(int year) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(year, Calendar.JANUARY, 1);
+        return calendar.getTimeInMillis();
+    }
+
+    private static int yearOf(long timestamp) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.setTimeInMillis(timestamp);
+        return calendar.get(Calendar.YEAR);
+    }
+
+    private static int yearOfDay(long day) {
+        return yearOf(DateUtils.fromEpochDay(day));
+    }
+}
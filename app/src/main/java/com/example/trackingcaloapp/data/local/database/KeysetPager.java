@@ -0,0 +1,170 @@
+package com.example.trackingcaloapp.data.local.database;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.room.InvalidationTracker;
+import androidx.room.RoomDatabase;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Phân trang keyset cho RecyclerView: mỗi trang là một query
+ * "WHERE key > key cuối cùng ... LIMIT pageSize", không dùng OFFSET,
+ * nên chi phí mỗi trang không tăng theo kích thước bảng.
+ *
+ * Khi bảng thay đổi, các trang đã load được query lại bằng một lần đọc
+ * (LIMIT = số dòng đang hiển thị) để danh sách luôn cập nhật.
+ */
+public class KeysetPager<T> {
+
+    private static final String TAG = "KeysetPager";
+
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    /**
+     * Query một trang bắt đầu sau item cuối của trang trước
+     */
+    public interface PageQuery<T> {
+        /**
+         * @param after Item cuối cùng đã load (null = trang đầu)
+         * @param limit Số dòng tối đa
+         */
+        List<T> load(@Nullable T after, int limit);
+    }
+
+    private final RoomDatabase database;
+    private final PageQuery<T> query;
+    private final int pageSize;
+    private final PagedLiveData items;
+
+    private final Object lock = new Object();
+    private final AtomicBoolean loading = new AtomicBoolean(false);
+    private volatile List<T> loaded = Collections.emptyList();
+    private volatile boolean endReached = false;
+
+    public KeysetPager(RoomDatabase database, String[] tables, PageQuery<T> query) {
+        this(database, tables, query, DEFAULT_PAGE_SIZE);
+    }
+
+    public KeysetPager(RoomDatabase database, String[] tables, PageQuery<T> query, int pageSize) {
+        this.database = database;
+        this.query = query;
+        this.pageSize = pageSize;
+        this.items = new PagedLiveData(tables);
+    }
+
+    /**
+     * Danh sách các item đã load (tăng dần theo từng trang)
+     */
+    public LiveData<List<T>> getItems() {
+        return items;
+    }
+
+    public boolean isEndReached() {
+        return endReached;
+    }
+
+    /**
+     * Load trang tiếp theo (bỏ qua nếu đang load hoặc đã hết dữ liệu).
+     * Gọi khi RecyclerView cuộn gần cuối danh sách.
+     */
+    public void loadNextPage() {
+        if (endReached || !loading.compareAndSet(false, true)) {
+            return;
+        }
+        database.getQueryExecutor().execute(() -> {
+            try {
+                synchronized (lock) {
+                    List<T> current = loaded;
+                    T after = current.isEmpty() ? null : current.get(current.size() - 1);
+                    List<T> page = query.load(after, pageSize);
+                    List<T> next = new ArrayList<>(current.size() + page.size());
+                    next.addAll(current);
+                    next.addAll(page);
+                    publish(next, page.size() < pageSize);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Load page failed", e);
+            } finally {
+                loading.set(false);
+            }
+        });
+    }
+
+    /**
+     * Query lại toàn bộ phần đã load (sau khi bảng thay đổi)
+     */
+    private void reload() {
+        database.getQueryExecutor().execute(() -> {
+            try {
+                synchronized (lock) {
+                    int limit = Math.max(pageSize, loaded.size());
+                    List<T> fresh = query.load(null, limit);
+                    publish(fresh, fresh.size() < limit);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Reload failed", e);
+            }
+        });
+    }
+
+    private void publish(List<T> list, boolean end) {
+        loaded = list;
+        endReached = end;
+        items.postValue(list);
+    }
+
+    /**
+     * LiveData tự đăng ký InvalidationTracker khi có observer
+     */
+    private class PagedLiveData extends LiveData<List<T>> {
+
+        private final InvalidationTracker.Observer observer;
+        private final AtomicBoolean registered = new AtomicBoolean(false);
+        private final AtomicBoolean stale = new AtomicBoolean(false);
+
+        PagedLiveData(String[] tables) {
+            observer = new InvalidationTracker.Observer(tables) {
+                @Override
+                public void onInvalidated(@NonNull Set<String> changedTables) {
+                    if (hasActiveObservers()) {
+                        reload();
+                    } else {
+                        stale.set(true);
+                    }
+                }
+            };
+        }
+
+        @Override
+        protected void onActive() {
+            database.getQueryExecutor().execute(() -> {
+                if (registered.compareAndSet(false, true)) {
+                    database.getInvalidationTracker().addObserver(observer);
+                }
+            });
+            if (loaded.isEmpty() && !endReached) {
+                loadNextPage();
+            } else if (stale.compareAndSet(true, false)) {
+                reload();
+            }
+        }
+
+        @Override
+        protected void onInactive() {
+            database.getQueryExecutor().execute(() -> {
+                if (!hasActiveObservers() && registered.compareAndSet(true, false)) {
+                    database.getInvalidationTracker().removeObserver(observer);
+                    stale.set(true);
+                }
+            });
+        }
+    }
+}
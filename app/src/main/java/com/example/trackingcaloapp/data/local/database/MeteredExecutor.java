@@ -0,0 +1,124 @@
+package com.example.trackingcaloapp.data.local.database;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Executor cố định số thread cho database, có đo queue depth và thời gian chờ.
+ * Thời gian chờ = từ lúc execute() đến lúc task bắt đầu chạy trên thread.
+ */
+public class MeteredExecutor extends ThreadPoolExecutor {
+
+    private static final String TAG = "MeteredExecutor";
+
+    /**
+     * Task chờ lâu hơn ngưỡng này (ms) sẽ bị log cảnh báo
+     */
+    static final long SLOW_WAIT_MS = 100;
+
+    private final String name;
+    private final AtomicLong taskCount = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    public MeteredExecutor(String name, int threads) {
+        super(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory(name));
+        this.name = name;
+    }
+
+    @Override
+    public void execute(@NonNull Runnable command) {
+        final long enqueuedAt = System.nanoTime();
+        super.execute(() -> {
+            recordWait(System.nanoTime() - enqueuedAt);
+            command.run();
+        });
+        maxQueueDepth.accumulateAndGet(getQueue().size(), Math::max);
+    }
+
+    private void recordWait(long waitNanos) {
+        taskCount.incrementAndGet();
+        totalWaitNanos.addAndGet(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        long waitMs = TimeUnit.NANOSECONDS.toMillis(waitNanos);
+        if (waitMs > SLOW_WAIT_MS) {
+            Log.w(TAG, name + ": task waited " + waitMs + "ms, queue depth " + getQueue().size());
+        }
+    }
+
+    // ==================== METRICS ====================
+
+    /**
+     * Số task đang chờ trong queue
+     */
+    public int getQueueDepth() {
+        return getQueue().size();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    /**
+     * Số task đã bắt đầu chạy
+     */
+    public long getStartedTaskCount() {
+        return taskCount.get();
+    }
+
+    public double getAverageWaitMs() {
+        long count = taskCount.get();
+        return count == 0 ? 0 : totalWaitNanos.get() / 1e6 / count;
+    }
+
+    public double getMaxWaitMs() {
+        return maxWaitNanos.get() / 1e6;
+    }
+
+    /**
+     * Reset các giá trị max/tổng (vd: trước khi đo một thao tác cụ thể)
+     */
+    public void resetMetrics() {
+        taskCount.set(0);
+        totalWaitNanos.set(0);
+        maxWaitNanos.set(0);
+        maxQueueDepth.set(0);
+    }
+
+    /**
+     * Tóm tắt metrics để log
+     */
+    public String describeMetrics() {
+        return String.format(Locale.US, "%s: tasks=%d queue=%d maxQueue=%d avgWait=%.2fms maxWait=%.2fms",
+                name, getStartedTaskCount(), getQueueDepth(), getMaxQueueDepth(),
+                getAverageWaitMs(), getMaxWaitMs());
+    }
+
+    /**
+     * Đặt tên thread theo executor để dễ nhận ra trong profiler/log
+     */
+    private static class NamedThreadFactory implements ThreadFactory {
+        private final String prefix;
+        private final AtomicInteger index = new AtomicInteger();
+
+        NamedThreadFactory(String prefix) {
+            this.prefix = prefix;
+        }
+
+        @Override
+        public Thread newThread(@NonNull Runnable r) {
+            return new Thread(r, prefix + "-" + index.incrementAndGet());
+        }
+    }
+}
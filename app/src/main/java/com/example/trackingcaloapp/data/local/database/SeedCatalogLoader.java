@@ -0,0 +1,190 @@
+package com.example.trackingcaloapp.data.local.database;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import com.example.trackingcaloapp.utils.SearchUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Nạp catalog thực phẩm/bài tập có sẵn từ assets/seed/*.tsv.
+ * Toàn bộ catalog được ghi trong một transaction bằng compiled statements,
+ * chạy lúc mở database nên không query nào thấy catalog dở dang.
+ * Database mới được đánh dấu "chờ nạp"; nếu đọc asset lỗi thì dấu vẫn còn
+ * và lần mở sau (lần chạy app sau) nạp lại.
+ */
+public class SeedCatalogLoader {
+
+    private static final String TAG = "SeedCatalogLoader";
+
+    static final String FOODS_ASSET = "seed/foods.tsv";
+    static final String WORKOUTS_ASSET = "seed/workouts.tsv";
+
+    private static final String PREF_NAME = "seed_catalog";
+    private static final String KEY_PENDING = "pending";
+
+    /**
+     * Ngân sách thời gian seed (ms). Vượt quá sẽ log cảnh báo;
+     * SeedCatalogLoaderTest fail nếu catalog đóng gói nạp lâu hơn, để xem lại
+     * kích thước catalog hoặc chuyển sang prepackaged database.
+     */
+    static final long SEED_BUDGET_MS = 500;
+
+    /**
+     * Đánh dấu catalog cần nạp. Gọi trong onCreate, trước khi database được dùng.
+     */
+    static void markPending(Context context) {
+        // commit() thay vì apply(): dấu phải nằm trên đĩa trước khi nạp
+        prefs(context).edit().putBoolean(KEY_PENDING, true).commit();
+    }
+
+    /**
+     * Nạp catalog nếu đang chờ nạp (database mới, hoặc lần nạp trước lỗi)
+     * @return true nếu catalog đã đầy đủ, false nếu vẫn lỗi (giữ dấu để lần mở sau thử lại)
+     */
+    static boolean loadIfPending(Context context, SupportSQLiteDatabase db) {
+        if (!prefs(context).getBoolean(KEY_PENDING, false)) {
+            return true;
+        }
+        try {
+            load(context, db);
+        } catch (IOException e) {
+            Log.e(TAG, "Cannot read seed catalog, will retry on next start", e);
+            return false;
+        }
+        prefs(context).edit().remove(KEY_PENDING).apply();
+        return true;
+    }
+
+    /**
+     * Nạp catalog vào database. Lỗi đọc asset thì rollback và ném lại lỗi.
+     * @return Số dòng đã insert
+     */
+    public static int load(Context context, SupportSQLiteDatabase db) throws IOException {
+        long start = SystemClock.elapsedRealtime();
+        int rows = 0;
+
+        db.beginTransaction();
+        try {
+            rows += loadFoods(context, db);
+            rows += loadWorkouts(context, db);
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+
+        long elapsed = SystemClock.elapsedRealtime() - start;
+        if (elapsed > SEED_BUDGET_MS) {
+            Log.w(TAG, "Seeded " + rows + " rows in " + elapsed + "ms (budget " + SEED_BUDGET_MS + "ms)");
+        } else {
+            Log.d(TAG, "Seeded " + rows + " rows in " + elapsed + "ms");
+        }
+        return rows;
+    }
+
+    private static int loadFoods(Context context, SupportSQLiteDatabase db) throws IOException {
+        try (BufferedReader reader = open(context, FOODS_ASSET)) {
+            return insertFoods(reader, db);
+        }
+    }
+
+    private static int loadWorkouts(Context context, SupportSQLiteDatabase db) throws IOException {
+        try (BufferedReader reader = open(context, WORKOUTS_ASSET)) {
+            return insertWorkouts(reader, db);
+        }
+    }
+
+    /**
+     * Cột: name, calories, protein, carbs, fat, category.
+     * Dòng sai định dạng bị bỏ qua và log, không làm hỏng việc tạo database.
+     */
+    static int insertFoods(BufferedReader reader, SupportSQLiteDatabase db) throws IOException {
+        SupportSQLiteStatement insert = db.compileStatement(
+                "INSERT INTO foods (name, calories, protein, carbs, fat, category, isCustom, cachedAt, searchName) " +
+                "VALUES (?, ?, ?, ?, ?, ?, 0, 0, ?)");
+        int count = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (isSkipped(line)) continue;
+            String[] cols = line.split("\t");
+            try {
+                if (cols.length < 6) {
+                    throw new IllegalArgumentException("expected 6 columns, got " + cols.length);
+                }
+                insert.clearBindings();
+                insert.bindString(1, cols[0]);
+                insert.bindDouble(2, Float.parseFloat(cols[1]));
+                insert.bindDouble(3, Float.parseFloat(cols[2]));
+                insert.bindDouble(4, Float.parseFloat(cols[3]));
+                insert.bindDouble(5, Float.parseFloat(cols[4]));
+                insert.bindString(6, cols[5]);
+                insert.bindString(7, SearchUtils.normalize(cols[0]));
+            } catch (IllegalArgumentException e) {
+                // NumberFormatException cũng là IllegalArgumentException
+                Log.w(TAG, FOODS_ASSET + ":" + lineNumber + " skipped: " + e.getMessage());
+                continue;
+            }
+            insert.executeInsert();
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Cột: name, caloriesPerUnit, unit, category.
+     * Dòng sai định dạng bị bỏ qua và log.
+     */
+    static int insertWorkouts(BufferedReader reader, SupportSQLiteDatabase db) throws IOException {
+        SupportSQLiteStatement insert = db.compileStatement(
+                "INSERT INTO workouts (name, caloriesPerUnit, unit, category, isCustom) VALUES (?, ?, ?, ?, 0)");
+        int count = 0;
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (isSkipped(line)) continue;
+            String[] cols = line.split("\t");
+            try {
+                if (cols.length < 4) {
+                    throw new IllegalArgumentException("expected 4 columns, got " + cols.length);
+                }
+                insert.clearBindings();
+                insert.bindString(1, cols[0]);
+                insert.bindDouble(2, Float.parseFloat(cols[1]));
+                insert.bindString(3, cols[2]);
+                insert.bindString(4, cols[3]);
+            } catch (IllegalArgumentException e) {
+                Log.w(TAG, WORKOUTS_ASSET + ":" + lineNumber + " skipped: " + e.getMessage());
+                continue;
+            }
+            insert.executeInsert();
+            count++;
+        }
+        return count;
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    private static BufferedReader open(Context context, String asset) throws IOException {
+        return new BufferedReader(new InputStreamReader(
+                context.getAssets().open(asset), StandardCharsets.UTF_8));
+    }
+
+    // Bỏ qua dòng trống và dòng comment (#)
+    private static boolean isSkipped(String line) {
+        return line.isEmpty() || line.startsWith("#");
+    }
+}
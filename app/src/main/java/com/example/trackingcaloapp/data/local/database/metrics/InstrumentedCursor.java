@@ -0,0 +1,65 @@
+package com.example.trackingcaloapp.data.local.database.metrics;
+
+import android.database.Cursor;
+import android.database.CursorWrapper;
+
+/**
+ * Cursor ghi metrics khi close: thời gian tính từ lúc query đến khi đọc xong
+ * (SQLite chỉ thực sự chạy query khi cursor được duyệt).
+ * Số dòng là số dòng đã thực sự đọc (vị trí xa nhất cursor đi tới), không gọi getCount():
+ * getCount() bắt SQLite chạy hết result set kể cả khi caller chỉ đọc dòng đầu.
+ */
+class InstrumentedCursor extends CursorWrapper {
+
+    private final String sql;
+    private final long startNanos;
+    private int rowsRead;
+    private boolean recorded;
+
+    InstrumentedCursor(Cursor cursor, String sql, long startNanos) {
+        super(cursor);
+        this.sql = sql;
+        this.startNanos = startNanos;
+    }
+
+    @Override
+    public boolean moveToNext() {
+        return track(super.moveToNext());
+    }
+
+    @Override
+    public boolean moveToFirst() {
+        return track(super.moveToFirst());
+    }
+
+    @Override
+    public boolean moveToLast() {
+        return track(super.moveToLast());
+    }
+
+    @Override
+    public boolean moveToPosition(int position) {
+        return track(super.moveToPosition(position));
+    }
+
+    @Override
+    public boolean move(int offset) {
+        return track(super.move(offset));
+    }
+
+    private boolean track(boolean moved) {
+        if (moved) {
+            rowsRead = Math.max(rowsRead, getPosition() + 1);
+        }
+        return moved;
+    }
+
+    @Override
+    public void close() {
+        if (!recorded) {
+            recorded = true;
+            QueryMetrics.record(sql, System.nanoTime() - startNanos, rowsRead);
+        }
+        super.close();
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.trackingcaloapp.data.local.database.metrics;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteTransactionListener;
+import android.os.CancellationSignal;
+import android.util.Pair;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SimpleSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteQuery;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * SupportSQLiteDatabase bọc database thật: query, execSQL và compiled statements
+ * được đo thời gian rồi ghi vào QueryMetrics. Các method khác chỉ chuyển tiếp.
+ */
+class InstrumentedDatabase implements SupportSQLiteDatabase {
+
+    private final SupportSQLiteDatabase delegate;
+
+    InstrumentedDatabase(SupportSQLiteDatabase delegate) {
+        this.delegate = delegate;
+    }
+
+    boolean wraps(SupportSQLiteDatabase raw) {
+        return delegate == raw;
+    }
+
+    // ==================== INSTRUMENTED ====================
+
+    @NonNull
+    @Override
+    public SupportSQLiteStatement compileStatement(@NonNull String sql) {
+        return new InstrumentedStatement(delegate.compileStatement(sql), sql);
+    }
+
+    @NonNull
+    @Override
+    public Cursor query(@NonNull String query) {
+        return query(new SimpleSQLiteQuery(query));
+    }
+
+    @NonNull
+    @Override
+    public Cursor query(@NonNull String query, @NonNull Object[] bindArgs) {
+        return query(new SimpleSQLiteQuery(query, bindArgs));
+    }
+
+    @NonNull
+    @Override
+    public Cursor query(@NonNull SupportSQLiteQuery query) {
+        long start = System.nanoTime();
+        return new InstrumentedCursor(delegate.query(query), query.getSql(), start);
+    }
+
+    @NonNull
+    @Override
+    public Cursor query(@NonNull SupportSQLiteQuery query, @Nullable CancellationSignal cancellationSignal) {
+        long start = System.nanoTime();
+        return new InstrumentedCursor(delegate.query(query, cancellationSignal), query.getSql(), start);
+    }
+
+    @Override
+    public void execSQL(@NonNull String sql) throws SQLException {
+        long start = System.nanoTime();
+        delegate.execSQL(sql);
+        QueryMetrics.record(sql, System.nanoTime() - start, 0);
+    }
+
+    @Override
+    public void execSQL(@NonNull String sql, @NonNull Object[] bindArgs) throws SQLException {
+        long start = System.nanoTime();
+        delegate.execSQL(sql, bindArgs);
+        QueryMetrics.record(sql, System.nanoTime() - start, 0);
+    }
+
+    @Override
+    public long insert(@NonNull String table, int conflictAlgorithm, @NonNull ContentValues values)
+            throws SQLException {
+        long start = System.nanoTime();
+        long rowId = delegate.insert(table, conflictAlgorithm, values);
+        QueryMetrics.record("INSERT INTO " + table, System.nanoTime() - start, rowId >= 0 ? 1 : 0);
+        return rowId;
+    }
+
+    @Override
+    public int delete(@NonNull String table, @Nullable String whereClause, @Nullable Object[] whereArgs) {
+        long start = System.nanoTime();
+        int rows = delegate.delete(table, whereClause, whereArgs);
+        QueryMetrics.record(String.format(Locale.US, "DELETE FROM %s WHERE %s", table, whereClause),
+                System.nanoTime() - start, rows);
+        return rows;
+    }
+
+    @Override
+    public int update(@NonNull String table, int conflictAlgorithm, @NonNull ContentValues values,
+                      @Nullable String whereClause, @Nullable Object[] whereArgs) {
+        long start = System.nanoTime();
+        int rows = delegate.update(table, conflictAlgorithm, values, whereClause, whereArgs);
+        QueryMetrics.record(String.format(Locale.US, "UPDATE %s WHERE %s", table, whereClause),
+                System.nanoTime() - start, rows);
+        return rows;
+    }
+
+    // ==================== DELEGATE ====================
+
+    @Override
+    public void beginTransaction() {
+        delegate.beginTransaction();
+    }
+
+    @Override
+    public void beginTransactionNonExclusive() {
+        delegate.beginTransactionNonExclusive();
+    }
+
+    @Override
+    public void beginTransactionWithListener(@NonNull SQLiteTransactionListener transactionListener) {
+        delegate.beginTransactionWithListener(transactionListener);
+    }
+
+    @Override
+    public void beginTransactionWithListenerNonExclusive(@NonNull SQLiteTransactionListener transactionListener) {
+        delegate.beginTransactionWithListenerNonExclusive(transactionListener);
+    }
+
+    @Override
+    public void endTransaction() {
+        delegate.endTransaction();
+    }
+
+    @Override
+    public void setTransactionSuccessful() {
+        delegate.setTransactionSuccessful();
+    }
+
+    @Override
+    public boolean inTransaction() {
+        return delegate.inTransaction();
+    }
+
+    @Override
+    public boolean isDbLockedByCurrentThread() {
+        return delegate.isDbLockedByCurrentThread();
+    }
+
+    @Override
+    public boolean yieldIfContendedSafely() {
+        return delegate.yieldIfContendedSafely();
+    }
+
+    @Override
+    public boolean yieldIfContendedSafely(long sleepAfterYieldDelayMillis) {
+        return delegate.yieldIfContendedSafely(sleepAfterYieldDelayMillis);
+    }
+
+    @Override
+    public int getVersion() {
+        return delegate.getVersion();
+    }
+
+    @Override
+    public void setVersion(int version) {
+        delegate.setVersion(version);
+    }
+
+    @Override
+    public long getMaximumSize() {
+        return delegate.getMaximumSize();
+    }
+
+    @Override
+    public long setMaximumSize(long numBytes) {
+        return delegate.setMaximumSize(numBytes);
+    }
+
+    @Override
+    public long getPageSize() {
+        return delegate.getPageSize();
+    }
+
+    @Override
+    public void setPageSize(long numBytes) {
+        delegate.setPageSize(numBytes);
+    }
+
+    @Override
+    public boolean isReadOnly() {
+        return delegate.isReadOnly();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return delegate.isOpen();
+    }
+
+    @Override
+    public boolean needUpgrade(int newVersion) {
+        return delegate.needUpgrade(newVersion);
+    }
+
+    @Nullable
+    @Override
+    public String getPath() {
+        return delegate.getPath();
+    }
+
+    @Override
+    public void setLocale(@NonNull Locale locale) {
+        delegate.setLocale(locale);
+    }
+
+    @Override
+    public void setMaxSqlCacheSize(int cacheSize) {
+        delegate.setMaxSqlCacheSize(cacheSize);
+    }
+
+    @Override
+    public void setForeignKeyConstraintsEnabled(boolean enabled) {
+        delegate.setForeignKeyConstraintsEnabled(enabled);
+    }
+
+    @Override
+    public boolean enableWriteAheadLogging() {
+        return delegate.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void disableWriteAheadLogging() {
+        delegate.disableWriteAheadLogging();
+    }
+
+    @Override
+    public boolean isWriteAheadLoggingEnabled() {
+        return delegate.isWriteAheadLoggingEnabled();
+    }
+
+    @Nullable
+    @Override
+    public List<Pair<String, String>> getAttachedDbs() {
+        return delegate.getAttachedDbs();
+    }
+
+    @Override
+    public boolean isDatabaseIntegrityOk() {
+        return delegate.isDatabaseIntegrityOk();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
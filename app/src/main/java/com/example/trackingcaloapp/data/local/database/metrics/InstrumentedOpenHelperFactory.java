@@ -0,0 +1,89 @@
+package com.example.trackingcaloapp.data.local.database.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+
+import com.example.trackingcaloapp.BuildConfig;
+
+/**
+ * OpenHelper factory bọc database thật để đo thời gian mỗi câu SQL.
+ * Cài trong AppDatabase.getDatabase() và HistoryArchive qua openHelperFactory(forBuild()).
+ */
+public class InstrumentedOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+
+    private final SupportSQLiteOpenHelper.Factory delegate;
+
+    public InstrumentedOpenHelperFactory() {
+        this(new FrameworkSQLiteOpenHelperFactory());
+    }
+
+    public InstrumentedOpenHelperFactory(SupportSQLiteOpenHelper.Factory delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * Factory cho Room builder: chỉ đo trong bản debug,
+     * bản release trả null để Room dùng helper mặc định (không bọc, không ghi metrics)
+     */
+    @Nullable
+    public static SupportSQLiteOpenHelper.Factory forBuild() {
+        return BuildConfig.DEBUG ? new InstrumentedOpenHelperFactory() : null;
+    }
+
+    @NonNull
+    @Override
+    public SupportSQLiteOpenHelper create(@NonNull SupportSQLiteOpenHelper.Configuration configuration) {
+        return new InstrumentedOpenHelper(delegate.create(configuration));
+    }
+
+    private static class InstrumentedOpenHelper implements SupportSQLiteOpenHelper {
+
+        private final SupportSQLiteOpenHelper delegate;
+        private volatile InstrumentedDatabase database;
+
+        InstrumentedOpenHelper(SupportSQLiteOpenHelper delegate) {
+            this.delegate = delegate;
+        }
+
+        @Nullable
+        @Override
+        public String getDatabaseName() {
+            return delegate.getDatabaseName();
+        }
+
+        @Override
+        public void setWriteAheadLoggingEnabled(boolean enabled) {
+            delegate.setWriteAheadLoggingEnabled(enabled);
+        }
+
+        @NonNull
+        @Override
+        public SupportSQLiteDatabase getWritableDatabase() {
+            return wrap(delegate.getWritableDatabase());
+        }
+
+        @NonNull
+        @Override
+        public SupportSQLiteDatabase getReadableDatabase() {
+            return wrap(delegate.getReadableDatabase());
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        // Framework helper trả về cùng một database object, nên chỉ bọc một lần
+        private SupportSQLiteDatabase wrap(SupportSQLiteDatabase raw) {
+            InstrumentedDatabase current = database;
+            if (current == null || !current.wraps(raw)) {
+                current = new InstrumentedDatabase(raw);
+                database = current;
+            }
+            return current;
+        }
+    }
+}
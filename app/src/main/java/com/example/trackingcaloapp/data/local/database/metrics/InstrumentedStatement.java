@@ -0,0 +1,97 @@
+package com.example.trackingcaloapp.data.local.database.metrics;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+import java.io.IOException;
+
+/**
+ * Compiled statement đo thời gian mỗi lần execute (Room dùng cho @Insert/@Update/@Delete
+ * và các @Query ghi dữ liệu).
+ */
+class InstrumentedStatement implements SupportSQLiteStatement {
+
+    private final SupportSQLiteStatement delegate;
+    private final String sql;
+
+    InstrumentedStatement(SupportSQLiteStatement delegate, String sql) {
+        this.delegate = delegate;
+        this.sql = sql;
+    }
+
+    @Override
+    public void execute() {
+        long start = System.nanoTime();
+        delegate.execute();
+        QueryMetrics.record(sql, System.nanoTime() - start, 0);
+    }
+
+    @Override
+    public int executeUpdateDelete() {
+        long start = System.nanoTime();
+        int rows = delegate.executeUpdateDelete();
+        QueryMetrics.record(sql, System.nanoTime() - start, rows);
+        return rows;
+    }
+
+    @Override
+    public long executeInsert() {
+        long start = System.nanoTime();
+        long rowId = delegate.executeInsert();
+        QueryMetrics.record(sql, System.nanoTime() - start, rowId >= 0 ? 1 : 0);
+        return rowId;
+    }
+
+    @Override
+    public long simpleQueryForLong() {
+        long start = System.nanoTime();
+        long value = delegate.simpleQueryForLong();
+        QueryMetrics.record(sql, System.nanoTime() - start, 1);
+        return value;
+    }
+
+    @Nullable
+    @Override
+    public String simpleQueryForString() {
+        long start = System.nanoTime();
+        String value = delegate.simpleQueryForString();
+        QueryMetrics.record(sql, System.nanoTime() - start, 1);
+        return value;
+    }
+
+    @Override
+    public void bindNull(int index) {
+        delegate.bindNull(index);
+    }
+
+    @Override
+    public void bindLong(int index, long value) {
+        delegate.bindLong(index, value);
+    }
+
+    @Override
+    public void bindDouble(int index, double value) {
+        delegate.bindDouble(index, value);
+    }
+
+    @Override
+    public void bindString(int index, @NonNull String value) {
+        delegate.bindString(index, value);
+    }
+
+    @Override
+    public void bindBlob(int index, @NonNull byte[] value) {
+        delegate.bindBlob(index, value);
+    }
+
+    @Override
+    public void clearBindings() {
+        delegate.clearBindings();
+    }
+
+    @Override
+    public void close() throws IOException {
+        delegate.close();
+    }
+}
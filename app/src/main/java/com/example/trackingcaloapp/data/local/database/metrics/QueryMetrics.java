@@ -0,0 +1,170 @@
+package com.example.trackingcaloapp.data.local.database.metrics;
+
+import android.util.Log;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Thống kê thời gian chạy theo từng câu SQL (gắn với method DAO đã gọi nó).
+ * Được ghi bởi InstrumentedOpenHelperFactory, đọc qua snapshot().
+ */
+public class QueryMetrics {
+
+    private static final String TAG = "QueryMetrics";
+
+    private static final ConcurrentHashMap<String, QueryStats> statsBySql = new ConcurrentHashMap<>();
+    private static volatile long slowQueryThresholdMs = 50;
+
+    /**
+     * Thống kê của một câu SQL
+     */
+    static class QueryStats {
+        final String sql;
+        final String label;
+        final LatencyHistogram histogram = new LatencyHistogram();
+        final AtomicLong rows = new AtomicLong();
+
+        QueryStats(String sql, String label) {
+            this.sql = sql;
+            this.label = label;
+        }
+    }
+
+    /**
+     * Ảnh chụp (bất biến) thống kê của một câu SQL tại thời điểm gọi snapshot()
+     */
+    public static class Snapshot {
+        public final String label;          // VD: "FoodEntryDao.getEntryRowsByDay"
+        public final String sql;
+        public final long calls;
+        public final long rows;
+        public final long totalMicros;
+        public final double meanMicros;
+        public final long p50Micros;
+        public final long p95Micros;
+        public final long p99Micros;
+        public final long maxMicros;
+        public final double rowsPerMs;      // Throughput đọc: so sánh projection hẹp với SELECT *
+
+        Snapshot(QueryStats stats) {
+            LatencyHistogram h = stats.histogram;
+            this.label = stats.label;
+            this.sql = stats.sql;
+            this.calls = h.getCount();
+            this.rows = stats.rows.get();
+            this.totalMicros = h.getTotalMicros();
+            this.meanMicros = h.getMeanMicros();
+            this.p50Micros = h.getValueAtPercentile(50);
+            this.p95Micros = h.getValueAtPercentile(95);
+            this.p99Micros = h.getValueAtPercentile(99);
+            this.maxMicros = h.getMaxMicros();
+            this.rowsPerMs = totalMicros > 0 ? rows * 1000.0 / totalMicros : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                    "%s calls=%d rows=%d total=%.1fms rows/ms=%.1f p50=%dus p95=%dus p99=%dus max=%dus",
+                    label, calls, rows, totalMicros / 1000.0, rowsPerMs, p50Micros, p95Micros, p99Micros,
+                    maxMicros);
+        }
+    }
+
+    // ==================== CONFIG ====================
+
+    public static void setSlowQueryThresholdMs(long thresholdMs) {
+        slowQueryThresholdMs = thresholdMs;
+    }
+
+    public static long getSlowQueryThresholdMs() {
+        return slowQueryThresholdMs;
+    }
+
+    // ==================== RECORD ====================
+
+    /**
+     * Ghi một lần chạy câu SQL
+     * @param rows Số dòng trả về (SELECT) hoặc bị ảnh hưởng (UPDATE/DELETE)
+     */
+    static void record(String sql, long elapsedNanos, long rows) {
+        QueryStats stats = statsBySql.get(sql);
+        if (stats == null) {
+            // Chỉ walk stack lần đầu gặp câu SQL: Room dùng SQL cố định cho mỗi method
+            stats = statsBySql.computeIfAbsent(sql, s -> new QueryStats(s, resolveDaoLabel()));
+        }
+        long micros = elapsedNanos / 1000;
+        stats.histogram.record(micros);
+        stats.rows.addAndGet(rows);
+
+        if (micros / 1000 >= slowQueryThresholdMs) {
+            Log.w(TAG, String.format(Locale.US, "%s took %.1fms, %d rows: %s",
+                    stats.label, micros / 1000.0, rows, sql));
+        }
+    }
+
+    /**
+     * Tìm method DAO (class Room sinh ra có hậu tố _Impl) trong stack hiện tại.
+     * Query của LiveData chạy trong Callable ẩn danh của _Impl nên method DAO không còn trên stack;
+     * tên lấy từ method bao quanh class ẩn danh đó.
+     */
+    private static String resolveDaoLabel() {
+        for (StackTraceElement frame : Thread.currentThread().getStackTrace()) {
+            String className = frame.getClassName();
+            int impl = className.indexOf("_Impl");
+            if (impl < 0) {
+                continue;
+            }
+            String dao = className.substring(className.lastIndexOf('.') + 1, impl);
+            boolean nested = className.indexOf('$', impl) >= 0;
+            return nested ? dao + "." + enclosingMethodName(className) + " (observed)"
+                    : dao + "." + frame.getMethodName();
+        }
+        return "sql";
+    }
+
+    private static String enclosingMethodName(String className) {
+        try {
+            Method method = Class.forName(className).getEnclosingMethod();
+            if (method != null) {
+                return method.getName();
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            // Không có thông tin method bao quanh: chỉ còn tên DAO
+        }
+        return "?";
+    }
+
+    // ==================== SNAPSHOT ====================
+
+    /**
+     * Ảnh chụp thống kê, sắp xếp theo tổng thời gian giảm dần
+     */
+    public static List<Snapshot> snapshot() {
+        List<Snapshot> result = new ArrayList<>();
+        for (QueryStats stats : statsBySql.values()) {
+            result.add(new Snapshot(stats));
+        }
+        Collections.sort(result, (a, b) -> Long.compare(b.totalMicros, a.totalMicros));
+        return result;
+    }
+
+    /**
+     * Log top N câu SQL tốn thời gian nhất
+     */
+    public static void logTop(int limit) {
+        List<Snapshot> all = snapshot();
+        for (int i = 0; i < Math.min(limit, all.size()); i++) {
+            Log.i(TAG, all.get(i).toString());
+        }
+    }
+
+    public static void reset() {
+        statsBySql.clear();
+    }
+}
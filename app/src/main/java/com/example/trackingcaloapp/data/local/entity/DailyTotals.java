@@ -0,0 +1,192 @@
+package com.example.trackingcaloapp.data.local.entity;
+
+import androidx.room.Entity;
+
+import com.example.trackingcaloapp.model.MacroSum;
+import com.example.trackingcaloapp.model.MealTypeCalories;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Entity lưu tổng hợp dinh dưỡng theo ngày (materialized rollup).
+ * Được cập nhật cùng transaction với mọi thao tác ghi food/workout entries,
+ * nên dashboard chỉ cần đọc một dòng thay vì SUM trên toàn bộ lịch sử.
+ */
+@Entity(tableName = "daily_totals", primaryKeys = {"userId", "day"})
+public class DailyTotals {
+
+    private int userId;                 // Tài khoản (users.id)
+    private long day;                   // Epoch day theo giờ địa phương
+
+    private float caloriesConsumed;     // Tổng calo ăn vào
+    private float protein;              // Tổng protein (g)
+    private float carbs;                // Tổng carbs (g)
+    private float fat;                  // Tổng fat (g)
+    private float breakfastCalories;    // Calo bữa sáng
+    private float lunchCalories;        // Calo bữa trưa
+    private float dinnerCalories;       // Calo bữa tối
+    private float snackCalories;        // Calo bữa phụ
+    private int foodEntryCount;         // Số food entries trong ngày
+
+    private float caloriesBurned;       // Tổng calo đốt cháy
+    private int workoutDuration;        // Tổng thời gian tập (phút)
+    private int workoutEntryCount;      // Số workout entries trong ngày
+
+    // Default constructor for Room
+    public DailyTotals() {}
+
+    // Getters and Setters
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public long getDay() {
+        return day;
+    }
+
+    public void setDay(long day) {
+        this.day = day;
+    }
+
+    public float getCaloriesConsumed() {
+        return caloriesConsumed;
+    }
+
+    public void setCaloriesConsumed(float caloriesConsumed) {
+        this.caloriesConsumed = caloriesConsumed;
+    }
+
+    public float getProtein() {
+        return protein;
+    }
+
+    public void setProtein(float protein) {
+        this.protein = protein;
+    }
+
+    public float getCarbs() {
+        return carbs;
+    }
+
+    public void setCarbs(float carbs) {
+        this.carbs = carbs;
+    }
+
+    public float getFat() {
+        return fat;
+    }
+
+    public void setFat(float fat) {
+        this.fat = fat;
+    }
+
+    public float getBreakfastCalories() {
+        return breakfastCalories;
+    }
+
+    public void setBreakfastCalories(float breakfastCalories) {
+        this.breakfastCalories = breakfastCalories;
+    }
+
+    public float getLunchCalories() {
+        return lunchCalories;
+    }
+
+    public void setLunchCalories(float lunchCalories) {
+        this.lunchCalories = lunchCalories;
+    }
+
+    public float getDinnerCalories() {
+        return dinnerCalories;
+    }
+
+    public void setDinnerCalories(float dinnerCalories) {
+        this.dinnerCalories = dinnerCalories;
+    }
+
+    public float getSnackCalories() {
+        return snackCalories;
+    }
+
+    public void setSnackCalories(float snackCalories) {
+        this.snackCalories = snackCalories;
+    }
+
+    public int getFoodEntryCount() {
+        return foodEntryCount;
+    }
+
+    public void setFoodEntryCount(int foodEntryCount) {
+        this.foodEntryCount = foodEntryCount;
+    }
+
+    public float getCaloriesBurned() {
+        return caloriesBurned;
+    }
+
+    public void setCaloriesBurned(float caloriesBurned) {
+        this.caloriesBurned = caloriesBurned;
+    }
+
+    public int getWorkoutDuration() {
+        return workoutDuration;
+    }
+
+    public void setWorkoutDuration(int workoutDuration) {
+        this.workoutDuration = workoutDuration;
+    }
+
+    public int getWorkoutEntryCount() {
+        return workoutEntryCount;
+    }
+
+    public void setWorkoutEntryCount(int workoutEntryCount) {
+        this.workoutEntryCount = workoutEntryCount;
+    }
+
+    /**
+     * Lấy calo theo loại bữa ăn
+     * @param mealType 0=breakfast, 1=lunch, 2=dinner, 3=snack
+     */
+    public float getMealCalories(int mealType) {
+        switch (mealType) {
+            case 0:
+                return breakfastCalories;
+            case 1:
+                return lunchCalories;
+            case 2:
+                return dinnerCalories;
+            case 3:
+                return snackCalories;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Chuyển sang MacroSum (cho PieChart)
+     */
+    public MacroSum toMacroSum() {
+        return new MacroSum(protein, carbs, fat);
+    }
+
+    /**
+     * Chuyển sang danh sách MealTypeCalories (cho BarChart).
+     * Chỉ trả về các bữa có dữ liệu, giống kết quả GROUP BY mealType.
+     */
+    public List<MealTypeCalories> toMealTypeCalories() {
+        List<MealTypeCalories> result = new ArrayList<>();
+        for (int mealType = 0; mealType < 4; mealType++) {
+            float calories = getMealCalories(mealType);
+            if (calories > 0) {
+                result.add(new MealTypeCalories(mealType, calories));
+            }
+        }
+        return result;
+    }
+}
@@ -3,13 +3,19 @@ package com.example.trackingcaloapp.data.local.entity;
 import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.Ignore;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
+import com.example.trackingcaloapp.utils.SearchUtils;
+
 /**
  * Entity đại diện cho một loại thực phẩm trong cơ sở dữ liệu.
  * Lưu trữ thông tin dinh dưỡng per 100g.
  */
-@Entity(tableName = "foods")
+@Entity(
+    tableName = "foods",
+    indices = {@Index("name"), @Index({"category", "name"}), @Index(value = {"apiSource", "apiId"}, unique = true)}
+)
 public class Food {
 
     @PrimaryKey(autoGenerate = true)
@@ -25,17 +31,23 @@ public class Food {
 
     // API Integration fields
     @ColumnInfo(name = "apiId")
-    private Long apiId;            // FatSecret food_id (null = local food)
+    private Long apiId;            // ID của food bên provider, VD: USDA fdcId (null = local food)
 
     @ColumnInfo(name = "apiSource")
-    private String apiSource;      // "fatsecret" hoặc null
+    private String apiSource;      // Provider: "usda" (dữ liệu cũ: "fatsecret"), null = local food
 
     @ColumnInfo(name = "cachedAt", defaultValue = "0")
     private long cachedAt;         // Timestamp khi cache từ API
+
+    private String searchName;     // Tên đã bỏ dấu, lowercase (VD: "pho bo") - index bởi food_fts
+
+    @ColumnInfo(defaultValue = "0")
+    private int userId;            // Chủ sở hữu food tự tạo (0 = dùng chung: có sẵn/API cache)
     
     // Constructor đầy đủ
     public Food(String name, float calories, float protein, float carbs, float fat, String category, boolean isCustom) {
         this.name = name;
+        this.searchName = SearchUtils.normalize(name);
         this.calories = calories;
         this.protein = protein;
         this.carbs = carbs;
@@ -65,6 +77,7 @@ public class Food {
     
     public void setName(String name) {
         this.name = name;
+        this.searchName = SearchUtils.normalize(name);
     }
     
     public float getCalories() {
@@ -140,6 +153,22 @@ public class Food {
         this.cachedAt = cachedAt;
     }
 
+    public String getSearchName() {
+        return searchName;
+    }
+
+    public void setSearchName(String searchName) {
+        this.searchName = searchName;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
     /**
      * Check if this food is from external API
      */
@@ -1,5 +1,6 @@
 package com.example.trackingcaloapp.data.local.entity;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Ignore;
@@ -8,7 +9,10 @@ import androidx.room.PrimaryKey;
 
 /**
  * Entity đại diện cho một mục nhập thực phẩm trong nhật ký ăn uống.
- * Liên kết với Food entity thông qua foodId.
+ * Tên, category và dinh dưỡng per 100g của food được chụp lại lúc ghi,
+ * nên danh sách nhật ký chỉ đọc một bảng và không đổi khi catalog thay đổi.
+ * foodId chỉ để tham chiếu, bị SET NULL khi food bị xóa (entry vẫn giữ nguyên).
+ * Xóa chỉ đánh dấu deletedAt (tombstone) để undo được; dòng thật bị purge sau.
  */
 @Entity(
     tableName = "food_entries",
@@ -16,16 +20,17 @@ import androidx.room.PrimaryKey;
         entity = Food.class,
         parentColumns = "id",
         childColumns = "foodId",
-        onDelete = ForeignKey.CASCADE
+        onDelete = ForeignKey.SET_NULL
     ),
-    indices = {@Index("foodId"), @Index("date")}
+    indices = {@Index("foodId"), @Index({"userId", "date"}), @Index({"userId", "localDay", "mealType", "date"}),
+        @Index("deletedAt")}
 )
 public class FoodEntry {
     
     @PrimaryKey(autoGenerate = true)
     private int id;
     
-    private int foodId;            // Foreign key liên kết với Food
+    private Integer foodId;        // Foreign key liên kết với Food (null nếu food đã bị xóa)
     private float quantity;        // Khối lượng (gram)
     private int mealType;          // 0=breakfast, 1=lunch, 2=dinner, 3=snack
     private long date;             // Timestamp (milliseconds) - ngày ăn
@@ -34,6 +39,22 @@ public class FoodEntry {
     private float totalCarbs;      // Carbs đã tính
     private float totalFat;        // Fat đã tính
 
+    @ColumnInfo(defaultValue = "0")
+    private long localDay;         // Epoch day theo giờ địa phương lúc ghi
+    @ColumnInfo(defaultValue = "0")
+    private int localMinuteOfDay;  // Phút trong ngày (0-1439) theo giờ địa phương lúc ghi
+    @ColumnInfo(defaultValue = "0")
+    private int userId;            // Tài khoản sở hữu entry (users.id)
+    private Long deletedAt;        // Thời điểm xóa (null = còn hiệu lực)
+
+    // Snapshot của Food lúc ghi
+    private String foodName;       // Tên thực phẩm
+    private String foodCategory;   // Category của thực phẩm
+    private float caloriesPer100g; // Calo per 100g
+    private float proteinPer100g;  // Protein (g) per 100g
+    private float carbsPer100g;    // Carbs (g) per 100g
+    private float fatPer100g;      // Fat (g) per 100g
+
     // Default constructor for Room
     public FoodEntry() {}
 
@@ -60,11 +81,11 @@ public class FoodEntry {
         this.id = id;
     }
     
-    public int getFoodId() {
+    public Integer getFoodId() {
         return foodId;
     }
     
-    public void setFoodId(int foodId) {
+    public void setFoodId(Integer foodId) {
         this.foodId = foodId;
     }
     
@@ -124,6 +145,99 @@ public class FoodEntry {
         this.totalFat = totalFat;
     }
     
+    public long getLocalDay() {
+        return localDay;
+    }
+    
+    public void setLocalDay(long localDay) {
+        this.localDay = localDay;
+    }
+    
+    public int getLocalMinuteOfDay() {
+        return localMinuteOfDay;
+    }
+    
+    public void setLocalMinuteOfDay(int localMinuteOfDay) {
+        this.localMinuteOfDay = localMinuteOfDay;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public Long getDeletedAt() {
+        return deletedAt;
+    }
+
+    public void setDeletedAt(Long deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public String getFoodName() {
+        return foodName;
+    }
+
+    public void setFoodName(String foodName) {
+        this.foodName = foodName;
+    }
+
+    public String getFoodCategory() {
+        return foodCategory;
+    }
+
+    public void setFoodCategory(String foodCategory) {
+        this.foodCategory = foodCategory;
+    }
+
+    public float getCaloriesPer100g() {
+        return caloriesPer100g;
+    }
+
+    public void setCaloriesPer100g(float caloriesPer100g) {
+        this.caloriesPer100g = caloriesPer100g;
+    }
+
+    public float getProteinPer100g() {
+        return proteinPer100g;
+    }
+
+    public void setProteinPer100g(float proteinPer100g) {
+        this.proteinPer100g = proteinPer100g;
+    }
+
+    public float getCarbsPer100g() {
+        return carbsPer100g;
+    }
+
+    public void setCarbsPer100g(float carbsPer100g) {
+        this.carbsPer100g = carbsPer100g;
+    }
+
+    public float getFatPer100g() {
+        return fatPer100g;
+    }
+
+    public void setFatPer100g(float fatPer100g) {
+        this.fatPer100g = fatPer100g;
+    }
+
+    /**
+     * Gắn entry với food và chụp lại thông tin của food tại thời điểm ghi
+     */
+    public void snapshotFood(Food food) {
+        this.foodId = food.getId();
+        this.foodName = food.getName();
+        this.foodCategory = food.getCategory();
+        this.caloriesPer100g = food.getCalories();
+        this.proteinPer100g = food.getProtein();
+        this.carbsPer100g = food.getCarbs();
+        this.fatPer100g = food.getFat();
+    }
+    
     /**
      * Lấy tên hiển thị của loại bữa ăn
      */
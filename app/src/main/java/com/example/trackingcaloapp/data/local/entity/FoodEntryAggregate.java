@@ -0,0 +1,114 @@
+package com.example.trackingcaloapp.data.local.entity;
+
+import androidx.room.Entity;
+import androidx.room.Index;
+
+/**
+ * Entity lưu food entries cũ đã được nén: một dòng cho mỗi (user, ngày, bữa, food).
+ * Được tạo khi compact lịch sử quá hạn giữ lại; các dòng food_entries gốc bị xóa sau đó.
+ * daily_totals cộng cả food_entries và bảng này nên charts không đổi sau khi compact.
+ * Không có foreign key tới foods: xóa food không được làm đổi lịch sử.
+ */
+@Entity(
+    tableName = "food_entry_aggregates",
+    primaryKeys = {"userId", "day", "mealType", "foodId"},
+    indices = {@Index("foodId")}
+)
+public class FoodEntryAggregate {
+
+    private int userId;             // Tài khoản sở hữu (users.id)
+    private long day;               // Epoch day theo giờ địa phương (localDay của entries)
+    private int mealType;           // 0=breakfast, 1=lunch, 2=dinner, 3=snack
+    private int foodId;             // Food của các entries đã gộp
+
+    private float quantity;         // Tổng khối lượng (gram)
+    private float totalCalories;    // Tổng calo
+    private float totalProtein;     // Tổng protein
+    private float totalCarbs;       // Tổng carbs
+    private float totalFat;         // Tổng fat
+    private int entryCount;         // Số entries gốc đã gộp vào dòng này
+
+    // Default constructor for Room
+    public FoodEntryAggregate() {}
+
+    // Getters and Setters
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public long getDay() {
+        return day;
+    }
+
+    public void setDay(long day) {
+        this.day = day;
+    }
+
+    public int getMealType() {
+        return mealType;
+    }
+
+    public void setMealType(int mealType) {
+        this.mealType = mealType;
+    }
+
+    public int getFoodId() {
+        return foodId;
+    }
+
+    public void setFoodId(int foodId) {
+        this.foodId = foodId;
+    }
+
+    public float getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(float quantity) {
+        this.quantity = quantity;
+    }
+
+    public float getTotalCalories() {
+        return totalCalories;
+    }
+
+    public void setTotalCalories(float totalCalories) {
+        this.totalCalories = totalCalories;
+    }
+
+    public float getTotalProtein() {
+        return totalProtein;
+    }
+
+    public void setTotalProtein(float totalProtein) {
+        this.totalProtein = totalProtein;
+    }
+
+    public float getTotalCarbs() {
+        return totalCarbs;
+    }
+
+    public void setTotalCarbs(float totalCarbs) {
+        this.totalCarbs = totalCarbs;
+    }
+
+    public float getTotalFat() {
+        return totalFat;
+    }
+
+    public void setTotalFat(float totalFat) {
+        this.totalFat = totalFat;
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    public void setEntryCount(int entryCount) {
+        this.entryCount = entryCount;
+    }
+}
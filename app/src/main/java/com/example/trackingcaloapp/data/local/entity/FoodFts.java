@@ -0,0 +1,42 @@
+package com.example.trackingcaloapp.data.local.entity;
+
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.Fts4;
+import androidx.room.FtsOptions;
+import androidx.room.PrimaryKey;
+
+/**
+ * Bảng FTS4 (external content) shadow cột searchName của bảng foods.
+ * Room tự tạo triggers đồng bộ khi foods thay đổi.
+ */
+@Fts4(
+    contentEntity = Food.class,
+    tokenizer = FtsOptions.TOKENIZER_UNICODE61,
+    tokenizerArgs = {"remove_diacritics=1"}
+)
+@Entity(tableName = "food_fts")
+public class FoodFts {
+
+    @PrimaryKey
+    @ColumnInfo(name = "rowid")
+    private int rowid;             // = foods.id
+
+    private String searchName;     // Tên đã bỏ dấu
+
+    public int getRowid() {
+        return rowid;
+    }
+
+    public void setRowid(int rowid) {
+        this.rowid = rowid;
+    }
+
+    public String getSearchName() {
+        return searchName;
+    }
+
+    public void setSearchName(String searchName) {
+        this.searchName = searchName;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.trackingcaloapp.data.local.entity;
+
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+/**
+ * Entity đếm số lần một tài khoản ghi một food, theo từng bữa.
+ * Được cập nhật trong cùng transaction với insert entry (FoodUsageDao.recordUse).
+ * Dòng mealType = ALL_MEALS cộng mọi bữa, dùng cho danh sách "dùng gần đây".
+ *
+ * Index (userId, mealType, useCount, lastUsedAt) và (userId, mealType, lastUsedAt)
+ * cho top-N "hay dùng cho bữa này" / "dùng gần đây" bằng một lần seek, không sort.
+ */
+@Entity(
+    tableName = "food_usage",
+    primaryKeys = {"userId", "foodId", "mealType"},
+    foreignKeys = @ForeignKey(
+        entity = Food.class,
+        parentColumns = "id",
+        childColumns = "foodId",
+        onDelete = ForeignKey.CASCADE
+    ),
+    indices = {@Index("foodId"), @Index({"userId", "mealType", "useCount", "lastUsedAt"}),
+            @Index({"userId", "mealType", "lastUsedAt"})}
+)
+public class FoodUsage {
+
+    /**
+     * mealType của dòng tổng mọi bữa
+     */
+    public static final int ALL_MEALS = -1;
+
+    private int userId;             // Tài khoản (users.id)
+    private int foodId;             // Food được ghi
+    private int mealType;           // 0=breakfast, 1=lunch, 2=dinner, 3=snack, -1=mọi bữa
+    private int useCount;           // Số entries đã ghi
+    private long lastUsedAt;        // date của entry mới nhất
+
+    // Default constructor for Room
+    public FoodUsage() {}
+
+    // Getters and Setters
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public int getFoodId() {
+        return foodId;
+    }
+
+    public void setFoodId(int foodId) {
+        this.foodId = foodId;
+    }
+
+    public int getMealType() {
+        return mealType;
+    }
+
+    public void setMealType(int mealType) {
+        this.mealType = mealType;
+    }
+
+    public int getUseCount() {
+        return useCount;
+    }
+
+    public void setUseCount(int useCount) {
+        this.useCount = useCount;
+    }
+
+    public long getLastUsedAt() {
+        return lastUsedAt;
+    }
+
+    public void setLastUsedAt(long lastUsedAt) {
+        this.lastUsedAt = lastUsedAt;
+    }
+}
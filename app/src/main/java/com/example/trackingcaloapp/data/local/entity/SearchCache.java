@@ -0,0 +1,69 @@
+package com.example.trackingcaloapp.data.local.entity;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Entity lưu kết quả search USDA API của một query đã chuẩn hóa.
+ * Chỉ giữ danh sách apiId theo thứ tự API trả về; dữ liệu dinh dưỡng nằm ở foods.
+ * Trong ttlMs kể từ fetchedAt thì search lại cùng query không gọi network.
+ */
+@Entity(tableName = "search_cache")
+public class SearchCache {
+
+    @PrimaryKey
+    @NonNull
+    private String queryKey = "";   // SearchUtils.normalize(query)
+
+    @NonNull
+    private String apiIds = "";     // fdcId cách nhau dấu phẩy, theo thứ tự kết quả ("" = không có kết quả)
+
+    private long fetchedAt;         // Thời điểm nhận response từ API
+    private long ttlMs;             // Thời gian kết quả còn mới
+
+    // Default constructor for Room
+    public SearchCache() {}
+
+    // Getters and Setters
+    @NonNull
+    public String getQueryKey() {
+        return queryKey;
+    }
+
+    public void setQueryKey(@NonNull String queryKey) {
+        this.queryKey = queryKey;
+    }
+
+    @NonNull
+    public String getApiIds() {
+        return apiIds;
+    }
+
+    public void setApiIds(@NonNull String apiIds) {
+        this.apiIds = apiIds;
+    }
+
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+
+    public void setFetchedAt(long fetchedAt) {
+        this.fetchedAt = fetchedAt;
+    }
+
+    public long getTtlMs() {
+        return ttlMs;
+    }
+
+    public void setTtlMs(long ttlMs) {
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Kết quả còn mới, không cần gọi lại API
+     */
+    public boolean isFresh(long now) {
+        return now < fetchedAt + ttlMs;
+    }
+}
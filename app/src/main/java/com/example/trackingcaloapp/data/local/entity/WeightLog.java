@@ -11,7 +11,7 @@ import androidx.room.PrimaryKey;
  */
 @Entity(
     tableName = "weight_logs",
-    indices = {@Index(value = "timestamp", name = "idx_weight_logs_timestamp")}
+    indices = {@Index(value = {"userId", "timestamp"}, name = "idx_weight_logs_user_timestamp")}
 )
 public class WeightLog {
 
@@ -27,6 +27,9 @@ public class WeightLog {
     @ColumnInfo(name = "note")
     private String note;  // Optional note
 
+    @ColumnInfo(name = "userId", defaultValue = "0")
+    private int userId;  // Tài khoản sở hữu (users.id)
+
     public WeightLog(float weight, long timestamp, String note) {
         this.weight = weight;
         this.timestamp = timestamp;
@@ -65,4 +68,12 @@ public class WeightLog {
     public void setNote(String note) {
         this.note = note;
     }
+
+    public int getUserId() {
+        return userId;
+    }
+
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
 }
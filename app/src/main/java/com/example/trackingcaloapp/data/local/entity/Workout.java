@@ -113,6 +113,16 @@ public class Workout {
      * Lấy tên hiển thị của category
      */
     public String getCategoryDisplayName() {
+        return getCategoryDisplayName(category);
+    }
+
+    /**
+     * Lấy tên hiển thị của một category (dùng cả cho snapshot trên WorkoutEntry)
+     */
+    public static String getCategoryDisplayName(String category) {
+        if (category == null) {
+            return "";
+        }
         switch (category) {
             case "cardio":
                 return "Cardio";
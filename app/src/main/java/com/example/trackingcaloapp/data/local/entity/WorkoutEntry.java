@@ -1,5 +1,6 @@
 package com.example.trackingcaloapp.data.local.entity;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Entity;
 import androidx.room.ForeignKey;
 import androidx.room.Ignore;
@@ -8,7 +9,9 @@ import androidx.room.PrimaryKey;
 
 /**
  * Entity đại diện cho một mục nhập bài tập trong nhật ký tập luyện.
- * Liên kết với Workout entity thông qua workoutId.
+ * Tên, đơn vị và category của workout được chụp lại lúc ghi.
+ * workoutId chỉ để tham chiếu, bị SET NULL khi workout bị xóa (entry vẫn giữ nguyên).
+ * Xóa chỉ đánh dấu deletedAt (tombstone) để undo được; dòng thật bị purge sau.
  */
 @Entity(
     tableName = "workout_entries",
@@ -16,22 +19,35 @@ import androidx.room.PrimaryKey;
         entity = Workout.class,
         parentColumns = "id",
         childColumns = "workoutId",
-        onDelete = ForeignKey.CASCADE
+        onDelete = ForeignKey.SET_NULL
     ),
-    indices = {@Index("workoutId"), @Index("date")}
+    indices = {@Index("workoutId"), @Index({"userId", "date"}), @Index({"userId", "localDay", "date"}), @Index("deletedAt")}
 )
 public class WorkoutEntry {
     
     @PrimaryKey(autoGenerate = true)
     private int id;
     
-    private int workoutId;         // Foreign key liên kết với Workout
+    private Integer workoutId;     // Foreign key liên kết với Workout (null nếu workout đã bị xóa)
     private float quantity;        // Số lượng (phút, km, hoặc lần)
     private int duration;          // Thời gian tập (phút) - optional, để tracking
     private long date;             // Timestamp (milliseconds) - ngày tập
     private float caloriesBurned;  // Calo đã đốt = workout.caloriesPerUnit * quantity
     private String note;           // Ghi chú (optional)
 
+    @ColumnInfo(defaultValue = "0")
+    private long localDay;         // Epoch day theo giờ địa phương lúc ghi
+    @ColumnInfo(defaultValue = "0")
+    private int localMinuteOfDay;  // Phút trong ngày (0-1439) theo giờ địa phương lúc ghi
+    @ColumnInfo(defaultValue = "0")
+    private int userId;            // Tài khoản sở hữu entry (users.id)
+    private Long deletedAt;        // Thời điểm xóa (null = còn hiệu lực)
+
+    // Snapshot của Workout lúc ghi
+    private String workoutName;     // Tên bài tập
+    private String workoutUnit;     // Đơn vị: "phút", "km", "lần"
+    private String workoutCategory; // Loại: "cardio", "strength", "flexibility"
+
     // Default constructor for Room
     public WorkoutEntry() {}
 
@@ -61,11 +77,11 @@ public class WorkoutEntry {
         this.id = id;
     }
     
-    public int getWorkoutId() {
+    public Integer getWorkoutId() {
         return workoutId;
     }
     
-    public void setWorkoutId(int workoutId) {
+    public void setWorkoutId(Integer workoutId) {
         this.workoutId = workoutId;
     }
     
@@ -108,5 +124,70 @@ public class WorkoutEntry {
     public void setNote(String note) {
         this.note = note;
     }
-}
+    
+    public long getLocalDay() {
+        return localDay;
+    }
+    
+    public void setLocalDay(long localDay) {
+        this.localDay = localDay;
+    }
+    
+    public int getLocalMinuteOfDay() {
+        return localMinuteOfDay;
+    }
+    
+    public void setLocalMinuteOfDay(int localMinuteOfDay) {
+        this.localMinuteOfDay = localMinuteOfDay;
+    }
+
+    public int getUserId() {
+        return userId;
+    }
+    
+    public void setUserId(int userId) {
+        this.userId = userId;
+    }
+
+    public Long getDeletedAt() {
+        return deletedAt;
+    }
 
+    public void setDeletedAt(Long deletedAt) {
+        this.deletedAt = deletedAt;
+    }
+
+    public String getWorkoutName() {
+        return workoutName;
+    }
+
+    public void setWorkoutName(String workoutName) {
+        this.workoutName = workoutName;
+    }
+
+    public String getWorkoutUnit() {
+        return workoutUnit;
+    }
+
+    public void setWorkoutUnit(String workoutUnit) {
+        this.workoutUnit = workoutUnit;
+    }
+
+    public String getWorkoutCategory() {
+        return workoutCategory;
+    }
+
+    public void setWorkoutCategory(String workoutCategory) {
+        this.workoutCategory = workoutCategory;
+    }
+
+    /**
+     * Gắn entry với workout và chụp lại thông tin của workout tại thời điểm ghi
+     */
+    public void snapshotWorkout(Workout workout) {
+        this.workoutId = workout.getId();
+        this.workoutName = workout.getName();
+        this.workoutUnit = workout.getUnit();
+        this.workoutCategory = workout.getCategory();
+    }
+}
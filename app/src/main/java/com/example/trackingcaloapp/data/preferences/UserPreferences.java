@@ -30,6 +30,7 @@ public class UserPreferences {
     private static final String KEY_IS_ONBOARDING_COMPLETE = "is_onboarding_complete";
     private static final String KEY_THEME_MODE = "theme_mode";
     private static final String KEY_IS_LOGGED_IN = "is_logged_in";
+    private static final String KEY_HISTORY_RETENTION_MONTHS = "history_retention_months";
     
     // Activity levels
     public static final String ACTIVITY_SEDENTARY = "sedentary";           // Ít vận động
@@ -317,6 +318,18 @@ public class UserPreferences {
     public String getThemeMode() {
         return sharedPreferences.getString(KEY_THEME_MODE, "system");
     }
+
+    /**
+     * Số tháng giữ food entries chi tiết; cũ hơn sẽ được compact thành tổng theo ngày/bữa/food.
+     * 0 = giữ toàn bộ.
+     */
+    public void setHistoryRetentionMonths(int months) {
+        sharedPreferences.edit().putInt(KEY_HISTORY_RETENTION_MONTHS, months).apply();
+    }
+
+    public int getHistoryRetentionMonths() {
+        return sharedPreferences.getInt(KEY_HISTORY_RETENTION_MONTHS, 12);
+    }
     
 // ==================== LOGIN STATE ====================
 
@@ -4,23 +4,31 @@ import android.content.Context;
 import android.net.ConnectivityManager;
 import android.net.NetworkInfo;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import com.android.volley.DefaultRetryPolicy;
-import com.android.volley.Request;
+import com.android.volley.NetworkResponse;
 import com.android.volley.RequestQueue;
-import com.android.volley.toolbox.JsonObjectRequest;
+import com.android.volley.toolbox.HttpHeaderParser;
 import com.android.volley.toolbox.Volley;
 import com.example.trackingcaloapp.data.local.entity.Food;
+import com.example.trackingcaloapp.utils.SearchUtils;
 
-import org.json.JSONObject;
-
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service class cho USDA FoodData Central API.
  * API miễn phí, không cần IP whitelist.
- * Rate limit: 1000 requests/hour
+ * Rate limit: 1000 requests/hour, được làm đều phía client bởi UsdaRateLimiter
+ *
+ * Request được tag bằng query đã chuẩn hóa: các caller cùng query dùng chung
+ * một request đang chạy, và query mới hủy các query khác chưa xong.
  *
  * Docs: https://fdc.nal.usda.gov/api-guide/
  */
@@ -37,8 +45,21 @@ public class UsdaApiService {
     private static final int MAX_RETRIES = 1;
     private static final float BACKOFF_MULT = 1.0f;
 
+    // Quota của API key; burst nhỏ để một lần gõ nhanh không tiêu hết quota
+    private static final int QUOTA_PER_HOUR = 1000;
+    private static final int BURST = 10;
+
+    /**
+     * Quota tính theo key nên mọi instance dùng chung một limiter
+     */
+    private static final UsdaRateLimiter RATE_LIMITER = new UsdaRateLimiter(QUOTA_PER_HOUR, BURST);
+
     private final Context context;
     private final RequestQueue requestQueue;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Callbacks đang chờ theo tag (query đã chuẩn hóa), mỗi tag một request
+    private final Map<String, List<SearchCallback>> inFlight = new HashMap<>();
 
     public UsdaApiService(Context context) {
         this.context = context.getApplicationContext();
@@ -53,6 +74,13 @@ public class UsdaApiService {
         void onError(String error);
     }
 
+    /**
+     * Lỗi phát hiện trước khi gửi request: trả trên main thread như kết quả của request
+     */
+    private void postError(SearchCallback callback, String error) {
+        mainHandler.post(() -> callback.onError(error));
+    }
+
     /**
      * Kiểm tra kết nối mạng
      */
@@ -65,7 +93,10 @@ public class UsdaApiService {
     }
 
     /**
-     * Search foods từ USDA FoodData Central API
+     * Search foods từ USDA FoodData Central API.
+     * Nếu cùng query đang chạy thì callback chờ chung request đó (nhận cùng trang kết quả,
+     * maxResults của caller sau bị bỏ qua). Các query khác đang chạy bị hủy và không gọi callback.
+     * Gọi được từ bất kỳ thread nào; mọi callback (kể cả lỗi trả ngay) được gọi trên main thread.
      *
      * @param query      Từ khóa tìm kiếm (ví dụ: "chicken", "rice", "apple")
      * @param maxResults Số kết quả tối đa (1-50)
@@ -74,16 +105,37 @@ public class UsdaApiService {
     public void searchFoods(String query, int maxResults, SearchCallback callback) {
         // Kiểm tra network
         if (!isNetworkAvailable()) {
-            callback.onError("Không có kết nối mạng");
+            postError(callback, "Không có kết nối mạng");
             return;
         }
 
         // Validate input
-        if (query == null || query.trim().isEmpty()) {
-            callback.onError("Từ khóa tìm kiếm không hợp lệ");
+        String tag = query != null ? SearchUtils.normalize(query) : "";
+        if (tag.isEmpty()) {
+            postError(callback, "Từ khóa tìm kiếm không hợp lệ");
             return;
         }
 
+        // Query mới thay thế các query khác còn đang chạy
+        cancelSearchesExcept(query);
+        synchronized (inFlight) {
+            List<SearchCallback> waiting = inFlight.get(tag);
+            if (waiting != null) {
+                Log.d(TAG, "Joining in-flight request: " + tag);
+                waiting.add(callback);
+                return;
+            }
+            // Hết quota tạm thời: chỉ dùng kết quả local, không gửi request
+            if (!RATE_LIMITER.tryAcquire()) {
+                Log.w(TAG, "Throttled, local-only search. " + RATE_LIMITER.describeMetrics());
+                postError(callback, throttledMessage());
+                return;
+            }
+            waiting = new ArrayList<>();
+            waiting.add(callback);
+            inFlight.put(tag, waiting);
+        }
+
         // Limit max results
         maxResults = Math.max(1, Math.min(maxResults, 50));
 
@@ -95,17 +147,15 @@ public class UsdaApiService {
             "&query=" + Uri.encode(query) +
             "&pageSize=" + maxResults;
 
-        Log.d(TAG, "API URL: " + url);
-
-        JsonObjectRequest request = new JsonObjectRequest(
-            Request.Method.GET,
+        // Response được parse trên network thread, listener chỉ nhận List<Food>
+        UsdaSearchRequest request = new UsdaSearchRequest(
             url,
-            null,
-            response -> {
-                Log.d(TAG, "Response received");
-                List<Food> foods = UsdaParser.parseSearchResponse(response);
+            RATE_LIMITER,
+            foods -> {
                 Log.d(TAG, "Parsed " + foods.size() + " foods");
-                callback.onSuccess(foods);
+                for (SearchCallback waiting : takeCallbacks(tag)) {
+                    waiting.onSuccess(foods);
+                }
             },
             error -> {
                 String errorMsg = "Lỗi kết nối API";
@@ -114,16 +164,22 @@ public class UsdaApiService {
                     errorMsg = "Lỗi API: " + statusCode;
                     if (statusCode == 403) {
                         errorMsg = "API key không hợp lệ";
-                    } else if (statusCode == 429) {
-                        errorMsg = "Quá nhiều request, vui lòng đợi";
+                    } else if (statusCode == 429 || statusCode == 503) {
+                        RATE_LIMITER.onThrottled(
+                                parseRetryAfterMs(error.networkResponse, System.currentTimeMillis()));
+                        Log.w(TAG, "Throttled by server. " + RATE_LIMITER.describeMetrics());
+                        errorMsg = throttledMessage();
                     }
                 } else if (error.getMessage() != null) {
                     errorMsg = error.getMessage();
                 }
                 Log.e(TAG, "API error: " + errorMsg);
-                callback.onError(errorMsg);
+                for (SearchCallback waiting : takeCallbacks(tag)) {
+                    waiting.onError(errorMsg);
+                }
             }
         );
+        request.setTag(tag);
 
         // Set retry policy
         request.setRetryPolicy(new DefaultRetryPolicy(
@@ -133,10 +189,65 @@ public class UsdaApiService {
         requestQueue.add(request);
     }
 
+    /**
+     * Limiter dùng chung, để đọc metrics quota
+     */
+    public static UsdaRateLimiter getRateLimiter() {
+        return RATE_LIMITER;
+    }
+
+    private static String throttledMessage() {
+        long seconds = (RATE_LIMITER.getRetryDelayMs() + 999) / 1000;
+        return "Quá nhiều request, chỉ tìm trong máy (thử lại sau " + seconds + "s)";
+    }
+
+    /**
+     * Retry-After dạng số giây hoặc HTTP-date
+     * @param nowMs Thời điểm hiện tại (wall clock) để đổi HTTP-date ra khoảng chờ
+     * @return ms, null nếu không có hoặc không đọc được
+     */
+    static Long parseRetryAfterMs(NetworkResponse response, long nowMs) {
+        String value = response.headers != null ? response.headers.get("Retry-After") : null;
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Math.max(0, Long.parseLong(value.trim())) * 1000;
+        } catch (NumberFormatException e) {
+            long date = HttpHeaderParser.parseDateAsEpoch(value);
+            return date > 0 ? Math.max(0, date - nowMs) : null;
+        }
+    }
+
+    /**
+     * Hủy các search đang chạy có query khác query này (sau khi chuẩn hóa).
+     * Request bị hủy không gọi callback nào.
+     */
+    public void cancelSearchesExcept(String query) {
+        String keep = query != null ? SearchUtils.normalize(query) : "";
+        requestQueue.cancelAll(request -> !keep.equals(request.getTag()));
+        synchronized (inFlight) {
+            inFlight.keySet().removeIf(tag -> !tag.equals(keep));
+        }
+    }
+
     /**
      * Cancel tất cả pending requests
      */
     public void cancelAllRequests() {
         requestQueue.cancelAll(request -> true);
+        synchronized (inFlight) {
+            inFlight.clear();
+        }
+    }
+
+    /**
+     * Lấy và xóa các callbacks đang chờ request của tag
+     */
+    private List<SearchCallback> takeCallbacks(String tag) {
+        synchronized (inFlight) {
+            List<SearchCallback> waiting = inFlight.remove(tag);
+            return waiting != null ? waiting : Collections.emptyList();
+        }
     }
 }
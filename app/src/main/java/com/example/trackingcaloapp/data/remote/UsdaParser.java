@@ -1,19 +1,23 @@
 package com.example.trackingcaloapp.data.remote;
 
+import android.util.JsonReader;
+import android.util.JsonToken;
 import android.util.Log;
 
 import com.example.trackingcaloapp.data.local.entity.Food;
 
-import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Parser cho USDA FoodData Central API responses.
- * Chuyển đổi JSON response thành Food objects.
+ * Đọc thẳng từ byte stream bằng JsonReader và tạo Food objects trong một lượt,
+ * không dựng String hay cây JSONObject cho cả response. Các field không dùng
+ * (và mọi nutrient ngoài 4 ID cần thiết) chỉ bị skip, không được giữ lại.
  *
  * Response format:
  * {
@@ -23,10 +27,10 @@ import java.util.List;
  *       "fdcId": 454004,
  *       "description": "APPLE",
  *       "foodNutrients": [
- *         {"nutrientName": "Energy", "unitName": "KCAL", "value": 52.0},
- *         {"nutrientName": "Protein", "unitName": "G", "value": 0.0},
- *         {"nutrientName": "Total lipid (fat)", "unitName": "G", "value": 0.65},
- *         {"nutrientName": "Carbohydrate, by difference", "unitName": "G", "value": 14.3}
+ *         {"nutrientId": 1008, "nutrientName": "Energy", "unitName": "KCAL", "value": 52.0},
+ *         {"nutrientId": 1003, "nutrientName": "Protein", "unitName": "G", "value": 0.0},
+ *         {"nutrientId": 1004, "nutrientName": "Total lipid (fat)", "unitName": "G", "value": 0.65},
+ *         {"nutrientId": 1005, "nutrientName": "Carbohydrate, by difference", "unitName": "G", "value": 14.3}
  *       ]
  *     }
  *   ]
@@ -42,102 +46,146 @@ public class UsdaParser {
     private static final int NUTRIENT_ID_CARBS = 1005;       // Carbohydrate, by difference
 
     /**
-     * Parse response từ /foods/search endpoint
+     * Parse response từ /foods/search endpoint.
+     * Food thiếu fdcId bị bỏ qua; JSON sai cú pháp thì ném IOException.
      */
-    public static List<Food> parseSearchResponse(JSONObject response) {
+    public static List<Food> parseSearchResponse(InputStream in) throws IOException {
         List<Food> foods = new ArrayList<>();
-
-        try {
-            // Check if foods array exists
-            if (!response.has("foods")) {
-                Log.w(TAG, "No 'foods' array in response");
-                return foods;
-            }
-
-            JSONArray foodsArray = response.getJSONArray("foods");
-            Log.d(TAG, "Parsing " + foodsArray.length() + " foods");
-
-            for (int i = 0; i < foodsArray.length(); i++) {
-                Food food = parseFoodObject(foodsArray.getJSONObject(i));
-                if (food != null) {
-                    foods.add(food);
+        long cachedAt = System.currentTimeMillis();
+
+        try (JsonReader reader = new JsonReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            reader.beginObject();
+            while (reader.hasNext()) {
+                if (!"foods".equals(reader.nextName()) || reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    reader.skipValue();
+                    continue;
+                }
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    Food food = parseFoodObject(reader, cachedAt);
+                    if (food != null) {
+                        foods.add(food);
+                    }
                 }
+                reader.endArray();
             }
-        } catch (JSONException e) {
-            Log.e(TAG, "JSON parse error: " + e.getMessage());
+            reader.endObject();
+        } catch (IllegalStateException | NumberFormatException e) {
+            // Sai kiểu dữ liệu (vd: object ở chỗ cần số)
+            throw new IOException("Unexpected USDA response: " + e.getMessage(), e);
         }
 
+        Log.d(TAG, "Parsed " + foods.size() + " foods");
         return foods;
     }
 
     /**
-     * Parse single food object từ JSON
+     * Parse một food object tại vị trí hiện tại của reader
+     * @return null nếu thiếu fdcId
      */
-    private static Food parseFoodObject(JSONObject obj) {
-        try {
-            // Lấy thông tin cơ bản
-            long fdcId = obj.getLong("fdcId");
-            String description = obj.optString("description", "Unknown");
-
-            // Format tên food (USDA thường viết hoa hết)
-            String name = formatFoodName(description);
-
-            // Parse nutrients
-            float calories = 0, protein = 0, carbs = 0, fat = 0;
-
-            if (obj.has("foodNutrients")) {
-                JSONArray nutrients = obj.getJSONArray("foodNutrients");
-
-                for (int i = 0; i < nutrients.length(); i++) {
-                    JSONObject nutrient = nutrients.getJSONObject(i);
-
-                    int nutrientId = nutrient.optInt("nutrientId", 0);
-                    float value = (float) nutrient.optDouble("value", 0);
-
-                    switch (nutrientId) {
-                        case NUTRIENT_ID_ENERGY:
-                            calories = value;
-                            break;
-                        case NUTRIENT_ID_PROTEIN:
-                            protein = value;
-                            break;
-                        case NUTRIENT_ID_FAT:
-                            fat = value;
-                            break;
-                        case NUTRIENT_ID_CARBS:
-                            carbs = value;
-                            break;
-                    }
-                }
+    private static Food parseFoodObject(JsonReader reader, long cachedAt) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+            reader.skipValue();
+            return null;
+        }
+
+        Long fdcId = null;
+        String description = null;
+        float[] nutrients = new float[4];   // calories, protein, carbs, fat
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String field = reader.nextName();
+            if (reader.peek() == JsonToken.NULL) {
+                reader.skipValue();
+                continue;
             }
+            switch (field) {
+                case "fdcId":
+                    fdcId = reader.nextLong();
+                    break;
+                case "description":
+                    description = reader.nextString();
+                    break;
+                case "foodNutrients":
+                    parseNutrients(reader, nutrients);
+                    break;
+                default:
+                    reader.skipValue();
+                    break;
+            }
+        }
+        reader.endObject();
 
-            // Tạo Food object
-            Food food = new Food(
-                name,       // name
-                calories,   // calories per 100g (USDA đã normalize)
-                protein,    // protein
-                carbs,      // carbs
-                fat,        // fat
-                "api",      // category
-                false       // isCustom
-            );
-
-            // Set API fields
-            food.setApiId(fdcId);
-            food.setApiSource("usda");
-            food.setCachedAt(System.currentTimeMillis());
-
-            Log.d(TAG, "Parsed food: " + food.getName() +
-                  " (cal=" + food.getCalories() +
-                  ", p=" + food.getProtein() +
-                  ", c=" + food.getCarbs() +
-                  ", f=" + food.getFat() + ")");
-
-            return food;
-        } catch (JSONException e) {
-            Log.e(TAG, "Error parsing food object: " + e.getMessage());
+        if (fdcId == null) {
             return null;
         }
+
+        // Format tên food (USDA thường viết hoa hết)
+        Food food = new Food(
+            formatFoodName(description),   // name
+            nutrients[0],   // calories per 100g (USDA đã normalize)
+            nutrients[1],   // protein
+            nutrients[2],   // carbs
+            nutrients[3],   // fat
+            "api",          // category
+            false           // isCustom
+        );
+
+        // Set API fields
+        food.setApiId(fdcId);
+        food.setApiSource("usda");
+        food.setCachedAt(cachedAt);
+        return food;
+    }
+
+    /**
+     * Đọc mảng foodNutrients, chỉ giữ value của 4 nutrient cần dùng
+     */
+    private static void parseNutrients(JsonReader reader, float[] out) throws IOException {
+        if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+            reader.skipValue();
+            return;
+        }
+        reader.beginArray();
+        while (reader.hasNext()) {
+            if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+                reader.skipValue();
+                continue;
+            }
+            int nutrientId = 0;
+            float value = 0;
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String field = reader.nextName();
+                if (reader.peek() == JsonToken.NULL) {
+                    reader.skipValue();
+                } else if ("nutrientId".equals(field)) {
+                    nutrientId = reader.nextInt();
+                } else if ("value".equals(field)) {
+                    value = (float) reader.nextDouble();
+                } else {
+                    reader.skipValue();
+                }
+            }
+            reader.endObject();
+
+            switch (nutrientId) {
+                case NUTRIENT_ID_ENERGY:
+                    out[0] = value;
+                    break;
+                case NUTRIENT_ID_PROTEIN:
+                    out[1] = value;
+                    break;
+                case NUTRIENT_ID_CARBS:
+                    out[2] = value;
+                    break;
+                case NUTRIENT_ID_FAT:
+                    out[3] = value;
+                    break;
+            }
+        }
+        reader.endArray();
     }
 
     /**
@@ -0,0 +1,168 @@
+package com.example.trackingcaloapp.data.remote;
+
+import android.os.SystemClock;
+
+import java.util.Locale;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * Giới hạn request tới USDA API phía client để không đốt hết quota của API key theo từng đợt.
+ *
+ * - Token bucket: tối đa burst request liên tiếp, sau đó nạp lại đều sao cho
+ *   trong bất kỳ cửa sổ một giờ nào cũng không vượt quota.
+ * - Khi server trả 429/503: ngừng gửi theo Retry-After (nếu có) hoặc exponential backoff có jitter.
+ * - X-RateLimit-Remaining của server kéo số token xuống nếu server còn ít hơn client tưởng.
+ *
+ * Trong lúc bị chặn, tryAcquire() trả false và search chỉ dùng dữ liệu local.
+ * Dùng chung cho mọi UsdaApiService trong process vì quota tính theo key.
+ */
+public class UsdaRateLimiter {
+
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+
+    // Backoff khi bị throttle: 2s, 4s, 8s... tối đa 15 phút
+    private static final long BACKOFF_BASE_MS = 2_000L;
+    private static final long BACKOFF_MAX_MS = 15 * 60 * 1000L;
+
+    private final int capacity;
+    private final double refillPerMs;
+    private final LongSupplier clock;
+    private final Random random = new Random();
+
+    private double tokens;
+    private long lastRefillAt;
+    private long blockedUntil;          // Không gửi request trước thời điểm này (elapsedRealtime)
+    private int consecutiveThrottles;
+
+    // Metrics
+    private long granted;               // Request được gửi
+    private long rejected;              // Request bị chặn ở client (hết token hoặc đang backoff)
+    private long throttledByServer;     // Số lần server trả 429/503
+    private int serverRemaining = -1;   // X-RateLimit-Remaining gần nhất (-1 = chưa biết)
+
+    /**
+     * @param quotaPerHour Quota của API key trong một giờ
+     * @param burst        Số request tối đa gửi liên tiếp (< quotaPerHour)
+     */
+    public UsdaRateLimiter(int quotaPerHour, int burst) {
+        this(quotaPerHour, burst, SystemClock::elapsedRealtime);
+    }
+
+    /**
+     * @param clock Thời gian hiện tại (ms, đơn điệu); test truyền đồng hồ giả
+     */
+    UsdaRateLimiter(int quotaPerHour, int burst, LongSupplier clock) {
+        this.clock = clock;
+        this.capacity = burst;
+        // Bucket đầy (burst) + nạp lại trong một giờ không vượt quota
+        this.refillPerMs = (double) (quotaPerHour - burst) / HOUR_MS;
+        this.tokens = burst;
+        this.lastRefillAt = now();
+    }
+
+    /**
+     * Lấy một token để gửi request
+     * @return false nếu đang backoff hoặc hết token (search chỉ dùng dữ liệu local)
+     */
+    public synchronized boolean tryAcquire() {
+        long now = now();
+        refill(now);
+        if (now < blockedUntil || tokens < 1) {
+            rejected++;
+            return false;
+        }
+        tokens -= 1;
+        granted++;
+        return true;
+    }
+
+    /**
+     * Thời gian (ms) tới khi gửi lại được request, 0 nếu gửi được ngay
+     */
+    public synchronized long getRetryDelayMs() {
+        long now = now();
+        refill(now);
+        long untilToken = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / refillPerMs);
+        return Math.max(blockedUntil - now, untilToken);
+    }
+
+    /**
+     * Response thành công
+     * @param remaining X-RateLimit-Remaining của response, null nếu không có
+     */
+    public synchronized void onSuccess(Integer remaining) {
+        consecutiveThrottles = 0;
+        if (remaining != null) {
+            serverRemaining = remaining;
+            refill(now());
+            tokens = Math.min(tokens, remaining);
+        }
+    }
+
+    /**
+     * Server trả 429/503: ngừng gửi request tới hết Retry-After hoặc hết backoff
+     * @param retryAfterMs Retry-After của response (ms), null nếu không có
+     */
+    public synchronized void onThrottled(Long retryAfterMs) {
+        throttledByServer++;
+        consecutiveThrottles++;
+        long backoff = Math.min(BACKOFF_MAX_MS, BACKOFF_BASE_MS << Math.min(consecutiveThrottles - 1, 20));
+        // Equal jitter: [backoff/2, backoff]
+        long delay = backoff / 2 + (long) (random.nextDouble() * (backoff / 2));
+        if (retryAfterMs != null) {
+            delay = Math.max(delay, retryAfterMs);
+        }
+        long now = now();
+        refill(now);
+        tokens = 0;
+        blockedUntil = Math.max(blockedUntil, now + delay);
+    }
+
+    private void refill(long now) {
+        if (now > lastRefillAt) {
+            tokens = Math.min(capacity, tokens + (now - lastRefillAt) * refillPerMs);
+            lastRefillAt = now;
+        }
+    }
+
+    private long now() {
+        return clock.getAsLong();
+    }
+
+    // ==================== METRICS ====================
+
+    public synchronized long getGrantedCount() {
+        return granted;
+    }
+
+    public synchronized long getRejectedCount() {
+        return rejected;
+    }
+
+    public synchronized long getServerThrottledCount() {
+        return throttledByServer;
+    }
+
+    /**
+     * X-RateLimit-Remaining gần nhất của server, -1 nếu chưa biết
+     */
+    public synchronized int getServerRemaining() {
+        return serverRemaining;
+    }
+
+    public synchronized double getAvailableTokens() {
+        refill(now());
+        return tokens;
+    }
+
+    /**
+     * Tóm tắt metrics để log
+     */
+    public synchronized String describeMetrics() {
+        return String.format(Locale.US,
+                "usda: granted=%d rejected=%d throttled=%d tokens=%.1f/%d serverRemaining=%d retryIn=%dms",
+                granted, rejected, throttledByServer, getAvailableTokens(), capacity, serverRemaining,
+                getRetryDelayMs());
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.trackingcaloapp.data.remote;
+
+import androidx.annotation.NonNull;
+
+import com.android.volley.NetworkResponse;
+import com.android.volley.ParseError;
+import com.android.volley.Request;
+import com.android.volley.Response;
+import com.android.volley.toolbox.HttpHeaderParser;
+import com.example.trackingcaloapp.data.local.entity.Food;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Volley request cho /foods/search: parse thẳng byte body của response
+ * bằng UsdaParser trên network thread, thay cho JsonObjectRequest
+ * (dựng String rồi cả cây JSONObject trước khi parse).
+ * Báo X-RateLimit-Remaining của response cho UsdaRateLimiter.
+ */
+public class UsdaSearchRequest extends Request<List<Food>> {
+
+    private static final String HEADER_RATE_LIMIT_REMAINING = "X-RateLimit-Remaining";
+
+    private final UsdaRateLimiter rateLimiter;
+    private final Response.Listener<List<Food>> listener;
+
+    public UsdaSearchRequest(String url, UsdaRateLimiter rateLimiter, Response.Listener<List<Food>> listener,
+                             Response.ErrorListener errorListener) {
+        super(Method.GET, url, errorListener);
+        this.rateLimiter = rateLimiter;
+        this.listener = listener;
+    }
+
+    @Override
+    protected Response<List<Food>> parseNetworkResponse(NetworkResponse response) {
+        rateLimiter.onSuccess(parseRemaining(response.headers));
+        try {
+            List<Food> foods = UsdaParser.parseSearchResponse(new ByteArrayInputStream(response.data));
+            return Response.success(foods, HttpHeaderParser.parseCacheHeaders(response));
+        } catch (IOException e) {
+            return Response.error(new ParseError(e));
+        }
+    }
+
+    private static Integer parseRemaining(Map<String, String> headers) {
+        String value = headers != null ? headers.get(HEADER_RATE_LIMIT_REMAINING) : null;
+        if (value == null) {
+            return null;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    protected void deliverResponse(@NonNull List<Food> foods) {
+        listener.onResponse(foods);
+    }
+}
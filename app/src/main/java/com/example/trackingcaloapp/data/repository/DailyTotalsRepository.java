@@ -0,0 +1,142 @@
+package com.example.trackingcaloapp.data.repository;
+
+import android.app.Application;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import com.example.trackingcaloapp.data.local.dao.DailyTotalsDao;
+import com.example.trackingcaloapp.data.local.dao.DaySnapshotDao;
+import com.example.trackingcaloapp.data.local.database.AppDatabase;
+import com.example.trackingcaloapp.data.local.database.ArchiveDatabase;
+import com.example.trackingcaloapp.data.local.database.HistoryArchive;
+import com.example.trackingcaloapp.data.local.entity.DailyTotals;
+import com.example.trackingcaloapp.data.preferences.UserPreferences;
+import com.example.trackingcaloapp.model.DaySnapshot;
+import com.example.trackingcaloapp.utils.Constants;
+import com.example.trackingcaloapp.utils.DateUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Repository cho bảng daily_totals.
+ * Dashboard đọc tổng hợp của một ngày bằng một dòng duy nhất.
+ */
+public class DailyTotalsRepository {
+
+    private static final String TAG = "DailyTotalsRepository";
+
+    private static final ScheduledExecutorService purgeTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "db-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private static final AtomicBoolean purgeScheduled = new AtomicBoolean();
+
+    private final AppDatabase db;
+    private final DailyTotalsDao dailyTotalsDao;
+    private final DaySnapshotDao daySnapshotDao;
+    private final HistoryArchive historyArchive;
+    private final int userId;
+
+    public DailyTotalsRepository(Application application) {
+        this(AppDatabase.getDatabase(application), new UserPreferences(application).getCurrentUserId());
+    }
+
+    // Constructor overload for direct database injection
+    public DailyTotalsRepository(AppDatabase db, int userId) {
+        this.db = db;
+        this.userId = userId;
+        this.dailyTotalsDao = db.dailyTotalsDao();
+        this.daySnapshotDao = db.daySnapshotDao();
+        this.historyArchive = db.getHistoryArchive();
+    }
+
+    // ==================== GETTERS ====================
+
+    /**
+     * Lấy tổng hợp của ngày chứa timestamp.
+     * Trả về null nếu ngày đó chưa có entry nào.
+     */
+    public LiveData<DailyTotals> getDailyTotals(long timestamp) {
+        long day = DateUtils.toEpochDay(timestamp);
+        return new DayScopedLiveData<>(userId, day, () -> dailyTotalsDao.getByDaySync(userId, day));
+    }
+
+    /**
+     * Lấy DaySnapshot (tổng hợp + entries) của ngày chứa timestamp.
+     * Chỉ load lại (một read transaction) khi có ghi chạm vào đúng ngày đó.
+     * Ngày thuộc năm đã archive: tổng hợp vẫn từ daily_totals, entries đọc từ file archive.
+     */
+    public LiveData<DaySnapshot> getDaySnapshot(long timestamp) {
+        long day = DateUtils.toEpochDay(timestamp);
+        return new DayScopedLiveData<>(userId, day, () -> {
+            if (!historyArchive.isArchivedDay(day)) {
+                return daySnapshotDao.loadSnapshot(userId, timestamp);
+            }
+            ArchiveDatabase archive = historyArchive.open(historyArchive.getYearsForDays(day, day).get(0));
+            return new DaySnapshot(day, dailyTotalsDao.getByDaySync(userId, day),
+                    archive.foodEntryDao().getEntryRowsByDay(userId, day),
+                    archive.workoutEntryDao().getEntryRowsByDay(userId, day));
+        });
+    }
+
+    // ==================== MAINTENANCE ====================
+
+    /**
+     * Build lại daily_totals từ entries (khi nghi ngờ dữ liệu lệch).
+     * Tổng hợp của các năm đã archive được giữ nguyên vì entries không còn trong database chính.
+     * Chạy như một mutation của WriteBehindQueue.
+     */
+    public CompletableFuture<Void> rebuildAll() {
+        return WriteBehindQueue.getInstance(db).enqueue(batch -> {
+            dailyTotalsDao.deleteFromDay(historyArchive.getHotStartDay());
+            dailyTotalsDao.rebuildFromEntries();
+            batch.touchAllDays();
+        });
+    }
+
+    /**
+     * Chuyển lịch sử của các năm đã đóng sang file archive (chạy nền trên writer thread).
+     * Không đi qua WriteBehindQueue: việc chép ghi vào file archive qua một connection khác
+     * (ATTACH database chính) và đổi tên file, transaction của batch không bao được các bước đó.
+     * Vẫn chạy tuần tự với các batch vì dùng chung writer thread.
+     */
+    public void archiveClosedYears() {
+        AppDatabase.databaseWriteExecutor.execute(() -> {
+            if (historyArchive.archiveClosedYears() > 0) {
+                DayChangeFeed.getInstance().publishAll();
+            }
+        });
+    }
+
+    /**
+     * Purge tombstones ngay rồi lặp lại mỗi Constants.PURGE_INTERVAL_MS trong suốt process.
+     * Gọi nhiều lần chỉ lên lịch một lần.
+     */
+    public void schedulePurge() {
+        if (purgeScheduled.compareAndSet(false, true)) {
+            purgeTimer.scheduleWithFixedDelay(this::purgeDeletedEntries,
+                    0, Constants.PURGE_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Xóa hẳn food/workout entries đã đánh dấu xóa quá cửa sổ undo (cộng PURGE_GRACE_MS), của mọi tài khoản,
+     * như một mutation của WriteBehindQueue.
+     * Không cần tính lại daily_totals hay publish: tombstones vốn đã bị loại khỏi tổng hợp và lists.
+     */
+    public CompletableFuture<Void> purgeDeletedEntries() {
+        long cutoff = System.currentTimeMillis() - Constants.UNDO_WINDOW_MS - Constants.PURGE_GRACE_MS;
+        return WriteBehindQueue.getInstance(db).enqueue(batch -> {
+            int purged = db.foodEntryDao().purgeDeleted(cutoff) + db.workoutEntryDao().purgeDeleted(cutoff);
+            if (purged > 0) {
+                Log.i(TAG, "Purged " + purged + " deleted entries");
+            }
+        });
+    }
+}
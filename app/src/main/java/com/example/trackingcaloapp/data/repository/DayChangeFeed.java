@@ -0,0 +1,105 @@
+package com.example.trackingcaloapp.data.repository;
+
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Kênh thông báo các ngày (epoch day) của từng tài khoản vừa bị thay đổi bởi một lần ghi.
+ * Repository publish sau khi transaction commit; DayScopedLiveData chỉ query lại
+ * khi ngày/khoảng ngày của nó giao với các ngày thay đổi của đúng tài khoản đó, thay vì mỗi lần
+ * bảng food_entries/workout_entries bị invalidate.
+ */
+public class DayChangeFeed {
+
+    /**
+     * Nhận các ngày thay đổi theo userId.
+     * daysByUser == null nghĩa là mọi ngày của mọi tài khoản đều có thể đã thay đổi (vd: rebuild, sửa catalog).
+     */
+    public interface Listener {
+        void onDaysChanged(@Nullable Map<Integer, Set<Long>> daysByUser);
+    }
+
+    private static final DayChangeFeed INSTANCE = new DayChangeFeed();
+
+    private final CopyOnWriteArraySet<Listener> listeners = new CopyOnWriteArraySet<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public static DayChangeFeed getInstance() {
+        return INSTANCE;
+    }
+
+    private DayChangeFeed() {
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tăng mỗi lần publish; listener đang inactive so sánh để biết có bỏ lỡ thay đổi không
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Thông báo các ngày vừa bị ghi của từng tài khoản (gọi sau khi commit)
+     */
+    public void publish(Map<Integer, Set<Long>> daysByUser) {
+        Map<Integer, Set<Long>> copy = new HashMap<>();
+        for (Map.Entry<Integer, Set<Long>> entry : daysByUser.entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                copy.put(entry.getKey(), Collections.unmodifiableSet(new HashSet<>(entry.getValue())));
+            }
+        }
+        if (copy.isEmpty()) {
+            return;
+        }
+        dispatch(Collections.unmodifiableMap(copy));
+    }
+
+    /**
+     * Thông báo mọi ngày có thể đã thay đổi
+     */
+    public void publishAll() {
+        dispatch(null);
+    }
+
+    private void dispatch(@Nullable Map<Integer, Set<Long>> daysByUser) {
+        generation.incrementAndGet();
+        for (Listener listener : listeners) {
+            listener.onDaysChanged(daysByUser);
+        }
+    }
+
+    /**
+     * Kiểm tra các ngày thay đổi của userId có giao với khoảng [startDay, endDay] không
+     */
+    public static boolean intersects(@Nullable Map<Integer, Set<Long>> daysByUser, int userId,
+                                     long startDay, long endDay) {
+        if (daysByUser == null) {
+            return true;
+        }
+        Set<Long> days = daysByUser.get(userId);
+        if (days == null) {
+            return false;
+        }
+        for (long day : days) {
+            if (day >= startDay && day <= endDay) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
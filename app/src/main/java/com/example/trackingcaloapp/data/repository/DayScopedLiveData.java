@@ -0,0 +1,94 @@
+package com.example.trackingcaloapp.data.repository;
+
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+
+import com.example.trackingcaloapp.data.local.database.AppDatabase;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * LiveData gắn với một khoảng ngày [startDay, endDay] của một tài khoản.
+ * Chỉ chạy lại loader khi DayChangeFeed báo thay đổi của tài khoản đó giao với khoảng ngày đó,
+ * nên ghi một entry hôm nay không làm query lại biểu đồ của các ngày khác.
+ * Loader chạy trên read executor (nhiều thread): kết quả của lần load bắt đầu trước
+ * một lần load khác bị bỏ, nên giá trị cũ không ghi đè giá trị mới.
+ */
+public class DayScopedLiveData<T> extends LiveData<T> implements DayChangeFeed.Listener {
+
+    private static final String TAG = "DayScopedLiveData";
+
+    private final int userId;
+    private final long startDay;
+    private final long endDay;
+    private final Callable<T> loader;
+    private final DayChangeFeed feed = DayChangeFeed.getInstance();
+
+    private final AtomicBoolean invalid = new AtomicBoolean(true);
+    private volatile long generationAtInactive = -1;
+
+    // Lần load bắt đầu gần nhất; chỉ lần đó được postValue (guarded by this)
+    private long latestLoad;
+
+    public DayScopedLiveData(int userId, long day, Callable<T> loader) {
+        this(userId, day, day, loader);
+    }
+
+    public DayScopedLiveData(int userId, long startDay, long endDay, Callable<T> loader) {
+        this.userId = userId;
+        this.startDay = startDay;
+        this.endDay = endDay;
+        this.loader = loader;
+    }
+
+    @Override
+    protected void onActive() {
+        feed.addListener(this);
+        // Khi inactive không nghe feed: nếu đã có publish nào trong lúc đó thì load lại
+        if (generationAtInactive != feed.getGeneration()) {
+            invalid.set(true);
+        }
+        scheduleLoad();
+    }
+
+    @Override
+    protected void onInactive() {
+        feed.removeListener(this);
+        generationAtInactive = feed.getGeneration();
+    }
+
+    @Override
+    public void onDaysChanged(@Nullable Map<Integer, Set<Long>> daysByUser) {
+        if (DayChangeFeed.intersects(daysByUser, userId, startDay, endDay)) {
+            invalid.set(true);
+            scheduleLoad();
+        }
+    }
+
+    private void scheduleLoad() {
+        AppDatabase.databaseReadExecutor.execute(() -> {
+            if (!invalid.compareAndSet(true, false)) {
+                return;
+            }
+            long load;
+            synchronized (this) {
+                load = ++latestLoad;
+            }
+            try {
+                T value = loader.call();
+                synchronized (this) {
+                    if (load == latestLoad) {
+                        postValue(value);
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Load failed", e);
+            }
+        });
+    }
+}
@@ -1,19 +1,31 @@
 package com.example.trackingcaloapp.data.repository;
 
 import android.app.Application;
+import android.util.Log;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Transformations;
 
+import com.example.trackingcaloapp.data.local.dao.DailyTotalsDao;
 import com.example.trackingcaloapp.data.local.dao.FoodEntryDao;
+import com.example.trackingcaloapp.data.local.dao.FoodUsageDao;
 import com.example.trackingcaloapp.data.local.database.AppDatabase;
+import com.example.trackingcaloapp.data.local.database.HistoryArchive;
+import com.example.trackingcaloapp.data.local.entity.DailyTotals;
 import com.example.trackingcaloapp.data.local.entity.FoodEntry;
+import com.example.trackingcaloapp.data.preferences.UserPreferences;
 import com.example.trackingcaloapp.model.DailyCalorieSum;
-import com.example.trackingcaloapp.model.FoodEntryWithFood;
+import com.example.trackingcaloapp.model.FoodEntryRow;
 import com.example.trackingcaloapp.model.HourlyCalorieSum;
 import com.example.trackingcaloapp.model.MacroSum;
 import com.example.trackingcaloapp.model.MealTypeCalories;
+import com.example.trackingcaloapp.utils.DateUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository cho FoodEntry entity.
@@ -21,53 +33,67 @@ import java.util.List;
  */
 public class FoodEntryRepository {
 
+    private static final String TAG = "FoodEntryRepository";
+
+    private final AppDatabase db;
     private final FoodEntryDao foodEntryDao;
+    private final DailyTotalsDao dailyTotalsDao;
+    private final FoodUsageDao foodUsageDao;
+    private final WriteBehindQueue writeQueue;
+    private final HistoryArchive historyArchive;
+    private final int userId;
 
     public FoodEntryRepository(Application application) {
-        AppDatabase db = AppDatabase.getDatabase(application);
-        foodEntryDao = db.foodEntryDao();
+        this(AppDatabase.getDatabase(application), new UserPreferences(application).getCurrentUserId());
     }
 
-    // Constructor overload for direct DAO injection
-    public FoodEntryRepository(FoodEntryDao foodEntryDao) {
-        this.foodEntryDao = foodEntryDao;
+    // Constructor overload for direct database injection
+    // userId: tài khoản đang đăng nhập, mọi query/insert đều scope theo tài khoản này
+    public FoodEntryRepository(AppDatabase db, int userId) {
+        this.db = db;
+        this.userId = userId;
+        this.foodEntryDao = db.foodEntryDao();
+        this.dailyTotalsDao = db.dailyTotalsDao();
+        this.foodUsageDao = db.foodUsageDao();
+        this.writeQueue = WriteBehindQueue.getInstance(db);
+        this.historyArchive = db.getHistoryArchive();
     }
     
     // ==================== GETTERS ====================
     
     /**
-     * Lấy tất cả entries
-     */
-    public LiveData<List<FoodEntry>> getAllEntries() {
-        return foodEntryDao.getAllEntries();
-    }
-    
-    /**
-     * Lấy entry theo ID
+     * Lấy entry của tài khoản hiện tại theo ID
      */
     public FoodEntry getEntryById(int entryId) {
-        return foodEntryDao.getEntryById(entryId);
+        return foodEntryDao.getEntryById(userId, entryId);
     }
     
     /**
      * Lấy entries trong một ngày
      */
     public LiveData<List<FoodEntry>> getEntriesByDate(long startOfDay, long endOfDay) {
-        return foodEntryDao.getEntriesByDate(startOfDay, endOfDay);
+        return foodEntryDao.getEntriesByDate(userId, startOfDay, endOfDay);
     }
     
     /**
      * Lấy entries theo loại bữa ăn trong một ngày
      */
     public LiveData<List<FoodEntry>> getEntriesByDateAndMealType(long startOfDay, long endOfDay, String mealType) {
-        return foodEntryDao.getEntriesByDateAndMealType(startOfDay, endOfDay, mealType);
+        return foodEntryDao.getEntriesByDateAndMealType(userId, startOfDay, endOfDay, mealType);
     }
 
     /**
-     * Lấy entries với thông tin Food trong một ngày (JOIN)
+     * Lấy dòng hiển thị (tên food, khối lượng, calo, giờ) của các entries trong ngày chứa timestamp.
+     * Lọc theo localDay để đọc thẳng theo index (userId, localDay, mealType, date), không cần sort.
      */
-    public LiveData<List<FoodEntryWithFood>> getEntriesWithFoodByDate(long startOfDay, long endOfDay) {
-        return foodEntryDao.getEntriesWithFoodByDate(startOfDay, endOfDay);
+    public LiveData<List<FoodEntryRow>> getEntryRowsByDay(long timestamp) {
+        long day = DateUtils.toEpochDay(timestamp);
+        return new DayScopedLiveData<>(userId, day, () -> {
+            FoodEntryDao dao = historyArchive.isArchivedDay(day)
+                    ? historyArchive.open(historyArchive.getYearsForDays(day, day).get(0)).foodEntryDao()
+                    : foodEntryDao;
+            return dao.getEntryRowsByDay(userId, day);
+        });
     }
 
     // ==================== AGGREGATION ====================
@@ -76,107 +102,361 @@ public class FoodEntryRepository {
      * Tính tổng calo trong một ngày
      */
     public LiveData<Float> getTotalCaloriesByDate(long startOfDay, long endOfDay) {
-        return foodEntryDao.getTotalCaloriesByDate(startOfDay, endOfDay);
+        return foodEntryDao.getTotalCaloriesByDate(userId, startOfDay, endOfDay);
     }
     
     /**
      * Tính tổng protein trong một ngày
      */
     public LiveData<Float> getTotalProteinByDate(long startOfDay, long endOfDay) {
-        return foodEntryDao.getTotalProteinByDate(startOfDay, endOfDay);
+        return foodEntryDao.getTotalProteinByDate(userId, startOfDay, endOfDay);
     }
     
     /**
      * Tính tổng carbs trong một ngày
      */
     public LiveData<Float> getTotalCarbsByDate(long startOfDay, long endOfDay) {
-        return foodEntryDao.getTotalCarbsByDate(startOfDay, endOfDay);
+        return foodEntryDao.getTotalCarbsByDate(userId, startOfDay, endOfDay);
     }
     
     /**
      * Tính tổng fat trong một ngày
      */
     public LiveData<Float> getTotalFatByDate(long startOfDay, long endOfDay) {
-        return foodEntryDao.getTotalFatByDate(startOfDay, endOfDay);
+        return foodEntryDao.getTotalFatByDate(userId, startOfDay, endOfDay);
     }
     
     /**
      * Tính tổng calo theo loại bữa ăn
      */
     public LiveData<Float> getTotalCaloriesByMealType(long startOfDay, long endOfDay, String mealType) {
-        return foodEntryDao.getTotalCaloriesByMealType(startOfDay, endOfDay, mealType);
+        return foodEntryDao.getTotalCaloriesByMealType(userId, startOfDay, endOfDay, mealType);
     }
 
     // ==================== CHART AGGREGATION ====================
 
     /**
-     * Lấy tổng calo theo từng ngày trong khoảng thời gian (cho LineChart)
+     * Lấy tổng calo theo từng ngày trong khoảng thời gian (cho LineChart).
+     * Đọc từ daily_totals, mỗi ngày một dòng.
      */
     public LiveData<List<DailyCalorieSum>> getDailyCaloriesSummary(long startDate, long endDate) {
-        return foodEntryDao.getDailyCaloriesSummary(startDate, endDate);
+        return Transformations.map(getTotalsRange(startDate, endDate), totals -> {
+            List<DailyCalorieSum> result = new ArrayList<>();
+            for (DailyTotals day : totals) {
+                if (day.getFoodEntryCount() > 0) {
+                    result.add(new DailyCalorieSum(DateUtils.fromEpochDay(day.getDay()),
+                            day.getCaloriesConsumed()));
+                }
+            }
+            return result;
+        });
     }
 
     /**
      * Lấy tổng calo theo loại bữa ăn trong khoảng thời gian (cho BarChart)
      */
     public LiveData<List<MealTypeCalories>> getCaloriesByMealType(long startDate, long endDate) {
-        return foodEntryDao.getCaloriesByMealType(startDate, endDate);
+        return Transformations.map(getTotalsRange(startDate, endDate), totals -> {
+            DailyTotals sum = new DailyTotals();
+            for (DailyTotals day : totals) {
+                sum.setBreakfastCalories(sum.getBreakfastCalories() + day.getBreakfastCalories());
+                sum.setLunchCalories(sum.getLunchCalories() + day.getLunchCalories());
+                sum.setDinnerCalories(sum.getDinnerCalories() + day.getDinnerCalories());
+                sum.setSnackCalories(sum.getSnackCalories() + day.getSnackCalories());
+            }
+            return sum.toMealTypeCalories();
+        });
     }
 
     /**
      * Lấy tổng macro nutrients trong khoảng thời gian (cho PieChart)
      */
     public LiveData<MacroSum> getMacroSummary(long startDate, long endDate) {
-        return foodEntryDao.getMacroSummary(startDate, endDate);
+        return Transformations.map(getTotalsRange(startDate, endDate), totals -> {
+            float protein = 0, carbs = 0, fat = 0;
+            for (DailyTotals day : totals) {
+                protein += day.getProtein();
+                carbs += day.getCarbs();
+                fat += day.getFat();
+            }
+            return new MacroSum(protein, carbs, fat);
+        });
+    }
+
+    private LiveData<List<DailyTotals>> getTotalsRange(long startDate, long endDate) {
+        long startDay = DateUtils.toEpochDay(startDate);
+        long endDay = DateUtils.toEpochDay(endDate);
+        return new DayScopedLiveData<>(userId, startDay, endDay, () -> dailyTotalsDao.getRange(userId, startDay, endDay));
     }
 
     /**
      * Lấy tổng calo theo giờ trong ngày (cho LineChart trong DiaryFragment)
      */
     public LiveData<List<HourlyCalorieSum>> getHourlyCaloriesSummary(long startDate, long endDate) {
-        return foodEntryDao.getHourlyCaloriesSummary(startDate, endDate);
+        long startDay = DateUtils.toEpochDay(startDate);
+        long endDay = DateUtils.toEpochDay(endDate);
+        return new DayScopedLiveData<>(userId, startDay, endDay, () -> {
+            List<HourlyCalorieSum> hot = foodEntryDao.getHourlyCaloriesSummary(userId, startDay, endDay);
+            List<Integer> years = historyArchive.getYearsForDays(startDay, endDay);
+            if (years.isEmpty()) {
+                return hot;
+            }
+            // Cộng dồn theo giờ giữa database chính và archive
+            TreeMap<Integer, Float> byHour = new TreeMap<>();
+            List<HourlyCalorieSum> all = new ArrayList<>(hot);
+            for (int year : years) {
+                all.addAll(historyArchive.open(year).foodEntryDao()
+                        .getHourlyCaloriesSummary(userId, startDay, endDay));
+            }
+            for (HourlyCalorieSum sum : all) {
+                byHour.merge(sum.getHour(), sum.getTotalCalories(), Float::sum);
+            }
+            List<HourlyCalorieSum> merged = new ArrayList<>();
+            for (Map.Entry<Integer, Float> entry : byHour.entrySet()) {
+                merged.add(new HourlyCalorieSum(entry.getKey(), entry.getValue()));
+            }
+            return merged;
+        });
     }
 
     // ==================== INSERT ====================
     
     /**
-     * Thêm food entry mới
+     * Thêm food entry mới, daily_totals và food_usage được cập nhật trong cùng transaction.
+     * Các entry thêm liên tiếp được gom vào một batch của WriteBehindQueue.
+     * @return Future hoàn thành khi entry đã được commit, lỗi nếu ngày thuộc năm đã archive
      */
-    public void insert(FoodEntry foodEntry) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+    public CompletableFuture<Void> insert(FoodEntry foodEntry) {
+        foodEntry.setUserId(userId);
+        stampLocalTime(foodEntry);
+        if (historyArchive.isArchivedDay(foodEntry.getLocalDay())) {
+            return rejected("Cannot insert into archived day " + foodEntry.getLocalDay());
+        }
+        return writeQueue.enqueue(batch -> {
             foodEntryDao.insert(foodEntry);
+            if (foodEntry.getFoodId() != null) {
+                foodUsageDao.recordUse(userId, foodEntry.getFoodId(), foodEntry.getMealType(), foodEntry.getDate());
+            }
+            batch.touchDay(foodEntry.getUserId(), foodEntry.getLocalDay());
         });
     }
     
     // ==================== UPDATE ====================
     
     /**
-     * Cập nhật food entry
+     * Cập nhật food entry.
+     * Nếu entry bị đổi sang ngày khác thì tính lại cả ngày cũ.
+     * Future lỗi nếu entry đã bị xóa, hoặc entry/ngày mới thuộc năm đã archive.
      */
-    public void update(FoodEntry foodEntry) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+    public CompletableFuture<Void> update(FoodEntry foodEntry) {
+        long targetDay = DateUtils.toEpochDay(foodEntry.getDate());
+        if (historyArchive.isArchivedDay(targetDay)) {
+            return rejected("Cannot move entry into archived day " + targetDay);
+        }
+        return writeQueue.enqueue(batch -> {
+            FoodEntry old = foodEntryDao.getEntryById(userId, foodEntry.getId());
+            if (old == null) {
+                // Entry của năm đã archive chỉ đọc, hoặc của tài khoản khác
+                throw new IllegalStateException("Entry " + foodEntry.getId() + " is not in the hot database for this user");
+            }
+            if (old.getDeletedAt() != null) {
+                // Sửa từ object UI cũ không được hồi sinh entry đã xóa; khôi phục chỉ qua restore()
+                throw new IllegalStateException("Entry " + foodEntry.getId() + " has been deleted");
+            }
+            foodEntry.setUserId(userId);
+            foodEntry.setDeletedAt(old.getDeletedAt());
+            if (old.getDate() == foodEntry.getDate()) {
+                // Giữ nguyên ngày/giờ địa phương lúc ghi ban đầu
+                foodEntry.setLocalDay(old.getLocalDay());
+                foodEntry.setLocalMinuteOfDay(old.getLocalMinuteOfDay());
+            } else {
+                stampLocalTime(foodEntry);
+            }
             foodEntryDao.update(foodEntry);
+            batch.touchDay(userId, foodEntry.getLocalDay());
+            batch.touchDay(userId, old.getLocalDay());
         });
     }
     
+    // ==================== COPY ====================
+
+    /**
+     * Chép mọi entries của ngày chứa sourceTimestamp sang ngày chứa targetTimestamp (giữ bữa và giờ trong ngày).
+     * Một câu INSERT … SELECT trong batch của WriteBehindQueue, daily_totals của ngày đích
+     * được tính lại trong cùng transaction.
+     */
+    public CompletableFuture<Void> copyDay(long sourceTimestamp, long targetTimestamp) {
+        long sourceDay = DateUtils.toEpochDay(sourceTimestamp);
+        return copy(sourceDay, targetTimestamp, (targetDay, targetStart) ->
+                foodEntryDao.copyDay(userId, sourceDay, targetDay, targetStart));
+    }
+
+    /**
+     * Chép một bữa (mealType) của ngày nguồn sang cùng bữa của ngày đích
+     */
+    public CompletableFuture<Void> copyMeal(long sourceTimestamp, int mealType, long targetTimestamp) {
+        long sourceDay = DateUtils.toEpochDay(sourceTimestamp);
+        return copy(sourceDay, targetTimestamp, (targetDay, targetStart) ->
+                foodEntryDao.copyMeal(userId, sourceDay, mealType, targetDay, targetStart));
+    }
+
+    /**
+     * Chép các entries được chọn (cùng một ngày nguồn) sang ngày đích
+     */
+    public CompletableFuture<Void> copyEntries(long sourceTimestamp, List<Integer> entryIds, long targetTimestamp) {
+        List<Integer> ids = new ArrayList<>(entryIds);
+        return copy(DateUtils.toEpochDay(sourceTimestamp), targetTimestamp, (targetDay, targetStart) ->
+                foodEntryDao.copyEntries(userId, ids, targetDay, targetStart));
+    }
+
+    private interface CopyStatement {
+        void run(long targetDay, long targetStart);
+    }
+
+    /**
+     * Ngày thuộc năm đã archive chỉ đọc: entries của nó không còn trong database chính
+     * và daily_totals của nó không được tính lại từ entries
+     */
+    private CompletableFuture<Void> copy(long sourceDay, long targetTimestamp, CopyStatement statement) {
+        long targetDay = DateUtils.toEpochDay(targetTimestamp);
+        long targetStart = DateUtils.getStartOfDay(targetTimestamp);
+        if (historyArchive.isArchivedDay(sourceDay) || historyArchive.isArchivedDay(targetDay)) {
+            return rejected("Cannot copy between archived days " + sourceDay + " -> " + targetDay);
+        }
+        return writeQueue.enqueue(batch -> {
+            statement.run(targetDay, targetStart);
+            batch.touchDay(userId, targetDay);
+        });
+    }
+
     // ==================== DELETE ====================
     
     /**
-     * Xóa food entry
+     * Xóa food entry: chỉ đánh dấu deletedAt, có thể restore() trong cửa sổ undo
      */
-    public void delete(FoodEntry foodEntry) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            foodEntryDao.delete(foodEntry);
-        });
+    public CompletableFuture<Void> delete(FoodEntry foodEntry) {
+        return deleteById(foodEntry.getId());
     }
     
     /**
-     * Xóa food entry theo ID
+     * Xóa food entry theo ID: đánh dấu deletedAt và tính lại ngày của entry trong cùng batch.
+     * Dòng thật được xóa bởi DailyTotalsRepository.purgeDeletedEntries().
+     * Future lỗi nếu entry không có trong database chính (ngày thuộc năm đã archive chỉ đọc).
      */
-    public void deleteById(int entryId) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            foodEntryDao.deleteById(entryId);
+    public CompletableFuture<Void> deleteById(int entryId) {
+        long deletedAt = System.currentTimeMillis();
+        return writeQueue.enqueue(batch -> {
+            FoodEntry entry = foodEntryDao.getEntryById(userId, entryId);
+            if (entry == null) {
+                // Entry của năm đã archive, đã bị purge, hoặc của tài khoản khác
+                throw new IllegalStateException("Entry " + entryId + " is not in the hot database for this user");
+            }
+            if (foodEntryDao.markDeleted(userId, entryId, deletedAt) == 0) {
+                return;
+            }
+            batch.touchDay(userId, entry.getLocalDay());
         });
     }
-}
 
+    /**
+     * Xóa mọi food entries trong ngày chứa timestamp bằng một câu UPDATE
+     * @return Future trả về thời điểm xóa, dùng cho restoreDay()
+     */
+    public CompletableFuture<Long> deleteDay(long timestamp) {
+        long deletedAt = System.currentTimeMillis();
+        long day = DateUtils.toEpochDay(timestamp);
+        if (historyArchive.isArchivedDay(day)) {
+            return rejected("Cannot delete archived day " + day);
+        }
+        return writeQueue.enqueue(batch -> {
+            if (foodEntryDao.markDeletedByDay(userId, day, deletedAt) > 0) {
+                batch.touchDay(userId, day);
+            }
+        }).thenApply(ignored -> deletedAt);
+    }
+
+    // ==================== UNDO ====================
+
+    /**
+     * Khôi phục entry vừa xóa (nếu chưa bị purge), future lỗi nếu entry không còn trong database chính
+     */
+    public CompletableFuture<Void> restore(int entryId) {
+        return writeQueue.enqueue(batch -> {
+            FoodEntry entry = foodEntryDao.getEntryById(userId, entryId);
+            if (entry == null) {
+                // Entry của năm đã archive, đã bị purge, hoặc của tài khoản khác
+                throw new IllegalStateException("Entry " + entryId + " is not in the hot database for this user");
+            }
+            if (foodEntryDao.restore(userId, entryId) == 0) {
+                return;
+            }
+            batch.touchDay(userId, entry.getLocalDay());
+        });
+    }
+
+    /**
+     * Khôi phục mọi entries của lần deleteDay(timestamp) đã trả về deletedAt
+     */
+    public CompletableFuture<Void> restoreDay(long timestamp, long deletedAt) {
+        long day = DateUtils.toEpochDay(timestamp);
+        if (historyArchive.isArchivedDay(day)) {
+            return rejected("Cannot restore archived day " + day);
+        }
+        return writeQueue.enqueue(batch -> {
+            if (foodEntryDao.restoreDeletedAt(userId, deletedAt) > 0) {
+                batch.touchDay(userId, day);
+            }
+        });
+    }
+
+    // ==================== COMPACTION ====================
+
+    /**
+     * Gộp entries cũ hơn retentionMonths tháng thành food_entry_aggregates rồi xóa bản gốc.
+     * Charts (đọc daily_totals) cho kết quả như trước; ngày đã compact không còn
+     * danh sách entries chi tiết và biểu đồ theo giờ.
+     * Chạy như một mutation của WriteBehindQueue.
+     * @param retentionMonths 0 = không compact
+     */
+    public CompletableFuture<Void> compactHistory(int retentionMonths) {
+        if (retentionMonths <= 0) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long cutoffDay = DateUtils.toEpochDay(DateUtils.getMonthsAgo(retentionMonths));
+        return writeQueue.enqueue(batch -> {
+            int removed = db.foodEntryAggregateDao().compactBefore(userId, cutoffDay);
+            if (removed > 0) {
+                Log.i(TAG, "Compacted " + removed + " entries before day " + cutoffDay);
+                batch.touchAllDays();
+            }
+        });
+    }
+
+    /**
+     * Ghi ngay các thay đổi đang chờ trong WriteBehindQueue
+     */
+    public CompletableFuture<Void> flush() {
+        return writeQueue.flush();
+    }
+
+    /**
+     * Ngày chứa timestamp thuộc năm đã archive: entries của nó chỉ đọc
+     */
+    public boolean isArchivedDay(long timestamp) {
+        return historyArchive.isArchivedDay(DateUtils.toEpochDay(timestamp));
+    }
+
+    private static <T> CompletableFuture<T> rejected(String message) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new IllegalArgumentException(message));
+        return future;
+    }
+
+    /**
+     * Ghi ngày và phút theo giờ địa phương tại thời điểm log
+     */
+    private static void stampLocalTime(FoodEntry foodEntry) {
+        foodEntry.setLocalDay(DateUtils.toEpochDay(foodEntry.getDate()));
+        foodEntry.setLocalMinuteOfDay(DateUtils.toLocalMinuteOfDay(foodEntry.getDate()));
+    }
+}
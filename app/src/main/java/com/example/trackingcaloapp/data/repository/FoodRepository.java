@@ -2,17 +2,33 @@ package com.example.trackingcaloapp.data.repository;
 
 import android.app.Application;
 import android.content.Context;
+import android.text.TextUtils;
 import android.util.Log;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.MutableLiveData;
 
 import com.example.trackingcaloapp.data.local.dao.FoodDao;
+import com.example.trackingcaloapp.data.local.dao.FoodUsageDao;
+import com.example.trackingcaloapp.data.local.dao.SearchCacheDao;
 import com.example.trackingcaloapp.data.local.database.AppDatabase;
+import com.example.trackingcaloapp.data.local.database.KeysetPager;
 import com.example.trackingcaloapp.data.local.entity.Food;
+import com.example.trackingcaloapp.data.local.entity.SearchCache;
+import com.example.trackingcaloapp.data.preferences.UserPreferences;
 import com.example.trackingcaloapp.data.remote.UsdaApiService;
 import com.example.trackingcaloapp.utils.Constants;
+import com.example.trackingcaloapp.utils.SearchUtils;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository cho Food entity.
@@ -23,36 +39,57 @@ public class FoodRepository {
 
     private static final String TAG = "FoodRepository";
 
+    private static final String[] FOOD_TABLES = {"foods"};
+
+    // apiSource của foods cache từ UsdaParser
+    private static final String API_SOURCE_USDA = "usda";
+
+    // Số foods gợi ý đầu danh sách mặc định của AddFoodFragment
+    private static final int FREQUENT_LIMIT = 15;
+    private static final int RECENT_LIMIT = 10;
+
+    private final AppDatabase db;
     private final FoodDao foodDao;
-    private final LiveData<List<Food>> allFoods;
+    private final FoodUsageDao foodUsageDao;
+    private final SearchCacheDao searchCacheDao;
+    private final WriteBehindQueue writeQueue;
+    private final int userId;
     private UsdaApiService apiService;
+    private volatile String latestQueryKey; // Query search API mới nhất; query cũ hơn bị bỏ
 
     /**
      * Constructor cho Application context (ViewModel usage)
      */
     public FoodRepository(Application application) {
-        AppDatabase db = AppDatabase.getDatabase(application);
-        foodDao = db.foodDao();
-        allFoods = foodDao.getAllFoods();
-        this.apiService = new UsdaApiService(application);
+        this(AppDatabase.getDatabase(application), application);
     }
 
     /**
-     * Constructor cho FoodDao only (existing - backward compatible)
+     * Constructor cho database only
      * Không có API support
+     * @param userId Tài khoản đang đăng nhập (thấy food dùng chung + custom foods của mình)
      */
-    public FoodRepository(FoodDao foodDao) {
-        this.foodDao = foodDao;
-        this.allFoods = foodDao.getAllFoods();
+    public FoodRepository(AppDatabase db, int userId) {
+        this.db = db;
+        this.userId = userId;
+        this.foodDao = db.foodDao();
+        this.foodUsageDao = db.foodUsageDao();
+        this.searchCacheDao = db.searchCacheDao();
+        this.writeQueue = WriteBehindQueue.getInstance(db);
         this.apiService = null; // No API support
     }
 
+    @VisibleForTesting
+    FoodRepository(AppDatabase db, int userId, UsdaApiService apiService) {
+        this(db, userId);
+        this.apiService = apiService;
+    }
+
     /**
-     * Constructor cho FoodDao + Context (Fragment usage with API)
+     * Constructor cho database + Context (Fragment usage with API)
      */
-    public FoodRepository(FoodDao foodDao, Context context) {
-        this.foodDao = foodDao;
-        this.allFoods = foodDao.getAllFoods();
+    public FoodRepository(AppDatabase db, Context context) {
+        this(db, new UserPreferences(context).getCurrentUserId());
         this.apiService = new UsdaApiService(context.getApplicationContext());
     }
 
@@ -68,7 +105,9 @@ public class FoodRepository {
     // ==================== HYBRID SEARCH ====================
 
     /**
-     * Callback interface cho hybrid search (API results)
+     * Callback interface cho hybrid search (API results).
+     * Mỗi lần onApiResults là toàn bộ kết quả API của query, thay cho lần trước (kết quả cache quá hạn
+     * rồi kết quả API mới).
      */
     public interface HybridSearchCallback {
         void onApiResults(List<Food> foods);
@@ -78,7 +117,12 @@ public class FoodRepository {
     /**
      * Hybrid search: Room DB + USDA API
      * Local results được trả về qua LiveData
-     * API results được trả về qua callback
+     * API results được trả về qua callback (có thể từ background thread)
+     *
+     * Kết quả API được lưu trong search_cache theo query đã chuẩn hóa:
+     * - Còn mới: trả từ Room, không gọi network
+     * - Quá hạn: trả từ Room ngay, rồi gọi API và trả kết quả mới thay cho kết quả cũ
+     * - Chưa có (hoặc foods đã cache bị xóa): gọi API
      *
      * @param query    Từ khóa tìm kiếm
      * @param callback Callback để nhận API results
@@ -91,75 +135,165 @@ public class FoodRepository {
             return;
         }
 
+        // Kết quả của query cũ không còn cần nữa
+        String queryKey = SearchUtils.normalize(query);
+        latestQueryKey = queryKey;
+        apiService.cancelSearchesExcept(query);
+
         // Search API if query >= 3 chars
-        if (query != null && query.length() >= 3) {
-            Log.d(TAG, "Searching USDA API for: " + query);
-            apiService.searchFoods(query, 20, new UsdaApiService.SearchCallback() {
-                @Override
-                public void onSuccess(List<Food> apiFoods) {
-                    Log.d(TAG, "USDA API returned " + apiFoods.size() + " foods");
-
-                    // Cache API foods to Room in background
-                    AppDatabase.databaseWriteExecutor.execute(() -> {
-                        for (Food apiFood : apiFoods) {
-                            Food existing = foodDao.getFoodByApiId(apiFood.getApiId());
-                            if (existing == null) {
-                                foodDao.insert(apiFood);
-                                Log.d(TAG, "Cached: " + apiFood.getName());
-                            }
-                        }
-                    });
-
-                    callback.onApiResults(apiFoods);
+        if (query == null || query.length() < 3) {
+            // Query too short, don't call API
+            Log.d(TAG, "Query too short for API search");
+            return;
+        }
+
+        AppDatabase.databaseReadExecutor.execute(() -> {
+            if (!queryKey.equals(latestQueryKey)) {
+                return; // Đã có query mới hơn trước khi kịp đọc cache
+            }
+            SearchCache cached = searchCacheDao.get(queryKey);
+            List<Food> cachedFoods = cached != null ? loadCachedResults(cached) : null;
+            if (cachedFoods != null) {
+                callback.onApiResults(cachedFoods);
+                if (cached.isFresh(System.currentTimeMillis())) {
+                    Log.d(TAG, "Search cache hit: " + queryKey);
+                    return;
                 }
+                Log.d(TAG, "Search cache stale, revalidating: " + queryKey);
+            }
+            if (queryKey.equals(latestQueryKey)) {
+                fetchFromApi(query, queryKey, callback, cachedFoods != null);
+            }
+        });
+    }
 
-                @Override
-                public void onError(String error) {
-                    Log.e(TAG, "USDA API error: " + error);
+    /**
+     * Hủy các search API đang chạy (khi rời màn hình search hoặc xóa query)
+     */
+    public void cancelApiSearches() {
+        latestQueryKey = null;
+        if (apiService != null) {
+            apiService.cancelAllRequests();
+        }
+    }
+
+    /**
+     * Gọi USDA API, cache foods và danh sách kết quả
+     * @param revalidating true nếu kết quả cũ đã được trả, lỗi khi đó chỉ được log
+     */
+    private void fetchFromApi(String query, String queryKey, HybridSearchCallback callback, boolean revalidating) {
+        Log.d(TAG, "Searching USDA API for: " + query);
+        apiService.searchFoods(query, 20, new UsdaApiService.SearchCallback() {
+            @Override
+            public void onSuccess(List<Food> apiFoods) {
+                Log.d(TAG, "USDA API returned " + apiFoods.size() + " foods");
+
+                // Cache API foods and result order to Room qua WriteBehindQueue.
+                // Trả kết quả sau khi commit để foods có id local (thêm entry được ngay)
+                writeQueue.enqueue(batch -> {
+                    foodDao.upsertApiFoods(apiFoods);
+                    putSearchCache(queryKey, apiFoods);
+                }).whenComplete((ignored, error) -> {
+                    if (error == null) {
+                        callback.onApiResults(apiFoods);
+                    } else if (!revalidating) {
+                        callback.onError("Không lưu được kết quả tìm kiếm");
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "USDA API error: " + error);
+                if (!revalidating) {
                     callback.onError(error);
                 }
-            });
-        } else {
-            // Query too short, don't call API
-            Log.d(TAG, "Query too short for API search");
+            }
+        });
+    }
+
+    /**
+     * Đọc foods của một kết quả đã cache, đúng thứ tự API đã trả
+     * @return null nếu có food đã bị xóa khỏi foods (cần gọi lại API)
+     */
+    private List<Food> loadCachedResults(SearchCache cached) {
+        List<Long> apiIds = new ArrayList<>();
+        for (String apiId : TextUtils.split(cached.getApiIds(), ",")) {
+            apiIds.add(Long.parseLong(apiId));
+        }
+        if (apiIds.isEmpty()) {
+            return new ArrayList<>();
         }
+
+        Map<Long, Food> byApiId = new HashMap<>();
+        for (Food food : foodDao.getFoodsByApiIds(API_SOURCE_USDA, apiIds)) {
+            byApiId.putIfAbsent(food.getApiId(), food);
+        }
+        List<Food> foods = new ArrayList<>(apiIds.size());
+        for (Long apiId : apiIds) {
+            Food food = byApiId.get(apiId);
+            if (food == null) {
+                return null;
+            }
+            foods.add(food);
+        }
+        return foods;
+    }
+
+    private void putSearchCache(String queryKey, List<Food> apiFoods) {
+        List<Long> apiIds = new ArrayList<>(apiFoods.size());
+        for (Food food : apiFoods) {
+            apiIds.add(food.getApiId());
+        }
+        long now = System.currentTimeMillis();
+        SearchCache entry = new SearchCache();
+        entry.setQueryKey(queryKey);
+        entry.setApiIds(TextUtils.join(",", apiIds));
+        entry.setFetchedAt(now);
+        entry.setTtlMs(apiIds.isEmpty() ? Constants.SEARCH_CACHE_EMPTY_TTL_MS : Constants.SEARCH_CACHE_TTL_MS);
+        searchCacheDao.put(entry);
+        searchCacheDao.deleteOlderThan(now - Constants.SEARCH_CACHE_MAX_AGE_MS);
     }
 
     /**
      * Search local foods only (cho LiveData observation)
-     * Sắp xếp: Local foods trước, API foods sau
+     * Sắp xếp: Local foods trước, API foods sau.
+     * Query không có từ khóa trả về danh sách rỗng: caller hiển thị catalog bằng pager (getFoodsByMealType()).
      */
     public LiveData<List<Food>> searchFoodsLocal(String query) {
-        return foodDao.searchAllFoods(query);
+        String match = SearchUtils.toFtsMatch(query);
+        if (match.isEmpty()) {
+            return new MutableLiveData<>(new ArrayList<>());
+        }
+        return foodDao.searchAllFoods(userId, match, SearchUtils.normalize(query));
+    }
+
+    /**
+     * Query có ít nhất một từ khóa để search (không chỉ gồm dấu câu, khoảng trắng)
+     */
+    public static boolean hasSearchTerms(String query) {
+        return !SearchUtils.toFtsMatch(query).isEmpty();
     }
 
     /**
-     * Get food by API ID (check cache)
+     * Get food by provider + API ID (check cache)
      */
-    public Food getFoodByApiId(long apiId) {
-        return foodDao.getFoodByApiId(apiId);
+    public Food getFoodByApiId(String apiSource, long apiId) {
+        return foodDao.getFoodByApiId(apiSource, apiId);
     }
 
     /**
      * Xóa cached foods cũ hơn X ngày
+     * (entries đã ghi giữ snapshot của food nên nhật ký không đổi)
      * @param days Số ngày
      */
     public void deleteOldCachedFoods(int days) {
         long timestamp = System.currentTimeMillis() - (days * 24L * 60 * 60 * 1000);
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            foodDao.deleteOldCachedFoods(timestamp);
-        });
+        writeQueue.enqueue(batch -> foodDao.deleteOldCachedFoods(timestamp));
     }
 
     // ==================== GETTERS ====================
     
-    /**
-     * Lấy tất cả thực phẩm
-     */
-    public LiveData<List<Food>> getAllFoods() {
-        return allFoods;
-    }
-    
     /**
      * Lấy thực phẩm theo ID
      */
@@ -175,33 +309,72 @@ public class FoodRepository {
     }
     
     /**
-     * Tìm kiếm thực phẩm theo tên
+     * Tìm kiếm thực phẩm theo tên.
+     * Query không có từ khóa trả về danh sách rỗng: caller hiển thị catalog bằng pager (getFoodsByMealType()).
      */
     public LiveData<List<Food>> searchFoods(String query) {
-        return foodDao.searchFoods(query);
+        String match = SearchUtils.toFtsMatch(query);
+        if (match.isEmpty()) {
+            return new MutableLiveData<>(new ArrayList<>());
+        }
+        return foodDao.searchFoods(userId, match, SearchUtils.normalize(query));
     }
     
     /**
      * Lấy thực phẩm theo category
      */
     public LiveData<List<Food>> getFoodsByCategory(String category) {
-        return foodDao.getFoodsByCategory(category);
+        return foodDao.getFoodsByCategory(userId, category);
     }
 
     /**
-     * Lấy thực phẩm phù hợp với loại bữa ăn
+     * Lấy thực phẩm phù hợp với loại bữa ăn, load theo từng trang (keyset theo tên, id)
      * @param mealType 0=breakfast, 1=lunch, 2=dinner, 3=snack
      */
-    public LiveData<List<Food>> getFoodsByMealType(int mealType) {
+    public KeysetPager<Food> getFoodsByMealType(int mealType) {
         List<String> categories = Constants.getCategoriesForMealType(mealType);
-        return foodDao.getFoodsByCategories(categories);
+        return new KeysetPager<>(db, FOOD_TABLES, (after, limit) -> after == null
+                ? foodDao.getFoodsByCategoriesPage(userId, categories, "", 0, limit)
+                : foodDao.getFoodsByCategoriesPage(userId, categories, after.getName(), after.getId(), limit));
+    }
+
+    /**
+     * Foods gợi ý cho bữa ăn: hay ghi nhất cho bữa này, rồi tới foods ghi gần đây (không trùng).
+     * Đọc food_usage theo index nên không phụ thuộc độ dài lịch sử.
+     * @param mealType 0=breakfast, 1=lunch, 2=dinner, 3=snack
+     */
+    public LiveData<List<Food>> getSuggestedFoods(int mealType) {
+        LiveData<List<Food>> frequent = foodUsageDao.getFrequentFoods(userId, mealType, FREQUENT_LIMIT);
+        LiveData<List<Food>> recent = foodUsageDao.getRecentFoods(userId, RECENT_LIMIT);
+        MediatorLiveData<List<Food>> suggested = new MediatorLiveData<>();
+        Runnable merge = () -> {
+            List<Food> result = new ArrayList<>();
+            Set<Integer> ids = new HashSet<>();
+            appendDistinct(result, ids, frequent.getValue());
+            appendDistinct(result, ids, recent.getValue());
+            suggested.setValue(result);
+        };
+        suggested.addSource(frequent, foods -> merge.run());
+        suggested.addSource(recent, foods -> merge.run());
+        return suggested;
+    }
+
+    private static void appendDistinct(List<Food> result, Set<Integer> ids, List<Food> foods) {
+        if (foods == null) {
+            return;
+        }
+        for (Food food : foods) {
+            if (ids.add(food.getId())) {
+                result.add(food);
+            }
+        }
     }
 
     /**
      * Lấy thực phẩm do user tự tạo
      */
     public LiveData<List<Food>> getCustomFoods() {
-        return foodDao.getCustomFoods();
+        return foodDao.getCustomFoods(userId);
     }
     
     /**
@@ -214,43 +387,51 @@ public class FoodRepository {
     // ==================== INSERT ====================
     
     /**
-     * Thêm thực phẩm mới
+     * Thêm thực phẩm mới (gom batch qua WriteBehindQueue).
+     * Custom food thuộc về user đang đăng nhập.
+     * @return Future hoàn thành khi food đã được commit
      */
-    public void insert(Food food) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            foodDao.insert(food);
-        });
+    public CompletableFuture<Void> insert(Food food) {
+        if (food.isCustom()) {
+            food.setUserId(userId);
+        }
+        return writeQueue.enqueue(batch -> foodDao.insert(food));
     }
     
     // ==================== UPDATE ====================
     
     /**
-     * Cập nhật thực phẩm
+     * Cập nhật thực phẩm (gom batch qua WriteBehindQueue).
+     * Chỉ áp dụng cho entries ghi sau này; entries cũ giữ snapshot lúc ghi.
+     * Future lỗi nếu food không thuộc user đang đăng nhập (hoặc dùng chung).
      */
-    public void update(Food food) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            foodDao.update(food);
+    public CompletableFuture<Void> update(Food food) {
+        return writeQueue.enqueue(batch -> {
+            if (foodDao.updateForUser(userId, food) == 0) {
+                throw new IllegalStateException("Food " + food.getId() + " is not visible to user " + userId);
+            }
         });
     }
     
     // ==================== DELETE ====================
     
     /**
-     * Xóa thực phẩm
+     * Xóa thực phẩm (gom batch qua WriteBehindQueue).
+     * Entries liên quan chỉ mất foodId (SET NULL), nhật ký và daily_totals không đổi.
      */
-    public void delete(Food food) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            foodDao.delete(food);
-        });
+    public CompletableFuture<Void> delete(Food food) {
+        return deleteById(food.getId());
     }
     
     /**
-     * Xóa thực phẩm theo ID
+     * Xóa thực phẩm theo ID.
+     * Future lỗi nếu food không thuộc user đang đăng nhập (hoặc dùng chung).
      */
-    public void deleteById(int foodId) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            foodDao.deleteById(foodId);
+    public CompletableFuture<Void> deleteById(int foodId) {
+        return writeQueue.enqueue(batch -> {
+            if (foodDao.deleteById(userId, foodId) == 0) {
+                throw new IllegalStateException("Food " + foodId + " is not visible to user " + userId);
+            }
         });
     }
 }
-
@@ -7,8 +7,6 @@ import com.example.trackingcaloapp.data.local.database.AppDatabase;
 import com.example.trackingcaloapp.data.local.entity.User;
 import com.example.trackingcaloapp.util.PasswordUtils;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 /**
@@ -18,12 +16,10 @@ import java.util.concurrent.Future;
 public class UserRepository {
 
     private final UserDao userDao;
-    private final ExecutorService executor;
 
     public UserRepository(Application application) {
         AppDatabase db = AppDatabase.getDatabase(application);
         userDao = db.userDao();
-        executor = Executors.newSingleThreadExecutor();
     }
 
     /**
@@ -31,7 +27,7 @@ public class UserRepository {
      * @return userId nếu thành công, -1 nếu username đã tồn tại
      */
     public Future<Long> register(String username, String password) {
-        return executor.submit(() -> {
+        return AppDatabase.databaseWriteExecutor.submit(() -> {
             if (userDao.countByUsername(username) > 0) {
                 return -1L; // Username đã tồn tại
             }
@@ -46,7 +42,7 @@ public class UserRepository {
      * @return User nếu thành công, null nếu thất bại
      */
     public Future<User> login(String username, String password) {
-        return executor.submit(() -> {
+        return AppDatabase.databaseReadExecutor.submit(() -> {
             String passwordHash = PasswordUtils.hashPassword(password);
             if (userDao.validateCredentials(username, passwordHash)) {
                 return userDao.getUserByUsername(username);
@@ -59,13 +55,13 @@ public class UserRepository {
      * Kiểm tra username đã tồn tại chưa
      */
     public Future<Boolean> isUsernameExists(String username) {
-        return executor.submit(() -> userDao.countByUsername(username) > 0);
+        return AppDatabase.databaseReadExecutor.submit(() -> userDao.countByUsername(username) > 0);
     }
 
     /**
      * Lấy user theo ID
      */
     public Future<User> getUserById(int userId) {
-        return executor.submit(() -> userDao.getUserById(userId));
+        return AppDatabase.databaseReadExecutor.submit(() -> userDao.getUserById(userId));
     }
 }
@@ -3,12 +3,19 @@ package com.example.trackingcaloapp.data.repository;
 import android.app.Application;
 
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 
 import com.example.trackingcaloapp.data.local.dao.WeightLogDao;
 import com.example.trackingcaloapp.data.local.database.AppDatabase;
+import com.example.trackingcaloapp.data.local.database.HistoryArchive;
 import com.example.trackingcaloapp.data.local.entity.WeightLog;
+import com.example.trackingcaloapp.data.preferences.UserPreferences;
+import com.example.trackingcaloapp.utils.DateUtils;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.function.Function;
 
 /**
  * Repository cho WeightLog entity.
@@ -17,16 +24,21 @@ import java.util.List;
 public class WeightLogRepository {
 
     private final WeightLogDao weightLogDao;
+    private final HistoryArchive historyArchive;
+    private final int userId;
 
     public WeightLogRepository(Application application) {
         AppDatabase db = AppDatabase.getDatabase(application);
         weightLogDao = db.weightLogDao();
+        historyArchive = db.getHistoryArchive();
+        userId = new UserPreferences(application).getCurrentUserId();
     }
 
     /**
      * Insert một weight log mới
      */
     public void insert(WeightLog log) {
+        log.setUserId(userId);
         AppDatabase.databaseWriteExecutor.execute(() -> weightLogDao.insert(log));
     }
 
@@ -34,22 +46,63 @@ public class WeightLogRepository {
      * Lấy tất cả weight logs, sắp xếp theo thời gian giảm dần
      */
     public LiveData<List<WeightLog>> getAllLogs() {
-        return weightLogDao.getAllLogs();
+        LiveData<List<WeightLog>> hot = weightLogDao.getAllLogs(userId);
+        List<Integer> years = historyArchive.getYearsNewestFirst();
+        if (years.isEmpty()) {
+            return hot;
+        }
+        return withArchived(hot, logs -> {
+            List<WeightLog> all = new ArrayList<>(logs);
+            for (int year : years) {
+                all.addAll(historyArchive.open(year).weightLogDao().getAllLogsSync(userId));
+            }
+            return all;
+        });
     }
 
     /**
      * Lấy weight logs trong 30 ngày gần nhất
      */
     public LiveData<List<WeightLog>> getLast30DaysLogs() {
-        long thirtyDaysAgo = System.currentTimeMillis() - (30L * 24 * 60 * 60 * 1000);
-        return weightLogDao.getLogsSince(thirtyDaysAgo);
+        long now = System.currentTimeMillis();
+        long thirtyDaysAgo = now - (30L * 24 * 60 * 60 * 1000);
+        LiveData<List<WeightLog>> hot = weightLogDao.getLogsSince(userId, thirtyDaysAgo);
+        List<Integer> years = historyArchive.getYearsForDays(DateUtils.toEpochDay(thirtyDaysAgo),
+                DateUtils.toEpochDay(now));
+        if (years.isEmpty()) {
+            return hot;
+        }
+        return withArchived(hot, logs -> {
+            // Thứ tự tăng dần: archive (năm cũ trước) rồi database chính
+            List<Integer> oldestFirst = new ArrayList<>(years);
+            Collections.reverse(oldestFirst);
+            List<WeightLog> all = new ArrayList<>();
+            for (int year : oldestFirst) {
+                all.addAll(historyArchive.open(year).weightLogDao().getLogsSinceSync(userId, thirtyDaysAgo));
+            }
+            all.addAll(logs);
+            return all;
+        });
     }
 
     /**
      * Lấy weight log mới nhất
      */
     public LiveData<WeightLog> getLatestLog() {
-        return weightLogDao.getLatestLog();
+        LiveData<WeightLog> hot = weightLogDao.getLatestLog(userId);
+        List<Integer> years = historyArchive.getYearsNewestFirst();
+        if (years.isEmpty()) {
+            return hot;
+        }
+        return withArchived(hot, latest -> {
+            for (int year : years) {
+                if (latest != null) {
+                    break;
+                }
+                latest = historyArchive.open(year).weightLogDao().getLatestLogSync(userId);
+            }
+            return latest;
+        });
     }
 
     /**
@@ -58,4 +111,15 @@ public class WeightLogRepository {
     public void delete(WeightLog log) {
         AppDatabase.databaseWriteExecutor.execute(() -> weightLogDao.delete(log));
     }
+
+    /**
+     * Gộp giá trị từ database chính với phần nằm trong archive (đọc trên reader pool).
+     * Archive không đổi nên chỉ đọc lại khi database chính thay đổi.
+     */
+    private <T> LiveData<T> withArchived(LiveData<T> hot, Function<T, T> merge) {
+        MediatorLiveData<T> result = new MediatorLiveData<>();
+        result.addSource(hot, value -> AppDatabase.databaseReadExecutor.execute(
+                () -> result.postValue(merge.apply(value))));
+        return result;
+    }
 }
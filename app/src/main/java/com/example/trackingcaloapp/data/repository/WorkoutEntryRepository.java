@@ -6,10 +6,14 @@ import androidx.lifecycle.LiveData;
 
 import com.example.trackingcaloapp.data.local.dao.WorkoutEntryDao;
 import com.example.trackingcaloapp.data.local.database.AppDatabase;
+import com.example.trackingcaloapp.data.local.database.HistoryArchive;
 import com.example.trackingcaloapp.data.local.entity.WorkoutEntry;
-import com.example.trackingcaloapp.model.WorkoutEntryWithWorkout;
+import com.example.trackingcaloapp.data.preferences.UserPreferences;
+import com.example.trackingcaloapp.model.WorkoutEntryRow;
+import com.example.trackingcaloapp.utils.DateUtils;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Repository cho WorkoutEntry entity.
@@ -17,46 +21,54 @@ import java.util.List;
  */
 public class WorkoutEntryRepository {
 
+    private final AppDatabase db;
     private final WorkoutEntryDao workoutEntryDao;
+    private final WriteBehindQueue writeQueue;
+    private final HistoryArchive historyArchive;
+    private final int userId;
 
     public WorkoutEntryRepository(Application application) {
-        AppDatabase db = AppDatabase.getDatabase(application);
-        workoutEntryDao = db.workoutEntryDao();
+        this(AppDatabase.getDatabase(application), new UserPreferences(application).getCurrentUserId());
     }
 
-    // Constructor overload for direct DAO injection
-    public WorkoutEntryRepository(WorkoutEntryDao workoutEntryDao) {
-        this.workoutEntryDao = workoutEntryDao;
+    // Constructor overload for direct database injection
+    // userId: tài khoản đang đăng nhập, mọi query/insert đều scope theo tài khoản này
+    public WorkoutEntryRepository(AppDatabase db, int userId) {
+        this.db = db;
+        this.userId = userId;
+        this.workoutEntryDao = db.workoutEntryDao();
+        this.writeQueue = WriteBehindQueue.getInstance(db);
+        this.historyArchive = db.getHistoryArchive();
     }
     
     // ==================== GETTERS ====================
     
     /**
-     * Lấy tất cả entries
-     */
-    public LiveData<List<WorkoutEntry>> getAllEntries() {
-        return workoutEntryDao.getAllEntries();
-    }
-    
-    /**
-     * Lấy entry theo ID
+     * Lấy entry của tài khoản hiện tại theo ID
      */
     public WorkoutEntry getEntryById(int entryId) {
-        return workoutEntryDao.getEntryById(entryId);
+        return workoutEntryDao.getEntryById(userId, entryId);
     }
     
     /**
      * Lấy entries trong một ngày
      */
     public LiveData<List<WorkoutEntry>> getEntriesByDate(long startOfDay, long endOfDay) {
-        return workoutEntryDao.getEntriesByDate(startOfDay, endOfDay);
+        return workoutEntryDao.getEntriesByDate(userId, startOfDay, endOfDay);
     }
 
     /**
-     * Lấy entries với thông tin Workout trong một ngày (JOIN)
+     * Lấy dòng hiển thị (tên bài tập, số lượng, calo, giờ) của các entries trong ngày chứa timestamp.
+     * Lọc theo localDay để đọc thẳng theo index (userId, localDay, date), không cần sort.
      */
-    public LiveData<List<WorkoutEntryWithWorkout>> getEntriesWithWorkoutByDate(long startOfDay, long endOfDay) {
-        return workoutEntryDao.getEntriesWithWorkoutByDate(startOfDay, endOfDay);
+    public LiveData<List<WorkoutEntryRow>> getEntryRowsByDay(long timestamp) {
+        long day = DateUtils.toEpochDay(timestamp);
+        return new DayScopedLiveData<>(userId, day, () -> {
+            WorkoutEntryDao dao = historyArchive.isArchivedDay(day)
+                    ? historyArchive.open(historyArchive.getYearsForDays(day, day).get(0)).workoutEntryDao()
+                    : workoutEntryDao;
+            return dao.getEntryRowsByDay(userId, day);
+        });
     }
 
     // ==================== AGGREGATION ====================
@@ -65,56 +77,177 @@ public class WorkoutEntryRepository {
      * Tính tổng calo đốt cháy trong một ngày
      */
     public LiveData<Float> getTotalCaloriesBurnedByDate(long startOfDay, long endOfDay) {
-        return workoutEntryDao.getTotalCaloriesBurnedByDate(startOfDay, endOfDay);
+        return workoutEntryDao.getTotalCaloriesBurnedByDate(userId, startOfDay, endOfDay);
     }
     
     /**
      * Tính tổng thời gian tập trong một ngày
      */
     public LiveData<Integer> getTotalDurationByDate(long startOfDay, long endOfDay) {
-        return workoutEntryDao.getTotalDurationByDate(startOfDay, endOfDay);
+        return workoutEntryDao.getTotalDurationByDate(userId, startOfDay, endOfDay);
     }
     
     // ==================== INSERT ====================
     
     /**
-     * Thêm workout entry mới
+     * Thêm workout entry mới, daily_totals được cập nhật trong cùng transaction.
+     * Các entry thêm liên tiếp được gom vào một batch của WriteBehindQueue.
+     * @return Future hoàn thành khi entry đã được commit, lỗi nếu ngày thuộc năm đã archive
      */
-    public void insert(WorkoutEntry workoutEntry) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+    public CompletableFuture<Void> insert(WorkoutEntry workoutEntry) {
+        workoutEntry.setUserId(userId);
+        stampLocalTime(workoutEntry);
+        if (historyArchive.isArchivedDay(workoutEntry.getLocalDay())) {
+            return rejected("Cannot insert into archived day " + workoutEntry.getLocalDay());
+        }
+        return writeQueue.enqueue(batch -> {
             workoutEntryDao.insert(workoutEntry);
+            batch.touchDay(workoutEntry.getUserId(), workoutEntry.getLocalDay());
         });
     }
     
     // ==================== UPDATE ====================
     
     /**
-     * Cập nhật workout entry
+     * Cập nhật workout entry.
+     * Nếu entry bị đổi sang ngày khác thì tính lại cả ngày cũ.
+     * Future lỗi nếu entry đã bị xóa, hoặc entry/ngày mới thuộc năm đã archive.
      */
-    public void update(WorkoutEntry workoutEntry) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
+    public CompletableFuture<Void> update(WorkoutEntry workoutEntry) {
+        long targetDay = DateUtils.toEpochDay(workoutEntry.getDate());
+        if (historyArchive.isArchivedDay(targetDay)) {
+            return rejected("Cannot move entry into archived day " + targetDay);
+        }
+        return writeQueue.enqueue(batch -> {
+            WorkoutEntry old = workoutEntryDao.getEntryById(userId, workoutEntry.getId());
+            if (old == null) {
+                // Entry của năm đã archive chỉ đọc, hoặc của tài khoản khác
+                throw new IllegalStateException("Entry " + workoutEntry.getId() + " is not in the hot database for this user");
+            }
+            if (old.getDeletedAt() != null) {
+                // Sửa từ object UI cũ không được hồi sinh entry đã xóa; khôi phục chỉ qua restore()
+                throw new IllegalStateException("Entry " + workoutEntry.getId() + " has been deleted");
+            }
+            workoutEntry.setUserId(userId);
+            workoutEntry.setDeletedAt(old.getDeletedAt());
+            if (old.getDate() == workoutEntry.getDate()) {
+                // Giữ nguyên ngày/giờ địa phương lúc ghi ban đầu
+                workoutEntry.setLocalDay(old.getLocalDay());
+                workoutEntry.setLocalMinuteOfDay(old.getLocalMinuteOfDay());
+            } else {
+                stampLocalTime(workoutEntry);
+            }
             workoutEntryDao.update(workoutEntry);
+            batch.touchDay(userId, workoutEntry.getLocalDay());
+            batch.touchDay(userId, old.getLocalDay());
         });
     }
     
     // ==================== DELETE ====================
     
     /**
-     * Xóa workout entry
+     * Xóa workout entry: chỉ đánh dấu deletedAt, có thể restore() trong cửa sổ undo
      */
-    public void delete(WorkoutEntry workoutEntry) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            workoutEntryDao.delete(workoutEntry);
-        });
+    public CompletableFuture<Void> delete(WorkoutEntry workoutEntry) {
+        return deleteById(workoutEntry.getId());
     }
     
     /**
-     * Xóa workout entry theo ID
+     * Xóa workout entry theo ID: đánh dấu deletedAt và tính lại ngày của entry trong cùng batch.
+     * Dòng thật được xóa bởi DailyTotalsRepository.purgeDeletedEntries().
+     * Future lỗi nếu entry không có trong database chính (ngày thuộc năm đã archive chỉ đọc).
      */
-    public void deleteById(int entryId) {
-        AppDatabase.databaseWriteExecutor.execute(() -> {
-            workoutEntryDao.deleteById(entryId);
+    public CompletableFuture<Void> deleteById(int entryId) {
+        long deletedAt = System.currentTimeMillis();
+        return writeQueue.enqueue(batch -> {
+            WorkoutEntry entry = workoutEntryDao.getEntryById(userId, entryId);
+            if (entry == null) {
+                // Entry của năm đã archive, đã bị purge, hoặc của tài khoản khác
+                throw new IllegalStateException("Entry " + entryId + " is not in the hot database for this user");
+            }
+            if (workoutEntryDao.markDeleted(userId, entryId, deletedAt) == 0) {
+                return;
+            }
+            batch.touchDay(userId, entry.getLocalDay());
         });
     }
-}
 
+    /**
+     * Xóa mọi workout entries trong ngày chứa timestamp bằng một câu UPDATE
+     * @return Future trả về thời điểm xóa, dùng cho restoreDay()
+     */
+    public CompletableFuture<Long> deleteDay(long timestamp) {
+        long deletedAt = System.currentTimeMillis();
+        long day = DateUtils.toEpochDay(timestamp);
+        if (historyArchive.isArchivedDay(day)) {
+            return rejected("Cannot delete archived day " + day);
+        }
+        return writeQueue.enqueue(batch -> {
+            if (workoutEntryDao.markDeletedByDay(userId, day, deletedAt) > 0) {
+                batch.touchDay(userId, day);
+            }
+        }).thenApply(ignored -> deletedAt);
+    }
+
+    // ==================== UNDO ====================
+
+    /**
+     * Khôi phục entry vừa xóa (nếu chưa bị purge), future lỗi nếu entry không còn trong database chính
+     */
+    public CompletableFuture<Void> restore(int entryId) {
+        return writeQueue.enqueue(batch -> {
+            WorkoutEntry entry = workoutEntryDao.getEntryById(userId, entryId);
+            if (entry == null) {
+                // Entry của năm đã archive, đã bị purge, hoặc của tài khoản khác
+                throw new IllegalStateException("Entry " + entryId + " is not in the hot database for this user");
+            }
+            if (workoutEntryDao.restore(userId, entryId) == 0) {
+                return;
+            }
+            batch.touchDay(userId, entry.getLocalDay());
+        });
+    }
+
+    /**
+     * Khôi phục mọi entries của lần deleteDay(timestamp) đã trả về deletedAt
+     */
+    public CompletableFuture<Void> restoreDay(long timestamp, long deletedAt) {
+        long day = DateUtils.toEpochDay(timestamp);
+        if (historyArchive.isArchivedDay(day)) {
+            return rejected("Cannot restore archived day " + day);
+        }
+        return writeQueue.enqueue(batch -> {
+            if (workoutEntryDao.restoreDeletedAt(userId, deletedAt) > 0) {
+                batch.touchDay(userId, day);
+            }
+        });
+    }
+
+    /**
+     * Ghi ngay các thay đổi đang chờ trong WriteBehindQueue
+     */
+    public CompletableFuture<Void> flush() {
+        return writeQueue.flush();
+    }
+
+    /**
+     * Ngày chứa timestamp thuộc năm đã archive: entries của nó chỉ đọc
+     */
+    public boolean isArchivedDay(long timestamp) {
+        return historyArchive.isArchivedDay(DateUtils.toEpochDay(timestamp));
+    }
+
+    private static <T> CompletableFuture<T> rejected(String message) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new IllegalArgumentException(message));
+        return future;
+    }
+
+    /**
+     * Ghi ngày và phút theo giờ địa phương tại thời điểm log
+     */
+    private static void stampLocalTime(WorkoutEntry workoutEntry) {
+        workoutEntry.setLocalDay(DateUtils.toEpochDay(workoutEntry.getDate()));
+        workoutEntry.setLocalMinuteOfDay(DateUtils.toLocalMinuteOfDay(workoutEntry.getDate()));
+    }
+}
@@ -20,14 +20,12 @@ public class WorkoutRepository {
     private final LiveData<List<Workout>> allWorkouts;
 
     public WorkoutRepository(Application application) {
-        AppDatabase db = AppDatabase.getDatabase(application);
-        workoutDao = db.workoutDao();
-        allWorkouts = workoutDao.getAllWorkouts();
+        this(AppDatabase.getDatabase(application));
     }
 
-    // Constructor overload for direct DAO injection
-    public WorkoutRepository(WorkoutDao workoutDao) {
-        this.workoutDao = workoutDao;
+    // Constructor overload for direct database injection
+    public WorkoutRepository(AppDatabase db) {
+        this.workoutDao = db.workoutDao();
         this.allWorkouts = workoutDao.getAllWorkouts();
     }
     
@@ -96,7 +94,7 @@ public class WorkoutRepository {
     // ==================== UPDATE ====================
     
     /**
-     * Cập nhật bài tập
+     * Cập nhật bài tập (entries cũ giữ snapshot lúc ghi)
      */
     public void update(Workout workout) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
@@ -107,7 +105,7 @@ public class WorkoutRepository {
     // ==================== DELETE ====================
     
     /**
-     * Xóa bài tập
+     * Xóa bài tập (entries liên quan chỉ mất workoutId, nhật ký không đổi)
      */
     public void delete(Workout workout) {
         AppDatabase.databaseWriteExecutor.execute(() -> {
@@ -0,0 +1,215 @@
+package com.example.trackingcaloapp.data.repository;
+
+import android.util.Log;
+
+import com.example.trackingcaloapp.data.local.database.AppDatabase;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hàng đợi ghi (write-behind) dùng chung cho các repository.
+ * Các mutation gửi trong cùng một cửa sổ ngắn (hoặc trước khi gọi flush())
+ * được ghi trong MỘT transaction trên writer thread, daily_totals của các ngày
+ * bị ảnh hưởng chỉ tính lại một lần và observers chỉ nhận một invalidation.
+ * Sau khi commit, các ngày bị ảnh hưởng được publish qua DayChangeFeed.
+ */
+public class WriteBehindQueue {
+
+    private static final String TAG = "WriteBehindQueue";
+
+    /**
+     * Cửa sổ gom mutation (ms), tính từ mutation đầu tiên của batch
+     */
+    static final long WINDOW_MS = 30;
+
+    /**
+     * Một thao tác ghi trong batch. Chạy trên writer thread, bên trong transaction.
+     */
+    public interface Mutation {
+        void apply(Batch batch);
+    }
+
+    /**
+     * Ngữ cảnh của batch đang ghi
+     */
+    public static class Batch {
+        private final Map<Integer, Set<Long>> touchedDays = new HashMap<>();
+        private boolean allDays;
+
+        /**
+         * Đánh dấu ngày (epoch day) của một tài khoản cần tính lại daily_totals khi commit
+         */
+        public void touchDay(int userId, long day) {
+            Set<Long> days = touchedDays.get(userId);
+            if (days == null) {
+                days = new HashSet<>();
+                touchedDays.put(userId, days);
+            }
+            days.add(day);
+        }
+
+        /**
+         * Đánh dấu mọi ngày có thể đã thay đổi (vd: rebuild, compact): publishAll sau khi commit.
+         * daily_totals không được tính lại tự động; mutation tự cập nhật nếu cần
+         */
+        public void touchAllDays() {
+            allDays = true;
+        }
+
+        /**
+         * Ngày bị ảnh hưởng theo userId, để publish
+         */
+        Map<Integer, Set<Long>> touchedDaysByUser() {
+            return touchedDays;
+        }
+    }
+
+    private static class Pending {
+        final Mutation mutation;
+        final CompletableFuture<Void> done = new CompletableFuture<>();
+
+        Pending(Mutation mutation) {
+            this.mutation = mutation;
+        }
+    }
+
+    // Một queue cho mỗi database: repository dựng với database inject (test, in-memory)
+    // không được ghi vào database khác. Weak key để database đã đóng được thu hồi.
+    private static final Map<AppDatabase, WriteBehindQueue> INSTANCES = new WeakHashMap<>();
+
+    private static final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "db-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AppDatabase db;
+    private final Object lock = new Object();
+    private List<Pending> pending = new ArrayList<>();
+    private ScheduledFuture<?> scheduledDrain;
+
+    private WriteBehindQueue(AppDatabase db) {
+        this.db = db;
+    }
+
+    /**
+     * Queue ghi vào database này (tạo lần đầu khi cần)
+     */
+    public static WriteBehindQueue getInstance(AppDatabase db) {
+        synchronized (INSTANCES) {
+            WriteBehindQueue queue = INSTANCES.get(db);
+            if (queue == null) {
+                queue = new WriteBehindQueue(db);
+                INSTANCES.put(db, queue);
+            }
+            return queue;
+        }
+    }
+
+    /**
+     * Thêm mutation vào batch hiện tại
+     * @return Future hoàn thành khi batch chứa mutation đã commit
+     */
+    public CompletableFuture<Void> enqueue(Mutation mutation) {
+        Pending item = new Pending(mutation);
+        synchronized (lock) {
+            pending.add(item);
+            if (scheduledDrain == null) {
+                scheduledDrain = timer.schedule(this::submitDrain, WINDOW_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+        return item.done;
+    }
+
+    /**
+     * Ghi ngay các mutation đang chờ, không đợi hết cửa sổ.
+     * Gọi ở cuối một thao tác UI ghi nhiều item.
+     * @return Future hoàn thành khi mọi mutation đã gửi trước đó được commit
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> flushed = enqueue(batch -> { });
+        submitDrain();
+        return flushed;
+    }
+
+    private void submitDrain() {
+        List<Pending> batch;
+        synchronized (lock) {
+            if (scheduledDrain != null) {
+                scheduledDrain.cancel(false);
+                scheduledDrain = null;
+            }
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new ArrayList<>();
+        }
+        AppDatabase.databaseWriteExecutor.execute(() -> drain(batch));
+    }
+
+    /**
+     * Chạy cả batch trong một transaction. Nếu lỗi thì chạy lại từng mutation
+     * trong transaction riêng để một mutation hỏng không làm mất cả batch.
+     */
+    private void drain(List<Pending> items) {
+        try {
+            Batch batch = new Batch();
+            db.runInTransaction(() -> {
+                for (Pending item : items) {
+                    item.mutation.apply(batch);
+                }
+                commit(batch);
+            });
+            publish(batch);
+            for (Pending item : items) {
+                item.done.complete(null);
+            }
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Batch of " + items.size() + " failed, retrying one by one", e);
+            for (Pending item : items) {
+                drainOne(item);
+            }
+        }
+    }
+
+    private void drainOne(Pending item) {
+        try {
+            Batch batch = new Batch();
+            db.runInTransaction(() -> {
+                item.mutation.apply(batch);
+                commit(batch);
+            });
+            publish(batch);
+            item.done.complete(null);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Mutation failed", e);
+            item.done.completeExceptionally(e);
+        }
+    }
+
+    private static void publish(Batch batch) {
+        if (batch.allDays) {
+            DayChangeFeed.getInstance().publishAll();
+        } else {
+            DayChangeFeed.getInstance().publish(batch.touchedDaysByUser());
+        }
+    }
+
+    private void commit(Batch batch) {
+        for (Map.Entry<Integer, Set<Long>> entry : batch.touchedDays.entrySet()) {
+            db.dailyTotalsDao().refreshDays(entry.getKey(), entry.getValue());
+        }
+    }
+}
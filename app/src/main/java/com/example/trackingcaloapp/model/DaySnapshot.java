@@ -0,0 +1,93 @@
+package com.example.trackingcaloapp.model;
+
+import com.example.trackingcaloapp.data.local.entity.DailyTotals;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ảnh chụp toàn bộ dữ liệu của một ngày cho Home và Diary.
+ * Được đọc trong một read transaction nên tổng hợp và danh sách entries luôn nhất quán.
+ */
+public class DaySnapshot {
+
+    private final long day;                                     // Epoch day theo giờ địa phương
+    private final DailyTotals totals;                           // Dòng daily_totals (rỗng nếu chưa có entry)
+    private final List<FoodEntryRow> foodEntries;               // Dòng hiển thị của food entries
+    private final List<WorkoutEntryRow> workoutEntries;         // Dòng hiển thị của workout entries
+
+    public DaySnapshot(long day, DailyTotals totals,
+                       List<FoodEntryRow> foodEntries,
+                       List<WorkoutEntryRow> workoutEntries) {
+        this.day = day;
+        if (totals == null) {
+            totals = new DailyTotals();
+            totals.setDay(day);
+        }
+        this.totals = totals;
+        this.foodEntries = foodEntries != null ? foodEntries : Collections.emptyList();
+        this.workoutEntries = workoutEntries != null ? workoutEntries : Collections.emptyList();
+    }
+
+    // Getters
+    public long getDay() {
+        return day;
+    }
+
+    public DailyTotals getTotals() {
+        return totals;
+    }
+
+    public List<FoodEntryRow> getFoodEntries() {
+        return foodEntries;
+    }
+
+    public List<WorkoutEntryRow> getWorkoutEntries() {
+        return workoutEntries;
+    }
+
+    public float getCaloriesConsumed() {
+        return totals.getCaloriesConsumed();
+    }
+
+    public float getCaloriesBurned() {
+        return totals.getCaloriesBurned();
+    }
+
+    /**
+     * Tổng calo theo loại bữa ăn (cho BarChart)
+     */
+    public List<MealTypeCalories> getMealTypeCalories() {
+        return totals.toMealTypeCalories();
+    }
+
+    /**
+     * Tổng macro nutrients (cho PieChart)
+     */
+    public MacroSum getMacroSum() {
+        return totals.toMacroSum();
+    }
+
+    /**
+     * Tổng calo theo giờ địa phương lúc ghi (cho LineChart).
+     * Tính từ danh sách entries đã load, không cần thêm query.
+     */
+    public List<HourlyCalorieSum> getHourlyCalories() {
+        float[] byHour = new float[24];
+        boolean[] hasData = new boolean[24];
+        for (FoodEntryRow entry : foodEntries) {
+            int hour = entry.getLocalMinuteOfDay() / 60;
+            byHour[hour] += entry.getTotalCalories();
+            hasData[hour] = true;
+        }
+
+        List<HourlyCalorieSum> result = new ArrayList<>();
+        for (int hour = 0; hour < 24; hour++) {
+            if (hasData[hour]) {
+                result.add(new HourlyCalorieSum(hour, byHour[hour]));
+            }
+        }
+        return result;
+    }
+}
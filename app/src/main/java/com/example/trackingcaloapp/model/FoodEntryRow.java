@@ -0,0 +1,73 @@
+package com.example.trackingcaloapp.model;
+
+/**
+ * Dòng hiển thị của một food entry trong danh sách nhật ký (Diary, Recent activity).
+ * Chỉ chứa các cột được hiển thị, đọc thẳng từ food_entries (tên food là snapshot trên entry).
+ */
+public class FoodEntryRow {
+
+    private int id;                // ID của entry
+    private String foodName;       // Tên thực phẩm
+    private float quantity;        // Khối lượng (gram)
+    private int mealType;          // 0=breakfast, 1=lunch, 2=dinner, 3=snack
+    private long date;             // Timestamp lúc ăn
+    private float totalCalories;   // Calo đã tính
+    private int localMinuteOfDay;  // Phút trong ngày theo giờ địa phương (cho chart theo giờ)
+
+    // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getFoodName() {
+        return foodName != null ? foodName : "";
+    }
+
+    public void setFoodName(String foodName) {
+        this.foodName = foodName;
+    }
+
+    public float getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(float quantity) {
+        this.quantity = quantity;
+    }
+
+    public int getMealType() {
+        return mealType;
+    }
+
+    public void setMealType(int mealType) {
+        this.mealType = mealType;
+    }
+
+    public long getDate() {
+        return date;
+    }
+
+    public void setDate(long date) {
+        this.date = date;
+    }
+
+    public float getTotalCalories() {
+        return totalCalories;
+    }
+
+    public void setTotalCalories(float totalCalories) {
+        this.totalCalories = totalCalories;
+    }
+
+    public int getLocalMinuteOfDay() {
+        return localMinuteOfDay;
+    }
+
+    public void setLocalMinuteOfDay(int localMinuteOfDay) {
+        this.localMinuteOfDay = localMinuteOfDay;
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.trackingcaloapp.model;
+
+import com.example.trackingcaloapp.data.local.entity.Workout;
+
+/**
+ * Dòng hiển thị của một workout entry trong danh sách nhật ký (Diary, Recent activity).
+ * Chỉ chứa các cột được hiển thị, đọc thẳng từ workout_entries (thông tin workout là snapshot trên entry).
+ */
+public class WorkoutEntryRow {
+
+    private int id;                 // ID của entry
+    private String workoutName;     // Tên bài tập
+    private String workoutUnit;     // Đơn vị: "phút", "km", "lần"
+    private String workoutCategory; // Loại: "cardio", "strength", "flexibility"
+    private float quantity;         // Số lượng đã tập
+    private long date;              // Timestamp lúc tập
+    private float caloriesBurned;   // Calo đã đốt
+
+    // Getters and Setters
+    public int getId() {
+        return id;
+    }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    public String getWorkoutName() {
+        return workoutName != null ? workoutName : "";
+    }
+
+    public void setWorkoutName(String workoutName) {
+        this.workoutName = workoutName;
+    }
+
+    public String getWorkoutUnit() {
+        return workoutUnit != null ? workoutUnit : "";
+    }
+
+    public void setWorkoutUnit(String workoutUnit) {
+        this.workoutUnit = workoutUnit;
+    }
+
+    public String getWorkoutCategory() {
+        return workoutCategory != null ? workoutCategory : "";
+    }
+
+    public void setWorkoutCategory(String workoutCategory) {
+        this.workoutCategory = workoutCategory;
+    }
+
+    public float getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(float quantity) {
+        this.quantity = quantity;
+    }
+
+    public long getDate() {
+        return date;
+    }
+
+    public void setDate(long date) {
+        this.date = date;
+    }
+
+    public float getCaloriesBurned() {
+        return caloriesBurned;
+    }
+
+    public void setCaloriesBurned(float caloriesBurned) {
+        this.caloriesBurned = caloriesBurned;
+    }
+
+    // ==================== CONVENIENCE METHODS ====================
+
+    /**
+     * Lấy tên hiển thị category
+     */
+    public String getCategoryDisplayName() {
+        return Workout.getCategoryDisplayName(workoutCategory);
+    }
+
+    /**
+     * Lấy chuỗi hiển thị số lượng + đơn vị
+     * VD: "5.0 km", "30 phút", "20 lần"
+     */
+    public String getQuantityDisplay() {
+        String unit = getWorkoutUnit();
+        // Format số: nếu là số nguyên thì không hiển thị phần thập phân
+        if (quantity == (int) quantity) {
+            return String.format("%d %s", (int) quantity, unit);
+        } else {
+            return String.format("%.1f %s", quantity, unit);
+        }
+    }
+}
@@ -18,6 +18,7 @@ import android.widget.Toast;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.appcompat.app.AlertDialog;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.LiveData;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -25,8 +26,10 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.trackingcaloapp.R;
 import com.example.trackingcaloapp.data.local.database.AppDatabase;
+import com.example.trackingcaloapp.data.local.database.KeysetPager;
 import com.example.trackingcaloapp.data.local.entity.Food;
 import com.example.trackingcaloapp.data.local.entity.FoodEntry;
+import com.example.trackingcaloapp.data.preferences.UserPreferences;
 import com.example.trackingcaloapp.data.repository.FoodEntryRepository;
 import com.example.trackingcaloapp.data.repository.FoodRepository;
 import com.example.trackingcaloapp.ui.addfood.FoodAdapter;
@@ -38,12 +41,15 @@ import com.google.android.material.textfield.TextInputEditText;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClickListener {
 
     private static final String TAG = "AddFoodFragment";
     private static final long DEBOUNCE_MS = 500; // Debounce search 500ms
+    private static final int PREFETCH_DISTANCE = 10; // Load trang tiếp khi còn 10 item chưa hiện
 
     private TextInputEditText etSearch;
     private ChipGroup chipGroupMealType;
@@ -62,7 +68,17 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
     private Handler searchHandler = new Handler(Looper.getMainLooper());
     private Runnable searchRunnable;
     private List<Food> currentFoods = new ArrayList<>();
+    private List<Food> localResults = new ArrayList<>();
+    private List<Food> apiResults = new ArrayList<>();
+    private String activeQuery; // Query đang hiển thị; null khi hiển thị danh sách mặc định
+    private boolean catalogReady;
     private LiveData<List<Food>> currentLocalLiveData;
+    private KeysetPager<Food> currentPager; // null khi đang hiển thị kết quả search
+
+    // Danh sách mặc định: foods gợi ý từ food_usage, rồi tới catalog của bữa ăn
+    private LiveData<List<Food>> suggestedLiveData;
+    private List<Food> suggestedFoods = new ArrayList<>();
+    private List<Food> catalogFoods = new ArrayList<>();
 
     @Nullable
     @Override
@@ -77,13 +93,27 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
 
         AppDatabase db = AppDatabase.getInstance(requireContext());
         // Use constructor with Context to enable API support
-        foodRepository = new FoodRepository(db.foodDao(), requireContext());
-        foodEntryRepository = new FoodEntryRepository(db.foodEntryDao());
+        foodRepository = new FoodRepository(db, requireContext());
+        foodEntryRepository = new FoodEntryRepository(db, new UserPreferences(requireContext()).getCurrentUserId());
 
         initViews(view);
         setupSearch();
         setupMealTypeChips(view);
         loadFoodsByMealType();
+        observeCatalogReady();
+    }
+
+    /**
+     * Lần chạy đầu catalog có sẵn đang được nạp: hiện loading thay vì "không có món"
+     */
+    private void observeCatalogReady() {
+        AppDatabase.getCatalogReady().observe(getViewLifecycleOwner(), ready -> {
+            catalogReady = Boolean.TRUE.equals(ready);
+            if (activeQuery == null) {
+                progressBar.setVisibility(catalogReady ? View.GONE : View.VISIBLE);
+            }
+            updateEmptyState();
+        });
     }
 
 
@@ -98,6 +128,17 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
         foodAdapter = new FoodAdapter(this);
         rvFoods.setLayoutManager(new LinearLayoutManager(requireContext()));
         rvFoods.setAdapter(foodAdapter);
+        rvFoods.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (currentPager == null || dy <= 0) return;
+                LinearLayoutManager layoutManager = (LinearLayoutManager) recyclerView.getLayoutManager();
+                if (layoutManager != null && layoutManager.findLastVisibleItemPosition()
+                        >= foodAdapter.getItemCount() - PREFETCH_DISTANCE) {
+                    currentPager.loadNextPage();
+                }
+            }
+        });
 
         // Setup FAB click listener
         fabAddCustomFood.setOnClickListener(v -> showCreateFoodDialog());
@@ -120,7 +161,8 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
                     searchHandler.removeCallbacks(searchRunnable);
                 }
 
-                if (query.isEmpty()) {
+                // Không có từ khóa: danh sách mặc định, load theo trang
+                if (!FoodRepository.hasSearchTerms(query)) {
                     loadFoodsByMealType();
                     return;
                 }
@@ -159,24 +201,59 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
     }
 
     private void loadFoodsByMealType() {
+        // Bỏ search đang chạy: kết quả của nó không còn được hiển thị
+        activeQuery = null;
+        foodRepository.cancelApiSearches();
+        progressBar.setVisibility(catalogReady ? View.GONE : View.VISIBLE);
+
         // Remove previous observer
-        if (currentLocalLiveData != null) {
-            currentLocalLiveData.removeObservers(getViewLifecycleOwner());
-        }
+        removeListObservers();
+
+        suggestedFoods = new ArrayList<>();
+        catalogFoods = new ArrayList<>();
+        suggestedLiveData = foodRepository.getSuggestedFoods(selectedMealType);
+        suggestedLiveData.observe(getViewLifecycleOwner(), foods -> {
+            suggestedFoods = foods != null ? foods : new ArrayList<>();
+            showDefaultFoods();
+        });
 
-        currentLocalLiveData = foodRepository.getFoodsByMealType(selectedMealType);
+        currentPager = foodRepository.getFoodsByMealType(selectedMealType);
+        currentLocalLiveData = currentPager.getItems();
         currentLocalLiveData.observe(getViewLifecycleOwner(), foods -> {
-            if (foods != null && !foods.isEmpty()) {
-                foodAdapter.setFoods(foods);
-                rvFoods.setVisibility(View.VISIBLE);
-                tvEmpty.setVisibility(View.GONE);
-            } else {
-                rvFoods.setVisibility(View.GONE);
-                tvEmpty.setVisibility(View.VISIBLE);
-            }
+            catalogFoods = foods != null ? foods : new ArrayList<>();
+            showDefaultFoods();
         });
     }
 
+    /**
+     * Foods gợi ý lên đầu, catalog phía sau (bỏ các food đã có trong gợi ý)
+     */
+    private void showDefaultFoods() {
+        currentFoods.clear();
+        currentFoods.addAll(suggestedFoods);
+        Set<Integer> suggestedIds = new HashSet<>();
+        for (Food food : suggestedFoods) {
+            suggestedIds.add(food.getId());
+        }
+        for (Food food : catalogFoods) {
+            if (!suggestedIds.contains(food.getId())) {
+                currentFoods.add(food);
+            }
+        }
+        foodAdapter.setFoods(new ArrayList<>(currentFoods));
+        updateEmptyState();
+    }
+
+    private void removeListObservers() {
+        if (currentLocalLiveData != null) {
+            currentLocalLiveData.removeObservers(getViewLifecycleOwner());
+        }
+        if (suggestedLiveData != null) {
+            suggestedLiveData.removeObservers(getViewLifecycleOwner());
+            suggestedLiveData = null;
+        }
+    }
+
     /**
      * Hybrid search: Local Room DB + FatSecret API
      * - Local results appear immediately via LiveData
@@ -184,23 +261,21 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
      */
     private void searchHybrid(String query) {
         Log.d(TAG, "Hybrid search: " + query);
+        activeQuery = query;
         progressBar.setVisibility(View.VISIBLE);
         currentFoods.clear();
+        localResults = new ArrayList<>();
+        apiResults = new ArrayList<>();
 
         // Remove previous observer to prevent memory leak
-        if (currentLocalLiveData != null) {
-            currentLocalLiveData.removeObservers(getViewLifecycleOwner());
-        }
+        removeListObservers();
 
         // Step 1: Observe local results (immediate)
+        currentPager = null;
         currentLocalLiveData = foodRepository.searchFoodsLocal(query);
         currentLocalLiveData.observe(getViewLifecycleOwner(), foods -> {
-            currentFoods.clear();
-            if (foods != null) {
-                currentFoods.addAll(foods);
-            }
-            foodAdapter.setFoods(new ArrayList<>(currentFoods));
-            updateEmptyState();
+            localResults = foods != null ? foods : new ArrayList<>();
+            showSearchResults();
         });
 
         // Step 2: Fetch API results (async)
@@ -210,26 +285,13 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
                 if (!isAdded()) return; // Fragment not attached
 
                 requireActivity().runOnUiThread(() -> {
+                    // Chỉ query mới nhất được cập nhật adapter
+                    if (!isAdded() || !query.equals(activeQuery)) return;
                     progressBar.setVisibility(View.GONE);
 
-                    // Append API results (avoid duplicates by apiId)
-                    for (Food apiFood : apiFoods) {
-                        boolean isDuplicate = false;
-                        for (Food existing : currentFoods) {
-                            // Check by apiId for API foods, or by name for local foods
-                            if (existing.getApiId() != null && apiFood.getApiId() != null &&
-                                existing.getApiId().equals(apiFood.getApiId())) {
-                                isDuplicate = true;
-                                break;
-                            }
-                        }
-                        if (!isDuplicate) {
-                            currentFoods.add(apiFood);
-                        }
-                    }
-
-                    foodAdapter.setFoods(new ArrayList<>(currentFoods));
-                    updateEmptyState();
+                    // Kết quả cache quá hạn tới trước, kết quả API mới tới sau và thay cho nó
+                    apiResults = new ArrayList<>(apiFoods);
+                    showSearchResults();
                     Log.d(TAG, "Total foods after API: " + currentFoods.size());
                 });
             }
@@ -239,6 +301,7 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
                 if (!isAdded()) return;
 
                 requireActivity().runOnUiThread(() -> {
+                    if (!isAdded() || !query.equals(activeQuery)) return;
                     progressBar.setVisibility(View.GONE);
                     Log.e(TAG, "API search error: " + error);
                     // Local results still shown, just log the error
@@ -247,10 +310,32 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
         });
     }
 
+    /**
+     * Local results trước, API results sau (bỏ trùng theo apiId).
+     * Hai nguồn tới theo thứ tự bất kỳ nên luôn dựng lại từ cả hai.
+     */
+    private void showSearchResults() {
+        currentFoods.clear();
+        currentFoods.addAll(localResults);
+        Set<Long> apiIds = new HashSet<>();
+        for (Food food : localResults) {
+            if (food.getApiId() != null) {
+                apiIds.add(food.getApiId());
+            }
+        }
+        for (Food apiFood : apiResults) {
+            if (apiFood.getApiId() == null || apiIds.add(apiFood.getApiId())) {
+                currentFoods.add(apiFood);
+            }
+        }
+        foodAdapter.setFoods(new ArrayList<>(currentFoods));
+        updateEmptyState();
+    }
+
     private void updateEmptyState() {
         if (currentFoods.isEmpty()) {
             rvFoods.setVisibility(View.GONE);
-            tvEmpty.setVisibility(View.VISIBLE);
+            tvEmpty.setVisibility(catalogReady || activeQuery != null ? View.VISIBLE : View.GONE);
         } else {
             rvFoods.setVisibility(View.VISIBLE);
             tvEmpty.setVisibility(View.GONE);
@@ -266,10 +351,12 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
             searchHandler.removeCallbacks(searchRunnable);
         }
 
-        // Remove LiveData observer
-        if (currentLocalLiveData != null) {
-            currentLocalLiveData.removeObservers(getViewLifecycleOwner());
-        }
+        // Remove LiveData observers
+        removeListObservers();
+
+        // Cancel API searches still in flight
+        activeQuery = null;
+        foodRepository.cancelApiSearches();
     }
 
     @Override
@@ -372,7 +459,7 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
 
     private void addFoodEntry(Food food, float quantity, int mealType) {
         FoodEntry entry = new FoodEntry();
-        entry.setFoodId(food.getId());
+        entry.snapshotFood(food);
         entry.setQuantity(quantity);
         entry.setMealType(mealType);
         entry.setDate(System.currentTimeMillis());
@@ -520,8 +607,11 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
                     food.setFat(fat);
                     food.setCategory(category);
 
-                    foodRepository.update(food);
-                    Toast.makeText(requireContext(), "Đã cập nhật", Toast.LENGTH_SHORT).show();
+                    foodRepository.update(food).whenCompleteAsync((ignored, error) -> {
+                        if (!isAdded()) return;
+                        Toast.makeText(requireContext(), error == null ? "Đã cập nhật" : "Không thể cập nhật món này",
+                                Toast.LENGTH_SHORT).show();
+                    }, ContextCompat.getMainExecutor(requireContext()));
                 })
                 .setNegativeButton("Hủy", null)
                 .show();
@@ -535,8 +625,11 @@ public class AddFoodFragment extends Fragment implements FoodAdapter.OnFoodClick
                 .setTitle("Xóa món ăn?")
                 .setMessage("Bạn có chắc muốn xóa \"" + food.getName() + "\"?")
                 .setPositiveButton("Xóa", (dialog, which) -> {
-                    foodRepository.delete(food);
-                    Toast.makeText(requireContext(), "Đã xóa", Toast.LENGTH_SHORT).show();
+                    foodRepository.delete(food).whenCompleteAsync((ignored, error) -> {
+                        if (!isAdded()) return;
+                        Toast.makeText(requireContext(), error == null ? "Đã xóa" : "Không thể xóa món này",
+                                Toast.LENGTH_SHORT).show();
+                    }, ContextCompat.getMainExecutor(requireContext()));
                 })
                 .setNegativeButton("Hủy", null)
                 .show();
@@ -21,6 +21,7 @@ import com.example.trackingcaloapp.R;
 import com.example.trackingcaloapp.data.local.database.AppDatabase;
 import com.example.trackingcaloapp.data.local.entity.Workout;
 import com.example.trackingcaloapp.data.local.entity.WorkoutEntry;
+import com.example.trackingcaloapp.data.preferences.UserPreferences;
 import com.example.trackingcaloapp.data.repository.WorkoutEntryRepository;
 import com.example.trackingcaloapp.data.repository.WorkoutRepository;
 import com.example.trackingcaloapp.ui.addworkout.WorkoutAdapter;
@@ -62,8 +63,9 @@ public class AddWorkoutFragment extends Fragment implements WorkoutAdapter.OnWor
         super.onViewCreated(view, savedInstanceState);
 
         AppDatabase db = AppDatabase.getInstance(requireContext());
-        workoutRepository = new WorkoutRepository(db.workoutDao());
-        workoutEntryRepository = new WorkoutEntryRepository(db.workoutEntryDao());
+        workoutRepository = new WorkoutRepository(db);
+        int userId = new UserPreferences(requireContext()).getCurrentUserId();
+        workoutEntryRepository = new WorkoutEntryRepository(db, userId);
 
         initViews(view);
         setupSearch();
@@ -260,7 +262,7 @@ public class AddWorkoutFragment extends Fragment implements WorkoutAdapter.OnWor
 
     private void addWorkoutEntry(Workout workout, float quantity, int duration, String note) {
         WorkoutEntry entry = new WorkoutEntry();
-        entry.setWorkoutId(workout.getId());
+        entry.snapshotWorkout(workout);
         entry.setQuantity(quantity);
         entry.setDuration(duration);
         entry.setDate(System.currentTimeMillis());
@@ -20,8 +20,8 @@ import androidx.viewpager2.widget.ViewPager2;
 import com.example.trackingcaloapp.R;
 import com.example.trackingcaloapp.data.local.database.AppDatabase;
 import com.example.trackingcaloapp.data.preferences.UserPreferences;
-import com.example.trackingcaloapp.data.repository.FoodEntryRepository;
-import com.example.trackingcaloapp.data.repository.WorkoutEntryRepository;
+import com.example.trackingcaloapp.data.repository.DailyTotalsRepository;
+import com.example.trackingcaloapp.model.DaySnapshot;
 import com.example.trackingcaloapp.model.MacroSum;
 import com.example.trackingcaloapp.utils.ChartHelper;
 import com.example.trackingcaloapp.utils.DateUtils;
@@ -56,8 +56,8 @@ public class DiaryFragment extends Fragment {
     private LineChart chartLine;
 
     private UserPreferences userPreferences;
-    private FoodEntryRepository foodEntryRepository;
-    private WorkoutEntryRepository workoutEntryRepository;
+    private DailyTotalsRepository dailyTotalsRepository;
+    private LiveData<DaySnapshot> snapshotLiveData;
 
     private long selectedDate = System.currentTimeMillis();
     private DiaryFragmentPagerAdapter pagerAdapter;
@@ -79,8 +79,7 @@ public class DiaryFragment extends Fragment {
 
         userPreferences = new UserPreferences(requireContext());
         AppDatabase db = AppDatabase.getInstance(requireContext());
-        foodEntryRepository = new FoodEntryRepository(db.foodEntryDao());
-        workoutEntryRepository = new WorkoutEntryRepository(db.workoutEntryDao());
+        dailyTotalsRepository = new DailyTotalsRepository(db, userPreferences.getCurrentUserId());
 
         initViews(view);
         setupDateNavigation();
@@ -139,7 +138,6 @@ public class DiaryFragment extends Fragment {
             selectedDate = cal.getTimeInMillis();
             updateDateDisplay();
             loadData();
-            loadChartData();
             updatePagerData();
         });
 
@@ -152,7 +150,6 @@ public class DiaryFragment extends Fragment {
                 selectedDate = cal.getTimeInMillis();
                 updateDateDisplay();
                 loadData();
-                loadChartData();
                 updatePagerData();
             }
         });
@@ -202,7 +199,6 @@ public class DiaryFragment extends Fragment {
 
     private void loadData() {
         long startOfDay = DateUtils.getStartOfDay(selectedDate);
-        long endOfDay = DateUtils.getEndOfDay(selectedDate);
         
         // Hiển thị calorie goal
         int calorieGoal = userPreferences.getDailyCalorieGoal();
@@ -210,47 +206,31 @@ public class DiaryFragment extends Fragment {
             tvCalorieGoal.setText(getString(R.string.goal_format, calorieGoal));
         }
 
-        LiveData<Float> consumedLiveData = foodEntryRepository.getTotalCaloriesByDate(startOfDay, endOfDay);
-        consumedLiveData.observe(getViewLifecycleOwner(), consumed -> {
-            cachedConsumed = consumed != null ? consumed : 0f;
+        // Tổng hợp, biểu đồ và entries của ngày đọc từ một DaySnapshot
+        // Bỏ stream cũ (ngày trước / lần resume trước) để không ghi đè dữ liệu mới
+        if (snapshotLiveData != null) {
+            snapshotLiveData.removeObservers(getViewLifecycleOwner());
+        }
+        snapshotLiveData = dailyTotalsRepository.getDaySnapshot(startOfDay);
+        snapshotLiveData.observe(getViewLifecycleOwner(), snapshot -> {
+            cachedConsumed = snapshot.getCaloriesConsumed();
+            cachedBurned = snapshot.getCaloriesBurned();
             tvTotalConsumed.setText(String.valueOf((int) cachedConsumed));
-            updateNetCalories();
-        });
-
-        LiveData<Float> burnedLiveData = workoutEntryRepository.getTotalCaloriesBurnedByDate(startOfDay, endOfDay);
-        burnedLiveData.observe(getViewLifecycleOwner(), burned -> {
-            cachedBurned = burned != null ? burned : 0f;
             tvTotalBurned.setText(String.valueOf((int) cachedBurned));
             updateNetCalories();
-        });
 
-        // Load chart data
-        loadChartData();
-    }
+            // BarChart - Meal type comparison
+            ChartHelper.updateBarChartData(chartBar, snapshot.getMealTypeCalories(), requireContext());
 
-    private void loadChartData() {
-        long startOfDay = DateUtils.getStartOfDay(selectedDate);
-        long endOfDay = DateUtils.getEndOfDay(selectedDate);
-
-        // BarChart - Meal type comparison
-        foodEntryRepository.getCaloriesByMealType(startOfDay, endOfDay)
-            .observe(getViewLifecycleOwner(), mealData -> {
-                ChartHelper.updateBarChartData(chartBar, mealData, requireContext());
-            });
-
-        // PieChart - Macro distribution
-        foodEntryRepository.getMacroSummary(startOfDay, endOfDay)
-            .observe(getViewLifecycleOwner(), macroData -> {
-                ChartHelper.updatePieChartData(chartPie, macroData, requireContext());
-                // Update macro progress bars
-                updateMacroProgress(macroData);
-            });
-
-        // LineChart - Hourly trend
-        foodEntryRepository.getHourlyCaloriesSummary(startOfDay, endOfDay)
-            .observe(getViewLifecycleOwner(), hourlyData -> {
-                ChartHelper.updateHourlyLineChartData(chartLine, hourlyData, requireContext());
-            });
+            // PieChart - Macro distribution
+            MacroSum macroData = snapshot.getMacroSum();
+            ChartHelper.updatePieChartData(chartPie, macroData, requireContext());
+            // Update macro progress bars
+            updateMacroProgress(macroData);
+
+            // LineChart - Hourly trend
+            ChartHelper.updateHourlyLineChartData(chartLine, snapshot.getHourlyCalories(), requireContext());
+        });
     }
 
     private void updateNetCalories() {
@@ -5,20 +5,21 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.appcompat.app.AlertDialog;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.trackingcaloapp.R;
 import com.example.trackingcaloapp.data.local.database.AppDatabase;
+import com.example.trackingcaloapp.data.preferences.UserPreferences;
 import com.example.trackingcaloapp.data.repository.FoodEntryRepository;
-import com.example.trackingcaloapp.model.FoodWithEntry;
-import com.example.trackingcaloapp.utils.DateUtils;
+import com.example.trackingcaloapp.model.FoodEntryRow;
+import com.example.trackingcaloapp.utils.Constants;
+import com.google.android.material.snackbar.Snackbar;
 
 public class FoodEntriesFragment extends Fragment 
         implements FoodEntryAdapter.OnFoodEntryClickListener {
@@ -47,7 +48,7 @@ public class FoodEntriesFragment extends Fragment
         tvEmpty = view.findViewById(R.id.tvEmpty);
         
         AppDatabase db = AppDatabase.getInstance(requireContext());
-        repository = new FoodEntryRepository(db.foodEntryDao());
+        repository = new FoodEntryRepository(db, new UserPreferences(requireContext()).getCurrentUserId());
         
         adapter = new FoodEntryAdapter(this);
         rvFoodEntries.setLayoutManager(new LinearLayoutManager(requireContext()));
@@ -66,10 +67,7 @@ public class FoodEntriesFragment extends Fragment
     }
 
     private void loadData() {
-        long startOfDay = DateUtils.getStartOfDay(selectedDate);
-        long endOfDay = DateUtils.getEndOfDay(selectedDate);
-
-        repository.getEntriesWithFoodByDate(startOfDay, endOfDay).observe(getViewLifecycleOwner(), entries -> {
+        repository.getEntryRowsByDay(selectedDate).observe(getViewLifecycleOwner(), entries -> {
             if (entries != null && !entries.isEmpty()) {
                 adapter.setEntries(entries);
                 rvFoodEntries.setVisibility(View.VISIBLE);
@@ -83,24 +81,42 @@ public class FoodEntriesFragment extends Fragment
     }
 
     @Override
-    public void onFoodEntryClick(FoodWithEntry entry) {
+    public void onFoodEntryClick(FoodEntryRow entry) {
         // Optional: Show details or edit dialog
     }
 
     @Override
-    public void onFoodEntryLongClick(FoodWithEntry entry) {
-        showDeleteConfirmationDialog(entry);
+    public void onFoodEntryLongClick(FoodEntryRow entry) {
+        deleteWithUndo(entry);
+    }
+
+    /**
+     * Xóa ngay (tombstone) và cho hoàn tác trong Constants.UNDO_WINDOW_MS.
+     * Ngày thuộc năm đã archive chỉ đọc; Snackbar "Đã xoá" chỉ hiện khi việc xóa đã commit.
+     */
+    private void deleteWithUndo(FoodEntryRow entry) {
+        if (repository.isArchivedDay(selectedDate)) {
+            showMessage("Không thể xoá mục của năm đã lưu trữ");
+            return;
+        }
+        repository.deleteById(entry.getId()).whenCompleteAsync((ignored, error) -> {
+            if (!isAdded() || getView() == null) {
+                return;
+            }
+            if (error != null) {
+                showMessage("Không thể xoá \"" + entry.getFoodName() + "\"");
+                return;
+            }
+            Snackbar.make(requireView(), "Đã xoá \"" + entry.getFoodName() + "\"", Constants.UNDO_WINDOW_MS)
+                    .setAnchorView(requireActivity().findViewById(R.id.bottomNavigation))
+                    .setAction("Hoàn tác", v -> repository.restore(entry.getId()))
+                    .show();
+        }, ContextCompat.getMainExecutor(requireContext()));
     }
 
-    private void showDeleteConfirmationDialog(FoodWithEntry entry) {
-        new AlertDialog.Builder(requireContext(), R.style.Theme_App_Dialog)
-                .setTitle("Xoá thực phẩm?")
-                .setMessage("Bạn có chắc muốn xoá \"" + entry.getFoodName() + "\"?")
-                .setPositiveButton("Xoá", (dialog, which) -> {
-                    repository.deleteById(entry.getEntryId());
-                    Toast.makeText(requireContext(), "Đã xoá", Toast.LENGTH_SHORT).show();
-                })
-                .setNegativeButton("Huỷ", null)
+    private void showMessage(String message) {
+        Snackbar.make(requireView(), message, Snackbar.LENGTH_SHORT)
+                .setAnchorView(requireActivity().findViewById(R.id.bottomNavigation))
                 .show();
     }
 }
@@ -12,8 +12,7 @@ import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.trackingcaloapp.R;
-import com.example.trackingcaloapp.model.FoodEntryWithFood;
-import com.example.trackingcaloapp.model.FoodWithEntry;
+import com.example.trackingcaloapp.model.FoodEntryRow;
 import com.example.trackingcaloapp.utils.Constants;
 import com.example.trackingcaloapp.utils.DateUtils;
 import com.google.android.material.chip.Chip;
@@ -23,12 +22,12 @@ import java.util.List;
 
 public class FoodEntryAdapter extends RecyclerView.Adapter<FoodEntryAdapter.ViewHolder> {
 
-    private List<FoodWithEntry> entries = new ArrayList<>();
+    private List<FoodEntryRow> entries = new ArrayList<>();
     private OnFoodEntryClickListener listener;
 
     public interface OnFoodEntryClickListener {
-        void onFoodEntryClick(FoodWithEntry entry);
-        void onFoodEntryLongClick(FoodWithEntry entry);
+        void onFoodEntryClick(FoodEntryRow entry);
+        void onFoodEntryLongClick(FoodEntryRow entry);
     }
 
     public FoodEntryAdapter() {
@@ -43,12 +42,10 @@ public class FoodEntryAdapter extends RecyclerView.Adapter<FoodEntryAdapter.View
         this.listener = listener;
     }
 
-    public void setEntries(List<FoodEntryWithFood> entriesWithFood) {
+    public void setEntries(List<FoodEntryRow> rows) {
         this.entries.clear();
-        if (entriesWithFood != null) {
-            for (FoodEntryWithFood item : entriesWithFood) {
-                this.entries.add(item.toFoodWithEntry());
-            }
+        if (rows != null) {
+            this.entries.addAll(rows);
         }
         notifyDataSetChanged();
     }
@@ -63,7 +60,7 @@ public class FoodEntryAdapter extends RecyclerView.Adapter<FoodEntryAdapter.View
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        FoodWithEntry entry = entries.get(position);
+        FoodEntryRow entry = entries.get(position);
         holder.bind(entry, listener);
     }
 
@@ -72,7 +69,7 @@ public class FoodEntryAdapter extends RecyclerView.Adapter<FoodEntryAdapter.View
         return entries.size();
     }
 
-    public FoodWithEntry getEntryAt(int position) {
+    public FoodEntryRow getEntryAt(int position) {
         if (position >= 0 && position < entries.size()) {
             return entries.get(position);
         }
@@ -99,7 +96,7 @@ public class FoodEntryAdapter extends RecyclerView.Adapter<FoodEntryAdapter.View
             tvTime = itemView.findViewById(R.id.tvTime);
         }
 
-        void bind(FoodWithEntry entry, OnFoodEntryClickListener listener) {
+        void bind(FoodEntryRow entry, OnFoodEntryClickListener listener) {
             // Hiển thị tên thực phẩm thay vì ID
             tvFoodName.setText(entry.getFoodName());
             tvQuantity.setText(String.format("%.0fg", entry.getQuantity()));
@@ -5,20 +5,21 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
-import android.widget.Toast;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
-import androidx.appcompat.app.AlertDialog;
+import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.trackingcaloapp.R;
 import com.example.trackingcaloapp.data.local.database.AppDatabase;
+import com.example.trackingcaloapp.data.preferences.UserPreferences;
 import com.example.trackingcaloapp.data.repository.WorkoutEntryRepository;
-import com.example.trackingcaloapp.model.WorkoutWithEntry;
-import com.example.trackingcaloapp.utils.DateUtils;
+import com.example.trackingcaloapp.model.WorkoutEntryRow;
+import com.example.trackingcaloapp.utils.Constants;
+import com.google.android.material.snackbar.Snackbar;
 
 public class WorkoutEntriesFragment extends Fragment 
         implements WorkoutEntryAdapter.OnWorkoutEntryClickListener {
@@ -47,7 +48,7 @@ public class WorkoutEntriesFragment extends Fragment
         tvEmpty = view.findViewById(R.id.tvEmpty);
         
         AppDatabase db = AppDatabase.getInstance(requireContext());
-        repository = new WorkoutEntryRepository(db.workoutEntryDao());
+        repository = new WorkoutEntryRepository(db, new UserPreferences(requireContext()).getCurrentUserId());
         
         adapter = new WorkoutEntryAdapter(this);
         rvWorkoutEntries.setLayoutManager(new LinearLayoutManager(requireContext()));
@@ -66,10 +67,7 @@ public class WorkoutEntriesFragment extends Fragment
     }
 
     private void loadData() {
-        long startOfDay = DateUtils.getStartOfDay(selectedDate);
-        long endOfDay = DateUtils.getEndOfDay(selectedDate);
-
-        repository.getEntriesWithWorkoutByDate(startOfDay, endOfDay).observe(getViewLifecycleOwner(), entries -> {
+        repository.getEntryRowsByDay(selectedDate).observe(getViewLifecycleOwner(), entries -> {
             if (entries != null && !entries.isEmpty()) {
                 adapter.setEntries(entries);
                 rvWorkoutEntries.setVisibility(View.VISIBLE);
@@ -83,24 +81,42 @@ public class WorkoutEntriesFragment extends Fragment
     }
 
     @Override
-    public void onWorkoutEntryClick(WorkoutWithEntry entry) {
+    public void onWorkoutEntryClick(WorkoutEntryRow entry) {
         // Optional: Show details or edit dialog
     }
 
     @Override
-    public void onWorkoutEntryLongClick(WorkoutWithEntry entry) {
-        showDeleteConfirmationDialog(entry);
+    public void onWorkoutEntryLongClick(WorkoutEntryRow entry) {
+        deleteWithUndo(entry);
+    }
+
+    /**
+     * Xóa ngay (tombstone) và cho hoàn tác trong Constants.UNDO_WINDOW_MS.
+     * Ngày thuộc năm đã archive chỉ đọc; Snackbar "Đã xoá" chỉ hiện khi việc xóa đã commit.
+     */
+    private void deleteWithUndo(WorkoutEntryRow entry) {
+        if (repository.isArchivedDay(selectedDate)) {
+            showMessage("Không thể xoá mục của năm đã lưu trữ");
+            return;
+        }
+        repository.deleteById(entry.getId()).whenCompleteAsync((ignored, error) -> {
+            if (!isAdded() || getView() == null) {
+                return;
+            }
+            if (error != null) {
+                showMessage("Không thể xoá \"" + entry.getWorkoutName() + "\"");
+                return;
+            }
+            Snackbar.make(requireView(), "Đã xoá \"" + entry.getWorkoutName() + "\"", Constants.UNDO_WINDOW_MS)
+                    .setAnchorView(requireActivity().findViewById(R.id.bottomNavigation))
+                    .setAction("Hoàn tác", v -> repository.restore(entry.getId()))
+                    .show();
+        }, ContextCompat.getMainExecutor(requireContext()));
     }
 
-    private void showDeleteConfirmationDialog(WorkoutWithEntry entry) {
-        new AlertDialog.Builder(requireContext(), R.style.Theme_App_Dialog)
-                .setTitle("Xoá bài tập?")
-                .setMessage("Bạn có chắc muốn xoá \"" + entry.getWorkoutName() + "\"?")
-                .setPositiveButton("Xoá", (dialog, which) -> {
-                    repository.deleteById(entry.getEntryId());
-                    Toast.makeText(requireContext(), "Đã xoá", Toast.LENGTH_SHORT).show();
-                })
-                .setNegativeButton("Huỷ", null)
+    private void showMessage(String message) {
+        Snackbar.make(requireView(), message, Snackbar.LENGTH_SHORT)
+                .setAnchorView(requireActivity().findViewById(R.id.bottomNavigation))
                 .show();
     }
 }
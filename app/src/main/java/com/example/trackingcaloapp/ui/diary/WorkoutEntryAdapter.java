@@ -12,8 +12,7 @@ import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.trackingcaloapp.R;
-import com.example.trackingcaloapp.model.WorkoutEntryWithWorkout;
-import com.example.trackingcaloapp.model.WorkoutWithEntry;
+import com.example.trackingcaloapp.model.WorkoutEntryRow;
 import com.example.trackingcaloapp.utils.DateUtils;
 import com.google.android.material.chip.Chip;
 
@@ -22,12 +21,12 @@ import java.util.List;
 
 public class WorkoutEntryAdapter extends RecyclerView.Adapter<WorkoutEntryAdapter.ViewHolder> {
 
-    private List<WorkoutWithEntry> entries = new ArrayList<>();
+    private List<WorkoutEntryRow> entries = new ArrayList<>();
     private OnWorkoutEntryClickListener listener;
 
     public interface OnWorkoutEntryClickListener {
-        void onWorkoutEntryClick(WorkoutWithEntry entry);
-        void onWorkoutEntryLongClick(WorkoutWithEntry entry);
+        void onWorkoutEntryClick(WorkoutEntryRow entry);
+        void onWorkoutEntryLongClick(WorkoutEntryRow entry);
     }
 
     public WorkoutEntryAdapter() {
@@ -42,12 +41,10 @@ public class WorkoutEntryAdapter extends RecyclerView.Adapter<WorkoutEntryAdapte
         this.listener = listener;
     }
 
-    public void setEntries(List<WorkoutEntryWithWorkout> entriesWithWorkout) {
+    public void setEntries(List<WorkoutEntryRow> rows) {
         this.entries.clear();
-        if (entriesWithWorkout != null) {
-            for (WorkoutEntryWithWorkout item : entriesWithWorkout) {
-                this.entries.add(item.toWorkoutWithEntry());
-            }
+        if (rows != null) {
+            this.entries.addAll(rows);
         }
         notifyDataSetChanged();
     }
@@ -62,7 +59,7 @@ public class WorkoutEntryAdapter extends RecyclerView.Adapter<WorkoutEntryAdapte
 
     @Override
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-        WorkoutWithEntry entry = entries.get(position);
+        WorkoutEntryRow entry = entries.get(position);
         holder.bind(entry, listener);
     }
 
@@ -71,7 +68,7 @@ public class WorkoutEntryAdapter extends RecyclerView.Adapter<WorkoutEntryAdapte
         return entries.size();
     }
 
-    public WorkoutWithEntry getEntryAt(int position) {
+    public WorkoutEntryRow getEntryAt(int position) {
         if (position >= 0 && position < entries.size()) {
             return entries.get(position);
         }
@@ -98,7 +95,7 @@ public class WorkoutEntryAdapter extends RecyclerView.Adapter<WorkoutEntryAdapte
             tvTime = itemView.findViewById(R.id.tvTime);
         }
 
-        void bind(WorkoutWithEntry entry, OnWorkoutEntryClickListener listener) {
+        void bind(WorkoutEntryRow entry, OnWorkoutEntryClickListener listener) {
             // Hiển thị tên bài tập thay vì ID
             tvWorkoutName.setText(entry.getWorkoutName());
             tvQuantity.setText(entry.getQuantityDisplay());
@@ -121,7 +118,7 @@ public class WorkoutEntryAdapter extends RecyclerView.Adapter<WorkoutEntryAdapte
             });
 
             // Set category chip với thông tin thực từ workout
-            String category = entry.getCategory();
+            String category = entry.getWorkoutCategory();
             if (chipCategory != null) {
                 chipCategory.setText(entry.getCategoryDisplayName());
 
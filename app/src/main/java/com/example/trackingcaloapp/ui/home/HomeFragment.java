@@ -23,13 +23,14 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.example.trackingcaloapp.R;
 import com.example.trackingcaloapp.data.local.database.AppDatabase;
 import com.example.trackingcaloapp.data.preferences.UserPreferences;
+import com.example.trackingcaloapp.data.repository.DailyTotalsRepository;
 import com.example.trackingcaloapp.data.repository.FoodEntryRepository;
-import com.example.trackingcaloapp.data.repository.WorkoutEntryRepository;
 import com.example.trackingcaloapp.model.DailyCalorieSum;
-import com.example.trackingcaloapp.model.FoodEntryWithFood;
+import com.example.trackingcaloapp.model.DaySnapshot;
+import com.example.trackingcaloapp.model.FoodEntryRow;
 import com.example.trackingcaloapp.model.MacroSum;
 import com.example.trackingcaloapp.model.MealTypeCalories;
-import com.example.trackingcaloapp.model.WorkoutEntryWithWorkout;
+import com.example.trackingcaloapp.model.WorkoutEntryRow;
 import com.example.trackingcaloapp.ui.main.RecentActivityAdapter;
 import com.example.trackingcaloapp.ui.view.OverflowProgressBar;
 import com.example.trackingcaloapp.utils.CalorieCalculator;
@@ -84,14 +85,15 @@ public class HomeFragment extends Fragment {
 
     private UserPreferences userPreferences;
     private FoodEntryRepository foodEntryRepository;
-    private WorkoutEntryRepository workoutEntryRepository;
+    private DailyTotalsRepository dailyTotalsRepository;
+    private LiveData<DaySnapshot> snapshotLiveData;
     private RecentActivityAdapter recentActivityAdapter;
 
     // Cached values for calculation
     private float cachedConsumed = 0f;
     private float cachedBurned = 0f;
-    private List<FoodEntryWithFood> cachedFoodEntries;
-    private List<WorkoutEntryWithWorkout> cachedWorkoutEntries;
+    private List<FoodEntryRow> cachedFoodEntries;
+    private List<WorkoutEntryRow> cachedWorkoutEntries;
 
     @Override
     public void onAttach(@NonNull Context context) {
@@ -125,8 +127,9 @@ public class HomeFragment extends Fragment {
         userPreferences = new UserPreferences(requireContext());
 
         AppDatabase db = AppDatabase.getInstance(requireContext());
-        foodEntryRepository = new FoodEntryRepository(db.foodEntryDao());
-        workoutEntryRepository = new WorkoutEntryRepository(db.workoutEntryDao());
+        int userId = userPreferences.getCurrentUserId();
+        foodEntryRepository = new FoodEntryRepository(db, userId);
+        dailyTotalsRepository = new DailyTotalsRepository(db, userId);
 
         initViews(view);
         setupCharts();
@@ -311,34 +314,24 @@ public class HomeFragment extends Fragment {
 
     private void loadTodayData() {
         long startOfDay = DateUtils.getStartOfDay(System.currentTimeMillis());
-        long endOfDay = DateUtils.getEndOfDay(System.currentTimeMillis());
         
         // Cập nhật hiển thị goal info (đọc mới mỗi lần load)
         int calorieGoal = userPreferences.getDailyCalorieGoal();
         tvGoalInfo.setText(getString(R.string.goal_format, calorieGoal));
 
-        LiveData<Float> consumedLiveData = foodEntryRepository.getTotalCaloriesByDate(startOfDay, endOfDay);
-        consumedLiveData.observe(getViewLifecycleOwner(), consumed -> {
-            cachedConsumed = consumed != null ? consumed : 0f;
+        // Một stream duy nhất cho tổng hợp + entries của hôm nay
+        // Bỏ stream cũ (ngày trước / lần resume trước) để không ghi đè dữ liệu mới
+        if (snapshotLiveData != null) {
+            snapshotLiveData.removeObservers(getViewLifecycleOwner());
+        }
+        snapshotLiveData = dailyTotalsRepository.getDaySnapshot(startOfDay);
+        snapshotLiveData.observe(getViewLifecycleOwner(), snapshot -> {
+            cachedConsumed = snapshot.getCaloriesConsumed();
+            cachedBurned = snapshot.getCaloriesBurned();
             tvCaloriesConsumed.setText(String.valueOf((int) cachedConsumed));
-            updateNetCalories(); // Không truyền calorieGoal, đọc trực tiếp trong method
-        });
-
-        LiveData<Float> burnedLiveData = workoutEntryRepository.getTotalCaloriesBurnedByDate(startOfDay, endOfDay);
-        burnedLiveData.observe(getViewLifecycleOwner(), burned -> {
-            cachedBurned = burned != null ? burned : 0f;
             tvCaloriesBurned.setText(String.valueOf((int) cachedBurned));
             updateNetCalories(); // Không truyền calorieGoal, đọc trực tiếp trong method
-        });
-
-        LiveData<List<FoodEntryWithFood>> foodEntriesLiveData = foodEntryRepository.getEntriesWithFoodByDate(startOfDay, endOfDay);
-        foodEntriesLiveData.observe(getViewLifecycleOwner(), foodEntries -> {
-            updateRecentActivities(foodEntries, null);
-        });
-
-        LiveData<List<WorkoutEntryWithWorkout>> workoutEntriesLiveData = workoutEntryRepository.getEntriesWithWorkoutByDate(startOfDay, endOfDay);
-        workoutEntriesLiveData.observe(getViewLifecycleOwner(), workoutEntries -> {
-            updateRecentActivities(null, workoutEntries);
+            updateRecentActivities(snapshot.getFoodEntries(), snapshot.getWorkoutEntries());
         });
     }
     
@@ -407,7 +400,7 @@ public class HomeFragment extends Fragment {
         tvProgressPercent.setTextColor(textColor);
     }
 
-    private void updateRecentActivities(List<FoodEntryWithFood> foodEntries, List<WorkoutEntryWithWorkout> workoutEntries) {
+    private void updateRecentActivities(List<FoodEntryRow> foodEntries, List<WorkoutEntryRow> workoutEntries) {
         if (foodEntries != null) {
             cachedFoodEntries = foodEntries;
         }
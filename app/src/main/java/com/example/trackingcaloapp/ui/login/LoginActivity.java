@@ -12,6 +12,7 @@ import androidx.activity.EdgeToEdge;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.example.trackingcaloapp.R;
+import com.example.trackingcaloapp.data.local.database.AppDatabase;
 import com.example.trackingcaloapp.data.local.entity.User;
 import com.example.trackingcaloapp.data.preferences.UserPreferences;
 import com.example.trackingcaloapp.data.repository.UserRepository;
@@ -42,6 +43,9 @@ public class LoginActivity extends AppCompatActivity {
         userPreferences = new UserPreferences(this);
         userRepository = new UserRepository(getApplication());
 
+        // Mở database (và seed catalog ở lần chạy đầu) trong lúc user đăng nhập
+        AppDatabase.warmUp(this);
+
         // Check if already logged in
         if (checkLogin()) {
             return;
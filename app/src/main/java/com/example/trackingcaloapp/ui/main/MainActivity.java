@@ -12,6 +12,8 @@ import androidx.fragment.app.FragmentTransaction;
 
 import com.example.trackingcaloapp.R;
 import com.example.trackingcaloapp.data.preferences.UserPreferences;
+import com.example.trackingcaloapp.data.repository.DailyTotalsRepository;
+import com.example.trackingcaloapp.data.repository.FoodEntryRepository;
 import com.example.trackingcaloapp.ui.add.AddFragment;
 import com.example.trackingcaloapp.ui.diary.DiaryFragment;
 import com.example.trackingcaloapp.ui.home.HomeFragment;
@@ -20,6 +22,8 @@ import com.example.trackingcaloapp.ui.profile.ProfileFragment;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 import com.google.android.material.navigation.NavigationBarView;
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 public class MainActivity extends AppCompatActivity implements HomeFragment.OnNavigationListener {
 
     private BottomNavigationView bottomNavigation;
@@ -37,6 +41,9 @@ public class MainActivity extends AppCompatActivity implements HomeFragment.OnNa
     private static final String TAG_ADD = "add";
     private static final String TAG_PROFILE = "profile";
 
+    // Compact/archive lịch sử chỉ chạy một lần trong process, không chạy lại khi xoay màn hình
+    private static final AtomicBoolean historyMaintenanceStarted = new AtomicBoolean();
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -53,6 +60,16 @@ public class MainActivity extends AppCompatActivity implements HomeFragment.OnNa
 
         bottomNavigation = findViewById(R.id.bottomNavigation);
 
+        DailyTotalsRepository dailyTotalsRepository = new DailyTotalsRepository(getApplication());
+        if (historyMaintenanceStarted.compareAndSet(false, true)) {
+            // Compact lịch sử cũ theo cài đặt retention (chạy nền trên writer thread)
+            new FoodEntryRepository(getApplication()).compactHistory(userPreferences.getHistoryRetentionMonths());
+            // Chuyển lịch sử của các năm đã đóng sang file archive
+            dailyTotalsRepository.archiveClosedYears();
+        }
+        // Xóa hẳn entries đã xóa (tombstone) ngay và định kỳ trong suốt process
+        dailyTotalsRepository.schedulePurge();
+
         if (savedInstanceState == null) {
             setupFragments();
         } else {
@@ -12,10 +12,8 @@ import androidx.core.content.ContextCompat;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.trackingcaloapp.R;
-import com.example.trackingcaloapp.model.FoodEntryWithFood;
-import com.example.trackingcaloapp.model.FoodWithEntry;
-import com.example.trackingcaloapp.model.WorkoutEntryWithWorkout;
-import com.example.trackingcaloapp.model.WorkoutWithEntry;
+import com.example.trackingcaloapp.model.FoodEntryRow;
+import com.example.trackingcaloapp.model.WorkoutEntryRow;
 import com.example.trackingcaloapp.utils.Constants;
 import com.example.trackingcaloapp.utils.DateUtils;
 
@@ -28,18 +26,18 @@ public class RecentActivityAdapter extends RecyclerView.Adapter<RecentActivityAd
 
     private List<ActivityItem> items = new ArrayList<>();
 
-    public void setData(List<FoodEntryWithFood> foodEntries, List<WorkoutEntryWithWorkout> workoutEntries) {
+    public void setData(List<FoodEntryRow> foodEntries, List<WorkoutEntryRow> workoutEntries) {
         items.clear();
 
         if (foodEntries != null) {
-            for (FoodEntryWithFood entry : foodEntries) {
-                items.add(new ActivityItem(entry.toFoodWithEntry()));
+            for (FoodEntryRow entry : foodEntries) {
+                items.add(new ActivityItem(entry));
             }
         }
 
         if (workoutEntries != null) {
-            for (WorkoutEntryWithWorkout entry : workoutEntries) {
-                items.add(new ActivityItem(entry.toWorkoutWithEntry()));
+            for (WorkoutEntryRow entry : workoutEntries) {
+                items.add(new ActivityItem(entry));
             }
         }
 
@@ -91,7 +89,7 @@ public class RecentActivityAdapter extends RecyclerView.Adapter<RecentActivityAd
 
         void bind(ActivityItem item) {
             if (item.isFood()) {
-                FoodWithEntry entry = item.getFoodWithEntry();
+                FoodEntryRow entry = item.getFoodRow();
                 // Hiển thị tên thực phẩm thay vì ID
                 tvActivityName.setText(entry.getFoodName());
                 String mealName = Constants.getMealTypeName(entry.getMealType());
@@ -110,7 +108,7 @@ public class RecentActivityAdapter extends RecyclerView.Adapter<RecentActivityAd
                     layoutTypeIcon.setBackgroundResource(R.drawable.bg_stat_consumed);
                 }
             } else {
-                WorkoutWithEntry entry = item.getWorkoutWithEntry();
+                WorkoutEntryRow entry = item.getWorkoutRow();
                 // Hiển thị tên bài tập thay vì ID
                 tvActivityName.setText(entry.getWorkoutName());
                 String time = DateUtils.formatTime(entry.getDate());
@@ -133,31 +131,31 @@ public class RecentActivityAdapter extends RecyclerView.Adapter<RecentActivityAd
 
     // Helper class to combine food and workout entries
     static class ActivityItem {
-        private FoodWithEntry foodWithEntry;
-        private WorkoutWithEntry workoutWithEntry;
+        private FoodEntryRow foodRow;
+        private WorkoutEntryRow workoutRow;
 
-        ActivityItem(FoodWithEntry foodWithEntry) {
-            this.foodWithEntry = foodWithEntry;
+        ActivityItem(FoodEntryRow foodRow) {
+            this.foodRow = foodRow;
         }
 
-        ActivityItem(WorkoutWithEntry workoutWithEntry) {
-            this.workoutWithEntry = workoutWithEntry;
+        ActivityItem(WorkoutEntryRow workoutRow) {
+            this.workoutRow = workoutRow;
         }
 
         boolean isFood() {
-            return foodWithEntry != null;
+            return foodRow != null;
         }
 
-        FoodWithEntry getFoodWithEntry() {
-            return foodWithEntry;
+        FoodEntryRow getFoodRow() {
+            return foodRow;
         }
 
-        WorkoutWithEntry getWorkoutWithEntry() {
-            return workoutWithEntry;
+        WorkoutEntryRow getWorkoutRow() {
+            return workoutRow;
         }
 
         long getDate() {
-            return isFood() ? foodWithEntry.getDate() : workoutWithEntry.getDate();
+            return isFood() ? foodRow.getDate() : workoutRow.getDate();
         }
     }
 }
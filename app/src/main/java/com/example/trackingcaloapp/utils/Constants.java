@@ -46,6 +46,23 @@ public class Constants {
     public static final int REQUEST_EDIT_FOOD = 1003;
     public static final int REQUEST_EDIT_WORKOUT = 1004;
     
+    // ==================== UNDO ====================
+    // Thời gian (ms) Snackbar "Hoàn tác" hiện sau khi xóa entry; tombstone chỉ bị purge sau khoảng này
+    public static final int UNDO_WINDOW_MS = 5000;
+    // Tombstone được giữ thêm khoảng này (ms): deletedAt đóng dấu trước cửa sổ gom batch và commit,
+    // Snackbar chỉ hiện sau đó (và dừng đếm khi được chạm), nên Hoàn tác có thể còn hiện quá UNDO_WINDOW_MS
+    public static final long PURGE_GRACE_MS = 60L * 1000;
+    // Chu kỳ (ms) xóa hẳn tombstones đã quá cửa sổ undo
+    public static final long PURGE_INTERVAL_MS = 15L * 60 * 1000;
+
+    // ==================== SEARCH CACHE ====================
+    // Kết quả search API còn mới trong khoảng này (ms); quá hạn vẫn hiện ngay rồi gọi lại API
+    public static final long SEARCH_CACHE_TTL_MS = 24L * 60 * 60 * 1000;
+    // Query không có kết quả được hỏi lại sớm hơn
+    public static final long SEARCH_CACHE_EMPTY_TTL_MS = 60L * 60 * 1000;
+    // Kết quả cũ hơn khoảng này bị xóa, không dùng cả khi offline
+    public static final long SEARCH_CACHE_MAX_AGE_MS = 30L * 24 * 60 * 60 * 1000;
+
     // ==================== DEFAULT VALUES ====================
     public static final int DEFAULT_CALORIE_GOAL = 2000;
     public static final float DEFAULT_WEIGHT = 65f;
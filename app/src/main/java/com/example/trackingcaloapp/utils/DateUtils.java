@@ -4,12 +4,15 @@ import java.text.SimpleDateFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
+import java.util.TimeZone;
 
 /**
  * Utility class để xử lý các thao tác liên quan đến ngày tháng.
  */
 public class DateUtils {
     
+    private static final long DAY_MILLIS = 24L * 60 * 60 * 1000;
+    
     private static final SimpleDateFormat DATE_FORMAT = new SimpleDateFormat("dd/MM/yyyy", Locale.getDefault());
     private static final SimpleDateFormat DATE_FORMAT_FULL = new SimpleDateFormat("EEEE, dd/MM/yyyy", new Locale("vi", "VN"));
     private static final SimpleDateFormat TIME_FORMAT = new SimpleDateFormat("HH:mm", Locale.getDefault());
@@ -161,6 +164,15 @@ public class DateUtils {
         return getEndOfDay(calendar.getTimeInMillis());
     }
     
+    /**
+     * Lấy timestamp của n tháng trước
+     */
+    public static long getMonthsAgo(int months) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.add(Calendar.MONTH, -months);
+        return calendar.getTimeInMillis();
+    }
+    
     /**
      * Lấy timestamp đầu tháng
      */
@@ -179,6 +191,36 @@ public class DateUtils {
         return getEndOfDay(calendar.getTimeInMillis());
     }
     
+    /**
+     * Lấy epoch day (số ngày kể từ 01/01/1970) theo múi giờ của thiết bị.
+     * Dùng làm khóa ngày cho bảng daily_totals.
+     */
+    public static long toEpochDay(long timestamp) {
+        long localMillis = timestamp + TimeZone.getDefault().getOffset(timestamp);
+        return Math.floorDiv(localMillis, DAY_MILLIS);
+    }
+    
+    /**
+     * Lấy phút trong ngày (0-1439) theo múi giờ của thiết bị
+     */
+    public static int toLocalMinuteOfDay(long timestamp) {
+        long localMillis = timestamp + TimeZone.getDefault().getOffset(timestamp);
+        return (int) (Math.floorMod(localMillis, DAY_MILLIS) / (60 * 1000));
+    }
+    
+    /**
+     * Lấy timestamp đầu ngày (00:00:00 giờ địa phương) của một epoch day
+     */
+    public static long fromEpochDay(long epochDay) {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        utc.setTimeInMillis(epochDay * DAY_MILLIS);
+        
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(utc.get(Calendar.YEAR), utc.get(Calendar.MONTH), utc.get(Calendar.DAY_OF_MONTH));
+        return calendar.getTimeInMillis();
+    }
+    
     /**
      * Tính số ngày giữa 2 timestamp
      */
@@ -0,0 +1,50 @@
+package com.example.trackingcaloapp.utils;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Utility class chuẩn hóa text cho tìm kiếm thực phẩm.
+ * Bỏ dấu tiếng Việt để "pho bo" khớp với "Phở bò".
+ */
+public class SearchUtils {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Chuẩn hóa text: lowercase, bỏ dấu (kể cả đ -> d), chỉ giữ chữ và số
+     * @return Chuỗi đã chuẩn hóa, các từ cách nhau một khoảng trắng
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        // "đ" không phải ký tự tổ hợp nên NFD không tách được, thay tay
+        String lower = text.toLowerCase(Locale.ROOT).replace('đ', 'd');
+        String decomposed = Normalizer.normalize(lower, Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return NON_WORD.matcher(stripped).replaceAll(" ").trim();
+    }
+
+    /**
+     * Tạo biểu thức MATCH cho FTS: mỗi từ là một prefix query, các từ AND với nhau.
+     * VD: "Phở bò" -> "pho* bo*"
+     * @return Chuỗi rỗng nếu query không có từ nào
+     */
+    public static String toFtsMatch(String query) {
+        String normalized = normalize(query);
+        if (normalized.isEmpty()) {
+            return "";
+        }
+        StringBuilder match = new StringBuilder();
+        for (String token : normalized.split(" ")) {
+            if (match.length() > 0) {
+                match.append(' ');
+            }
+            match.append(token).append('*');
+        }
+        return match.toString();
+    }
+}
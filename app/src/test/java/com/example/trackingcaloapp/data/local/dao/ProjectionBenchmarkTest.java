@@ -0,0 +1,219 @@
+package com.example.trackingcaloapp.data.local.dao;
+
+import android.content.Context;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.trackingcaloapp.data.local.database.AppDatabase;
+import com.example.trackingcaloapp.data.local.entity.FoodEntry;
+import com.example.trackingcaloapp.data.local.entity.WorkoutEntry;
+import com.example.trackingcaloapp.model.FoodEntryRow;
+import com.example.trackingcaloapp.model.WorkoutEntryRow;
+import com.example.trackingcaloapp.testutil.Benchmarks;
+import com.example.trackingcaloapp.testutil.Benchmarks.Measurement;
+import com.example.trackingcaloapp.testutil.TestRows;
+import com.example.trackingcaloapp.utils.DateUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * So sánh danh sách nhật ký một ngày đọc bằng entity đầy đủ (SELECT *, getEntriesByDateSync)
+ * với projection FoodEntryRow / WorkoutEntryRow (getEntryRowsByDay).
+ * Cả hai đọc cùng các dòng của một ngày qua index, nên chênh lệch là độ rộng dòng và chi phí map cursor.
+ *
+ * Chỉ assert projection cấp phát ít bytes hơn trên mỗi dòng; rows/ms của từng cách
+ * nằm trong message của assertion (thời gian phụ thuộc máy chạy test nên không assert).
+ * Số lần lặp chỉnh qua Gradle property:
+ * ./gradlew testDebugUnitTest --tests '*ProjectionBenchmarkTest' -Pprojection.iterations=2000
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class ProjectionBenchmarkTest {
+
+    private static final int ITERATIONS = Integer.getInteger("projection.iterations", 500);
+    private static final int WARMUP = 100;
+
+    private static final int USERS = 3;
+    private static final int DAYS = 60;
+    private static final int FOOD_ENTRIES_PER_DAY = 40;
+    private static final int WORKOUT_ENTRIES_PER_DAY = 15;
+    private static final int USER_ID = 1;
+    private static final long DAY_MILLIS = TestRows.DAY_MILLIS;
+    private static final long NOW = TestRows.NOW;
+
+    private AppDatabase db;
+    private long dayStart;
+    private long day;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        dayStart = DateUtils.getStartOfDay(NOW - 10 * DAY_MILLIS);
+        day = DateUtils.toEpochDay(dayStart);
+        populate(db.getOpenHelper().getWritableDatabase(), new Random(42));
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void foodEntryRows_allocateLessThanFullEntities() throws Exception {
+        FoodEntryDao dao = db.foodEntryDao();
+        long dayEnd = dayStart + DAY_MILLIS - 1;
+
+        // Hai cách phải cho cùng các dòng, cùng thứ tự
+        List<FoodEntry> entities = dao.getEntriesByDateSync(USER_ID, dayStart, dayEnd);
+        List<FoodEntryRow> rows = dao.getEntryRowsByDay(USER_ID, day);
+        assertEquals(FOOD_ENTRIES_PER_DAY, rows.size());
+        assertEquals(entities.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(entities.get(i).getId(), rows.get(i).getId());
+            assertEquals(entities.get(i).getFoodName(), rows.get(i).getFoodName());
+            assertEquals(entities.get(i).getTotalCalories(), rows.get(i).getTotalCalories(), 0f);
+        }
+
+        Measurement full = measure(() -> dao.getEntriesByDateSync(USER_ID, dayStart, dayEnd).size());
+        Measurement projection = measure(() -> dao.getEntryRowsByDay(USER_ID, day).size());
+        assertEquals((long) ITERATIONS * FOOD_ENTRIES_PER_DAY, projection.items);
+        assertAllocatesLess(report("food_entries", FOOD_ENTRIES_PER_DAY, full, projection), full, projection);
+    }
+
+    @Test
+    public void workoutEntryRows_allocateLessThanFullEntities() throws Exception {
+        WorkoutEntryDao dao = db.workoutEntryDao();
+        long dayEnd = dayStart + DAY_MILLIS - 1;
+
+        List<WorkoutEntry> entities = dao.getEntriesByDateSync(USER_ID, dayStart, dayEnd);
+        List<WorkoutEntryRow> rows = dao.getEntryRowsByDay(USER_ID, day);
+        assertEquals(WORKOUT_ENTRIES_PER_DAY, rows.size());
+        assertEquals(entities.size(), rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            assertEquals(entities.get(i).getId(), rows.get(i).getId());
+            assertEquals(entities.get(i).getCaloriesBurned(), rows.get(i).getCaloriesBurned(), 0f);
+        }
+
+        Measurement full = measure(() -> dao.getEntriesByDateSync(USER_ID, dayStart, dayEnd).size());
+        Measurement projection = measure(() -> dao.getEntryRowsByDay(USER_ID, day).size());
+        assertEquals((long) ITERATIONS * WORKOUT_ENTRIES_PER_DAY, projection.items);
+        assertAllocatesLess(report("workout_entries", WORKOUT_ENTRIES_PER_DAY, full, projection), full, projection);
+    }
+
+    // ==================== MEASURE ====================
+
+    private static Measurement measure(Benchmarks.Task load) throws Exception {
+        return Benchmarks.measure(WARMUP, ITERATIONS, load);
+    }
+
+    private static String report(String table, int rowsPerDay, Measurement full, Measurement projection) {
+        return String.format(Locale.US,
+                "%s: %d rows/day, %d iterations; " +
+                "entity (SELECT *): %.1f rows/ms, %d B allocated/row; " +
+                "projection: %.1f rows/ms, %d B allocated/row (%.2fx rows/ms)",
+                table, rowsPerDay, ITERATIONS,
+                full.itemsPerMs(), full.bytesPerItem(),
+                projection.itemsPerMs(), projection.bytesPerItem(), projection.itemsPerMs() / full.itemsPerMs());
+    }
+
+    /**
+     * Thời gian phụ thuộc máy chạy test nên chỉ nằm trong report; allocation theo dòng thì ổn định để assert
+     */
+    private static void assertAllocatesLess(String report, Measurement full, Measurement projection) {
+        if (full.hasAllocation() && projection.hasAllocation()) {
+            assertTrue("Projection should allocate less per row than the full entity. " + report,
+                    projection.bytesPerItem() < full.bytesPerItem());
+        }
+    }
+
+    // ==================== DATA ====================
+
+    /**
+     * Nhật ký DAYS ngày của USERS tài khoản, entries mang đủ snapshot của food/workout như khi ghi thật
+     */
+    private static void populate(SupportSQLiteDatabase database, Random random) {
+        String[] foods = {"Cơm tấm sườn bì chả", "Phở bò tái nạm gầu", "Bún chả Hà Nội", "Bánh mì thịt nướng",
+                "Gỏi cuốn tôm thịt", "Cà phê sữa đá", "Xôi gà xé phay", "Chè ba màu"};
+        String[] workouts = {"Chạy bộ ngoài trời", "Đạp xe", "Hít đất", "Yoga buổi sáng"};
+        String[] units = {"phút", "km", "lần", "phút"};
+        String[] categories = {"cardio", "cardio", "strength", "flexibility"};
+
+        TestRows.inTransaction(database, () -> {
+            TestRows.insert(database, "INSERT INTO food_entries (quantity, mealType, date, totalCalories, " +
+                    "totalProtein, totalCarbs, totalFat, localDay, localMinuteOfDay, userId, foodName, foodCategory, " +
+                    "caloriesPer100g, proteinPer100g, carbsPer100g, fatPer100g) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 'com', ?, ?, ?, ?)",
+                    USERS * DAYS * FOOD_ENTRIES_PER_DAY, (entry, index) -> {
+                        int i = index % FOOD_ENTRIES_PER_DAY;
+                        long date = dateOf(index / FOOD_ENTRIES_PER_DAY, i, FOOD_ENTRIES_PER_DAY);
+                        float quantity = 50 + random.nextInt(300);
+                        float calories = 100 + random.nextInt(300);
+                        float protein = random.nextFloat() * 30;
+                        float carbs = random.nextFloat() * 60;
+                        float fat = random.nextFloat() * 20;
+                        entry.bindDouble(1, quantity);
+                        entry.bindLong(2, i % 4);
+                        entry.bindLong(3, date);
+                        entry.bindDouble(4, calories * quantity / 100);
+                        entry.bindDouble(5, protein * quantity / 100);
+                        entry.bindDouble(6, carbs * quantity / 100);
+                        entry.bindDouble(7, fat * quantity / 100);
+                        entry.bindLong(8, DateUtils.toEpochDay(date));
+                        entry.bindLong(9, DateUtils.toLocalMinuteOfDay(date));
+                        entry.bindLong(10, userOf(index / FOOD_ENTRIES_PER_DAY));
+                        entry.bindString(11, foods[random.nextInt(foods.length)]);
+                        entry.bindDouble(12, calories);
+                        entry.bindDouble(13, protein);
+                        entry.bindDouble(14, carbs);
+                        entry.bindDouble(15, fat);
+                    });
+
+            TestRows.insert(database, "INSERT INTO workout_entries (quantity, duration, date, caloriesBurned, " +
+                    "note, localDay, localMinuteOfDay, userId, workoutName, workoutUnit, workoutCategory) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    USERS * DAYS * WORKOUT_ENTRIES_PER_DAY, (entry, index) -> {
+                        int i = index % WORKOUT_ENTRIES_PER_DAY;
+                        long date = dateOf(index / WORKOUT_ENTRIES_PER_DAY, i, WORKOUT_ENTRIES_PER_DAY);
+                        int workout = random.nextInt(workouts.length);
+                        entry.bindDouble(1, 10 + random.nextInt(50));
+                        entry.bindLong(2, 10 + random.nextInt(50));
+                        entry.bindLong(3, date);
+                        entry.bindDouble(4, 50 + random.nextInt(400));
+                        entry.bindString(5, "Ghi chú buổi tập số " + i);
+                        entry.bindLong(6, DateUtils.toEpochDay(date));
+                        entry.bindLong(7, DateUtils.toLocalMinuteOfDay(date));
+                        entry.bindLong(8, userOf(index / WORKOUT_ENTRIES_PER_DAY));
+                        entry.bindString(9, workouts[workout]);
+                        entry.bindString(10, units[workout]);
+                        entry.bindString(11, categories[workout]);
+                    });
+        });
+    }
+
+    // Nhóm dòng thứ userDay: USERS tài khoản x DAYS ngày, mỗi nhóm một ngày của một tài khoản
+    private static int userOf(int userDay) {
+        return 1 + userDay / DAYS;
+    }
+
+    private static long dateOf(int userDay, int i, int perDay) {
+        long start = DateUtils.getStartOfDay(NOW - (userDay % DAYS) * DAY_MILLIS);
+        return start + (long) i * (DAY_MILLIS / perDay);
+    }
+}
@@ -0,0 +1,463 @@
+package com.example.trackingcaloapp.data.local.dao;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.Observer;
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.SupportSQLiteStatement;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.trackingcaloapp.data.local.database.AppDatabase;
+import com.example.trackingcaloapp.testutil.TestRows;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Proxy;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Kiểm tra query plan của mọi @Query trong các DAO chính trên database có dữ liệu lớn.
+ * Mỗi method DAO được gọi một lần, SQL thật (sau khi Room mở rộng IN-list...) được bắt qua
+ * QueryCallback, rồi chạy EXPLAIN QUERY PLAN cho từng câu.
+ * Câu ghi (INSERT/UPDATE/DELETE) của @Query không được chạy thật (DryRunOpenHelperFactory),
+ * nên dữ liệu mẫu giữ nguyên cho mọi method.
+ *
+ * Query nóng (HOT_QUERIES) fail nếu full scan một bảng hoặc phải sort bằng temp B-tree;
+ * thông báo lỗi kèm plan của mọi query.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class QueryPlanTest {
+
+    private static final int USERS = 5;
+    private static final int FOODS = 3000;
+    private static final int WORKOUTS = 100;
+    private static final int FOOD_ENTRIES = 20000;
+    private static final int WORKOUT_ENTRIES = 5000;
+    private static final int WEIGHT_LOGS = 2000;
+    private static final long DAY_MILLIS = TestRows.DAY_MILLIS;
+    private static final long NOW = TestRows.NOW;
+
+    /**
+     * Query chạy trên đường đọc chính (Diary, Home, lịch sử, đăng nhập).
+     * Không được full scan, không được temp sort.
+     */
+    private static final Set<String> HOT_QUERIES = new HashSet<>(Arrays.asList(
+            "FoodEntryDao.getEntryById",
+            "FoodEntryDao.getEntryRowsByDay",
+            "FoodEntryDao.getTotalCaloriesByDateSync",
+            "FoodEntryDao.getEntryCountByDate",
+            "WorkoutEntryDao.getEntryById",
+            "WorkoutEntryDao.getEntryRowsByDay",
+            "WorkoutEntryDao.getEntriesByDateAndCategory",
+            "WorkoutEntryDao.getTotalCaloriesBurnedByDateSync",
+            "FoodDao.getFoodById",
+            "FoodDao.getFoodByApiId",
+            "FoodDao.getFoodsByApiIds",
+            "FoodUsageDao.getFrequentFoods",
+            "FoodUsageDao.getRecentFoods",
+            "WorkoutDao.getWorkoutById",
+            "WeightLogDao.getAllLogsSync",
+            "WeightLogDao.getLogsSinceSync",
+            "WeightLogDao.getLatestLogSync",
+            "WeightLogDao.getLogCount",
+            "SearchCacheDao.get",
+            "UserDao.getUserByUsername",
+            "UserDao.getUserById",
+            "UserDao.validateCredentials"
+    ));
+
+    /**
+     * Tìm kiếm qua FTS: được sort theo rank (temp B-tree trên tối đa 100 dòng khớp)
+     * nhưng không được full scan foods
+     */
+    private static final Set<String> HOT_NO_SCAN_ONLY = new HashSet<>(Arrays.asList(
+            "FoodDao.searchFoodsSync"
+    ));
+
+    // "SCAN TABLE foods" (SQLite cũ) hoặc "SCAN foods" (3.36+); scan bảng ảo FTS và constant row là hợp lệ
+    private static final Pattern FULL_SCAN = Pattern.compile("^SCAN (TABLE )?(\\w+)(?! VIRTUAL TABLE)");
+    private static final String TEMP_SORT = "USE TEMP B-TREE";
+
+    private AppDatabase db;
+    private final List<String> capturedSql = Collections.synchronizedList(new ArrayList<>());
+    private volatile boolean dryRunWrites;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .setQueryExecutor(Runnable::run)
+                .setTransactionExecutor(Runnable::run)
+                .setQueryCallback((sql, args) -> capturedSql.add(sql), Runnable::run)
+                .openHelperFactory(new DryRunOpenHelperFactory())
+                .build();
+        populate(db.getOpenHelper().getWritableDatabase());
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void hotQueries_useIndexesWithoutTempSort() throws Exception {
+        Map<Class<?>, Object> daos = new LinkedHashMap<>();
+        daos.put(FoodDao.class, db.foodDao());
+        daos.put(FoodEntryDao.class, db.foodEntryDao());
+        daos.put(FoodUsageDao.class, db.foodUsageDao());
+        daos.put(WorkoutDao.class, db.workoutDao());
+        daos.put(WorkoutEntryDao.class, db.workoutEntryDao());
+        daos.put(WeightLogDao.class, db.weightLogDao());
+        daos.put(UserDao.class, db.userDao());
+        daos.put(SearchCacheDao.class, db.searchCacheDao());
+
+        Map<String, List<String>> sqlByMethod = new LinkedHashMap<>();
+        for (Map.Entry<Class<?>, Object> dao : daos.entrySet()) {
+            sqlByMethod.putAll(captureQueries(dao.getKey(), dao.getValue()));
+        }
+
+        List<String> failures = new ArrayList<>();
+        StringBuilder report = new StringBuilder();
+        for (Map.Entry<String, List<String>> entry : sqlByMethod.entrySet()) {
+            String label = entry.getKey();
+            boolean hot = HOT_QUERIES.contains(label);
+            boolean noScanOnly = HOT_NO_SCAN_ONLY.contains(label);
+            for (String sql : entry.getValue()) {
+                List<String> plan = explain(sql);
+                report.append(hot || noScanOnly ? "[hot] " : "      ").append(label).append('\n');
+                for (String detail : plan) {
+                    report.append("        ").append(detail).append('\n');
+                    if ((hot || noScanOnly) && isFullScan(detail)) {
+                        failures.add(label + ": " + detail + "\n    " + sql);
+                    }
+                    if (hot && detail.contains(TEMP_SORT)) {
+                        failures.add(label + ": " + detail + "\n    " + sql);
+                    }
+                }
+            }
+        }
+
+        Set<String> missing = new HashSet<>(HOT_QUERIES);
+        missing.addAll(HOT_NO_SCAN_ONLY);
+        missing.removeAll(sqlByMethod.keySet());
+        assertTrue("Hot queries not found in DAOs (renamed?): " + missing, missing.isEmpty());
+        assertTrue("Query plan regressions:\n" + String.join("\n", failures) + "\n\nAll plans:\n" + report,
+                failures.isEmpty());
+
+        // Câu ghi đã được explain nhưng không chạy: dữ liệu mẫu còn nguyên
+        assertTrue(sqlByMethod.containsKey("FoodEntryDao.purgeDeleted"));
+        SupportSQLiteDatabase sqlite = db.getOpenHelper().getWritableDatabase();
+        assertEquals(FOOD_ENTRIES, TestRows.count(sqlite, "food_entries"));
+        assertEquals(WORKOUT_ENTRIES, TestRows.count(sqlite, "workout_entries"));
+        assertEquals(FOODS, TestRows.count(sqlite, "foods"));
+    }
+
+    // ==================== CAPTURE ====================
+
+    /**
+     * Gọi từng method của DAO với tham số giả, ghi lại các câu SQL nó chạy.
+     * Method nhận entity (@Insert/@Update/@Delete) và default method được bỏ qua.
+     * Trong lúc gọi, câu ghi chỉ được ghi lại chứ không chạy.
+     */
+    private Map<String, List<String>> captureQueries(Class<?> daoClass, Object dao) throws Exception {
+        Map<String, List<String>> result = new LinkedHashMap<>();
+        Method[] methods = daoClass.getDeclaredMethods();
+        Arrays.sort(methods, Comparator.comparing(Method::getName));
+        for (Method method : methods) {
+            if (method.isDefault() || method.isSynthetic()) {
+                continue;
+            }
+            Object[] args = argumentsFor(method);
+            if (args == null) {
+                continue;
+            }
+            capturedSql.clear();
+            dryRunWrites = true;
+            try {
+                invoke(method, dao, args);
+            } finally {
+                dryRunWrites = false;
+            }
+
+            List<String> statements = new ArrayList<>();
+            for (String sql : new ArrayList<>(capturedSql)) {
+                if (isDaoStatement(sql)) {
+                    statements.add(sql);
+                }
+            }
+            assertTrue("No SQL captured for " + method, !statements.isEmpty());
+            result.put(daoClass.getSimpleName() + "." + method.getName(), statements);
+        }
+        return result;
+    }
+
+    private static void invoke(Method method, Object dao, Object[] args) throws Exception {
+        try {
+            Object value = method.invoke(dao, args);
+            if (value instanceof LiveData) {
+                // Room chỉ chạy query của LiveData khi có observer
+                LiveData<?> liveData = (LiveData<?>) value;
+                Observer<Object> observer = ignored -> { };
+                liveData.observeForever(observer);
+                liveData.removeObserver(observer);
+            }
+        } catch (InvocationTargetException e) {
+            throw new AssertionError("Calling " + method + " failed", e.getCause());
+        }
+    }
+
+    private static Object[] argumentsFor(Method method) {
+        Type[] types = method.getGenericParameterTypes();
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            args[i] = argumentFor(types[i]);
+            if (args[i] == null) {
+                return null;
+            }
+        }
+        return args;
+    }
+
+    private static Object argumentFor(Type type) {
+        if (type == int.class) return 1;
+        if (type == long.class) return NOW;
+        if (type == float.class) return 1f;
+        if (type == boolean.class) return true;
+        if (type == String.class) return "a";
+        if (type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == List.class) {
+            Type element = ((ParameterizedType) type).getActualTypeArguments()[0];
+            if (element == String.class) return Collections.singletonList("a");
+            if (element == Integer.class) return Collections.singletonList(1);
+            if (element == Long.class) return Collections.singletonList(1L);
+        }
+        return null;
+    }
+
+    /**
+     * Bỏ các câu Room tự chạy (transaction, invalidation tracker)
+     */
+    private static boolean isDaoStatement(String sql) {
+        String head = sql.trim().toUpperCase(Locale.US);
+        boolean dml = head.startsWith("SELECT") || head.startsWith("WITH") || head.startsWith("INSERT")
+                || head.startsWith("UPDATE") || head.startsWith("DELETE");
+        return dml && !sql.contains("room_table_modification_log");
+    }
+
+    // ==================== PLAN ====================
+
+    private List<String> explain(String sql) {
+        List<String> details = new ArrayList<>();
+        try (Cursor cursor = db.getOpenHelper().getWritableDatabase().query("EXPLAIN QUERY PLAN " + sql)) {
+            int column = cursor.getColumnIndexOrThrow("detail");
+            while (cursor.moveToNext()) {
+                details.add(cursor.getString(column));
+            }
+        }
+        return details;
+    }
+
+    private static boolean isFullScan(String detail) {
+        Matcher matcher = FULL_SCAN.matcher(detail);
+        return matcher.find() && !"CONSTANT".equals(matcher.group(2)) && !"SUBQUERY".equals(matcher.group(2))
+                && !detail.contains("VIRTUAL TABLE");
+    }
+
+    // ==================== DRY RUN ====================
+
+    /**
+     * Bọc helper thật: khi dryRunWrites bật, compiled statement của câu ghi DAO
+     * chỉ trả kết quả rỗng thay vì chạy. QueryCallback của Room vẫn nhận SQL trước đó.
+     */
+    private class DryRunOpenHelperFactory implements SupportSQLiteOpenHelper.Factory {
+
+        private final SupportSQLiteOpenHelper.Factory delegate = new FrameworkSQLiteOpenHelperFactory();
+
+        @Override
+        public SupportSQLiteOpenHelper create(SupportSQLiteOpenHelper.Configuration configuration) {
+            SupportSQLiteOpenHelper helper = delegate.create(configuration);
+            return proxy(SupportSQLiteOpenHelper.class, (method, args) -> {
+                Object value = method.invoke(helper, args);
+                return value instanceof SupportSQLiteDatabase ? wrap((SupportSQLiteDatabase) value) : value;
+            });
+        }
+
+        private SupportSQLiteDatabase wrap(SupportSQLiteDatabase database) {
+            return proxy(SupportSQLiteDatabase.class, (method, args) -> {
+                Object value = method.invoke(database, args);
+                if ("compileStatement".equals(method.getName()) && isWrite((String) args[0])) {
+                    return wrap((SupportSQLiteStatement) value);
+                }
+                return value;
+            });
+        }
+
+        private SupportSQLiteStatement wrap(SupportSQLiteStatement statement) {
+            return proxy(SupportSQLiteStatement.class, (method, args) -> {
+                if (dryRunWrites) {
+                    switch (method.getName()) {
+                        case "execute":
+                            return null;
+                        case "executeUpdateDelete":
+                            return 0;
+                        case "executeInsert":
+                            return -1L;
+                    }
+                }
+                return method.invoke(statement, args);
+            });
+        }
+
+        private boolean isWrite(String sql) {
+            return isDaoStatement(sql) && !sql.trim().toUpperCase(Locale.US).startsWith("SELECT");
+        }
+    }
+
+    private interface Call {
+        Object invoke(Method method, Object[] args) throws Exception;
+    }
+
+    private static <T> T proxy(Class<T> type, Call call) {
+        Object proxy = Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (self, method, args) -> {
+            try {
+                return call.invoke(method, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+        return type.cast(proxy);
+    }
+
+    // ==================== DATA ====================
+
+    private static void populate(SupportSQLiteDatabase database) {
+        Random random = new Random(42);
+        String[] categories = {"com", "pho", "thit", "rau", "trai_cay", "do_uong", "an_vat", "api"};
+        String[] workoutCategories = {"cardio", "strength", "flexibility"};
+
+        TestRows.inTransaction(database, () -> {
+            TestRows.insert(database, "INSERT INTO users (id, username, passwordHash, createdAt) VALUES (?, ?, ?, ?)",
+                    USERS, (user, index) -> {
+                        int id = index + 1;
+                        user.bindLong(1, id);
+                        user.bindString(2, "user" + id);
+                        user.bindString(3, "hash" + id);
+                        user.bindLong(4, NOW);
+                    });
+
+            TestRows.insert(database, "INSERT INTO foods (id, name, calories, protein, carbs, fat, category, " +
+                    "isCustom, apiId, apiSource, cachedAt, searchName, userId) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                    FOODS, (food, index) -> {
+                        int id = index + 1;
+                        String category = categories[random.nextInt(categories.length)];
+                        boolean fromApi = "api".equals(category);
+                        boolean custom = !fromApi && random.nextInt(10) == 0;
+                        String name = "food " + Integer.toString(random.nextInt(1_000_000), 36) + " " + id;
+                        food.bindLong(1, id);
+                        food.bindString(2, name);
+                        food.bindDouble(3, random.nextInt(600));
+                        food.bindDouble(4, random.nextInt(40));
+                        food.bindDouble(5, random.nextInt(80));
+                        food.bindDouble(6, random.nextInt(30));
+                        food.bindString(7, category);
+                        food.bindLong(8, custom ? 1 : 0);
+                        if (fromApi) {
+                            food.bindLong(9, 100_000 + id);
+                            food.bindString(10, "fatsecret");
+                        }
+                        food.bindLong(11, fromApi ? NOW - random.nextInt(60) * DAY_MILLIS : 0);
+                        food.bindString(12, name);
+                        food.bindLong(13, custom ? 1 + random.nextInt(USERS) : 0);
+                    });
+
+            TestRows.insert(database, "INSERT INTO workouts (id, name, caloriesPerUnit, unit, category, isCustom) " +
+                    "VALUES (?, ?, ?, 'phút', ?, ?)",
+                    WORKOUTS, (workout, index) -> {
+                        int id = index + 1;
+                        workout.bindLong(1, id);
+                        workout.bindString(2, "workout " + id);
+                        workout.bindDouble(3, 1 + random.nextInt(15));
+                        workout.bindString(4, workoutCategories[id % workoutCategories.length]);
+                        workout.bindLong(5, id % 10 == 0 ? 1 : 0);
+                    });
+
+            TestRows.insert(database, "INSERT INTO food_entries (foodId, quantity, mealType, date, totalCalories, " +
+                    "totalProtein, totalCarbs, totalFat, localDay, localMinuteOfDay, userId, foodName, foodCategory, " +
+                    "caloriesPer100g, proteinPer100g, carbsPer100g, fatPer100g) " +
+                    "VALUES (?, ?, ?, ?, ?, 0, 0, 0, ?, ?, ?, 'food', ?, 0, 0, 0, 0)",
+                    FOOD_ENTRIES, (foodEntry, index) -> {
+                        long date = randomDate(random);
+                        foodEntry.bindLong(1, 1 + random.nextInt(FOODS));
+                        foodEntry.bindDouble(2, 50 + random.nextInt(300));
+                        foodEntry.bindLong(3, random.nextInt(4));
+                        foodEntry.bindLong(4, date);
+                        foodEntry.bindDouble(5, random.nextInt(900));
+                        foodEntry.bindLong(6, date / DAY_MILLIS);
+                        foodEntry.bindLong(7, (date % DAY_MILLIS) / 60_000);
+                        foodEntry.bindLong(8, 1 + random.nextInt(USERS));
+                        foodEntry.bindString(9, categories[random.nextInt(categories.length)]);
+                    });
+
+            TestRows.insert(database, "INSERT INTO workout_entries (workoutId, quantity, duration, date, " +
+                    "caloriesBurned, note, localDay, localMinuteOfDay, userId, workoutName, workoutUnit, " +
+                    "workoutCategory) VALUES (?, ?, ?, ?, ?, NULL, ?, ?, ?, ?, 'phút', ?)",
+                    WORKOUT_ENTRIES, (workoutEntry, index) -> {
+                        long date = randomDate(random);
+                        int workoutId = 1 + random.nextInt(WORKOUTS);
+                        workoutEntry.bindLong(1, workoutId);
+                        workoutEntry.bindDouble(2, 10 + random.nextInt(60));
+                        workoutEntry.bindLong(3, 10 + random.nextInt(60));
+                        workoutEntry.bindLong(4, date);
+                        workoutEntry.bindDouble(5, random.nextInt(700));
+                        workoutEntry.bindLong(6, date / DAY_MILLIS);
+                        workoutEntry.bindLong(7, (date % DAY_MILLIS) / 60_000);
+                        workoutEntry.bindLong(8, 1 + random.nextInt(USERS));
+                        workoutEntry.bindString(9, "workout " + workoutId);
+                        workoutEntry.bindString(10, workoutCategories[workoutId % workoutCategories.length]);
+                    });
+
+            TestRows.insert(database, "INSERT INTO weight_logs (weight, timestamp, note, userId) VALUES (?, ?, NULL, ?)",
+                    WEIGHT_LOGS, (weightLog, index) -> {
+                        weightLog.bindDouble(1, 50 + random.nextInt(40));
+                        weightLog.bindLong(2, randomDate(random));
+                        weightLog.bindLong(3, 1 + random.nextInt(USERS));
+                    });
+        });
+    }
+
+    // Trong 2 năm trước NOW
+    private static long randomDate(Random random) {
+        return NOW - (long) (random.nextDouble() * 730 * DAY_MILLIS);
+    }
+}
@@ -0,0 +1,342 @@
+package com.example.trackingcaloapp.data.local.database;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteOpenHelper;
+import androidx.sqlite.db.framework.FrameworkSQLiteOpenHelperFactory;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.trackingcaloapp.testutil.TestRows;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.ParameterizedRobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Đo chuỗi migration của AppDatabase trên database lớn, cho từng version xuất phát.
+ *
+ * Database version N được tạo từ schema version 1 (đổ dữ liệu rồi chạy migrations tới N,
+ * không tính giờ), sau đó mở bằng Room với toàn bộ migrations như app thật.
+ * Room chạy cả chuỗi N -> hiện tại trong một transaction nên write lock bị giữ suốt từ
+ * migration đầu tiên tới khi mở xong; query nào của app cũng phải chờ khoảng đó.
+ *
+ * Mỗi path fail nếu write lock vượt ngân sách; message của assertion kèm thời gian từng bước,
+ * thời gian giữ write lock và peak Java heap (không gồm bộ nhớ native của SQLite).
+ *
+ * Chỉ chạy khi bật (mất vài phút, không chạy trong testDebugUnitTest thường).
+ * Khối lượng và ngân sách chỉnh qua Gradle property:
+ * ./gradlew testDebugUnitTest --tests '*MigrationBenchmarkTest' -Pmigration.benchmark=true \
+ *     -Pmigration.entries=500000 -Pmigration.budgetMs=4000
+ */
+@RunWith(ParameterizedRobolectricTestRunner.class)
+@Config(sdk = 34)
+public class MigrationBenchmarkTest {
+
+    private static final String DB_NAME = "migration_benchmark.db";
+
+    private static final boolean ENABLED = Boolean.getBoolean("migration.benchmark");
+
+    private static final int FOOD_ENTRIES = Integer.getInteger("migration.entries", 100_000);
+    private static final long BUDGET_MS = Long.getLong("migration.budgetMs", 4_000L);
+
+    private static final int FOODS = 3_000;
+    private static final int WORKOUTS = 100;
+    private static final int WORKOUT_ENTRIES = FOOD_ENTRIES / 4;
+    private static final int WEIGHT_LOGS = 2_000;
+    private static final int USERS = 3;
+    private static final int HISTORY_DAYS = 3 * 365;
+    private static final long DAY_MILLIS = TestRows.DAY_MILLIS;
+    private static final long NOW = TestRows.NOW;
+
+    /**
+     * Schema version 1 (foods chưa có cột API, chưa có weight_logs/users),
+     * đúng như Room đã tạo cho các entity lúc đó
+     */
+    private static final String[] SCHEMA_V1 = {
+            "CREATE TABLE IF NOT EXISTS `foods` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`name` TEXT, `calories` REAL NOT NULL, `protein` REAL NOT NULL, `carbs` REAL NOT NULL, " +
+                    "`fat` REAL NOT NULL, `category` TEXT, `isCustom` INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS `food_entries` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`foodId` INTEGER NOT NULL, `quantity` REAL NOT NULL, `mealType` INTEGER NOT NULL, " +
+                    "`date` INTEGER NOT NULL, `totalCalories` REAL NOT NULL, `totalProtein` REAL NOT NULL, " +
+                    "`totalCarbs` REAL NOT NULL, `totalFat` REAL NOT NULL, " +
+                    "FOREIGN KEY(`foodId`) REFERENCES `foods`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )",
+            "CREATE INDEX IF NOT EXISTS `index_food_entries_foodId` ON `food_entries` (`foodId`)",
+            "CREATE INDEX IF NOT EXISTS `index_food_entries_date` ON `food_entries` (`date`)",
+            "CREATE TABLE IF NOT EXISTS `workouts` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`name` TEXT, `caloriesPerUnit` REAL NOT NULL, `unit` TEXT, `category` TEXT, " +
+                    "`isCustom` INTEGER NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS `workout_entries` (`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, " +
+                    "`workoutId` INTEGER NOT NULL, `quantity` REAL NOT NULL, `duration` INTEGER NOT NULL, " +
+                    "`date` INTEGER NOT NULL, `caloriesBurned` REAL NOT NULL, `note` TEXT, " +
+                    "FOREIGN KEY(`workoutId`) REFERENCES `workouts`(`id`) ON UPDATE NO ACTION ON DELETE CASCADE )",
+            "CREATE INDEX IF NOT EXISTS `index_workout_entries_workoutId` ON `workout_entries` (`workoutId`)",
+            "CREATE INDEX IF NOT EXISTS `index_workout_entries_date` ON `workout_entries` (`date`)"
+    };
+
+    @ParameterizedRobolectricTestRunner.Parameters(name = "from v{0}")
+    public static Collection<Object[]> startVersions() {
+        List<Object[]> versions = new ArrayList<>();
+        for (Migration migration : AppDatabase.ALL_MIGRATIONS) {
+            versions.add(new Object[]{migration.startVersion});
+        }
+        return versions;
+    }
+
+    private final int startVersion;
+    private Context context;
+
+    public MigrationBenchmarkTest(int startVersion) {
+        this.startVersion = startVersion;
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue("Enable with -Pmigration.benchmark=true", ENABLED);
+        context = ApplicationProvider.getApplicationContext();
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @After
+    public void tearDown() {
+        context.deleteDatabase(DB_NAME);
+    }
+
+    @Test
+    public void migrationPath_staysWithinBudget() {
+        generateDatabase(startVersion);
+
+        List<String> steps = new ArrayList<>();
+        long[] firstStepStart = {0};
+        Migration[] timed = new Migration[AppDatabase.ALL_MIGRATIONS.length];
+        for (int i = 0; i < timed.length; i++) {
+            Migration migration = AppDatabase.ALL_MIGRATIONS[i];
+            timed[i] = new Migration(migration.startVersion, migration.endVersion) {
+                @Override
+                public void migrate(@NonNull SupportSQLiteDatabase database) {
+                    long start = System.nanoTime();
+                    if (firstStepStart[0] == 0) {
+                        firstStepStart[0] = start;
+                    }
+                    migration.migrate(database);
+                    steps.add(String.format(Locale.US, "%d -> %d: %d ms", migration.startVersion,
+                            migration.endVersion, (System.nanoTime() - start) / 1_000_000));
+                }
+            };
+        }
+
+        AppDatabase db = Room.databaseBuilder(context, AppDatabase.class, DB_NAME)
+                .addMigrations(timed)
+                .setJournalMode(RoomDatabase.JournalMode.WRITE_AHEAD_LOGGING)
+                .setQueryExecutor(Runnable::run)
+                .setTransactionExecutor(Runnable::run)
+                .allowMainThreadQueries()
+                .build();
+        HeapSampler heap = new HeapSampler();
+        long openStart = System.nanoTime();
+        try {
+            heap.start();
+            // Room chạy migrations, kiểm tra schema khớp entities rồi mới commit
+            SupportSQLiteDatabase migrated = db.getOpenHelper().getWritableDatabase();
+            long openEnd = System.nanoTime();
+            long peakHeap = heap.stop();
+
+            long lockMs = (openEnd - firstStepStart[0]) / 1_000_000;
+            String report = String.format(Locale.US,
+                    "Migration v%d -> v%d (%d food entries, %d workout entries): %s; " +
+                    "open: %d ms, write lock: %d ms, peak Java heap: +%.1f MB (excl. SQLite native), budget: %d ms",
+                    startVersion, AppDatabase.ALL_MIGRATIONS[AppDatabase.ALL_MIGRATIONS.length - 1].endVersion,
+                    FOOD_ENTRIES, WORKOUT_ENTRIES, String.join(", ", steps),
+                    (openEnd - openStart) / 1_000_000, lockMs, peakHeap / (1024.0 * 1024.0), BUDGET_MS);
+
+            assertEquals(report, FOOD_ENTRIES, TestRows.count(migrated, "food_entries"));
+            assertEquals(report, WORKOUT_ENTRIES, TestRows.count(migrated, "workout_entries"));
+            assertTrue("Write lock over budget. " + report, lockMs <= BUDGET_MS);
+        } finally {
+            heap.stop();
+            db.close();
+        }
+    }
+
+    // ==================== GENERATE ====================
+
+    /**
+     * Tạo database version 1 có dữ liệu, rồi chạy migrations (không đo) tới version cần test.
+     * Weight logs và users chỉ được thêm khi bảng của chúng đã có ở version đó.
+     */
+    private void generateDatabase(int version) {
+        SupportSQLiteOpenHelper helper = new FrameworkSQLiteOpenHelperFactory().create(
+                SupportSQLiteOpenHelper.Configuration.builder(context)
+                        .name(DB_NAME)
+                        .callback(new SupportSQLiteOpenHelper.Callback(1) {
+                            @Override
+                            public void onCreate(@NonNull SupportSQLiteDatabase db) {
+                                for (String sql : SCHEMA_V1) {
+                                    db.execSQL(sql);
+                                }
+                            }
+
+                            @Override
+                            public void onUpgrade(@NonNull SupportSQLiteDatabase db, int oldVersion, int newVersion) {
+                                throw new IllegalStateException("Fresh benchmark database expected");
+                            }
+                        })
+                        .build());
+        try {
+            SupportSQLiteDatabase db = helper.getWritableDatabase();
+            Random random = new Random(42);
+            TestRows.inTransaction(db, () -> populateV1(db, random));
+            for (Migration migration : AppDatabase.ALL_MIGRATIONS) {
+                if (migration.endVersion > version) {
+                    break;
+                }
+                TestRows.inTransaction(db, () -> migration.migrate(db));
+            }
+            TestRows.inTransaction(db, () -> populateLater(db, random, version));
+            db.setVersion(version);
+        } finally {
+            helper.close();
+        }
+    }
+
+    private static void populateV1(SupportSQLiteDatabase db, Random random) {
+        String[] categories = {"com", "pho", "thit", "rau", "trai_cay", "do_uong", "an_vat"};
+        String[] workoutCategories = {"cardio", "strength", "flexibility"};
+
+        TestRows.insert(db, "INSERT INTO foods (name, calories, protein, carbs, fat, category, isCustom) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?)", FOODS, (food, index) -> {
+                    food.bindString(1, "Món ăn số " + (index + 1) + " đặc biệt");
+                    food.bindDouble(2, random.nextInt(600));
+                    food.bindDouble(3, random.nextInt(40));
+                    food.bindDouble(4, random.nextInt(80));
+                    food.bindDouble(5, random.nextInt(30));
+                    food.bindString(6, categories[random.nextInt(categories.length)]);
+                    food.bindLong(7, random.nextInt(10) == 0 ? 1 : 0);
+                });
+
+        TestRows.insert(db, "INSERT INTO workouts (name, caloriesPerUnit, unit, category, isCustom) " +
+                "VALUES (?, ?, 'phút', ?, 0)", WORKOUTS, (workout, index) -> {
+                    int id = index + 1;
+                    workout.bindString(1, "Bài tập " + id);
+                    workout.bindDouble(2, 1 + random.nextInt(15));
+                    workout.bindString(3, workoutCategories[id % workoutCategories.length]);
+                });
+
+        TestRows.insert(db, "INSERT INTO food_entries (foodId, quantity, mealType, date, totalCalories, " +
+                "totalProtein, totalCarbs, totalFat) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                FOOD_ENTRIES, (foodEntry, index) -> {
+                    foodEntry.bindLong(1, 1 + random.nextInt(FOODS));
+                    foodEntry.bindDouble(2, 50 + random.nextInt(300));
+                    foodEntry.bindLong(3, random.nextInt(4));
+                    foodEntry.bindLong(4, randomDate(random));
+                    foodEntry.bindDouble(5, random.nextInt(900));
+                    foodEntry.bindDouble(6, random.nextInt(60));
+                    foodEntry.bindDouble(7, random.nextInt(120));
+                    foodEntry.bindDouble(8, random.nextInt(50));
+                });
+
+        TestRows.insert(db, "INSERT INTO workout_entries (workoutId, quantity, duration, date, caloriesBurned, " +
+                "note) VALUES (?, ?, ?, ?, ?, NULL)", WORKOUT_ENTRIES, (workoutEntry, index) -> {
+                    workoutEntry.bindLong(1, 1 + random.nextInt(WORKOUTS));
+                    workoutEntry.bindDouble(2, 10 + random.nextInt(60));
+                    workoutEntry.bindLong(3, 10 + random.nextInt(60));
+                    workoutEntry.bindLong(4, randomDate(random));
+                    workoutEntry.bindDouble(5, random.nextInt(700));
+                });
+    }
+
+    private static void populateLater(SupportSQLiteDatabase db, Random random, int version) {
+        if (version >= 3) {
+            TestRows.insert(db, "INSERT INTO weight_logs (weight, timestamp, note) VALUES (?, ?, NULL)",
+                    WEIGHT_LOGS, (weightLog, index) -> {
+                        weightLog.bindDouble(1, 50 + random.nextInt(40));
+                        weightLog.bindLong(2, randomDate(random));
+                    });
+        }
+        if (version >= 4) {
+            TestRows.insert(db, "INSERT INTO users (username, passwordHash, createdAt) VALUES (?, ?, ?)",
+                    USERS, (user, index) -> {
+                        user.bindString(1, "user" + (index + 1));
+                        user.bindString(2, "hash" + (index + 1));
+                        user.bindLong(3, NOW);
+                    });
+        }
+    }
+
+    private static long randomDate(Random random) {
+        return NOW - (long) (random.nextDouble() * HISTORY_DAYS * DAY_MILLIS);
+    }
+
+    // ==================== MEMORY ====================
+
+    /**
+     * Lấy mẫu Java heap đang dùng mỗi vài ms trong lúc migrate
+     */
+    private static final class HeapSampler extends Thread {
+
+        private final Runtime runtime = Runtime.getRuntime();
+        private volatile boolean running = true;
+        private long baseline;
+        private long peak;
+
+        HeapSampler() {
+            super("migration-heap-sampler");
+            setDaemon(true);
+        }
+
+        @Override
+        public synchronized void start() {
+            System.gc();
+            baseline = used();
+            peak = baseline;
+            super.start();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                peak = Math.max(peak, used());
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        /**
+         * @return Mức tăng heap cao nhất so với lúc bắt đầu (bytes)
+         */
+        long stop() {
+            running = false;
+            try {
+                join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Math.max(0, peak - baseline);
+        }
+
+        private long used() {
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.trackingcaloapp.data.local.database;
+
+import android.content.Context;
+import android.database.Cursor;
+
+import androidx.room.Room;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Kiểm tra SeedCatalogLoader: catalog đóng gói nạp trong SEED_BUDGET_MS, catalog chờ nạp
+ * chỉ nạp một lần, dòng TSV sai định dạng bị bỏ qua thay vì làm hỏng việc tạo database.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class SeedCatalogLoaderTest {
+
+    private AppDatabase db;
+    private SupportSQLiteDatabase sqlite;
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        // inMemoryDatabaseBuilder không gắn callback seed nên bảng catalog bắt đầu rỗng
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        sqlite = db.getOpenHelper().getWritableDatabase();
+    }
+
+    @After
+    public void tearDown() {
+        db.close();
+    }
+
+    @Test
+    public void bundledCatalog_seedsWithinBudget() throws Exception {
+        long start = System.nanoTime();
+        int rows = SeedCatalogLoader.load(ApplicationProvider.getApplicationContext(), sqlite);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(rows > 0);
+        assertEquals(rows, count("foods") + count("workouts"));
+        assertTrue("Seeding " + rows + " rows took " + elapsedMs + "ms, budget is "
+                        + SeedCatalogLoader.SEED_BUDGET_MS + "ms",
+                elapsedMs <= SeedCatalogLoader.SEED_BUDGET_MS);
+    }
+
+    @Test
+    public void pendingCatalog_isLoadedOnceOnOpen() {
+        Context context = ApplicationProvider.getApplicationContext();
+        SeedCatalogLoader.markPending(context);
+
+        assertTrue(SeedCatalogLoader.loadIfPending(context, sqlite));
+        int foods = count("foods");
+        assertTrue(foods > 0);
+
+        // Đã nạp xong: lần mở sau không nạp lại
+        assertTrue(SeedCatalogLoader.loadIfPending(context, sqlite));
+        assertEquals(foods, count("foods"));
+    }
+
+    @Test
+    public void malformedFoodLines_areSkipped() throws Exception {
+        String tsv = "# name\tcalories\tprotein\tcarbs\tfat\tcategory\n"
+                + "Cơm trắng\t130\t2.7\t28\t0.3\tcom\n"
+                + "Phở bò\t110\t8\n"                        // thiếu cột
+                + "Bánh mì\tabc\t9\t49\t3.2\tbanh\n"        // calories không phải số
+                + "\n"
+                + "Chuối\t89\t1.1\t23\t0.3\ttrai_cay\n";
+
+        int rows = SeedCatalogLoader.insertFoods(reader(tsv), sqlite);
+
+        assertEquals(2, rows);
+        assertEquals(2, count("foods"));
+    }
+
+    @Test
+    public void malformedWorkoutLines_areSkipped() throws Exception {
+        String tsv = "Chạy bộ\t10\tphút\tcardio\n"
+                + "Đạp xe\tnhanh\tphút\tcardio\n"            // caloriesPerUnit không phải số
+                + "Hít đất\t0.5\n";                          // thiếu cột
+
+        int rows = SeedCatalogLoader.insertWorkouts(reader(tsv), sqlite);
+
+        assertEquals(1, rows);
+        assertEquals(1, count("workouts"));
+    }
+
+    // ==================== HELPERS ====================
+
+    private static BufferedReader reader(String content) {
+        return new BufferedReader(new StringReader(content));
+    }
+
+    private int count(String table) {
+        try (Cursor cursor = sqlite.query("SELECT COUNT(*) FROM " + table)) {
+            cursor.moveToFirst();
+            return cursor.getInt(0);
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.trackingcaloapp.data.remote;
+
+import com.example.trackingcaloapp.data.local.entity.Food;
+import com.example.trackingcaloapp.testutil.Benchmarks;
+import com.example.trackingcaloapp.testutil.Benchmarks.Measurement;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Kiểm tra UsdaParser và so sánh với cách cũ (String + cây JSONObject của JsonObjectRequest)
+ * trên một trang /foods/search 50 kết quả, mỗi food ~150 nutrients như response thật.
+ *
+ * Chỉ assert streaming parse cấp phát ít bytes hơn; ms/page và KB/page của từng cách
+ * nằm trong message của assertion (thời gian phụ thuộc máy chạy test nên không assert).
+ * Số lần lặp chỉnh qua Gradle property:
+ * ./gradlew testDebugUnitTest --tests '*UsdaParserBenchmarkTest' -Pusda.iterations=500
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class UsdaParserBenchmarkTest {
+
+    private static final int ITERATIONS = Integer.getInteger("usda.iterations", 200);
+    private static final int WARMUP = 50;
+
+    private static final int PAGE_SIZE = 50;
+    private static final int NUTRIENTS_PER_FOOD = 150;
+
+    @Test
+    public void parse_keepsOnlyNeededFields() throws Exception {
+        String json = "{\"totalHits\": 2, \"foodSearchCriteria\": {\"query\": \"apple\", \"pageSize\": 50}," +
+                "\"foods\": [" +
+                "{\"fdcId\": 454004, \"description\": \"APPLE, RAW\", \"dataType\": \"Branded\"," +
+                " \"gtinUpc\": null, \"foodMeasures\": [{\"gramWeight\": 182}]," +
+                " \"foodNutrients\": [" +
+                "  {\"nutrientId\": 1008, \"nutrientName\": \"Energy\", \"value\": 52.0}," +
+                "  {\"nutrientId\": 1003, \"value\": 0.26}," +
+                "  {\"nutrientId\": 1004, \"value\": 0.17, \"derivationCode\": \"LCCS\"}," +
+                "  {\"nutrientId\": 1005, \"value\": 13.81}," +
+                "  {\"nutrientId\": 1079, \"value\": 2.4}," +
+                "  {\"nutrientId\": 1093, \"value\": null}]}," +
+                "{\"description\": \"NO ID\"}," +
+                "{\"fdcId\": 1, \"description\": null, \"foodNutrients\": null}" +
+                "], \"aggregations\": {\"dataType\": {\"Branded\": 2}}}";
+
+        List<Food> foods = UsdaParser.parseSearchResponse(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)));
+
+        assertEquals(2, foods.size());
+        Food apple = foods.get(0);
+        assertEquals(Long.valueOf(454004), apple.getApiId());
+        assertEquals("usda", apple.getApiSource());
+        assertEquals("Apple, Raw", apple.getName());
+        assertEquals(52.0f, apple.getCalories(), 0.001f);
+        assertEquals(0.26f, apple.getProtein(), 0.001f);
+        assertEquals(13.81f, apple.getCarbs(), 0.001f);
+        assertEquals(0.17f, apple.getFat(), 0.001f);
+
+        Food unnamed = foods.get(1);
+        assertEquals("Unknown", unnamed.getName());
+        assertEquals(0f, unnamed.getCalories(), 0f);
+    }
+
+    @Test(expected = java.io.IOException.class)
+    public void parse_rejectsMalformedJson() throws Exception {
+        UsdaParser.parseSearchResponse(new ByteArrayInputStream(
+                "{\"foods\": [{\"fdcId\": ".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void streamingParse_allocatesLessThanDom() throws Exception {
+        byte[] page = generatePage(new Random(42));
+
+        // Hai cách phải cho cùng kết quả
+        List<Food> streamed = UsdaParser.parseSearchResponse(new ByteArrayInputStream(page));
+        List<Food> dom = parseDom(page);
+        assertEquals(PAGE_SIZE, streamed.size());
+        assertEquals(dom.size(), streamed.size());
+        for (int i = 0; i < dom.size(); i++) {
+            assertEquals(dom.get(i).getApiId(), streamed.get(i).getApiId());
+            assertEquals(dom.get(i).getName(), streamed.get(i).getName());
+            assertEquals(dom.get(i).getCalories(), streamed.get(i).getCalories(), 0f);
+            assertEquals(dom.get(i).getProtein(), streamed.get(i).getProtein(), 0f);
+            assertEquals(dom.get(i).getCarbs(), streamed.get(i).getCarbs(), 0f);
+            assertEquals(dom.get(i).getFat(), streamed.get(i).getFat(), 0f);
+        }
+
+        Measurement streaming = measure(() -> UsdaParser.parseSearchResponse(new ByteArrayInputStream(page)).size());
+        Measurement baseline = measure(() -> parseDom(page).size());
+        assertEquals((long) ITERATIONS * PAGE_SIZE, streaming.items);
+        assertEquals((long) ITERATIONS * PAGE_SIZE, baseline.items);
+
+        if (streaming.hasAllocation() && baseline.hasAllocation()) {
+            String report = String.format(Locale.US,
+                    "USDA page: %d foods x %d nutrients, %d KB; " +
+                    "streaming: %.3f ms/page, %d KB allocated/page; " +
+                    "dom: %.3f ms/page, %d KB allocated/page",
+                    PAGE_SIZE, NUTRIENTS_PER_FOOD, page.length / 1024,
+                    streaming.millisPerRun(), streaming.bytesPerRun() / 1024,
+                    baseline.millisPerRun(), baseline.bytesPerRun() / 1024);
+            assertTrue("Streaming parse should allocate less than the DOM parse. " + report,
+                    streaming.bytesPerRun() < baseline.bytesPerRun());
+        }
+    }
+
+    private static Measurement measure(Benchmarks.Task parse) throws Exception {
+        return Benchmarks.measure(WARMUP, ITERATIONS, parse);
+    }
+
+    // ==================== BASELINE ====================
+
+    /**
+     * Cách parse cũ: JsonObjectRequest dựng String và JSONObject, rồi duyệt mọi nutrient
+     */
+    private static List<Food> parseDom(byte[] page) throws Exception {
+        JSONObject response = new JSONObject(new String(page, StandardCharsets.UTF_8));
+        JSONArray foodsArray = response.getJSONArray("foods");
+        List<Food> foods = new ArrayList<>();
+        for (int i = 0; i < foodsArray.length(); i++) {
+            JSONObject obj = foodsArray.getJSONObject(i);
+            float calories = 0, protein = 0, carbs = 0, fat = 0;
+            JSONArray nutrients = obj.getJSONArray("foodNutrients");
+            for (int j = 0; j < nutrients.length(); j++) {
+                JSONObject nutrient = nutrients.getJSONObject(j);
+                float value = (float) nutrient.optDouble("value", 0);
+                switch (nutrient.optInt("nutrientId", 0)) {
+                    case 1008: calories = value; break;
+                    case 1003: protein = value; break;
+                    case 1005: carbs = value; break;
+                    case 1004: fat = value; break;
+                }
+            }
+            Food food = new Food(titleCase(obj.optString("description", "Unknown")),
+                    calories, protein, carbs, fat, "api", false);
+            food.setApiId(obj.getLong("fdcId"));
+            food.setApiSource("usda");
+            foods.add(food);
+        }
+        return foods;
+    }
+
+    private static String titleCase(String name) {
+        StringBuilder result = new StringBuilder();
+        boolean capitalizeNext = true;
+        for (char c : name.toLowerCase().toCharArray()) {
+            boolean separator = Character.isWhitespace(c) || c == ',' || c == '-';
+            result.append(capitalizeNext && !separator ? Character.toUpperCase(c) : c);
+            capitalizeNext = separator;
+        }
+        return result.toString();
+    }
+
+    // ==================== DATA ====================
+
+    /**
+     * Trang search giống response thật của FoodData Central (Branded foods)
+     */
+    private static byte[] generatePage(Random random) {
+        StringBuilder json = new StringBuilder(1 << 20);
+        json.append("{\"totalHits\": 26818, \"currentPage\": 1, \"totalPages\": 537, \"pageList\": [1,2,3,4,5],")
+                .append("\"foodSearchCriteria\": {\"query\": \"chicken\", \"generalSearchInput\": \"chicken\",")
+                .append(" \"pageNumber\": 1, \"numberOfResultsPerPage\": 50, \"pageSize\": 50,")
+                .append(" \"requireAllWords\": false}, \"foods\": [");
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            if (i > 0) json.append(',');
+            String description = "CHICKEN BREAST, GRILLED " + i;
+            json.append("{\"fdcId\": ").append(2_000_000 + i)
+                    .append(", \"description\": \"").append(description)
+                    .append("\", \"lowercaseDescription\": \"").append(description.toLowerCase(Locale.US))
+                    .append("\", \"dataType\": \"Branded\", \"gtinUpc\": \"0").append(70_000_000_000L + i)
+                    .append("\", \"publishedDate\": \"2024-10-31\", \"brandOwner\": \"Example Foods Inc.\",")
+                    .append(" \"ingredients\": \"CHICKEN BREAST WITH RIB MEAT, WATER, SALT, SODIUM PHOSPHATES,")
+                    .append(" NATURAL FLAVOR, SPICES, GARLIC POWDER, ONION POWDER, PAPRIKA.\",")
+                    .append(" \"marketCountry\": \"United States\", \"foodCategory\": \"Chicken - Prepared\",")
+                    .append(" \"allHighlightFields\": \"\", \"score\": ").append(900 - i).append(".5,")
+                    .append(" \"microbes\": [], \"foodNutrients\": [");
+            for (int j = 0; j < NUTRIENTS_PER_FOOD; j++) {
+                int nutrientId = j < 4 ? new int[]{1003, 1004, 1005, 1008}[j] : 1050 + j;
+                if (j > 0) json.append(',');
+                json.append("{\"nutrientId\": ").append(nutrientId)
+                        .append(", \"nutrientName\": \"Nutrient ").append(nutrientId)
+                        .append("\", \"nutrientNumber\": \"").append(nutrientId - 800)
+                        .append("\", \"unitName\": \"G\", \"derivationCode\": \"LCCS\",")
+                        .append(" \"derivationDescription\": \"Calculated from value per serving size measure\",")
+                        .append(" \"derivationId\": 70, \"value\": ")
+                        .append(String.format(Locale.US, "%.2f", random.nextFloat() * 100))
+                        .append(", \"foodNutrientSourceId\": 9, \"foodNutrientSourceCode\": \"12\",")
+                        .append(" \"foodNutrientSourceDescription\": \"Manufacturer's analytical; partial documentation\",")
+                        .append(" \"rank\": ").append(600 + j).append(", \"indentLevel\": 1, \"foodNutrientId\": ")
+                        .append(30_000_000 + i * NUTRIENTS_PER_FOOD + j).append(", \"percentDailyValue\": 0}");
+            }
+            json.append("], \"finalFoodInputFoods\": [], \"foodMeasures\": [], \"foodAttributes\": [],")
+                    .append(" \"foodAttributeTypes\": [], \"foodVersionIds\": []}");
+        }
+        json.append("], \"aggregations\": {\"dataType\": {\"Branded\": 26818}, \"nutrients\": {}}}");
+        return json.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.trackingcaloapp.data.remote;
+
+import com.android.volley.NetworkResponse;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Kiểm tra UsdaRateLimiter (token bucket, Retry-After, backoff) với đồng hồ giả,
+ * và cách UsdaApiService đọc header Retry-After.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class UsdaRateLimiterTest {
+
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+    private static final int QUOTA = 1000;
+    private static final int BURST = 10;
+
+    private long now = 1_000_000L;
+
+    // ==================== TOKEN BUCKET ====================
+
+    @Test
+    public void burst_thenRejectsUntilRefill() {
+        UsdaRateLimiter limiter = limiter(QUOTA, BURST);
+
+        for (int i = 0; i < BURST; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+        assertEquals(BURST, limiter.getGrantedCount());
+        assertEquals(1, limiter.getRejectedCount());
+
+        // Một token nạp lại sau HOUR_MS / (QUOTA - BURST)
+        long refill = limiter.getRetryDelayMs();
+        assertEquals((long) Math.ceil((double) HOUR_MS / (QUOTA - BURST)), refill);
+        now += refill - 1;
+        assertFalse(limiter.tryAcquire());
+        now += 1;
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void greedyClient_neverExceedsQuotaInAnHour() {
+        UsdaRateLimiter limiter = limiter(QUOTA, BURST);
+        long end = now + HOUR_MS;
+        int sent = 0;
+        for (; now < end; now += 100) {
+            while (limiter.tryAcquire()) {
+                sent++;
+            }
+        }
+        assertTrue("sent " + sent, sent <= QUOTA);
+        assertTrue("sent " + sent, sent >= QUOTA - 1);
+    }
+
+    @Test
+    public void serverRemaining_capsTokens() {
+        UsdaRateLimiter limiter = limiter(QUOTA, BURST);
+
+        limiter.onSuccess(2);
+
+        assertEquals(2, limiter.getServerRemaining());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+    }
+
+    // ==================== THROTTLED BY SERVER ====================
+
+    @Test
+    public void retryAfter_blocksUntilItExpires() {
+        UsdaRateLimiter limiter = limiter(QUOTA, BURST);
+
+        limiter.onThrottled(30_000L);
+
+        assertEquals(1, limiter.getServerThrottledCount());
+        assertEquals(30_000L, limiter.getRetryDelayMs());
+        now += 29_999;
+        assertFalse(limiter.tryAcquire());
+        now += 1;
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void backoff_doublesWithEqualJitterAndResetsOnSuccess() {
+        // Nạp lại 10 token/ms để chỉ còn backoff quyết định thời gian chờ
+        UsdaRateLimiter limiter = limiter(36_000_000 + BURST, BURST);
+
+        long expected = 2_000;
+        for (int i = 0; i < 5; i++) {
+            limiter.onThrottled(null);
+            long delay = limiter.getRetryDelayMs();
+            assertTrue("delay " + delay, delay >= expected / 2 && delay <= expected);
+            now += delay;
+            expected *= 2;
+        }
+
+        limiter.onSuccess(null);
+        limiter.onThrottled(null);
+        long delay = limiter.getRetryDelayMs();
+        assertTrue("delay " + delay, delay >= 1_000 && delay <= 2_000);
+    }
+
+    @Test
+    public void backoff_isCapped() {
+        UsdaRateLimiter limiter = limiter(36_000_000 + BURST, BURST);
+        for (int i = 0; i < 40; i++) {
+            limiter.onThrottled(null);
+            long delay = limiter.getRetryDelayMs();
+            assertTrue("delay " + delay, delay <= 15 * 60 * 1000L);
+            now += delay;
+        }
+    }
+
+    @Test
+    public void shorterRetryAfter_doesNotShortenBackoff() {
+        UsdaRateLimiter limiter = limiter(36_000_000 + BURST, BURST);
+
+        limiter.onThrottled(0L);
+
+        assertTrue(limiter.getRetryDelayMs() >= 1_000);
+    }
+
+    // ==================== RETRY-AFTER HEADER ====================
+
+    @Test
+    public void retryAfter_seconds() {
+        assertEquals(Long.valueOf(120_000L), UsdaApiService.parseRetryAfterMs(response(" 120 "), 0));
+        assertEquals(Long.valueOf(0L), UsdaApiService.parseRetryAfterMs(response("-5"), 0));
+    }
+
+    @Test
+    public void retryAfter_httpDate() {
+        long date = 1_445_412_480_000L;     // Wed, 21 Oct 2015 07:28:00 GMT
+        assertEquals(Long.valueOf(90_000L),
+                UsdaApiService.parseRetryAfterMs(response("Wed, 21 Oct 2015 07:28:00 GMT"), date - 90_000));
+        // Ngày đã qua: gửi lại được ngay
+        assertEquals(Long.valueOf(0L),
+                UsdaApiService.parseRetryAfterMs(response("Wed, 21 Oct 2015 07:28:00 GMT"), date + 1));
+    }
+
+    @Test
+    public void retryAfter_missingOrInvalid() {
+        assertNull(UsdaApiService.parseRetryAfterMs(new NetworkResponse(new byte[0], new HashMap<>()), 0));
+        assertNull(UsdaApiService.parseRetryAfterMs(response("soon"), 0));
+    }
+
+    // ==================== HELPERS ====================
+
+    private UsdaRateLimiter limiter(int quotaPerHour, int burst) {
+        return new UsdaRateLimiter(quotaPerHour, burst, () -> now);
+    }
+
+    private static NetworkResponse response(String retryAfter) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Retry-After", retryAfter);
+        return new NetworkResponse(new byte[0], headers);
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.trackingcaloapp.data.repository;
+
+import android.content.Context;
+import android.text.TextUtils;
+
+import androidx.room.Room;
+import androidx.test.core.app.ApplicationProvider;
+
+import com.example.trackingcaloapp.data.local.database.AppDatabase;
+import com.example.trackingcaloapp.data.local.entity.Food;
+import com.example.trackingcaloapp.data.local.entity.SearchCache;
+import com.example.trackingcaloapp.data.remote.UsdaApiService;
+import com.example.trackingcaloapp.utils.Constants;
+import com.example.trackingcaloapp.utils.SearchUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Kiểm tra FoodRepository.searchHybrid với search_cache:
+ * kết quả còn mới, quá hạn (trả cache rồi kết quả API thay thế), chưa có, và có food đã bị xóa.
+ * USDA API được thay bằng FakeApiService trả kết quả ngay, không gọi network.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 34)
+public class FoodRepositorySearchCacheTest {
+
+    private static final String QUERY = "chicken";
+    private static final long TIMEOUT_MS = 5000;
+    // Đủ lâu để một lần gọi API (nếu có) chạy xong trên executor
+    private static final long QUIET_MS = 500;
+
+    private AppDatabase db;
+    private FakeApiService api;
+    private FoodRepository repository;
+    private final BlockingQueue<List<Food>> results = new LinkedBlockingQueue<>();
+    private final BlockingQueue<String> errors = new LinkedBlockingQueue<>();
+
+    @Before
+    public void setUp() {
+        Context context = ApplicationProvider.getApplicationContext();
+        db = Room.inMemoryDatabaseBuilder(context, AppDatabase.class)
+                .allowMainThreadQueries()
+                .build();
+        api = new FakeApiService(context);
+        repository = new FoodRepository(db, 1, api);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        // Queue gắn với db của test này: ghi nốt phần đang chờ trước khi đóng
+        WriteBehindQueue.getInstance(db).flush().get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        db.close();
+    }
+
+    @Test
+    public void freshCache_returnsCachedFoodsWithoutCallingApi() throws Exception {
+        db.foodDao().upsertApiFoods(Arrays.asList(usdaFood(101, "Chicken breast"), usdaFood(102, "Chicken thigh")));
+        putCache(System.currentTimeMillis(), Constants.SEARCH_CACHE_TTL_MS, 102, 101);
+
+        search();
+
+        assertEquals(Arrays.asList("Chicken thigh", "Chicken breast"), names(next()));
+        assertNull(results.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+        assertEquals(0, api.calls.get());
+    }
+
+    @Test
+    public void freshEmptyResult_returnsEmptyListWithoutCallingApi() throws Exception {
+        putCache(System.currentTimeMillis(), Constants.SEARCH_CACHE_EMPTY_TTL_MS);
+
+        search();
+
+        assertTrue(next().isEmpty());
+        assertNull(results.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+        assertEquals(0, api.calls.get());
+    }
+
+    @Test
+    public void staleCache_returnsCachedThenApiResultsAsReplacement() throws Exception {
+        db.foodDao().upsertApiFoods(Arrays.asList(usdaFood(101, "Chicken breast"), usdaFood(102, "Chicken thigh")));
+        long fetchedAt = System.currentTimeMillis() - Constants.SEARCH_CACHE_TTL_MS - 1;
+        putCache(fetchedAt, Constants.SEARCH_CACHE_TTL_MS, 101, 102);
+        api.response = Arrays.asList(usdaFood(103, "Chicken wing"), usdaFood(101, "Chicken breast, roasted"));
+
+        search();
+
+        assertEquals(Arrays.asList("Chicken breast", "Chicken thigh"), names(next()));
+        List<Food> fresh = next();
+        assertEquals(Arrays.asList("Chicken wing", "Chicken breast, roasted"), names(fresh));
+        assertEquals(1, api.calls.get());
+
+        // Food đã có được cập nhật tại chỗ (cùng id), kết quả mới được ghi lại vào cache
+        Food updated = db.foodDao().getFoodByApiId("usda", 101);
+        assertEquals(updated.getId(), fresh.get(1).getId());
+        SearchCache cached = db.searchCacheDao().get(SearchUtils.normalize(QUERY));
+        assertEquals("103,101", cached.getApiIds());
+        assertTrue(cached.isFresh(System.currentTimeMillis()));
+    }
+
+    @Test
+    public void staleCache_apiErrorIsNotReported() throws Exception {
+        db.foodDao().upsertApiFoods(Arrays.asList(usdaFood(101, "Chicken breast")));
+        putCache(System.currentTimeMillis() - Constants.SEARCH_CACHE_TTL_MS - 1, Constants.SEARCH_CACHE_TTL_MS, 101);
+        api.error = "offline";
+
+        search();
+
+        assertEquals(Arrays.asList("Chicken breast"), names(next()));
+        assertNull(results.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+        assertEquals(1, api.calls.get());
+        assertTrue(errors.isEmpty());
+    }
+
+    @Test
+    public void missingCache_callsApiAndCachesResults() throws Exception {
+        api.response = Arrays.asList(usdaFood(201, "Chicken soup"), usdaFood(202, "Chicken salad"));
+
+        search();
+
+        List<Food> foods = next();
+        assertEquals(Arrays.asList("Chicken soup", "Chicken salad"), names(foods));
+        // Trả sau khi ghi nên foods đã có id local
+        assertTrue(foods.get(0).getId() > 0);
+        assertEquals(1, api.calls.get());
+
+        SearchCache cached = db.searchCacheDao().get(SearchUtils.normalize(QUERY));
+        assertNotNull(cached);
+        assertEquals("201,202", cached.getApiIds());
+        assertEquals(Constants.SEARCH_CACHE_TTL_MS, cached.getTtlMs());
+    }
+
+    @Test
+    public void cacheWithDeletedFood_callsApiInsteadOfReturningPartialResults() throws Exception {
+        db.foodDao().upsertApiFoods(Arrays.asList(usdaFood(101, "Chicken breast")));
+        // 102 đã bị xóa khỏi foods (vd: deleteOldCachedFoods)
+        putCache(System.currentTimeMillis(), Constants.SEARCH_CACHE_TTL_MS, 101, 102);
+        api.response = Arrays.asList(usdaFood(101, "Chicken breast"), usdaFood(102, "Chicken thigh"));
+
+        search();
+
+        assertEquals(Arrays.asList("Chicken breast", "Chicken thigh"), names(next()));
+        assertNull(results.poll(QUIET_MS, TimeUnit.MILLISECONDS));
+        assertEquals(1, api.calls.get());
+    }
+
+    // ==================== HELPERS ====================
+
+    private void search() {
+        repository.searchHybrid(QUERY, new FoodRepository.HybridSearchCallback() {
+            @Override
+            public void onApiResults(List<Food> foods) {
+                results.add(foods);
+            }
+
+            @Override
+            public void onError(String error) {
+                errors.add(error);
+            }
+        });
+    }
+
+    private List<Food> next() throws InterruptedException {
+        List<Food> foods = results.poll(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        assertNotNull("No search results within " + TIMEOUT_MS + "ms", foods);
+        return foods;
+    }
+
+    private void putCache(long fetchedAt, long ttlMs, long... apiIds) {
+        List<String> ids = new ArrayList<>();
+        for (long apiId : apiIds) {
+            ids.add(String.valueOf(apiId));
+        }
+        SearchCache entry = new SearchCache();
+        entry.setQueryKey(SearchUtils.normalize(QUERY));
+        entry.setApiIds(TextUtils.join(",", ids));
+        entry.setFetchedAt(fetchedAt);
+        entry.setTtlMs(ttlMs);
+        db.searchCacheDao().put(entry);
+    }
+
+    private static Food usdaFood(long apiId, String name) {
+        Food food = new Food(name, 150f, 20f, 0f, 5f, "usda");
+        food.setApiId(apiId);
+        food.setApiSource("usda");
+        food.setCachedAt(System.currentTimeMillis());
+        food.setSearchName(SearchUtils.normalize(name));
+        return food;
+    }
+
+    private static List<String> names(List<Food> foods) {
+        List<String> names = new ArrayList<>();
+        for (Food food : foods) {
+            names.add(food.getName());
+        }
+        return names;
+    }
+
+    /**
+     * USDA API giả: trả response (hoặc error) ngay trên thread gọi
+     */
+    private static class FakeApiService extends UsdaApiService {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile List<Food> response = new ArrayList<>();
+        volatile String error;
+
+        FakeApiService(Context context) {
+            super(context);
+        }
+
+        @Override
+        public void searchFoods(String query, int maxResults, SearchCallback callback) {
+            calls.incrementAndGet();
+            if (error != null) {
+                callback.onError(error);
+            } else {
+                callback.onSuccess(new ArrayList<>(response));
+            }
+        }
+
+        @Override
+        public void cancelSearchesExcept(String query) {}
+
+        @Override
+        public void cancelAllRequests() {}
+    }
+}
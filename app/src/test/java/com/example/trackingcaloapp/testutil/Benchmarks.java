@@ -0,0 +1,91 @@
+package com.example.trackingcaloapp.testutil;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Đo thời gian và số bytes cấp phát (trên thread đang chạy) của một thao tác lặp lại.
+ * Dùng chung cho các benchmark test; số đo được đưa vào message của assertion, không in ra.
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {}
+
+    /**
+     * Thao tác cần đo
+     */
+    public interface Task {
+        /**
+         * @return Số item đã xử lý (dòng, food...) để tính số đo theo item
+         */
+        int run() throws Exception;
+    }
+
+    public static final class Measurement {
+        public final int iterations;
+        public final long items;
+        public final long elapsedNanos;
+        public final long allocatedBytes;   // -1 nếu JVM không hỗ trợ đếm allocation theo thread
+
+        Measurement(int iterations, long items, long elapsedNanos, long allocatedBytes) {
+            this.iterations = iterations;
+            this.items = items;
+            this.elapsedNanos = elapsedNanos;
+            this.allocatedBytes = allocatedBytes;
+        }
+
+        public boolean hasAllocation() {
+            return allocatedBytes >= 0;
+        }
+
+        public double millisPerRun() {
+            return elapsedNanos / 1_000_000.0 / iterations;
+        }
+
+        public double itemsPerMs() {
+            return items / (elapsedNanos / 1_000_000.0);
+        }
+
+        public long bytesPerRun() {
+            return hasAllocation() ? allocatedBytes / iterations : -1;
+        }
+
+        public long bytesPerItem() {
+            return hasAllocation() && items > 0 ? allocatedBytes / items : -1;
+        }
+    }
+
+    /**
+     * Chạy task warmup lần (không đo) rồi iterations lần có đo
+     */
+    public static Measurement measure(int warmup, int iterations, Task task) throws Exception {
+        for (int i = 0; i < warmup; i++) {
+            task.run();
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        long items = 0;
+        for (int i = 0; i < iterations; i++) {
+            items += task.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocatedAfter = allocatedBytes();
+
+        return new Measurement(iterations, items, elapsed,
+                allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore);
+    }
+
+    /**
+     * Tổng bytes đã cấp phát trên thread hiện tại, -1 nếu JVM không hỗ trợ
+     */
+    public static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
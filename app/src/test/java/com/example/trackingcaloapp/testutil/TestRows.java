@@ -0,0 +1,57 @@
+package com.example.trackingcaloapp.testutil;
+
+import android.database.Cursor;
+
+import androidx.sqlite.db.SupportSQLiteDatabase;
+import androidx.sqlite.db.SupportSQLiteStatement;
+
+/**
+ * Đổ dữ liệu lớn cho các test database (query plan, benchmark, migration)
+ * bằng compiled statements, không đi qua DAO.
+ */
+public final class TestRows {
+
+    /**
+     * Mốc thời gian cố định để dữ liệu sinh ra giống nhau ở mọi lần chạy
+     */
+    public static final long NOW = 1_760_000_000_000L;
+    public static final long DAY_MILLIS = 86_400_000L;
+
+    private TestRows() {}
+
+    /**
+     * Bind tham số cho dòng thứ index (từ 0)
+     */
+    public interface Binder {
+        void bind(SupportSQLiteStatement statement, int index);
+    }
+
+    /**
+     * Insert count dòng bằng một câu INSERT compile một lần.
+     * Gọi trong transaction (inTransaction) khi count lớn.
+     */
+    public static void insert(SupportSQLiteDatabase db, String sql, int count, Binder binder) {
+        SupportSQLiteStatement statement = db.compileStatement(sql);
+        for (int i = 0; i < count; i++) {
+            statement.clearBindings();
+            binder.bind(statement, i);
+            statement.executeInsert();
+        }
+    }
+
+    public static void inTransaction(SupportSQLiteDatabase db, Runnable body) {
+        db.beginTransaction();
+        try {
+            body.run();
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public static long count(SupportSQLiteDatabase db, String table) {
+        try (Cursor cursor = db.query("SELECT COUNT(*) FROM " + table)) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+}